@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.client;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Options of {@link WorkflowClient#startAll(Iterable, BulkOptions)} and {@link
+ * WorkflowClient#signalAll(Iterable, BulkOptions)}.
+ */
+public final class BulkOptions {
+
+  private static final BulkOptions DEFAULT_INSTANCE = new Builder().build();
+
+  public static BulkOptions defaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  public static final class Builder {
+
+    private int maxInFlightRequests = 100;
+    private Duration requestTimeout;
+
+    public Builder() {}
+
+    public Builder(BulkOptions o) {
+      if (o == null) {
+        return;
+      }
+      this.maxInFlightRequests = o.maxInFlightRequests;
+      this.requestTimeout = o.requestTimeout;
+    }
+
+    /**
+     * Maximum number of requests sent to the service and not yet completed, including the ones
+     * whose results are not consumed yet. Default is 100.
+     */
+    public Builder setMaxInFlightRequests(int maxInFlightRequests) {
+      if (maxInFlightRequests <= 0) {
+        throw new IllegalArgumentException("Negative or zero: " + maxInFlightRequests);
+      }
+      this.maxInFlightRequests = maxInFlightRequests;
+      return this;
+    }
+
+    /**
+     * Maximum time spent on a single item, including retries of transient failures. Default is to
+     * retry according to the default RPC retry options.
+     */
+    public Builder setRequestTimeout(Duration requestTimeout) {
+      Objects.requireNonNull(requestTimeout);
+      if (requestTimeout.isNegative() || requestTimeout.isZero()) {
+        throw new IllegalArgumentException("Negative or zero: " + requestTimeout);
+      }
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    public BulkOptions build() {
+      return new BulkOptions(maxInFlightRequests, requestTimeout);
+    }
+  }
+
+  private final int maxInFlightRequests;
+  private final Duration requestTimeout;
+
+  private BulkOptions(int maxInFlightRequests, Duration requestTimeout) {
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.requestTimeout = requestTimeout;
+  }
+
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  /** @return the per item timeout or null if not set. */
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkOptions{"
+        + "maxInFlightRequests="
+        + maxInFlightRequests
+        + ", requestTimeout="
+        + requestTimeout
+        + '}';
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.client;
+
+/**
+ * Outcome of a single item of a bulk operation.
+ *
+ * @param <R> result type of the item, {@link com.uber.cadence.WorkflowExecution} for starts and
+ *     {@link Void} for signals.
+ * @see WorkflowClient#startAll(Iterable, BulkOptions)
+ * @see WorkflowClient#signalAll(Iterable, BulkOptions)
+ */
+public final class BulkResult<R> {
+
+  private final int index;
+  private final String workflowId;
+  private final R result;
+  private final Throwable failure;
+
+  public BulkResult(int index, String workflowId, R result, Throwable failure) {
+    this.index = index;
+    this.workflowId = workflowId;
+    this.result = result;
+    this.failure = failure;
+  }
+
+  /** Position of the item in the iterable passed to the bulk operation. */
+  public int getIndex() {
+    return index;
+  }
+
+  public String getWorkflowId() {
+    return workflowId;
+  }
+
+  public boolean isSuccess() {
+    return failure == null;
+  }
+
+  /** @return result of the item, null if the item failed or has no result. */
+  public R getResult() {
+    return result;
+  }
+
+  /** @return failure of the item, null if the item succeeded. */
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkResult{"
+        + "index="
+        + index
+        + ", workflowId='"
+        + workflowId
+        + '\''
+        + ", result="
+        + result
+        + ", failure="
+        + failure
+        + '}';
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.client;
+
+import java.util.Objects;
+
+/** Single workflow signal of {@link WorkflowClient#signalAll(Iterable, BulkOptions)}. */
+public final class BulkSignalRequest {
+
+  /**
+   * @param stub untyped stub of a started workflow, for example created through {@link
+   *     WorkflowClient#newUntypedWorkflowStub(String, java.util.Optional, java.util.Optional)}.
+   * @param signalName name of the signal
+   * @param args signal arguments
+   */
+  public static BulkSignalRequest of(WorkflowStub stub, String signalName, Object... args) {
+    return new BulkSignalRequest(stub, signalName, args);
+  }
+
+  private final WorkflowStub stub;
+  private final String signalName;
+  private final Object[] args;
+
+  private BulkSignalRequest(WorkflowStub stub, String signalName, Object[] args) {
+    this.stub = Objects.requireNonNull(stub);
+    this.signalName = Objects.requireNonNull(signalName);
+    this.args = args;
+  }
+
+  public WorkflowStub getStub() {
+    return stub;
+  }
+
+  public String getSignalName() {
+    return signalName;
+  }
+
+  public Object[] getArgs() {
+    return args;
+  }
+}
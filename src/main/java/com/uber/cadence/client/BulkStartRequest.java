@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.client;
+
+import java.util.Objects;
+
+/** Single workflow start of {@link WorkflowClient#startAll(Iterable, BulkOptions)}. */
+public final class BulkStartRequest {
+
+  /**
+   * @param stub untyped stub created through {@link WorkflowClient#newUntypedWorkflowStub(String,
+   *     WorkflowOptions)}. Use {@link WorkflowStub#fromTyped(Object)} to convert a typed stub.
+   * @param args workflow arguments
+   */
+  public static BulkStartRequest of(WorkflowStub stub, Object... args) {
+    return new BulkStartRequest(stub, args);
+  }
+
+  private final WorkflowStub stub;
+  private final Object[] args;
+
+  private BulkStartRequest(WorkflowStub stub, Object[] args) {
+    this.stub = Objects.requireNonNull(stub);
+    this.args = args;
+  }
+
+  public WorkflowStub getStub() {
+    return stub;
+  }
+
+  public Object[] getArgs() {
+    return args;
+  }
+}
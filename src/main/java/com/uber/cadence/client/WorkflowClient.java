@@ -34,6 +34,7 @@ import com.uber.cadence.workflow.Functions.Proc4;
 import com.uber.cadence.workflow.Functions.Proc5;
 import com.uber.cadence.workflow.Functions.Proc6;
 import com.uber.cadence.workflow.WorkflowMethod;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -254,6 +255,34 @@ public interface WorkflowClient {
    */
   WorkflowExecution enqueueSignalWithStart(BatchRequest signalWithStartBatch);
 
+  /**
+   * Starts many workflows with a bounded number of concurrent start requests. Requests are sent
+   * asynchronously and each one is retried independently on transient failures. Items are taken
+   * from {@code starts} lazily, only when the number of in flight requests drops below {@link
+   * BulkOptions#getMaxInFlightRequests()}, so the iterable can generate an unbounded number of
+   * items.
+   *
+   * <p>The returned iterator produces one result per item in completion order and blocks until the
+   * next result is available. Requests are only sent while the iterator is consumed. Failure of an
+   * item doesn't affect the other items.
+   *
+   * @param starts workflows to start
+   * @param options bulk options
+   * @return per item results, in completion order
+   */
+  Iterator<BulkResult<WorkflowExecution>> startAll(
+      Iterable<BulkStartRequest> starts, BulkOptions options);
+
+  /**
+   * Signals many workflows with a bounded number of concurrent signal requests. See {@link
+   * #startAll(Iterable, BulkOptions)} for the semantic of the returned iterator.
+   *
+   * @param signals signals to send
+   * @param options bulk options
+   * @return per item results, in completion order
+   */
+  Iterator<BulkResult<Void>> signalAll(Iterable<BulkSignalRequest> signals, BulkOptions options);
+
   /**
    * Refreshes all the tasks of a given workflow.
    *
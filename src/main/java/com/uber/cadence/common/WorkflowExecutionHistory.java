@@ -45,15 +45,20 @@ public final class WorkflowExecutionHistory {
   }
 
   public static WorkflowExecutionHistory fromJson(String serialized) {
-    GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.registerTypeAdapter(byte[].class, new ByteArrayJsonDeserializer());
-    Gson gson = gsonBuilder.create();
+    Gson gson = newDeserializingGson();
     Type eventsType = new TypeToken<List<HistoryEvent>>() {}.getType();
     List<HistoryEvent> events = gson.fromJson(serialized, eventsType);
     checkHistory(events);
     return new WorkflowExecutionHistory(events);
   }
 
+  /** Gson instance that understands the json format produced by the Cadence CLI and UI. */
+  static Gson newDeserializingGson() {
+    GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.registerTypeAdapter(byte[].class, new ByteArrayJsonDeserializer());
+    return gsonBuilder.create();
+  }
+
   private static void checkHistory(List<HistoryEvent> events) {
     if (events == null || events.size() == 0) {
       throw new IllegalArgumentException("Empty history");
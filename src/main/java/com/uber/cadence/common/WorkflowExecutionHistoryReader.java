@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.uber.cadence.HistoryEvent;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams workflow histories out of a history archive. An archive is a sequence of json serialized
+ * histories, each one being an array of events in the same format accepted by {@link
+ * WorkflowExecutionHistory#fromJson(String)}. Histories are usually written one per line
+ * (newline-delimited json), optionally gzip compressed.
+ *
+ * <p>Events are parsed one by one directly from the (decompressed) stream, so neither the archive
+ * nor the json of a single history is ever held in memory as a string.
+ */
+public final class WorkflowExecutionHistoryReader
+    implements Iterator<WorkflowExecutionHistory>, Closeable {
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  private final JsonReader reader;
+  private final Gson gson;
+  private boolean closed;
+
+  /**
+   * Opens a history archive file. Gzip compression is detected from the file content, so the file
+   * name does not matter.
+   */
+  public static WorkflowExecutionHistoryReader open(File archive) throws IOException {
+    InputStream in = new BufferedInputStream(Files.newInputStream(archive.toPath()));
+    try {
+      return new WorkflowExecutionHistoryReader(in);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /** Reads an archive from a stream that is gzip compressed or plain json. */
+  public WorkflowExecutionHistoryReader(InputStream in) throws IOException {
+    this(new InputStreamReader(maybeDecompress(in), UTF_8));
+  }
+
+  /** Reads an archive of uncompressed json. */
+  public WorkflowExecutionHistoryReader(Reader reader) {
+    this.reader = new JsonReader(reader);
+    // Lenient mode allows multiple top level values in a single stream.
+    this.reader.setLenient(true);
+    this.gson = WorkflowExecutionHistory.newDeserializingGson();
+  }
+
+  private static InputStream maybeDecompress(InputStream in) throws IOException {
+    if (!in.markSupported()) {
+      in = new BufferedInputStream(in);
+    }
+    in.mark(2);
+    int magic = in.read() | (in.read() << 8);
+    in.reset();
+    if (magic == GZIP_MAGIC) {
+      return new GZIPInputStream(in);
+    }
+    return in;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    try {
+      return reader.peek() != JsonToken.END_DOCUMENT;
+    } catch (EOFException e) {
+      // Empty archive.
+      return false;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads the next history of the archive.
+   *
+   * @throws IllegalArgumentException if the next entry is well formed json, but not a valid
+   *     history. The entry is consumed, so the iteration can continue with the following one.
+   * @throws RuntimeException of any other type if the archive is corrupted. The position in the
+   *     stream is unknown afterwards, so the remaining histories can't be read.
+   */
+  @Override
+  public WorkflowExecutionHistory next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<HistoryEvent> events = new ArrayList<>();
+    try {
+      reader.beginArray();
+      while (reader.hasNext()) {
+        events.add(gson.fromJson(reader, HistoryEvent.class));
+      }
+      reader.endArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (IllegalArgumentException e) {
+      // Thrown while in the middle of an entry, for example for a malformed payload.
+      throw new JsonParseException(e);
+    }
+    return new WorkflowExecutionHistory(events);
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    reader.close();
+  }
+}
@@ -131,7 +131,11 @@ public interface ContextPropagator {
   /** Turn the serialized header data into context object(s) */
   Object deserializeContext(Map<String, byte[]> context);
 
-  /** Returns the current context in object form */
+  /**
+   * Returns the current context in object form. Workflows reuse the previously serialized context
+   * while the returned object is equal to the previously returned one, so a returned object should
+   * not be modified afterwards.
+   */
   Object getCurrentContext();
 
   /** Sets the current context */
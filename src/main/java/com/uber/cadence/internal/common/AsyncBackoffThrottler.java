@@ -24,6 +24,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -60,7 +61,15 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public final class AsyncBackoffThrottler {
 
-  private static final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+  /**
+   * Completion of a delay future runs the throttled code, so the timer threads also execute the
+   * retried calls. Sized to the number of processors so that concurrent retries don't queue behind
+   * each other on a single thread.
+   */
+  private static final int EXECUTOR_THREAD_COUNT =
+      Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private static final ScheduledExecutorService executor = newExecutor();
 
   private final Duration initialSleep;
 
@@ -89,6 +98,21 @@ public final class AsyncBackoffThrottler {
     this.backoffCoefficient = backoffCoefficient;
   }
 
+  private static ScheduledExecutorService newExecutor() {
+    AtomicInteger threadIndex = new AtomicInteger();
+    ScheduledThreadPoolExecutor result =
+        new ScheduledThreadPoolExecutor(
+            EXECUTOR_THREAD_COUNT,
+            r -> {
+              Thread thread =
+                  new Thread(r, "async-backoff-throttler-" + threadIndex.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    result.setRemoveOnCancelPolicy(true);
+    return result;
+  }
+
   private long calculateSleepTime() {
     double sleepMillis =
         Math.pow(backoffCoefficient, failureCount.get() - 1) * initialSleep.toMillis();
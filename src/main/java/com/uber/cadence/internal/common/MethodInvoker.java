@@ -0,0 +1,178 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Invokes an interface method of activity and workflow implementations. Created once when an
+ * implementation is registered, so the parameter types used by the {@link
+ * com.uber.cadence.converter.DataConverter} are not copied on every call and the method is called
+ * through a {@link MethodHandle} instead of {@link Method#invoke(Object, Object...)}. Falls back to
+ * reflection when the method is not accessible through a method handle.
+ *
+ * <p>{@link #invoke(Object, Object[])} reports failures like {@link Method#invoke(Object,
+ * Object...)}: an exception thrown by the method is wrapped into {@link InvocationTargetException}
+ * and a target of a wrong class, a wrong number of arguments, an argument of a wrong type or a null
+ * primitive argument causes {@link IllegalArgumentException}.
+ */
+public final class MethodInvoker {
+
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  // Argument types that are converted to each primitive parameter type, including the widening
+  // conversions that Method.invoke and MethodHandle.asType apply.
+  private static final Map<Class<?>, Set<Class<?>>> PRIMITIVE_ARGUMENT_TYPES =
+      ImmutableMap.<Class<?>, Set<Class<?>>>builder()
+          .put(boolean.class, ImmutableSet.of(Boolean.class))
+          .put(byte.class, ImmutableSet.of(Byte.class))
+          .put(short.class, ImmutableSet.of(Short.class, Byte.class))
+          .put(char.class, ImmutableSet.of(Character.class))
+          .put(int.class, ImmutableSet.of(Integer.class, Short.class, Byte.class, Character.class))
+          .put(
+              long.class,
+              ImmutableSet.of(Long.class, Integer.class, Short.class, Byte.class, Character.class))
+          .put(
+              float.class,
+              ImmutableSet.of(
+                  Float.class, Long.class, Integer.class, Short.class, Byte.class, Character.class))
+          .put(
+              double.class,
+              ImmutableSet.of(
+                  Double.class,
+                  Float.class,
+                  Long.class,
+                  Integer.class,
+                  Short.class,
+                  Byte.class,
+                  Character.class))
+          .build();
+
+  private final Method method;
+  private final Type[] parameterTypes;
+  private final Class<?>[] rawParameterTypes;
+  private final boolean returnsVoid;
+  private final MethodHandle handle;
+
+  public MethodInvoker(Method method) {
+    this.method = method;
+    this.parameterTypes = method.getGenericParameterTypes();
+    this.rawParameterTypes = method.getParameterTypes();
+    this.returnsVoid = method.getReturnType() == Void.TYPE;
+    this.handle = newHandle(method);
+  }
+
+  private static MethodHandle newHandle(Method method) {
+    try {
+      return MethodHandles.publicLookup()
+          .unreflect(method)
+          .asSpreader(Object[].class, method.getParameterCount())
+          .asType(INVOKER_TYPE);
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  public Method getMethod() {
+    return method;
+  }
+
+  /**
+   * Generic parameter types of the method. The returned array is shared and must not be modified.
+   */
+  public Type[] getParameterTypes() {
+    return parameterTypes;
+  }
+
+  public boolean returnsVoid() {
+    return returnsVoid;
+  }
+
+  /** Calls the method on the target. Returns null for void methods. */
+  public Object invoke(Object target, Object[] args)
+      throws IllegalAccessException, InvocationTargetException {
+    if (handle == null) {
+      return method.invoke(target, args);
+    }
+    checkArguments(target, args);
+    try {
+      return (Object) handle.invokeExact(target, args);
+    } catch (Throwable e) {
+      throw new InvocationTargetException(e);
+    }
+  }
+
+  /**
+   * Rejects the arguments that the method handle would fail to adapt. Otherwise the resulting
+   * exception would be indistinguishable from one thrown by the method itself.
+   */
+  private void checkArguments(Object target, Object[] args) {
+    if (!method.getDeclaringClass().isInstance(target)) {
+      if (target == null) {
+        throw new NullPointerException("null target for " + method);
+      }
+      throw new IllegalArgumentException(
+          "object of " + target.getClass().getName() + " is not an instance of declaring class");
+    }
+    int length = args == null ? 0 : args.length;
+    if (length != rawParameterTypes.length) {
+      throw new IllegalArgumentException(
+          "wrong number of arguments: expected "
+              + rawParameterTypes.length
+              + ", got "
+              + length
+              + " for "
+              + method);
+    }
+    for (int i = 0; i < length; i++) {
+      Object arg = args[i];
+      Class<?> type = rawParameterTypes[i];
+      if (arg == null) {
+        if (type.isPrimitive()) {
+          throw new IllegalArgumentException(
+              "null value for primitive parameter " + i + " of " + method);
+        }
+      } else if (type.isPrimitive()
+          ? !PRIMITIVE_ARGUMENT_TYPES.get(type).contains(arg.getClass())
+          : !type.isInstance(arg)) {
+        throw new IllegalArgumentException(
+            "argument type mismatch: "
+                + arg.getClass().getName()
+                + " for parameter "
+                + i
+                + " of "
+                + method);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MethodInvoker{" + method + '}';
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.common;
+
+import com.uber.cadence.CadenceError;
+import com.uber.cadence.EventType;
+import com.uber.cadence.GetWorkflowExecutionHistoryRequest;
+import com.uber.cadence.GetWorkflowExecutionHistoryResponse;
+import com.uber.cadence.History;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.HistoryEventFilterType;
+import com.uber.cadence.WorkflowExecution;
+import com.uber.cadence.common.RetryOptions;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
+import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.m3.tally.Scope;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deduplicates callers waiting for the close event of the same workflow run. All waiters of a run
+ * share a single long poll {@code GetWorkflowExecutionHistory} loop, so the number of outstanding
+ * polls is proportional to the number of distinct runs, not to the number of waiters. Timeouts of
+ * individual waiters are tracked on a shared timer and never cancel the shared poll. Each poll
+ * attempt is bounded by the longest remaining timeout of the waiters, and the poll including its
+ * retries is abandoned as soon as its last waiter is gone.
+ */
+public final class WorkflowCompletionWaiters {
+
+  private static final ScheduledThreadPoolExecutor timer = newTimer();
+
+  private final IWorkflowService service;
+  private final String domain;
+  private final Scope metricsScope;
+  private final ConcurrentMap<String, RunWaiters> waiters = new ConcurrentHashMap<>();
+  private final AtomicInteger outstandingWaiters = new AtomicInteger();
+
+  public WorkflowCompletionWaiters(IWorkflowService service, String domain, Scope metricsScope) {
+    this.service = service;
+    this.domain = domain;
+    this.metricsScope = metricsScope;
+  }
+
+  private static ScheduledThreadPoolExecutor newTimer() {
+    ScheduledThreadPoolExecutor result =
+        new ScheduledThreadPoolExecutor(
+            1,
+            r -> {
+              Thread thread = new Thread(r, "workflow-completion-waiters-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    // Most waiters complete before their timeout, don't keep their timers in the queue.
+    result.setRemoveOnCancelPolicy(true);
+    return result;
+  }
+
+  /**
+   * Returns a future that is completed with the close event of the workflow execution. Follows
+   * continue as new runs like {@link WorkflowExecutionUtils#getWorkflowExecutionResult}.
+   */
+  public CompletableFuture<HistoryEvent> waitForCloseEvent(
+      WorkflowExecution execution, long timeout, TimeUnit unit) {
+    CompletableFuture<HistoryEvent> waiter = new CompletableFuture<>();
+    metricsScope
+        .gauge(MetricsType.WORKFLOW_RESULT_WAITERS)
+        .update(outstandingWaiters.incrementAndGet());
+    waiter.whenComplete(
+        (r, e) ->
+            metricsScope
+                .gauge(MetricsType.WORKFLOW_RESULT_WAITERS)
+                .update(outstandingWaiters.decrementAndGet()));
+    String key = execution.getWorkflowId() + "/" + execution.getRunId();
+    long timeoutMillis = unit.toMillis(timeout);
+    boolean bounded = timeoutMillis != 0 && timeoutMillis != Long.MAX_VALUE;
+    long deadline = bounded ? System.nanoTime() + unit.toNanos(timeout) : Long.MAX_VALUE;
+    RunWaiters runWaiters;
+    boolean startPoll;
+    while (true) {
+      runWaiters = waiters.computeIfAbsent(key, (k) -> new RunWaiters(k));
+      synchronized (runWaiters) {
+        if (runWaiters.closed) {
+          // Lost the race with the completion of the previous poll.
+          continue;
+        }
+        runWaiters.deadlines.put(waiter, deadline);
+        startPoll = !runWaiters.polling;
+        runWaiters.polling = true;
+      }
+      break;
+    }
+    RunWaiters joined = runWaiters;
+    waiter.whenComplete(
+        (r, e) -> {
+          if (joined.leave(waiter)) {
+            waiters.remove(key, joined);
+          }
+        });
+    if (startPoll) {
+      metricsScope.counter(MetricsType.WORKFLOW_RESULT_POLL_COUNTER).inc(1);
+      poll(runWaiters, execution, null);
+    }
+    if (bounded) {
+      scheduleTimeout(waiter, execution, timeout, unit);
+    }
+    return waiter;
+  }
+
+  private void scheduleTimeout(
+      CompletableFuture<HistoryEvent> waiter,
+      WorkflowExecution execution,
+      long timeout,
+      TimeUnit unit) {
+    ScheduledFuture<?> timeoutFuture =
+        timer.schedule(
+            () ->
+                // Complete outside of the timer thread as completion runs the callers' callbacks.
+                ForkJoinPool.commonPool()
+                    .execute(
+                        () ->
+                            waiter.completeExceptionally(
+                                CheckedExceptionWrapper.wrap(
+                                    new TimeoutException(
+                                        "WorkflowId="
+                                            + execution.getWorkflowId()
+                                            + ", runId="
+                                            + execution.getRunId()
+                                            + ", timeout="
+                                            + timeout
+                                            + ", unit="
+                                            + unit)))),
+            timeout,
+            unit);
+    waiter.whenComplete((r, e) -> timeoutFuture.cancel(false));
+  }
+
+  private void poll(RunWaiters runWaiters, WorkflowExecution execution, byte[] pageToken) {
+    if (runWaiters.getRemainingMillis() == 0) {
+      waiters.remove(runWaiters.key, runWaiters);
+      return;
+    }
+    GetWorkflowExecutionHistoryRequest request = new GetWorkflowExecutionHistoryRequest();
+    request.setDomain(domain);
+    request.setExecution(execution);
+    request.setHistoryEventFilterType(HistoryEventFilterType.CLOSE_EVENT);
+    request.setWaitForNewEvent(true);
+    request.setSkipArchival(true);
+    request.setNextPageToken(pageToken);
+    // Retries end through pollOnce once no waiter is left, so they are bounded by the waiters.
+    RetryOptions retryOptions =
+        new RetryOptions.Builder(RpcRetryer.DEFAULT_RPC_RETRY_OPTIONS)
+            .setExpiration(Duration.ofMillis(Long.MAX_VALUE))
+            .build();
+    RpcRetryer.retryWithResultAsync(retryOptions, () -> pollOnce(runWaiters, request))
+        .whenComplete(
+            (r, e) -> {
+              if (e == null && r == null) {
+                // All waiters are gone.
+                return;
+              }
+              if (e != null) {
+                complete(runWaiters, null, e);
+                return;
+              }
+              History history = r.getHistory();
+              if (history == null || history.getEvents().size() == 0) {
+                // Empty poll returned
+                poll(runWaiters, execution, pageToken);
+                return;
+              }
+              HistoryEvent event = history.getEvents().get(0);
+              if (!WorkflowExecutionUtils.isWorkflowExecutionCompletedEvent(event)) {
+                complete(
+                    runWaiters,
+                    null,
+                    new RuntimeException("Last history event is not completion event: " + event));
+                return;
+              }
+              // Workflow called continueAsNew. Start polling the new generation with new runId.
+              if (event.getEventType() == EventType.WorkflowExecutionContinuedAsNew) {
+                WorkflowExecution nextWorkflowExecution =
+                    new WorkflowExecution()
+                        .setWorkflowId(execution.getWorkflowId())
+                        .setRunId(
+                            event
+                                .getWorkflowExecutionContinuedAsNewEventAttributes()
+                                .getNewExecutionRunId());
+                poll(runWaiters, nextWorkflowExecution, r.getNextPageToken());
+                return;
+              }
+              complete(runWaiters, event, null);
+            });
+  }
+
+  /**
+   * Issues a single poll attempt. Its result is completed with null without waiting for the
+   * response once the last waiter of the run is gone.
+   */
+  private CompletableFuture<GetWorkflowExecutionHistoryResponse> pollOnce(
+      RunWaiters runWaiters, GetWorkflowExecutionHistoryRequest request) {
+    CompletableFuture<GetWorkflowExecutionHistoryResponse> result = new CompletableFuture<>();
+    long remainingMillis = runWaiters.startAttempt(result);
+    if (remainingMillis == 0) {
+      result.complete(null);
+      return result;
+    }
+    try {
+      service.GetWorkflowExecutionHistoryWithTimeout(
+          request,
+          new AsyncMethodCallback<GetWorkflowExecutionHistoryResponse>() {
+            @Override
+            public void onComplete(GetWorkflowExecutionHistoryResponse response) {
+              result.complete(response);
+            }
+
+            @Override
+            public void onError(Exception exception) {
+              result.completeExceptionally(exception);
+            }
+          },
+          remainingMillis);
+    } catch (CadenceError e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  private void complete(RunWaiters runWaiters, HistoryEvent event, Throwable failure) {
+    List<CompletableFuture<HistoryEvent>> futures = runWaiters.close();
+    waiters.remove(runWaiters.key, runWaiters);
+    for (CompletableFuture<HistoryEvent> future : futures) {
+      if (failure == null) {
+        future.complete(event);
+      } else {
+        future.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /** Number of callers currently waiting for a workflow to complete. */
+  public int getOutstandingWaiterCount() {
+    return outstandingWaiters.get();
+  }
+
+  /** Number of distinct workflow runs being polled. */
+  public int getPolledRunCount() {
+    return waiters.size();
+  }
+
+  private static final class RunWaiters {
+    private final String key;
+    /** Pending waiters with their System#nanoTime deadlines, Long.MAX_VALUE when unbounded. */
+    private final Map<CompletableFuture<HistoryEvent>, Long> deadlines = new LinkedHashMap<>();
+
+    private CompletableFuture<GetWorkflowExecutionHistoryResponse> attempt;
+    private boolean polling;
+    private boolean closed;
+
+    RunWaiters(String key) {
+      this.key = key;
+    }
+
+    /**
+     * Returns the longest remaining timeout of the pending waiters in milliseconds, {@link
+     * Long#MAX_VALUE} if any of them waits without a timeout, or 0 after closing the run if none
+     * are left.
+     */
+    synchronized long getRemainingMillis() {
+      deadlines.keySet().removeIf(CompletableFuture::isDone);
+      if (deadlines.isEmpty()) {
+        closed = true;
+      }
+      if (closed) {
+        return 0;
+      }
+      long deadline = Collections.max(deadlines.values());
+      if (deadline == Long.MAX_VALUE) {
+        return Long.MAX_VALUE;
+      }
+      return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /** Registers the in flight poll attempt and returns its timeout, 0 if the run is closed. */
+    synchronized long startAttempt(CompletableFuture<GetWorkflowExecutionHistoryResponse> attempt) {
+      long result = getRemainingMillis();
+      if (result != 0) {
+        this.attempt = attempt;
+      }
+      return result;
+    }
+
+    /**
+     * Removes a completed waiter. Returns true if it was the last one, in which case the run is
+     * closed and its in flight poll attempt abandoned.
+     */
+    boolean leave(CompletableFuture<HistoryEvent> waiter) {
+      CompletableFuture<GetWorkflowExecutionHistoryResponse> abandoned;
+      synchronized (this) {
+        deadlines.remove(waiter);
+        if (closed || !deadlines.isEmpty()) {
+          return false;
+        }
+        closed = true;
+        abandoned = attempt;
+      }
+      if (abandoned != null) {
+        abandoned.complete(null);
+      }
+      return true;
+    }
+
+    synchronized List<CompletableFuture<HistoryEvent>> close() {
+      closed = true;
+      return new ArrayList<>(deadlines.keySet());
+    }
+  }
+}
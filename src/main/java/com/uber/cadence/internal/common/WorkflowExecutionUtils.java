@@ -123,6 +123,23 @@ public class WorkflowExecutionUtils {
             (closeEvent) -> getResultFromCloseEvent(workflowExecution, workflowType, closeEvent));
   }
 
+  /**
+   * Same as {@link #getWorkflowExecutionResultAsync(IWorkflowService, String, WorkflowExecution,
+   * Optional, long, TimeUnit)}, but shares the long poll with other callers waiting for the same
+   * workflow run.
+   */
+  public static CompletableFuture<byte[]> getWorkflowExecutionResultAsync(
+      WorkflowCompletionWaiters waiters,
+      WorkflowExecution workflowExecution,
+      Optional<String> workflowType,
+      long timeout,
+      TimeUnit unit) {
+    return waiters
+        .waitForCloseEvent(workflowExecution, timeout, unit)
+        .thenApply(
+            (closeEvent) -> getResultFromCloseEvent(workflowExecution, workflowType, closeEvent));
+  }
+
   private static byte[] getResultFromCloseEvent(
       WorkflowExecution workflowExecution, Optional<String> workflowType, HistoryEvent closeEvent) {
     if (closeEvent == null) {
@@ -480,29 +497,84 @@ public class WorkflowExecutionUtils {
 
   public static String prettyPrintHistory(
       Iterator<HistoryEvent> events, boolean showWorkflowTasks) {
+    return prettyPrintHistory(events, showWorkflowTasks, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns history in a human readable format rendering at most {@code maxEvents} events. The
+   * remaining events are only counted, so the cost of the call is bounded by the limit rather than
+   * by the history size.
+   *
+   * @param events events to pretty print
+   * @param showWorkflowTasks when false decision task events are skipped
+   * @param maxEvents maximum number of events to render
+   */
+  public static String prettyPrintHistory(
+      Iterator<HistoryEvent> events, boolean showWorkflowTasks, int maxEvents) {
+    if (maxEvents < 0) {
+      throw new IllegalArgumentException("Negative maxEvents: " + maxEvents);
+    }
     StringBuilder result = new StringBuilder();
     result.append("{");
-    boolean first = true;
+    int printed = 0;
+    int omitted = 0;
     long firstTimestamp = 0;
     while (events.hasNext()) {
       HistoryEvent event = events.next();
       if (!showWorkflowTasks && event.getEventType().toString().startsWith("WorkflowTask")) {
         continue;
       }
-      if (first) {
-        first = false;
+      if (printed >= maxEvents) {
+        omitted++;
+        continue;
+      }
+      if (printed == 0) {
         firstTimestamp = event.getTimestamp();
       } else {
         result.append(",");
       }
+      printed++;
       result.append("\n");
       result.append(INDENTATION);
       result.append(prettyPrintHistoryEvent(event, firstTimestamp));
     }
+    appendOmitted(result, omitted, "events");
     result.append("\n}");
     return result.toString();
   }
 
+  /**
+   * Returns a one line summary of the events: their count and the range of event ids. Intended for
+   * log messages and {@code toString} implementations that are evaluated on the hot path.
+   */
+  public static String summarizeHistory(Iterable<HistoryEvent> events) {
+    int count = 0;
+    long firstEventId = 0;
+    long lastEventId = 0;
+    for (HistoryEvent event : events) {
+      if (count == 0) {
+        firstEventId = event.getEventId();
+      }
+      lastEventId = event.getEventId();
+      count++;
+    }
+    if (count == 0) {
+      return "[0 events]";
+    }
+    return "[" + count + " events, ids " + firstEventId + ".." + lastEventId + "]";
+  }
+
+  private static void appendOmitted(StringBuilder result, int omitted, String what) {
+    if (omitted > 0) {
+      result.append(",\n");
+      result.append(INDENTATION);
+      result.append("... ");
+      result.append(omitted);
+      result.append(" more ");
+      result.append(what);
+    }
+  }
+
   /**
    * Returns single event in a human readable format
    *
@@ -546,19 +618,37 @@ public class WorkflowExecutionUtils {
    * @param decisions decisions to pretty print
    */
   public static String prettyPrintDecisions(Iterable<Decision> decisions) {
+    return prettyPrintDecisions(decisions, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns decisions in a human readable format rendering at most {@code maxDecisions} of them.
+   *
+   * @param decisions decisions to pretty print
+   * @param maxDecisions maximum number of decisions to render
+   */
+  public static String prettyPrintDecisions(Iterable<Decision> decisions, int maxDecisions) {
+    if (maxDecisions < 0) {
+      throw new IllegalArgumentException("Negative maxDecisions: " + maxDecisions);
+    }
     StringBuilder result = new StringBuilder();
     result.append("{");
-    boolean first = true;
+    int printed = 0;
+    int omitted = 0;
     for (Decision decision : decisions) {
-      if (first) {
-        first = false;
-      } else {
+      if (printed >= maxDecisions) {
+        omitted++;
+        continue;
+      }
+      if (printed > 0) {
         result.append(",");
       }
+      printed++;
       result.append("\n");
       result.append(INDENTATION);
       result.append(prettyPrintDecision(decision));
     }
+    appendOmitted(result, omitted, "decisions");
     result.append("\n}");
     return result.toString();
   }
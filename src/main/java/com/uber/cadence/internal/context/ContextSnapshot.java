@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.context;
+
+import com.uber.cadence.context.ContextPropagator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the current contexts of a list of propagators. {@link #capture(List,
+ * ContextSnapshot)} returns the previous snapshot as long as every propagator reports a context
+ * equal to the one it reported before, so the context map and its serialized form are only rebuilt
+ * after a context actually changes.
+ */
+public final class ContextSnapshot {
+
+  private static final ContextSnapshot EMPTY =
+      new ContextSnapshot(Collections.emptyList(), new Object[0], Collections.emptyMap());
+
+  private final List<ContextPropagator> propagators;
+  private final Object[] contexts;
+  private final Map<String, Object> contextsByName;
+  private Map<String, byte[]> serialized;
+
+  private ContextSnapshot(
+      List<ContextPropagator> propagators, Object[] contexts, Map<String, Object> contextsByName) {
+    this.propagators = propagators;
+    this.contexts = contexts;
+    this.contextsByName = contextsByName;
+  }
+
+  /**
+   * Returns the snapshot of the current contexts of the propagators.
+   *
+   * @param previous snapshot returned by the previous call or null. It is returned again if none of
+   *     the contexts changed since it was captured.
+   */
+  public static ContextSnapshot capture(
+      List<ContextPropagator> propagators, ContextSnapshot previous) {
+    if (propagators == null || propagators.isEmpty()) {
+      return EMPTY;
+    }
+    int size = propagators.size();
+    if (previous != null
+        && previous.propagators == propagators
+        && previous.contexts.length == size) {
+      boolean changed = false;
+      for (int i = 0; i < size; i++) {
+        if (!Objects.equals(previous.contexts[i], propagators.get(i).getCurrentContext())) {
+          changed = true;
+          break;
+        }
+      }
+      if (!changed) {
+        return previous;
+      }
+    }
+    Object[] contexts = new Object[size];
+    Map<String, Object> contextsByName = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      ContextPropagator propagator = propagators.get(i);
+      contexts[i] = propagator.getCurrentContext();
+      contextsByName.put(propagator.getName(), contexts[i]);
+    }
+    return new ContextSnapshot(propagators, contexts, Collections.unmodifiableMap(contextsByName));
+  }
+
+  /** Context objects keyed by propagator name. */
+  public Map<String, Object> getContexts() {
+    return contextsByName;
+  }
+
+  /** Contexts serialized by their propagators. Computed on the first call and then reused. */
+  public Map<String, byte[]> getSerializedContexts() {
+    if (serialized == null) {
+      if (propagators.isEmpty()) {
+        serialized = Collections.emptyMap();
+      } else {
+        Map<String, byte[]> result = new HashMap<>();
+        for (int i = 0; i < contexts.length; i++) {
+          result.putAll(propagators.get(i).serializeContext(contexts[i]));
+        }
+        serialized = Collections.unmodifiableMap(result);
+      }
+    }
+    return serialized;
+  }
+}
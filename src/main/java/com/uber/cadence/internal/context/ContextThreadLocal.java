@@ -19,8 +19,7 @@ package com.uber.cadence.internal.context;
 
 import com.uber.cadence.context.ContextPropagator;
 import com.uber.cadence.workflow.WorkflowThreadLocal;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -33,10 +32,13 @@ public class ContextThreadLocal {
           new Supplier<List<ContextPropagator>>() {
             @Override
             public List<ContextPropagator> get() {
-              return new ArrayList<>();
+              return Collections.emptyList();
             }
           });
 
+  private static WorkflowThreadLocal<ContextSnapshot> lastSnapshot =
+      WorkflowThreadLocal.withInitial(() -> null);
+
   /** Sets the list of context propagators for the thread */
   public static void setContextPropagators(List<ContextPropagator> propagators) {
     if (propagators == null || propagators.isEmpty()) {
@@ -49,12 +51,18 @@ public class ContextThreadLocal {
     return contextPropagators.get();
   }
 
+  /**
+   * Returns an immutable map of the current contexts keyed by propagator name. The same map is
+   * returned while the contexts do not change.
+   */
   public static Map<String, Object> getCurrentContextForPropagation() {
-    Map<String, Object> contextData = new HashMap<>();
-    for (ContextPropagator propagator : contextPropagators.get()) {
-      contextData.put(propagator.getName(), propagator.getCurrentContext());
+    List<ContextPropagator> propagators = contextPropagators.get();
+    if (propagators.isEmpty()) {
+      return Collections.emptyMap();
     }
-    return contextData;
+    ContextSnapshot snapshot = ContextSnapshot.capture(propagators, lastSnapshot.get());
+    lastSnapshot.set(snapshot);
+    return snapshot.getContexts();
   }
 
   public static void propagateContextToCurrentThread(Map<String, Object> contextData) {
@@ -23,6 +23,7 @@ import com.uber.cadence.WorkflowExecutionAlreadyStartedError;
 import com.uber.cadence.internal.common.SignalWithStartWorkflowExecutionParameters;
 import com.uber.cadence.internal.common.StartWorkflowExecutionParameters;
 import com.uber.cadence.internal.common.TerminateWorkflowExecutionParameters;
+import com.uber.cadence.internal.common.WorkflowCompletionWaiters;
 import com.uber.cadence.internal.replay.QueryWorkflowParameters;
 import com.uber.cadence.internal.replay.SignalExternalWorkflowParameters;
 import com.uber.cadence.serviceclient.IWorkflowService;
@@ -67,6 +68,9 @@ public interface GenericWorkflowClientExternal {
 
   String generateUniqueId();
 
+  /** Registry used to wait for workflow completion without a long poll per waiter. */
+  WorkflowCompletionWaiters getCompletionWaiters();
+
   IWorkflowService getService();
 
   String getDomain();
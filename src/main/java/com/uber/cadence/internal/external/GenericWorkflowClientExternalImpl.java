@@ -40,12 +40,16 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
   private final String domain;
   private final IWorkflowService service;
   private final Scope metricsScope;
+  private final WorkflowCompletionWaiters completionWaiters;
 
   public GenericWorkflowClientExternalImpl(
       IWorkflowService service, String domain, Scope metricsScope) {
     this.service = service;
     this.domain = domain;
     this.metricsScope = metricsScope;
+    this.completionWaiters =
+        new WorkflowCompletionWaiters(
+            service, domain, metricsScope.tagged(ImmutableMap.of(MetricsTag.DOMAIN, domain)));
   }
 
   @Override
@@ -58,6 +62,11 @@ public final class GenericWorkflowClientExternalImpl implements GenericWorkflowC
     return service;
   }
 
+  @Override
+  public WorkflowCompletionWaiters getCompletionWaiters() {
+    return completionWaiters;
+  }
+
   @Override
   public WorkflowExecution startWorkflow(StartWorkflowExecutionParameters startParameters)
       throws WorkflowExecutionAlreadyStartedError {
@@ -18,11 +18,12 @@
 package com.uber.cadence.internal.logging;
 
 import com.uber.cadence.internal.replay.ReplayAware;
+import com.uber.cadence.workflow.WorkflowLogger;
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 
-public class ReplayAwareLogger implements Logger {
+public class ReplayAwareLogger implements WorkflowLogger {
   private final Logger log;
   private final ReplayAware context;
   private final Supplier<Boolean> enableLoggingInReplay;
@@ -479,6 +480,76 @@ public class ReplayAwareLogger implements Logger {
     log.error(marker, msg, t);
   }
 
+  @Override
+  public void trace(Supplier<String> message) {
+    if (isTraceEnabled()) {
+      log.trace(message.get());
+    }
+  }
+
+  @Override
+  public void trace(Supplier<String> message, Throwable t) {
+    if (isTraceEnabled()) {
+      log.trace(message.get(), t);
+    }
+  }
+
+  @Override
+  public void debug(Supplier<String> message) {
+    if (isDebugEnabled()) {
+      log.debug(message.get());
+    }
+  }
+
+  @Override
+  public void debug(Supplier<String> message, Throwable t) {
+    if (isDebugEnabled()) {
+      log.debug(message.get(), t);
+    }
+  }
+
+  @Override
+  public void info(Supplier<String> message) {
+    if (isInfoEnabled()) {
+      log.info(message.get());
+    }
+  }
+
+  @Override
+  public void info(Supplier<String> message, Throwable t) {
+    if (isInfoEnabled()) {
+      log.info(message.get(), t);
+    }
+  }
+
+  @Override
+  public void warn(Supplier<String> message) {
+    if (isWarnEnabled()) {
+      log.warn(message.get());
+    }
+  }
+
+  @Override
+  public void warn(Supplier<String> message, Throwable t) {
+    if (isWarnEnabled()) {
+      log.warn(message.get(), t);
+    }
+  }
+
+  @Override
+  public void error(Supplier<String> message) {
+    if (isErrorEnabled()) {
+      log.error(message.get());
+    }
+  }
+
+  @Override
+  public void error(Supplier<String> message, Throwable t) {
+    if (isErrorEnabled()) {
+      log.error(message.get(), t);
+    }
+  }
+
   private boolean shouldSkipLogging() {
     return context.isReplaying() && !enableLoggingInReplay.get();
   }
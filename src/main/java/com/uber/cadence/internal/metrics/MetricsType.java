@@ -41,11 +41,24 @@ public class MetricsType {
       CADENCE_METRICS_PREFIX + "workflow-get-history-succeed";
   public static final String WORKFLOW_GET_HISTORY_LATENCY =
       CADENCE_METRICS_PREFIX + "workflow-get-history-latency";
+  // number of callers waiting for workflow results through the shared long poll
+  public static final String WORKFLOW_RESULT_WAITERS =
+      CADENCE_METRICS_PREFIX + "workflow-result-waiters";
+  public static final String WORKFLOW_RESULT_POLL_COUNTER =
+      CADENCE_METRICS_PREFIX + "workflow-result-poll";
   public static final String WORKFLOW_SIGNAL_WITH_START_COUNTER =
       CADENCE_METRICS_PREFIX + "workflow-signal-with-start";
   public static final String WORKFLOW_SIGNAL_WITH_START_ASYNC_COUNTER =
       CADENCE_METRICS_PREFIX + "workflow-signal-with-start-async";
 
+  public static final String BULK_REQUEST_IN_FLIGHT =
+      CADENCE_METRICS_PREFIX + "bulk-request-inflight";
+  public static final String BULK_REQUEST_SUCCEED_COUNTER =
+      CADENCE_METRICS_PREFIX + "bulk-request-succeed";
+  public static final String BULK_REQUEST_FAILED_COUNTER =
+      CADENCE_METRICS_PREFIX + "bulk-request-failed";
+  public static final String BULK_REQUEST_LATENCY = CADENCE_METRICS_PREFIX + "bulk-request-latency";
+
   public static final String DECISION_POLL_COUNTER = CADENCE_METRICS_PREFIX + "decision-poll-total";
   public static final String DECISION_POLL_FAILED_COUNTER =
       CADENCE_METRICS_PREFIX + "decision-poll-failed";
@@ -65,12 +78,38 @@ public class MetricsType {
       CADENCE_METRICS_PREFIX + "decision-execution-latency";
   public static final String DECISION_RESPONSE_LATENCY =
       CADENCE_METRICS_PREFIX + "decision-response-latency";
+  public static final String DECISION_RESPONSE_PENDING =
+      CADENCE_METRICS_PREFIX + "decision-response-pending";
+  public static final String DECISION_RUN_LOCK_WAIT_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-run-lock-wait-latency";
+  public static final String DECISION_RUN_LOCK_QUEUE_DEPTH =
+      CADENCE_METRICS_PREFIX + "decision-run-lock-queue-depth";
+  public static final String DECISION_RUN_LOCK_TIMEOUT_COUNTER =
+      CADENCE_METRICS_PREFIX + "decision-run-lock-timeout";
   public static final String DECISION_TASK_ERROR_COUNTER =
       CADENCE_METRICS_PREFIX + "decision-task-error";
   public static final String DECISION_TASK_COMPLETED_COUNTER =
       CADENCE_METRICS_PREFIX + "decision-task-completed";
   public static final String DECISION_TASK_FORCE_COMPLETED =
       CADENCE_METRICS_PREFIX + "decision-task-force-completed";
+  public static final String DECISION_HISTORY_FETCH_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-history-fetch-latency";
+  public static final String DECISION_HISTORY_PAGE_FETCH_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-history-page-fetch-latency";
+  public static final String DECISION_HISTORY_PAGES_COUNTER =
+      CADENCE_METRICS_PREFIX + "decision-history-pages";
+  public static final String DECISION_EVENT_REPLAY_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-event-replay-latency";
+  public static final String DECISION_WORKFLOW_CODE_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-workflow-code-latency";
+  public static final String DECISION_LOCAL_ACTIVITY_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-local-activity-latency";
+  public static final String DECISION_QUERY_LATENCY =
+      CADENCE_METRICS_PREFIX + "decision-query-latency";
+  public static final String DECISION_EVENTS_REPLAYED_COUNTER =
+      CADENCE_METRICS_PREFIX + "decision-events-replayed";
+  public static final String DECISION_THREADS_WOKEN_COUNTER =
+      CADENCE_METRICS_PREFIX + "decision-threads-woken";
 
   public static final String ACTIVITY_POLL_COUNTER = CADENCE_METRICS_PREFIX + "activity-poll-total";
   public static final String ACTIVITY_POLL_FAILED_COUNTER =
@@ -91,6 +130,8 @@ public class MetricsType {
       CADENCE_METRICS_PREFIX + "activity-execution-latency";
   public static final String ACTIVITY_RESP_LATENCY =
       CADENCE_METRICS_PREFIX + "activity-response-latency";
+  public static final String ACTIVITY_RESPONSE_PENDING =
+      CADENCE_METRICS_PREFIX + "activity-response-pending";
   public static final String ACTIVITY_E2E_LATENCY =
       CADENCE_METRICS_PREFIX + "activity-endtoend-latency";
   public static final String ACTIVITY_TASK_ERROR_COUNTER =
@@ -117,6 +158,18 @@ public class MetricsType {
       CADENCE_METRICS_PREFIX + "local-activity-panic";
   public static final String LOCAL_ACTIVITY_EXECUTION_LATENCY =
       CADENCE_METRICS_PREFIX + "local-activity-execution-latency";
+  public static final String LOCAL_ACTIVITY_QUEUE_LATENCY =
+      CADENCE_METRICS_PREFIX + "local-activity-queue-latency";
+  public static final String LOCAL_ACTIVITY_BACKLOG =
+      CADENCE_METRICS_PREFIX + "local-activity-backlog";
+  public static final String LOCAL_ACTIVITY_REJECTED_COUNTER =
+      CADENCE_METRICS_PREFIX + "local-activity-rejected";
+  public static final String TASK_PREFETCH_BUFFER_SIZE =
+      CADENCE_METRICS_PREFIX + "task-prefetch-buffer-size";
+  public static final String TASK_PREFETCH_WAIT_LATENCY =
+      CADENCE_METRICS_PREFIX + "task-prefetch-wait-latency";
+  public static final String TASK_PREFETCH_EXPIRED_COUNTER =
+      CADENCE_METRICS_PREFIX + "task-prefetch-expired";
   public static final String LOCALLY_DISPATCHED_ACTIVITY_POLL_NO_TASK_COUNTER =
       CADENCE_METRICS_PREFIX + "locally-dispatched-activity-poll-no-task";
   public static final String LOCALLY_DISPATCHED_ACTIVITY_POLL_SUCCEED_COUNTER =
@@ -148,6 +201,29 @@ public class MetricsType {
   public static final String STICKY_CACHE_THREAD_FORCED_EVICTION =
       CADENCE_METRICS_PREFIX + "sticky-cache-thread-forced-eviction";
   public static final String STICKY_CACHE_SIZE = CADENCE_METRICS_PREFIX + "sticky-cache-size";
+  public static final String STICKY_CACHE_PINNED = CADENCE_METRICS_PREFIX + "sticky-cache-pinned";
+  public static final String STICKY_CACHE_EVICTION =
+      CADENCE_METRICS_PREFIX + "sticky-cache-eviction";
+  public static final String STICKY_CACHE_ENTRY_AGE =
+      CADENCE_METRICS_PREFIX + "sticky-cache-entry-age";
+  public static final String STICKY_CACHE_WORKFLOW_TYPE_SIZE =
+      CADENCE_METRICS_PREFIX + "sticky-cache-workflow-type-size";
+  public static final String STICKY_DRAIN_PENDING = CADENCE_METRICS_PREFIX + "sticky-drain-pending";
+  public static final String STICKY_DRAIN_RESET_COUNTER =
+      CADENCE_METRICS_PREFIX + "sticky-drain-reset";
+  public static final String STICKY_DRAIN_SKIPPED_COUNTER =
+      CADENCE_METRICS_PREFIX + "sticky-drain-skipped";
+  public static final String STICKY_DRAIN_RESET_FAILED_COUNTER =
+      CADENCE_METRICS_PREFIX + "sticky-drain-reset-failed";
+  public static final String STICKY_DRAIN_LATENCY = CADENCE_METRICS_PREFIX + "sticky-drain-latency";
+  public static final String MIGRATION_ROUTING_CACHE_HIT_COUNTER =
+      CADENCE_METRICS_PREFIX + "migration-routing-cache-hit";
+  public static final String MIGRATION_ROUTING_CACHE_MISS_COUNTER =
+      CADENCE_METRICS_PREFIX + "migration-routing-cache-miss";
+  public static final String MIGRATION_ROUTING_CACHE_SIZE =
+      CADENCE_METRICS_PREFIX + "migration-routing-cache-size";
+  public static final String MIGRATION_DESCRIBE_LATENCY =
+      CADENCE_METRICS_PREFIX + "migration-describe-latency";
   public static final String WORKFLOW_ACTIVE_THREAD_COUNT =
       CADENCE_METRICS_PREFIX + "workflow_active_thread_count";
 
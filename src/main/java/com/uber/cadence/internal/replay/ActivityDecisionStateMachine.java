@@ -33,6 +33,10 @@ final class ActivityDecisionStateMachine extends DecisionStateMachineBase {
     this.scheduleAttributes = scheduleAttributes;
   }
 
+  String getActivityId() {
+    return scheduleAttributes.getActivityId();
+  }
+
   @Override
   public Decision getDecision() {
     switch (state) {
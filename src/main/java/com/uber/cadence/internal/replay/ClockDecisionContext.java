@@ -36,6 +36,7 @@ import com.uber.cadence.workflow.Functions.Func1;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -407,9 +408,17 @@ public final class ClockDecisionContext {
     return null;
   }
 
+  /**
+   * Hands unstarted local activities to the local activity worker. Returns false if any of them
+   * could not be started within maxWaitAllowed, because the local activity queue is full or the
+   * backlog of its activity type is not expected to drain before the deadline. Tasks that were
+   * handed off are not started again on the next call.
+   */
   boolean startUnstartedLaTasks(Duration maxWaitAllowed) {
     long startTime = System.currentTimeMillis();
-    for (ExecuteLocalActivityParameters params : unstartedLaTasks.values()) {
+    Iterator<ExecuteLocalActivityParameters> iterator = unstartedLaTasks.values().iterator();
+    while (iterator.hasNext()) {
+      ExecuteLocalActivityParameters params = iterator.next();
       long currTime = System.currentTimeMillis();
       maxWaitAllowed = maxWaitAllowed.minus(Duration.ofMillis(currTime - startTime));
       boolean applied =
@@ -424,8 +433,8 @@ public final class ClockDecisionContext {
       if (!applied) {
         return false;
       }
+      iterator.remove();
     }
-    unstartedLaTasks.clear();
     return true;
   }
 
@@ -90,6 +90,11 @@ final class CompleteWorkflowStateMachine implements DecisionStateMachine {
     return decision != null;
   }
 
+  @Override
+  public boolean isFinal() {
+    return false;
+  }
+
   @Override
   public void handleDecisionTaskStartedEvent() {}
 
@@ -32,6 +32,9 @@ public interface Decider {
 
   void close();
 
+  /** @return number of workflow threads held by the decider. Must not block. */
+  int getWorkflowThreadCount();
+
   class DecisionResult {
     private final List<Decision> decisions;
     private final Map<String, WorkflowQueryResult> queryResults;
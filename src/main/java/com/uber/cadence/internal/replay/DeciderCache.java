@@ -21,23 +21,94 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.uber.cadence.PollForDecisionTaskResponse;
+import com.uber.cadence.WorkflowExecution;
+import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.worker.StickyCacheInfo.EvictionReason;
 import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public final class DeciderCache {
   private final Scope metricsScope;
+  private final int maxCacheSize;
   private LoadingCache<String, Decider> cache;
   private Lock cacheLock = new ReentrantLock();
   private Set<String> inProcessing = new HashSet<>();
+  private final Condition processingDone = cacheLock.newCondition();
+  private volatile boolean draining;
+  // Bookkeeping for introspection. Updated by the removal listener which can run outside of
+  // cacheLock when an entry is evicted for capacity.
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> workflowTypeOccupancy = new ConcurrentHashMap<>();
+  private final Map<EvictionReason, AtomicLong> evictionCounts =
+      new EnumMap<>(EvictionReason.class);
+
+  /** Introspection data of a cached decider. */
+  public static final class Entry {
+    private final WorkflowExecution execution;
+    private final String workflowType;
+    private final Decider decider;
+    private final long createdNanos;
+    private volatile long lastAccessNanos;
+    private volatile long lastEventId;
+    private volatile boolean pinned;
+
+    private Entry(PollForDecisionTaskResponse decisionTask, Decider decider) {
+      this.execution = decisionTask.getWorkflowExecution();
+      this.workflowType = decisionTask.getWorkflowType().getName();
+      this.decider = decider;
+      this.createdNanos = System.nanoTime();
+      this.lastAccessNanos = createdNanos;
+      this.lastEventId = decisionTask.getStartedEventId();
+    }
+
+    public WorkflowExecution getExecution() {
+      return execution;
+    }
+
+    public String getWorkflowType() {
+      return workflowType;
+    }
+
+    public Duration getAge() {
+      return Duration.ofNanos(System.nanoTime() - createdNanos);
+    }
+
+    public Duration getIdleTime() {
+      return Duration.ofNanos(System.nanoTime() - lastAccessNanos);
+    }
+
+    public boolean isPinned() {
+      return pinned;
+    }
+
+    public int getWorkflowThreadCount() {
+      return decider.getWorkflowThreadCount();
+    }
+
+    public long getLastEventId() {
+      return lastEventId;
+    }
+  }
 
   public DeciderCache(int maxCacheSize, Scope scope) {
     Preconditions.checkArgument(maxCacheSize > 0, "Max cache size must be greater than 0");
     this.metricsScope = Objects.requireNonNull(scope);
+    this.maxCacheSize = maxCacheSize;
+    for (EvictionReason reason : EvictionReason.values()) {
+      evictionCounts.put(reason, new AtomicLong());
+    }
     this.cache =
         CacheBuilder.newBuilder()
             .maximumSize(maxCacheSize)
@@ -47,6 +118,15 @@ public final class DeciderCache {
                   if (entry != null) {
                     entry.close();
                   }
+                  String runId = (String) e.getKey();
+                  if (e.getCause() == RemovalCause.SIZE) {
+                    recordEviction(runId, EvictionReason.CAPACITY);
+                  }
+                  // A replaced entry is overwritten by addToCache which already updated the
+                  // bookkeeping.
+                  if (e.getCause() != RemovalCause.REPLACED) {
+                    removeEntry(runId);
+                  }
                 })
             .build(
                 new CacheLoader<String, Decider>() {
@@ -61,7 +141,7 @@ public final class DeciderCache {
       PollForDecisionTaskResponse decisionTask, Callable<Decider> deciderFunc) throws Exception {
     String runId = decisionTask.getWorkflowExecution().getRunId();
     if (isFullHistory(decisionTask)) {
-      invalidate(runId);
+      invalidate(runId, EvictionReason.FULL_HISTORY);
       return deciderFunc.call();
     }
 
@@ -77,7 +157,13 @@ public final class DeciderCache {
     try {
       Decider decider = cache.get(runId);
       inProcessing.add(runId);
+      Entry entry = entries.get(runId);
+      if (entry != null) {
+        entry.pinned = true;
+        entry.lastAccessNanos = System.nanoTime();
+      }
       metricsScope.counter(MetricsType.STICKY_CACHE_HIT).inc(1);
+      metricsScope.gauge(MetricsType.STICKY_CACHE_PINNED).update(inProcessing.size());
       return decider;
     } catch (CacheLoader.InvalidCacheLoadException e) {
       // We don't have a default loader and don't want to have one. So it's ok to get null value.
@@ -94,6 +180,14 @@ public final class DeciderCache {
     cacheLock.lock();
     try {
       inProcessing.remove(runId);
+      Entry entry = entries.get(runId);
+      if (entry != null) {
+        entry.pinned = false;
+        entry.lastAccessNanos = System.nanoTime();
+        entry.lastEventId = Math.max(entry.lastEventId, decisionTask.getStartedEventId());
+      }
+      metricsScope.gauge(MetricsType.STICKY_CACHE_PINNED).update(inProcessing.size());
+      processingDone.signalAll();
     } finally {
       cacheLock.unlock();
     }
@@ -101,7 +195,14 @@ public final class DeciderCache {
 
   public void addToCache(PollForDecisionTaskResponse decisionTask, Decider decider) {
     String runId = decisionTask.getWorkflowExecution().getRunId();
+    Entry entry = new Entry(decisionTask, decider);
+    entry.pinned = isInProcessing(runId);
+    Entry previous = entries.put(runId, entry);
+    if (previous == null) {
+      updateOccupancy(entry.getWorkflowType(), 1);
+    }
     cache.put(runId, decider);
+    metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
   }
 
   public boolean evictAnyNotInProcessing(String runId) {
@@ -110,6 +211,7 @@ public final class DeciderCache {
       metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
       for (String key : cache.asMap().keySet()) {
         if (!key.equals(runId) && !inProcessing.contains(key)) {
+          recordEviction(key, EvictionReason.THREAD_PRESSURE);
           cache.invalidate(key);
           metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
           metricsScope.counter(MetricsType.STICKY_CACHE_THREAD_FORCED_EVICTION).inc(1);
@@ -123,12 +225,73 @@ public final class DeciderCache {
     }
   }
 
-  void invalidate(String runId) {
+  void invalidate(String runId, EvictionReason reason) {
     cacheLock.lock();
     try {
+      if (entries.containsKey(runId)) {
+        recordEviction(runId, reason);
+      }
       cache.invalidate(runId);
       inProcessing.remove(runId);
       metricsScope.counter(MetricsType.STICKY_CACHE_TOTAL_FORCED_EVICTION).inc(1);
+      metricsScope.gauge(MetricsType.STICKY_CACHE_PINNED).update(inProcessing.size());
+      processingDone.signalAll();
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * Removes the run from the cache unless a decision task for it is being processed.
+   *
+   * @return true if the run is not cached anymore.
+   */
+  public boolean evictIfNotInProcessing(String runId, EvictionReason reason) {
+    cacheLock.lock();
+    try {
+      if (inProcessing.contains(runId)) {
+        return false;
+      }
+      if (entries.containsKey(runId)) {
+        recordEviction(runId, reason);
+      }
+      cache.invalidate(runId);
+      processingDone.signalAll();
+      return true;
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * Switches the cache into the draining mode. Decision tasks completed while draining do not
+   * request stickiness and their deciders are evicted once processed.
+   */
+  public void startDraining() {
+    draining = true;
+  }
+
+  public boolean isDraining() {
+    return draining;
+  }
+
+  /**
+   * Waits until the cache is empty. While draining cached runs that are being processed evict
+   * themselves once their decision task is done.
+   *
+   * @return true if the cache became empty before the timeout.
+   */
+  public boolean awaitEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    cacheLock.lock();
+    try {
+      while (!entries.isEmpty()) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = processingDone.awaitNanos(remainingNanos);
+      }
+      return true;
     } finally {
       cacheLock.unlock();
     }
@@ -138,6 +301,67 @@ public final class DeciderCache {
     return cache.size();
   }
 
+  public int getMaximumSize() {
+    return maxCacheSize;
+  }
+
+  /** @return cached deciders ordered from the oldest to the newest. */
+  public List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>(entries.values());
+    result.sort(Comparator.comparingLong(e -> e.createdNanos));
+    return result;
+  }
+
+  public Map<EvictionReason, Long> getEvictionCounts() {
+    Map<EvictionReason, Long> result = new EnumMap<>(EvictionReason.class);
+    for (Map.Entry<EvictionReason, AtomicLong> e : evictionCounts.entrySet()) {
+      result.put(e.getKey(), e.getValue().get());
+    }
+    return result;
+  }
+
+  private boolean isInProcessing(String runId) {
+    cacheLock.lock();
+    try {
+      return inProcessing.contains(runId);
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private void recordEviction(String runId, EvictionReason reason) {
+    evictionCounts.get(reason).incrementAndGet();
+    metricsScope
+        .tagged(ImmutableMap.of(MetricsTag.CAUSE, reason.name()))
+        .counter(MetricsType.STICKY_CACHE_EVICTION)
+        .inc(1);
+    Entry entry = entries.get(runId);
+    if (entry != null) {
+      metricsScope
+          .timer(MetricsType.STICKY_CACHE_ENTRY_AGE)
+          .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - entry.createdNanos));
+    }
+  }
+
+  private void removeEntry(String runId) {
+    Entry entry = entries.remove(runId);
+    if (entry != null) {
+      updateOccupancy(entry.getWorkflowType(), -1);
+    }
+    metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(entries.size());
+  }
+
+  private void updateOccupancy(String workflowType, int delta) {
+    long occupancy =
+        workflowTypeOccupancy
+            .computeIfAbsent(workflowType, (t) -> new AtomicLong())
+            .addAndGet(delta);
+    metricsScope
+        .tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TYPE, workflowType))
+        .gauge(MetricsType.STICKY_CACHE_WORKFLOW_TYPE_SIZE)
+        .update(occupancy);
+  }
+
   private boolean isFullHistory(PollForDecisionTaskResponse decisionTask) {
     return decisionTask.getHistory() != null
         && decisionTask.getHistory().getEvents() != null
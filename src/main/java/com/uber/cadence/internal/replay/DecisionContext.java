@@ -96,6 +96,15 @@ public interface DecisionContext extends ReplayAware {
   /** Returns the startedEventWorkflow attributes */
   WorkflowExecutionStartedEventAttributes getWorkflowExecutionStartedEventAttributes();
 
+  /**
+   * @return id of the last event of the history that is visible to the workflow code, which is the
+   *     number of events in the history up to the current decision.
+   */
+  long getHistoryLength();
+
+  /** @return estimated size in bytes of the history up to the current decision. */
+  long getHistorySize();
+
   /**
    * Used to dynamically schedule an activity for execution
    *
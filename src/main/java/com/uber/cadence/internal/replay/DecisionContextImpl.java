@@ -62,6 +62,8 @@ final class DecisionContextImpl implements DecisionContext, HistoryEventHandler
   private final boolean enableLoggingInReplay;
   private final WorkflowExecutionStartedEventAttributes startedEventAttributes;
   private final DataConverter dataConverter;
+  private long historyLength;
+  private long historyPayloadSize;
 
   DecisionContextImpl(
       DecisionsHelper decisionsHelper,
@@ -191,6 +193,27 @@ final class DecisionContextImpl implements DecisionContext, HistoryEventHandler
     return startedEventAttributes;
   }
 
+  @Override
+  public long getHistoryLength() {
+    return historyLength;
+  }
+
+  @Override
+  public long getHistorySize() {
+    return historyLength * HistoryEventSizeEstimator.EVENT_OVERHEAD_BYTES + historyPayloadSize;
+  }
+
+  void setHistoryLength(long historyLength) {
+    this.historyLength = historyLength;
+  }
+
+  /** Adds the payloads of events that became part of the history seen by the workflow. */
+  void addHistoryEvents(List<HistoryEvent> events) {
+    for (HistoryEvent event : events) {
+      historyPayloadSize += HistoryEventSizeEstimator.estimatePayloadSize(event);
+    }
+  }
+
   @Override
   public DataConverter getDataConverter() {
     return dataConverter;
@@ -46,5 +46,11 @@ interface DecisionStateMachine {
 
   boolean isDone();
 
+  /**
+   * @return true if neither a new decision nor a history event can refer to this state machine
+   *     anymore, so it can be dropped.
+   */
+  boolean isFinal();
+
   DecisionId getId();
 }
@@ -57,6 +57,11 @@ abstract class DecisionStateMachineBase implements DecisionStateMachine {
         || state == DecisionState.COMPLETED_AFTER_CANCELLATION_DECISION_SENT;
   }
 
+  @Override
+  public boolean isFinal() {
+    return state == DecisionState.COMPLETED;
+  }
+
   @Override
   public void handleDecisionTaskStartedEvent() {
     switch (state) {
@@ -58,7 +58,6 @@ import com.uber.cadence.TimerFiredEventAttributes;
 import com.uber.cadence.UpsertWorkflowSearchAttributesDecisionAttributes;
 import com.uber.cadence.WorkflowExecutionStartedEventAttributes;
 import com.uber.cadence.WorkflowType;
-import com.uber.cadence.internal.common.WorkflowExecutionUtils;
 import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.replay.HistoryHelper.DecisionEvents;
@@ -106,11 +105,14 @@ class DecisionsHelper {
 
   private DecisionEvents decisionEvents;
 
-  /** Use access-order to ensure that decisions are emitted in order of their creation */
+  /**
+   * Use access-order to ensure that decisions are emitted in order of their creation. State
+   * machines are removed once they become final, so the map holds only the pending ones.
+   */
   private final Map<DecisionId, DecisionStateMachine> decisions =
       new LinkedHashMap<>(100, 0.75f, true);
 
-  // TODO: removal of completed activities
+  /** Scheduled event ids of activities that still have a state machine in {@link #decisions}. */
   private final Map<String, Long> activityIdToScheduledEventId = new HashMap<>();
 
   DecisionsHelper(PollForDecisionTaskResponse task, SingleWorkerOptions options) {
@@ -354,9 +356,11 @@ class DecisionsHelper {
   }
 
   boolean cancelTimer(long startEventId, Runnable immediateCancellationCallback) {
-    DecisionStateMachine decision = getDecision(new DecisionId(DecisionTarget.TIMER, startEventId));
-    if (decision.isDone()) {
-      // Cancellation callbacks are not deregistered and might be invoked after timer firing
+    DecisionStateMachine decision =
+        decisions.get(new DecisionId(DecisionTarget.TIMER, startEventId));
+    if (decision == null || decision.isDone()) {
+      // Cancellation callbacks are not deregistered and might be invoked after timer firing,
+      // when the state machine of the fired timer may already be removed as final.
       return true;
     }
     if (decision.cancel(immediateCancellationCallback)) {
@@ -576,7 +580,8 @@ class DecisionsHelper {
   }
 
   List<Decision> getDecisions() {
-    List<Decision> result = new ArrayList<>(MAXIMUM_DECISIONS_PER_COMPLETION + 1);
+    List<Decision> result =
+        new ArrayList<>(Math.min(decisions.size(), MAXIMUM_DECISIONS_PER_COMPLETION) + 1);
     for (DecisionStateMachine decisionStateMachine : decisions.values()) {
       Decision decision = decisionStateMachine.getDecision();
       if (decision != null) {
@@ -619,6 +624,7 @@ class DecisionsHelper {
   }
 
   void notifyDecisionSent() {
+    removeFinalDecisions();
     int count = 0;
     Iterator<DecisionStateMachine> iterator = decisions.values().iterator();
     DecisionStateMachine next = null;
@@ -639,6 +645,27 @@ class DecisionsHelper {
     }
   }
 
+  /**
+   * Drops state machines that no event or decision can refer to anymore. Without it a cached
+   * decider of a long running workflow would keep every state machine it ever created and iterate
+   * all of them on each decision.
+   */
+  private void removeFinalDecisions() {
+    Iterator<DecisionStateMachine> iterator = decisions.values().iterator();
+    while (iterator.hasNext()) {
+      DecisionStateMachine decision = iterator.next();
+      if (!decision.isFinal()) {
+        continue;
+      }
+      iterator.remove();
+      if (decision instanceof ActivityDecisionStateMachine) {
+        activityIdToScheduledEventId.remove(
+            ((ActivityDecisionStateMachine) decision).getActivityId(),
+            decision.getId().getDecisionEventId());
+      }
+    }
+  }
+
   private DecisionStateMachine getNextDecision(Iterator<DecisionStateMachine> iterator) {
     DecisionStateMachine result = null;
     while (result == null && iterator.hasNext()) {
@@ -652,7 +679,12 @@ class DecisionsHelper {
 
   @Override
   public String toString() {
-    return WorkflowExecutionUtils.prettyPrintDecisions(getDecisions());
+    return "DecisionsHelper{"
+        + "stateMachines="
+        + decisions.size()
+        + ", nextDecisionEventId="
+        + nextDecisionEventId
+        + '}';
   }
 
   PollForDecisionTaskResponse getTask() {
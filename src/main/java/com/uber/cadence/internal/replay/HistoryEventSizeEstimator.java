@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.replay;
+
+import com.uber.cadence.Header;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.Memo;
+import com.uber.cadence.SearchAttributes;
+import com.uber.cadence.StartChildWorkflowExecutionInitiatedEventAttributes;
+import com.uber.cadence.WorkflowExecutionContinuedAsNewEventAttributes;
+import com.uber.cadence.WorkflowExecutionStartedEventAttributes;
+import java.util.Map;
+
+/**
+ * Estimates the serialized size of history events from their payloads. The estimate only depends on
+ * the event itself, so it is the same whether the event is seen live or during replay, which keeps
+ * {@link DecisionContext#getHistorySize()} deterministic.
+ */
+final class HistoryEventSizeEstimator {
+
+  /** Approximate size of the ids, timestamps, names and task lists that every event carries. */
+  static final long EVENT_OVERHEAD_BYTES = 100;
+
+  /** Estimated size of the payloads of the event without {@link #EVENT_OVERHEAD_BYTES}. */
+  static long estimatePayloadSize(HistoryEvent event) {
+    switch (event.getEventType()) {
+      case WorkflowExecutionStarted:
+        {
+          WorkflowExecutionStartedEventAttributes a =
+              event.getWorkflowExecutionStartedEventAttributes();
+          return a == null
+              ? 0
+              : size(a.getInput())
+                  + size(a.getContinuedFailureDetails())
+                  + size(a.getLastCompletionResult())
+                  + size(a.getMemo())
+                  + size(a.getSearchAttributes())
+                  + size(a.getHeader());
+        }
+      case WorkflowExecutionCompleted:
+        return event.getWorkflowExecutionCompletedEventAttributes() == null
+            ? 0
+            : size(event.getWorkflowExecutionCompletedEventAttributes().getResult());
+      case WorkflowExecutionFailed:
+        return event.getWorkflowExecutionFailedEventAttributes() == null
+            ? 0
+            : size(event.getWorkflowExecutionFailedEventAttributes().getDetails());
+      case WorkflowExecutionCanceled:
+        return event.getWorkflowExecutionCanceledEventAttributes() == null
+            ? 0
+            : size(event.getWorkflowExecutionCanceledEventAttributes().getDetails());
+      case WorkflowExecutionTerminated:
+        return event.getWorkflowExecutionTerminatedEventAttributes() == null
+            ? 0
+            : size(event.getWorkflowExecutionTerminatedEventAttributes().getDetails());
+      case WorkflowExecutionSignaled:
+        return event.getWorkflowExecutionSignaledEventAttributes() == null
+            ? 0
+            : size(event.getWorkflowExecutionSignaledEventAttributes().getInput());
+      case WorkflowExecutionContinuedAsNew:
+        {
+          WorkflowExecutionContinuedAsNewEventAttributes a =
+              event.getWorkflowExecutionContinuedAsNewEventAttributes();
+          return a == null
+              ? 0
+              : size(a.getInput())
+                  + size(a.getFailureDetails())
+                  + size(a.getLastCompletionResult())
+                  + size(a.getHeader())
+                  + size(a.getMemo())
+                  + size(a.getSearchAttributes());
+        }
+      case DecisionTaskCompleted:
+        return event.getDecisionTaskCompletedEventAttributes() == null
+            ? 0
+            : size(event.getDecisionTaskCompletedEventAttributes().getExecutionContext());
+      case DecisionTaskFailed:
+        return event.getDecisionTaskFailedEventAttributes() == null
+            ? 0
+            : size(event.getDecisionTaskFailedEventAttributes().getDetails());
+      case ActivityTaskScheduled:
+        return event.getActivityTaskScheduledEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskScheduledEventAttributes().getInput())
+                + size(event.getActivityTaskScheduledEventAttributes().getHeader());
+      case ActivityTaskStarted:
+        return event.getActivityTaskStartedEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskStartedEventAttributes().getLastFailureDetails());
+      case ActivityTaskCompleted:
+        return event.getActivityTaskCompletedEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskCompletedEventAttributes().getResult());
+      case ActivityTaskFailed:
+        return event.getActivityTaskFailedEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskFailedEventAttributes().getDetails());
+      case ActivityTaskTimedOut:
+        return event.getActivityTaskTimedOutEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskTimedOutEventAttributes().getDetails())
+                + size(event.getActivityTaskTimedOutEventAttributes().getLastFailureDetails());
+      case ActivityTaskCanceled:
+        return event.getActivityTaskCanceledEventAttributes() == null
+            ? 0
+            : size(event.getActivityTaskCanceledEventAttributes().getDetails());
+      case MarkerRecorded:
+        return event.getMarkerRecordedEventAttributes() == null
+            ? 0
+            : size(event.getMarkerRecordedEventAttributes().getDetails())
+                + size(event.getMarkerRecordedEventAttributes().getHeader());
+      case StartChildWorkflowExecutionInitiated:
+        {
+          StartChildWorkflowExecutionInitiatedEventAttributes a =
+              event.getStartChildWorkflowExecutionInitiatedEventAttributes();
+          return a == null
+              ? 0
+              : size(a.getInput())
+                  + size(a.getControl())
+                  + size(a.getHeader())
+                  + size(a.getMemo())
+                  + size(a.getSearchAttributes());
+        }
+      case ChildWorkflowExecutionStarted:
+        return event.getChildWorkflowExecutionStartedEventAttributes() == null
+            ? 0
+            : size(event.getChildWorkflowExecutionStartedEventAttributes().getHeader());
+      case ChildWorkflowExecutionCompleted:
+        return event.getChildWorkflowExecutionCompletedEventAttributes() == null
+            ? 0
+            : size(event.getChildWorkflowExecutionCompletedEventAttributes().getResult());
+      case ChildWorkflowExecutionFailed:
+        return event.getChildWorkflowExecutionFailedEventAttributes() == null
+            ? 0
+            : size(event.getChildWorkflowExecutionFailedEventAttributes().getDetails());
+      case ChildWorkflowExecutionCanceled:
+        return event.getChildWorkflowExecutionCanceledEventAttributes() == null
+            ? 0
+            : size(event.getChildWorkflowExecutionCanceledEventAttributes().getDetails());
+      case SignalExternalWorkflowExecutionInitiated:
+        return event.getSignalExternalWorkflowExecutionInitiatedEventAttributes() == null
+            ? 0
+            : size(event.getSignalExternalWorkflowExecutionInitiatedEventAttributes().getInput())
+                + size(
+                    event
+                        .getSignalExternalWorkflowExecutionInitiatedEventAttributes()
+                        .getControl());
+      case UpsertWorkflowSearchAttributes:
+        return event.getUpsertWorkflowSearchAttributesEventAttributes() == null
+            ? 0
+            : size(event.getUpsertWorkflowSearchAttributesEventAttributes().getSearchAttributes());
+      default:
+        return 0;
+    }
+  }
+
+  private static long size(byte[] bytes) {
+    return bytes == null ? 0 : bytes.length;
+  }
+
+  private static long size(Header header) {
+    return header == null ? 0 : size(header.getFields());
+  }
+
+  private static long size(Memo memo) {
+    return memo == null ? 0 : size(memo.getFields());
+  }
+
+  private static long size(SearchAttributes searchAttributes) {
+    return searchAttributes == null ? 0 : size(searchAttributes.getIndexedFields());
+  }
+
+  private static long size(Map<String, byte[]> fields) {
+    if (fields == null) {
+      return 0;
+    }
+    long result = 0;
+    for (Map.Entry<String, byte[]> entry : fields.entrySet()) {
+      result += entry.getKey().length() + size(entry.getValue());
+    }
+    return result;
+  }
+
+  private HistoryEventSizeEstimator() {}
+}
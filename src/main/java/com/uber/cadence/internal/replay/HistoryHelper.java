@@ -107,9 +107,9 @@ class HistoryHelper {
     public String toString() {
       return "DecisionEvents{"
           + "events="
-          + WorkflowExecutionUtils.prettyPrintHistory(events.iterator(), true)
+          + WorkflowExecutionUtils.summarizeHistory(events)
           + ", decisionEvents="
-          + WorkflowExecutionUtils.prettyPrintHistory(decisionEvents.iterator(), true)
+          + WorkflowExecutionUtils.summarizeHistory(decisionEvents)
           + ", replay="
           + replay
           + ", replayCurrentTimeMilliseconds="
@@ -255,11 +255,16 @@ class HistoryHelper {
 
   @Override
   public String toString() {
-    return WorkflowExecutionUtils.prettyPrintHistory(
-        decisionTaskWithHistoryIterator.getDecisionTask().getHistory().getEvents() != null
-            ? decisionTaskWithHistoryIterator.getDecisionTask().getHistory().getEvents().iterator()
-            : Collections.emptyIterator(),
-        true);
+    return "HistoryHelper{"
+        + "events="
+        + WorkflowExecutionUtils.summarizeHistory(getDecisionTaskEvents())
+        + '}';
+  }
+
+  private List<HistoryEvent> getDecisionTaskEvents() {
+    List<HistoryEvent> events =
+        decisionTaskWithHistoryIterator.getDecisionTask().getHistory().getEvents();
+    return events != null ? events : Collections.emptyList();
   }
 
   long getPreviousStartedEventId() {
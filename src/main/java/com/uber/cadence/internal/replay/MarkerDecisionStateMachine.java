@@ -35,4 +35,10 @@ final class MarkerDecisionStateMachine extends DecisionStateMachineBase {
     }
     return null;
   }
+
+  /** Marker events are not routed to the state machine, so it is not needed once sent. */
+  @Override
+  public boolean isFinal() {
+    return state != DecisionState.CREATED;
+  }
 }
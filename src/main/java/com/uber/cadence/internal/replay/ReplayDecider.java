@@ -28,6 +28,7 @@ import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.replay.HistoryHelper.DecisionEvents;
 import com.uber.cadence.internal.replay.HistoryHelper.DecisionEventsIterator;
+import com.uber.cadence.internal.replay.ReplayPhaseTimer.Phase;
 import com.uber.cadence.internal.worker.DecisionTaskWithHistoryIterator;
 import com.uber.cadence.internal.worker.LocalActivityWorker;
 import com.uber.cadence.internal.worker.SingleWorkerOptions;
@@ -79,6 +80,8 @@ class ReplayDecider implements Decider {
   private final WorkflowExecutionStartedEventAttributes startedEvent;
   private final Lock lock = new ReentrantLock();
   private final Consumer<HistoryEvent> localActivityCompletionSink;
+  // Phases of the decision task currently being processed. Replaced at the start of every task.
+  private ReplayPhaseTimer phaseTimer = new ReplayPhaseTimer();
 
   ReplayDecider(
       IWorkflowService service,
@@ -250,6 +253,8 @@ class ReplayDecider implements Decider {
     if (completed) {
       return;
     }
+    long threadWakeUpCount = workflow.getThreadWakeUpCount();
+    phaseTimer.enter(Phase.WORKFLOW_CODE);
     try {
       completed = workflow.eventLoop();
     } catch (Error e) {
@@ -266,6 +271,9 @@ class ReplayDecider implements Decider {
       // can cast as Error is caught above.
       failure = workflow.mapUnexpectedException((Exception) e);
       completed = true;
+    } finally {
+      phaseTimer.exit();
+      phaseTimer.addThreadsWoken(workflow.getThreadWakeUpCount() - threadWakeUpCount);
     }
   }
 
@@ -409,6 +417,8 @@ class ReplayDecider implements Decider {
   private boolean decideImpl(PollForDecisionTaskResponse decisionTask, Functions.Proc query)
       throws Throwable {
     boolean forceCreateNewDecisionTask = false;
+    phaseTimer = new ReplayPhaseTimer();
+    phaseTimer.enter(Phase.EVENT_REPLAY);
     try {
       long startTime = System.currentTimeMillis();
       DecisionTaskWithHistoryIterator decisionTaskWithHistoryIterator =
@@ -451,6 +461,11 @@ class ReplayDecider implements Decider {
         for (HistoryEvent event : decision.getEvents()) {
           processEvent(event);
         }
+        // DecisionTaskStarted of this decision is the last event the workflow code can see.
+        context.setHistoryLength(decision.getNextDecisionEventId() - 2);
+        context.addHistoryEvents(decision.getEvents());
+        phaseTimer.addEventsReplayed(
+            decision.getEvents().size() + decision.getDecisionEvents().size());
 
         forceCreateNewDecisionTask =
             processEventLoop(
@@ -467,6 +482,7 @@ class ReplayDecider implements Decider {
         for (HistoryEvent event : decision.getDecisionEvents()) {
           processEvent(event);
         }
+        context.addHistoryEvents(decision.getDecisionEvents());
         // Reset state to before running the event loop
         decisionsHelper.handleDecisionTaskStartedEvent(decision);
       }
@@ -489,8 +505,15 @@ class ReplayDecider implements Decider {
       }
     } finally {
       if (query != null) {
-        query.apply();
+        phaseTimer.enter(Phase.QUERY);
+        try {
+          query.apply();
+        } finally {
+          phaseTimer.exit();
+        }
       }
+      phaseTimer.exit();
+      phaseTimer.report(metricsScope);
       if (completed) {
         close();
       }
@@ -502,10 +525,15 @@ class ReplayDecider implements Decider {
       throws Throwable {
     eventLoop();
 
-    if (decision.isReplay() || isQuery) {
-      return replayLocalActivities(decision);
-    } else {
-      return executeLocalActivities(startTime, decisionTimeoutSecs);
+    phaseTimer.enter(Phase.LOCAL_ACTIVITY);
+    try {
+      if (decision.isReplay() || isQuery) {
+        return replayLocalActivities(decision);
+      } else {
+        return executeLocalActivities(startTime, decisionTimeoutSecs);
+      }
+    } finally {
+      phaseTimer.exit();
     }
   }
 
@@ -551,7 +579,8 @@ class ReplayDecider implements Decider {
 
       boolean started = context.startUnstartedLaTasks(maxWaitAllowed);
       if (!started) {
-        // We were not able to send the current batch of la tasks before deadline.
+        // We were not able to send the current batch of la tasks before deadline, or the
+        // local activity backlog of their type will not drain in time.
         // Return true to indicate that we need a new decision task immediately.
         return true;
       }
@@ -603,6 +632,11 @@ class ReplayDecider implements Decider {
     }
   }
 
+  @Override
+  public int getWorkflowThreadCount() {
+    return workflow.getWorkflowThreadCount();
+  }
+
   public Consumer<HistoryEvent> getLocalActivityCompletionSink() {
     return localActivityCompletionSink;
   }
@@ -668,6 +702,7 @@ class ReplayDecider implements Decider {
 
           metricsScope.counter(MetricsType.WORKFLOW_GET_HISTORY_COUNTER).inc(1);
           Stopwatch sw = metricsScope.timer(MetricsType.WORKFLOW_GET_HISTORY_LATENCY).start();
+          phaseTimer.enter(Phase.HISTORY_FETCH);
           RetryOptions retryOptions =
               new RetryOptions.Builder()
                   .setExpiration(decisionTaskRemainingTime)
@@ -690,9 +725,12 @@ class ReplayDecider implements Decider {
             nextPageToken = r.getNextPageToken();
             metricsScope.counter(MetricsType.WORKFLOW_GET_HISTORY_SUCCEED_COUNTER).inc(1);
             sw.stop();
+            phaseTimer.addHistoryPageFetched();
           } catch (CadenceError e) {
             metricsScope.counter(MetricsType.WORKFLOW_GET_HISTORY_FAILED_COUNTER).inc(1);
             throw new Error(e);
+          } finally {
+            phaseTimer.exit();
           }
           if (!current.hasNext()) {
             log.error(
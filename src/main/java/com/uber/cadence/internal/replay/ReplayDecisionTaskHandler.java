@@ -31,11 +31,16 @@ import com.uber.cadence.StickyExecutionAttributes;
 import com.uber.cadence.WorkflowExecution;
 import com.uber.cadence.WorkflowType;
 import com.uber.cadence.internal.common.WorkflowExecutionUtils;
+import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.worker.DecisionTaskHandler;
 import com.uber.cadence.internal.worker.LocalActivityWorker;
 import com.uber.cadence.internal.worker.SingleWorkerOptions;
 import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.cadence.worker.StickyCacheInfo;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.Stopwatch;
+import com.uber.m3.util.ImmutableMap;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
@@ -50,6 +55,8 @@ import org.slf4j.LoggerFactory;
 public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
 
   private static final Logger log = LoggerFactory.getLogger(ReplayDecisionTaskHandler.class);
+  // Decisions rendered by the trace log of a completed decision task, the rest are only counted.
+  private static final int MAX_TRACED_DECISIONS = 100;
 
   private final ReplayWorkflowFactory workflowFactory;
   private final String domain;
@@ -144,7 +151,7 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
 
       Decider.DecisionResult result = decider.decide(decisionTask);
 
-      if (stickyTaskListName != null && createdNew.get()) {
+      if (stickyTaskListName != null && createdNew.get() && !cache.isDraining()) {
         cache.addToCache(decisionTask, decider);
       }
 
@@ -158,7 +165,8 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
                 + ", RunID="
                 + execution.getRunId()
                 + " completed with "
-                + WorkflowExecutionUtils.prettyPrintDecisions(result.getDecisions())
+                + WorkflowExecutionUtils.prettyPrintDecisions(
+                    result.getDecisions(), MAX_TRACED_DECISIONS)
                 + " forceCreateNewDecisionTask "
                 + result.getForceCreateNewDecisionTask());
       } else if (log.isDebugEnabled()) {
@@ -186,14 +194,30 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
       }
 
       if (stickyTaskListName != null) {
-        cache.invalidate(decisionTask.getWorkflowExecution().getRunId());
+        cache.invalidate(
+            decisionTask.getWorkflowExecution().getRunId(), StickyCacheInfo.EvictionReason.ERROR);
       }
       throw e;
     } finally {
-      if (stickyTaskListName == null && decider != null) {
+      releaseDecider(decisionTask, decider);
+    }
+  }
+
+  private void releaseDecider(PollForDecisionTaskResponse decisionTask, Decider decider) {
+    if (stickyTaskListName == null) {
+      if (decider != null) {
+        decider.close();
+      }
+      return;
+    }
+    cache.markProcessingDone(decisionTask);
+    if (cache.isDraining()) {
+      // The completion doesn't request stickiness, so the service is not going to route the next
+      // decision task of this run to this worker.
+      cache.evictIfNotInProcessing(
+          decisionTask.getWorkflowExecution().getRunId(), StickyCacheInfo.EvictionReason.DRAIN);
+      if (decider != null) {
         decider.close();
-      } else {
-        cache.markProcessingDone(decisionTask);
       }
     }
   }
@@ -217,7 +241,7 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
       }
 
       byte[] queryResult = decider.query(decisionTask, decisionTask.getQuery());
-      if (stickyTaskListName != null && createdNew.get()) {
+      if (stickyTaskListName != null && createdNew.get() && !cache.isDraining()) {
         cache.addToCache(decisionTask, decider);
       }
       queryCompletedRequest.setQueryResult(queryResult);
@@ -230,11 +254,7 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
       queryCompletedRequest.setErrorMessage(sw.toString());
       queryCompletedRequest.setCompletedType(QueryTaskCompletedType.FAILED);
     } finally {
-      if (stickyTaskListName == null && decider != null) {
-        decider.close();
-      } else {
-        cache.markProcessingDone(decisionTask);
-      }
+      releaseDecider(decisionTask, decider);
     }
     return new Result(null, null, queryCompletedRequest);
   }
@@ -248,7 +268,7 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
     completedRequest.setQueryResults(result.getQueryResults());
     completedRequest.setForceCreateNewDecisionTask(result.getForceCreateNewDecisionTask());
 
-    if (stickyTaskListName != null) {
+    if (stickyTaskListName != null && !cache.isDraining()) {
       StickyExecutionAttributes attributes = new StickyExecutionAttributes();
       attributes.setWorkerTaskList(createStickyTaskList(stickyTaskListName));
       attributes.setScheduleToStartTimeoutSeconds(
@@ -268,6 +288,11 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
     List<HistoryEvent> events = decisionTask.getHistory().getEvents();
     // Sticky decision task with partial history
     if (events.isEmpty() || events.get(0).getEventId() > 1) {
+      Scope metricsScope =
+          options
+              .getMetricsScope()
+              .tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TYPE, workflowType.getName()));
+      Stopwatch sw = metricsScope.timer(MetricsType.DECISION_HISTORY_PAGE_FETCH_LATENCY).start();
       GetWorkflowExecutionHistoryRequest getHistoryRequest =
           new GetWorkflowExecutionHistoryRequest()
               .setDomain(domain)
@@ -276,6 +301,8 @@ public final class ReplayDecisionTaskHandler implements DecisionTaskHandler {
           service.GetWorkflowExecutionHistory(getHistoryRequest);
       decisionTask.setHistory(getHistoryResponse.getHistory());
       decisionTask.setNextPageToken(getHistoryResponse.getNextPageToken());
+      sw.stop();
+      metricsScope.counter(MetricsType.DECISION_HISTORY_PAGES_COUNTER).inc(1);
     }
     DecisionsHelper decisionsHelper = new DecisionsHelper(decisionTask, options);
     ReplayWorkflow workflow = workflowFactory.getWorkflow(workflowType);
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.replay;
+
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+
+/**
+ * Breaks the processing of a single decision task down into phases. Elapsed time is attributed to
+ * the innermost active phase only, so entering a nested phase pauses the enclosing one and the
+ * reported phase latencies add up to the time the task spent being replayed.
+ */
+final class ReplayPhaseTimer {
+
+  enum Phase {
+    HISTORY_FETCH(MetricsType.DECISION_HISTORY_FETCH_LATENCY),
+    EVENT_REPLAY(MetricsType.DECISION_EVENT_REPLAY_LATENCY),
+    WORKFLOW_CODE(MetricsType.DECISION_WORKFLOW_CODE_LATENCY),
+    LOCAL_ACTIVITY(MetricsType.DECISION_LOCAL_ACTIVITY_LATENCY),
+    QUERY(MetricsType.DECISION_QUERY_LATENCY);
+
+    private final String metricName;
+
+    Phase(String metricName) {
+      this.metricName = metricName;
+    }
+  }
+
+  private final LongSupplier nanoTime;
+  private final long[] elapsedNanos = new long[Phase.values().length];
+  private final boolean[] entered = new boolean[Phase.values().length];
+  private final Deque<Phase> active = new ArrayDeque<>();
+  private long lastTransitionNanos;
+  private long eventsReplayed;
+  private long historyPagesFetched;
+  private long threadsWoken;
+
+  ReplayPhaseTimer() {
+    this(System::nanoTime);
+  }
+
+  ReplayPhaseTimer(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  /** Starts attributing time to the phase until the matching {@link #exit()}. */
+  void enter(Phase phase) {
+    transition();
+    active.push(phase);
+    entered[phase.ordinal()] = true;
+  }
+
+  /** Ends the innermost phase and resumes the one that encloses it. */
+  void exit() {
+    if (active.isEmpty()) {
+      throw new IllegalStateException("No active phase");
+    }
+    transition();
+    active.pop();
+  }
+
+  void addEventsReplayed(int count) {
+    eventsReplayed += count;
+  }
+
+  void addHistoryPageFetched() {
+    historyPagesFetched++;
+  }
+
+  void addThreadsWoken(long count) {
+    threadsWoken += count;
+  }
+
+  long getElapsedNanos(Phase phase) {
+    return elapsedNanos[phase.ordinal()];
+  }
+
+  long getEventsReplayed() {
+    return eventsReplayed;
+  }
+
+  long getHistoryPagesFetched() {
+    return historyPagesFetched;
+  }
+
+  long getThreadsWoken() {
+    return threadsWoken;
+  }
+
+  /**
+   * Records a latency sample for every phase that was entered and the accumulated counters. The
+   * scope is expected to be tagged with the workflow type.
+   */
+  void report(Scope metricsScope) {
+    transition();
+    for (Phase phase : Phase.values()) {
+      if (entered[phase.ordinal()]) {
+        metricsScope
+            .timer(phase.metricName)
+            .record(Duration.ofNanos(elapsedNanos[phase.ordinal()]));
+      }
+    }
+    if (eventsReplayed > 0) {
+      metricsScope.counter(MetricsType.DECISION_EVENTS_REPLAYED_COUNTER).inc(eventsReplayed);
+    }
+    if (historyPagesFetched > 0) {
+      metricsScope.counter(MetricsType.DECISION_HISTORY_PAGES_COUNTER).inc(historyPagesFetched);
+    }
+    if (threadsWoken > 0) {
+      metricsScope.counter(MetricsType.DECISION_THREADS_WOKEN_COUNTER).inc(threadsWoken);
+    }
+  }
+
+  private void transition() {
+    long now = nanoTime.getAsLong();
+    Phase current = active.peek();
+    if (current != null) {
+      elapsedNanos[current.ordinal()] += now - lastTransitionNanos;
+    }
+    lastTransitionNanos = now;
+  }
+}
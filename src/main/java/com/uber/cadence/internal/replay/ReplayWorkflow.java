@@ -44,6 +44,12 @@ public interface ReplayWorkflow {
    */
   long getNextWakeUpTime();
 
+  /** @return number of times workflow threads were resumed by the event loop so far. */
+  long getThreadWakeUpCount();
+
+  /** @return number of workflow threads that are not done yet. */
+  int getWorkflowThreadCount();
+
   /**
    * Called after all history is replayed and workflow cannot make any progress if decision task is
    * a query.
@@ -49,6 +49,12 @@ class SignalDecisionStateMachine extends DecisionStateMachineBase {
     return state == DecisionState.COMPLETED || canceled;
   }
 
+  /** A signal canceled after initiation still receives its completion event. */
+  @Override
+  public boolean isFinal() {
+    return state == DecisionState.COMPLETED && !canceled;
+  }
+
   @Override
   public boolean cancel(Runnable immediateCancellationCallback) {
     stateHistory.add("cancel");
@@ -35,4 +35,10 @@ public class UpsertSearchAttributesDecisionStateMachine extends DecisionStateMac
     }
     return null;
   }
+
+  /** Upsert events are not routed to the state machine, so it is not needed once sent. */
+  @Override
+  public boolean isFinal() {
+    return state != DecisionState.CREATED;
+  }
 }
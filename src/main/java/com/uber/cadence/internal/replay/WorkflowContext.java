@@ -19,6 +19,7 @@ package com.uber.cadence.internal.replay;
 
 import com.uber.cadence.*;
 import com.uber.cadence.context.ContextPropagator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,8 @@ final class WorkflowContext {
   private String currentRunId;
   private SearchAttributes searchAttributes;
   private List<ContextPropagator> contextPropagators;
+  // Deserialized once as the started event headers never change.
+  private Map<String, Object> propagatedContexts;
 
   WorkflowContext(
       String domain,
@@ -144,20 +147,27 @@ final class WorkflowContext {
     return contextPropagators;
   }
 
-  /** Returns a map of propagated context objects, keyed by propagator name */
+  /** Returns an immutable map of propagated context objects, keyed by propagator name */
   Map<String, Object> getPropagatedContexts() {
+    if (propagatedContexts == null) {
+      propagatedContexts = deserializePropagatedContexts();
+    }
+    return propagatedContexts;
+  }
+
+  private Map<String, Object> deserializePropagatedContexts() {
     if (contextPropagators == null || contextPropagators.isEmpty()) {
-      return new HashMap<>();
+      return Collections.emptyMap();
     }
 
     Header headers = startedAttributes.getHeader();
     if (headers == null) {
-      return new HashMap<>();
+      return Collections.emptyMap();
     }
 
     Map<String, byte[]> fields = headers.getFields();
     if (fields == null) {
-      return new HashMap<>();
+      return Collections.emptyMap();
     }
 
     Map<String, byte[]> headerData = new HashMap<>();
@@ -171,7 +181,7 @@ final class WorkflowContext {
       contextData.put(propagator.getName(), propagator.deserializeContext(headerData));
     }
 
-    return contextData;
+    return Collections.unmodifiableMap(contextData);
   }
 
   void mergeSearchAttributes(SearchAttributes searchAttributes) {
@@ -33,9 +33,19 @@ import com.uber.cadence.worker.WorkflowImplementationOptions;
 import com.uber.cadence.workflow.Functions;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +55,11 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
 
   private final IWorkflowService serviceClient;
   private final Scope metricsScope;
-  private final Worker worker;
+  private final int replayConcurrency;
+  // All replay workers. Each one is backed by its own test environment, so concurrent replays
+  // never share a decider.
+  private final List<Worker> workers;
+  private final BlockingQueue<Worker> idleWorkers;
 
   public ReplayWorkflowActivityImpl(
       IWorkflowService serviceClient, Scope metricsScope, String taskList) {
@@ -57,26 +71,55 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
       Scope metricsScope,
       String taskList,
       TestEnvironmentOptions testOptions) {
+    this(serviceClient, metricsScope, taskList, testOptions, 1);
+  }
+
+  /**
+   * @param replayConcurrency number of executions replayed in parallel within a single activity
+   *     invocation. Histories are prefetched and replayed on isolated workers.
+   */
+  public ReplayWorkflowActivityImpl(
+      IWorkflowService serviceClient,
+      Scope metricsScope,
+      String taskList,
+      TestEnvironmentOptions testOptions,
+      int replayConcurrency) {
+    if (replayConcurrency <= 0) {
+      throw new IllegalArgumentException("Negative or zero: " + replayConcurrency);
+    }
     this.serviceClient = Objects.requireNonNull(serviceClient);
     this.metricsScope = Objects.requireNonNull(metricsScope);
-    worker = TestWorkflowEnvironment.newInstance(testOptions).newWorker(taskList);
+    this.replayConcurrency = replayConcurrency;
+    this.workers = new ArrayList<>(replayConcurrency);
+    this.idleWorkers = new ArrayBlockingQueue<>(replayConcurrency);
+    for (int i = 0; i < replayConcurrency; i++) {
+      Worker worker = TestWorkflowEnvironment.newInstance(testOptions).newWorker(taskList);
+      workers.add(worker);
+      idleWorkers.add(worker);
+    }
   }
 
   @Override
   public void registerWorkflowImplementationTypes(Class<?>... workflowImplementationClasses) {
-    worker.registerWorkflowImplementationTypes(workflowImplementationClasses);
+    for (Worker worker : workers) {
+      worker.registerWorkflowImplementationTypes(workflowImplementationClasses);
+    }
   }
 
   @Override
   public void registerWorkflowImplementationTypesWithOptions(
       WorkflowImplementationOptions options, Class<?>... workflowImplementationClasses) {
-    worker.registerWorkflowImplementationTypes(options, workflowImplementationClasses);
+    for (Worker worker : workers) {
+      worker.registerWorkflowImplementationTypes(options, workflowImplementationClasses);
+    }
   }
 
   @Override
   public <R> void addWorkflowImplementationFactory(
       Class<R> workflowInterface, Functions.Func<R> factory) {
-    worker.addWorkflowImplementationFactory(workflowInterface, factory);
+    for (Worker worker : workers) {
+      worker.addWorkflowImplementationFactory(workflowInterface, factory);
+    }
   }
 
   @Override
@@ -84,7 +127,9 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
       WorkflowImplementationOptions options,
       Class<R> workflowInterface,
       Functions.Func<R> factory) {
-    worker.addWorkflowImplementationFactory(options, workflowInterface, factory);
+    for (Worker worker : workers) {
+      worker.addWorkflowImplementationFactory(options, workflowInterface, factory);
+    }
   }
 
   @Override
@@ -111,18 +156,34 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
       replayIndex = heartbeatDetail.get().getReplayExecutionIndex() + 1;
     }
 
-    for (; replayIndex < executions.size(); replayIndex++) {
-      WorkflowExecution execution = executions.get(replayIndex);
-      ReplayWorkflowActivityResult oneReplayResult =
-          replayOneExecution(request.getDomain(), execution);
-      successCount += oneReplayResult.getSucceeded();
-      failedCount += oneReplayResult.getFailed();
-      skippedCount += oneReplayResult.getSkipped();
-      heartbeatResult = new ReplayWorkflowActivityResult();
-      heartbeatResult.setSucceeded(successCount);
-      heartbeatResult.setFailed(failedCount);
-      heartbeatResult.setSkipped(skippedCount);
-      Activity.heartbeat(new HeartbeatDetail(heartbeatResult, replayIndex));
+    // Executions are replayed in parallel, but results are aggregated and heartbeated in order so
+    // that the heartbeat index always means "everything up to here is done".
+    ExecutorService executor = newReplayExecutor();
+    Deque<Future<ReplayWorkflowActivityResult>> inFlight = new ArrayDeque<>();
+    int nextToSubmit = replayIndex;
+    try {
+      for (; replayIndex < executions.size(); replayIndex++) {
+        // Keep more executions in flight than there are replay workers, so that history fetches of
+        // upcoming executions overlap with replays of the current ones.
+        while (nextToSubmit < executions.size() && inFlight.size() < maxInFlightExecutions()) {
+          WorkflowExecution execution = executions.get(nextToSubmit++);
+          inFlight.add(executor.submit(() -> replayOneExecution(request.getDomain(), execution)));
+        }
+        ReplayWorkflowActivityResult oneReplayResult = getReplayResult(inFlight.poll());
+        successCount += oneReplayResult.getSucceeded();
+        failedCount += oneReplayResult.getFailed();
+        skippedCount += oneReplayResult.getSkipped();
+        heartbeatResult = new ReplayWorkflowActivityResult();
+        heartbeatResult.setSucceeded(successCount);
+        heartbeatResult.setFailed(failedCount);
+        heartbeatResult.setSkipped(skippedCount);
+        Activity.heartbeat(new HeartbeatDetail(heartbeatResult, replayIndex));
+      }
+    } finally {
+      for (Future<ReplayWorkflowActivityResult> future : inFlight) {
+        future.cancel(true);
+      }
+      executor.shutdownNow();
     }
     ReplayWorkflowActivityResult result = new ReplayWorkflowActivityResult();
     result.setSucceeded(successCount);
@@ -168,6 +229,38 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
     }
   }
 
+  private int maxInFlightExecutions() {
+    return replayConcurrency * 2;
+  }
+
+  private ExecutorService newReplayExecutor() {
+    AtomicInteger threadIndex = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        maxInFlightExecutions(),
+        r -> {
+          Thread thread =
+              new Thread(r, "replay-workflow-activity-" + threadIndex.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static ReplayWorkflowActivityResult getReplayResult(
+      Future<ReplayWorkflowActivityResult> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
   protected WorkflowExecutionHistory getFullHistory(String domain, WorkflowExecution execution)
       throws Exception {
     byte[] pageToken = null;
@@ -197,6 +290,7 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
   protected boolean replayWorkflowHistory(
       String domain, WorkflowExecution execution, WorkflowExecutionHistory workflowHistory)
       throws Exception {
+    Worker worker = idleWorkers.take();
     Stopwatch sw = this.metricsScope.timer(MetricsType.REPLAY_LATENCY).start();
     try {
       worker.replayWorkflowExecution(workflowHistory);
@@ -218,6 +312,7 @@ public final class ReplayWorkflowActivityImpl implements ReplayWorkflowActivity
       }
     } finally {
       sw.stop();
+      idleWorkers.put(worker);
     }
 
     log.info("replay workflow execution: {} succeed", execution.toString());
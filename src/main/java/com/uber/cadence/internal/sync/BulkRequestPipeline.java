@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import com.uber.cadence.client.BulkResult;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sends requests for items of a bulk operation with a bounded number of requests in flight and
+ * exposes their results as an iterator in completion order. New requests are sent from the thread
+ * that consumes the iterator, so no background thread is needed and consumption naturally limits
+ * the request rate.
+ *
+ * @param <T> item type
+ * @param <R> result type of a single item
+ */
+final class BulkRequestPipeline<T, R> implements Iterator<BulkResult<R>> {
+
+  private final Iterator<T> items;
+  private final Function<T, CompletableFuture<R>> request;
+  private final BiFunction<T, R, String> workflowId;
+  private final int maxInFlightRequests;
+  private final Scope metricsScope;
+  private final BlockingQueue<BulkResult<R>> completed = new LinkedBlockingQueue<>();
+  // Requests sent to the service and not completed yet. Used for the in flight gauge only.
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private int submitted;
+  private int delivered;
+
+  BulkRequestPipeline(
+      Iterator<T> items,
+      Function<T, CompletableFuture<R>> request,
+      BiFunction<T, R, String> workflowId,
+      int maxInFlightRequests,
+      Scope metricsScope) {
+    this.items = items;
+    this.request = request;
+    this.workflowId = workflowId;
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.metricsScope = metricsScope;
+  }
+
+  @Override
+  public boolean hasNext() {
+    fill();
+    return delivered < submitted;
+  }
+
+  @Override
+  public BulkResult<R> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    BulkResult<R> result;
+    try {
+      result = completed.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a bulk request result", e);
+    }
+    delivered++;
+    return result;
+  }
+
+  private void fill() {
+    while (submitted - delivered < maxInFlightRequests && items.hasNext()) {
+      submit(submitted++, items.next());
+    }
+  }
+
+  private void submit(int index, T item) {
+    metricsScope.gauge(MetricsType.BULK_REQUEST_IN_FLIGHT).update(outstanding.incrementAndGet());
+    long start = System.nanoTime();
+    CompletableFuture<R> future;
+    try {
+      future = request.apply(item);
+    } catch (RuntimeException e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete(
+        (result, failure) -> {
+          // The result is always delivered, otherwise next() would wait for it forever.
+          Throwable error = unwrap(failure);
+          String id = null;
+          try {
+            metricsScope
+                .gauge(MetricsType.BULK_REQUEST_IN_FLIGHT)
+                .update(outstanding.decrementAndGet());
+            metricsScope
+                .timer(MetricsType.BULK_REQUEST_LATENCY)
+                .record(Duration.ofNanos(System.nanoTime() - start));
+            if (failure == null) {
+              metricsScope.counter(MetricsType.BULK_REQUEST_SUCCEED_COUNTER).inc(1);
+            } else {
+              metricsScope.counter(MetricsType.BULK_REQUEST_FAILED_COUNTER).inc(1);
+            }
+            id = workflowId.apply(item, result);
+          } catch (RuntimeException e) {
+            if (error == null) {
+              error = e;
+            } else {
+              error.addSuppressed(e);
+            }
+          } finally {
+            completed.add(new BulkResult<>(index, id, error == null ? result : null, error));
+          }
+        });
+  }
+
+  private static Throwable unwrap(Throwable failure) {
+    while ((failure instanceof CompletionException || failure instanceof ExecutionException)
+        && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    return failure;
+  }
+}
@@ -33,6 +33,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   private RuntimeException failure;
   private boolean completed;
   private final List<Functions.Proc> handlers = new ArrayList<>();
+  private final WorkflowThreadWaiters waiters = new WorkflowThreadWaiters();
   private final DeterministicRunnerImpl runner;
   private boolean registeredWithRunner;
 
@@ -68,7 +69,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   @Override
   public V get() {
     if (!completed) {
-      WorkflowThread.await("Feature.get", () -> completed);
+      WorkflowThread.await("Feature.get", () -> completed, waiters);
     }
     if (failure != null) {
       unregisterWithRunner();
@@ -80,7 +81,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   @Override
   public V get(V defaultValue) {
     if (!completed) {
-      WorkflowThread.await("Feature.get", () -> completed);
+      WorkflowThread.await("Feature.get", () -> completed, waiters);
     }
     if (failure != null) {
       unregisterWithRunner();
@@ -130,7 +131,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   @Override
   public RuntimeException getFailure() {
     if (!completed) {
-      WorkflowThread.await("Feature.get", () -> completed);
+      WorkflowThread.await("Feature.get", () -> completed, waiters);
     }
     if (failure != null) {
       unregisterWithRunner();
@@ -153,6 +154,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
     }
     this.completed = true;
     this.value = value;
+    waiters.signalAll();
     invokeHandlers();
     return true;
   }
@@ -164,6 +166,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
     }
     this.completed = true;
     this.failure = value;
+    waiters.signalAll();
     boolean invoked = invokeHandlers();
     if (!invoked) {
       runner.registerFailedPromise(this); // To ensure that failure is not ignored
@@ -111,6 +111,18 @@ interface DeterministicRunner {
    */
   long getNextWakeUpTime();
 
+  /**
+   * @return number of times a workflow thread was resumed by {@link #runUntilAllBlocked()} since
+   *     the runner was created.
+   */
+  long getThreadWakeUpCount();
+
+  /**
+   * @return number of workflow threads that are not done as of the last {@link
+   *     #runUntilAllBlocked()}. Can be called without blocking while the runner executes.
+   */
+  int getThreadCount();
+
   /**
    * Executes a runnable in a specially created workflow thread. This newly created thread is given
    * chance to run before any other existing threads. This is used to ensure that some operations
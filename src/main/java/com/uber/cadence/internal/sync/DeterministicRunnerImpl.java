@@ -26,6 +26,7 @@ import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.converter.JsonDataConverter;
 import com.uber.cadence.internal.common.CheckedExceptionWrapper;
 import com.uber.cadence.internal.context.ContextThreadLocal;
+import com.uber.cadence.internal.logging.LoggerTag;
 import com.uber.cadence.internal.metrics.NoopScope;
 import com.uber.cadence.internal.replay.ContinueAsNewWorkflowExecutionParameters;
 import com.uber.cadence.internal.replay.DeciderCache;
@@ -87,6 +88,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
   private final Lock lock = new ReentrantLock();
   private final ExecutorService threadPool;
   private final SyncDecisionContext decisionContext;
+  private final Map<String, String> loggingContext;
   private final Deque<WorkflowThread> threads = new ArrayDeque<>(); // protected by lock
   // Values from RunnerLocalInternal
   private final Map<RunnerLocalInternal<?>, Object> runnerLocalMap = new HashMap<>();
@@ -116,6 +118,9 @@ class DeterministicRunnerImpl implements DeterministicRunner {
    * com.uber.cadence.workflow.Workflow#sleep(long)} expires. 0 means no blocked threads.
    */
   private long nextWakeUpTime;
+
+  private long threadWakeUpCount;
+  private volatile int threadCount;
   /**
    * Used to check for failedPromises that contain an error, but never where accessed. It is to
    * avoid failure swallowing by failedPromises which is very hard to troubleshoot.
@@ -165,6 +170,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     this.threadPool = threadPool;
     this.decisionContext =
         decisionContext != null ? decisionContext : newDummySyncDecisionContext();
+    this.loggingContext = newLoggingContext(this.decisionContext.getContext());
     this.clock = clock;
     this.cache = cache;
     runnerCancellationScope = new CancellationScopeImpl(true, null, null);
@@ -196,10 +202,28 @@ class DeterministicRunnerImpl implements DeterministicRunner {
         null);
   }
 
+  private static Map<String, String> newLoggingContext(DecisionContext context) {
+    Map<String, String> result = new HashMap<>();
+    result.put(LoggerTag.WORKFLOW_ID, context.getWorkflowId());
+    result.put(LoggerTag.WORKFLOW_TYPE, context.getWorkflowType().getName());
+    result.put(LoggerTag.RUN_ID, context.getRunId());
+    result.put(LoggerTag.TASK_LIST, context.getTaskList());
+    result.put(LoggerTag.DOMAIN, context.getDomain());
+    return Collections.unmodifiableMap(result);
+  }
+
   SyncDecisionContext getDecisionContext() {
     return decisionContext;
   }
 
+  /**
+   * MDC entries of the workflow threads. They are built once per runner instead of being put one by
+   * one every time a workflow thread starts.
+   */
+  Map<String, String> getLoggingContext() {
+    return loggingContext;
+  }
+
   @Override
   public void runUntilAllBlocked() throws Throwable {
     lock.lock();
@@ -249,7 +273,13 @@ class DeterministicRunnerImpl implements DeterministicRunner {
         nextWakeUpTime = Long.MAX_VALUE;
         while (ci.hasNext()) {
           WorkflowThread c = ci.next();
-          progress = c.runUntilBlocked() || progress;
+          // A parked thread waits on a promise or a queue that hasn't changed since it was
+          // parked, so resuming it would only reevaluate a false unblock condition. Skipping it
+          // keeps the order in which the remaining threads run intact.
+          if (!c.isParked()) {
+            threadWakeUpCount++;
+            progress = c.runUntilBlocked() || progress;
+          }
           if (exitRequested) {
             close();
             break outerLoop;
@@ -276,6 +306,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
         }
       } while (progress && !threads.isEmpty());
 
+      threadCount = threads.size();
       if (nextWakeUpTime < currentTimeMillis() || nextWakeUpTime == Long.MAX_VALUE) {
         nextWakeUpTime = 0;
       }
@@ -344,6 +375,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
         threadFutures.add(c.stopNow());
       }
       threads.clear();
+      threadCount = 0;
 
       // We cannot use an iterator to unregister failed Promises since f.get()
       // will remove the promise directly from failedPromises. This causes an
@@ -431,6 +463,21 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     }
   }
 
+  @Override
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  @Override
+  public long getThreadWakeUpCount() {
+    lock.lock();
+    try {
+      return threadWakeUpCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   WorkflowThread newThread(Runnable runnable, boolean detached, String name) {
     checkWorkflowThreadOnly();
     checkClosed();
@@ -679,6 +726,16 @@ class DeterministicRunnerImpl implements DeterministicRunner {
       throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public long getHistoryLength() {
+      throw new UnsupportedOperationException("not implemented");
+    }
+
+    @Override
+    public long getHistorySize() {
+      throw new UnsupportedOperationException("not implemented");
+    }
+
     @Override
     public Consumer<Exception> createTimer(long delaySeconds, Consumer<Exception> callback) {
       throw new UnsupportedOperationException("not implemented");
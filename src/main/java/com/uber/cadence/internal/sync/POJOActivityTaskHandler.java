@@ -30,6 +30,7 @@ import com.uber.cadence.common.MethodRetry;
 import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.internal.common.CheckedExceptionWrapper;
 import com.uber.cadence.internal.common.InternalUtils;
+import com.uber.cadence.internal.common.MethodInvoker;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.worker.ActivityTaskHandler;
 import com.uber.cadence.serviceclient.IWorkflowService;
@@ -206,11 +207,11 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
   }
 
   private class POJOActivityImplementation implements ActivityTaskExecutor {
-    private final Method method;
+    private final MethodInvoker method;
     private final Object activity;
 
     POJOActivityImplementation(Method interfaceMethod, Object activity) {
-      this.method = interfaceMethod;
+      this.method = new MethodInvoker(interfaceMethod);
       this.activity = activity;
     }
 
@@ -221,13 +222,13 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
       byte[] input = task.getInput();
       CurrentActivityExecutionContext.set(context);
       try {
-        Object[] args = dataConverter.fromDataArray(input, method.getGenericParameterTypes());
+        Object[] args = dataConverter.fromDataArray(input, method.getParameterTypes());
         Object result = method.invoke(activity, args);
         RespondActivityTaskCompletedRequest request = new RespondActivityTaskCompletedRequest();
         if (context.isDoNotCompleteOnReturn()) {
           return new ActivityTaskHandler.Result(null, null, null);
         }
-        if (method.getReturnType() != Void.TYPE) {
+        if (!method.returnsVoid()) {
           request.setResult(dataConverter.toData(result));
         }
         return new ActivityTaskHandler.Result(request, null, null);
@@ -242,11 +243,11 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
   }
 
   private class POJOLocalActivityImplementation implements ActivityTaskExecutor {
-    private final Method method;
+    private final MethodInvoker method;
     private final Object activity;
 
     POJOLocalActivityImplementation(Method interfaceMethod, Object activity) {
-      this.method = interfaceMethod;
+      this.method = new MethodInvoker(interfaceMethod);
       this.activity = activity;
     }
 
@@ -257,10 +258,10 @@ class POJOActivityTaskHandler implements ActivityTaskHandler {
       CurrentActivityExecutionContext.set(context);
       byte[] input = task.getInput();
       try {
-        Object[] args = dataConverter.fromDataArray(input, method.getGenericParameterTypes());
+        Object[] args = dataConverter.fromDataArray(input, method.getParameterTypes());
         Object result = method.invoke(activity, args);
         RespondActivityTaskCompletedRequest request = new RespondActivityTaskCompletedRequest();
-        if (method.getReturnType() != Void.TYPE) {
+        if (!method.returnsVoid()) {
           request.setResult(dataConverter.toData(result));
         }
         return new ActivityTaskHandler.Result(request, null, null);
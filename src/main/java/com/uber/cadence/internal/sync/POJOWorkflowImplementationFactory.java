@@ -27,6 +27,7 @@ import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.converter.DataConverterException;
 import com.uber.cadence.internal.common.CheckedExceptionWrapper;
 import com.uber.cadence.internal.common.InternalUtils;
+import com.uber.cadence.internal.common.MethodInvoker;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.replay.DeciderCache;
 import com.uber.cadence.internal.replay.ReplayWorkflow;
@@ -126,7 +127,7 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
     }
     boolean hasWorkflowMethod = false;
     for (TypeToken<?> i : interfaces) {
-      Map<String, Method> signalHandlers = new HashMap<>();
+      Map<String, MethodInvoker> signalHandlers = new HashMap<>();
       for (Method method : i.getRawType().getMethods()) {
         WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
         QueryMethod queryMethod = method.getAnnotation(QueryMethod.class);
@@ -142,10 +143,11 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
                   + "from @WorkflowMethod, @QueryMethod or @SignalMethod");
         }
         if (workflowMethod != null) {
+          MethodInvoker invoker = new MethodInvoker(method);
           Functions.Func<SyncWorkflowDefinition> factory =
               () ->
                   new POJOWorkflowImplementation(
-                      method, workflowImplementationClass, signalHandlers);
+                      invoker, workflowImplementationClass, signalHandlers);
 
           String workflowName = workflowMethod.name();
           if (workflowName.isEmpty()) {
@@ -168,7 +170,7 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
           if (signalName.isEmpty()) {
             signalName = InternalUtils.getSimpleName(method);
           }
-          signalHandlers.put(signalName, method);
+          signalHandlers.put(signalName, new MethodInvoker(method));
         }
         if (queryMethod != null) {
           if (method.getReturnType() == Void.TYPE) {
@@ -231,13 +233,15 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
 
   private class POJOWorkflowImplementation implements SyncWorkflowDefinition {
 
-    private final Method workflowMethod;
+    private final MethodInvoker workflowMethod;
     private final Class<?> workflowImplementationClass;
-    private final Map<String, Method> signalHandlers;
+    private final Map<String, MethodInvoker> signalHandlers;
     private Object workflow;
 
     POJOWorkflowImplementation(
-        Method method, Class<?> workflowImplementationClass, Map<String, Method> signalHandlers) {
+        MethodInvoker method,
+        Class<?> workflowImplementationClass,
+        Map<String, MethodInvoker> signalHandlers) {
       this.workflowMethod = method;
       this.workflowImplementationClass = workflowImplementationClass;
       this.signalHandlers = signalHandlers;
@@ -245,11 +249,11 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
 
     @Override
     public byte[] execute(byte[] input) throws CancellationException, WorkflowExecutionException {
-      Object[] args = dataConverter.fromDataArray(input, workflowMethod.getGenericParameterTypes());
+      Object[] args = dataConverter.fromDataArray(input, workflowMethod.getParameterTypes());
       try {
         newInstance();
         Object result = workflowMethod.invoke(workflow, args);
-        if (workflowMethod.getReturnType() == Void.TYPE) {
+        if (workflowMethod.returnsVoid()) {
           return EMPTY_BLOB;
         }
         return dataConverter.toData(result);
@@ -312,7 +316,7 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
      */
     @Override
     public void processSignal(String signalName, byte[] input, long eventId) {
-      Method signalMethod = signalHandlers.get(signalName);
+      MethodInvoker signalMethod = signalHandlers.get(signalName);
       if (signalMethod == null) {
         log.error(
             "Unknown signal: "
@@ -325,7 +329,7 @@ final class POJOWorkflowImplementationFactory implements ReplayWorkflowFactory {
       }
 
       try {
-        Object[] args = dataConverter.fromDataArray(input, signalMethod.getGenericParameterTypes());
+        Object[] args = dataConverter.fromDataArray(input, signalMethod.getParameterTypes());
         newInstance();
         signalMethod.invoke(workflow, args);
       } catch (IllegalAccessException e) {
@@ -31,6 +31,7 @@ import com.uber.cadence.context.ContextPropagator;
 import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.internal.common.InternalUtils;
 import com.uber.cadence.internal.common.RetryParameters;
+import com.uber.cadence.internal.context.ContextSnapshot;
 import com.uber.cadence.internal.replay.ActivityTaskFailedException;
 import com.uber.cadence.internal.replay.ActivityTaskTimeoutException;
 import com.uber.cadence.internal.replay.ChildWorkflowTaskFailedException;
@@ -96,6 +97,8 @@ final class SyncDecisionContext implements WorkflowInterceptor {
   private final WorkflowImplementationOptions workflowImplementationOptions;
   private final TracingPropagator tracingPropagator;
   private final Tracer tracer;
+  // Reused while the propagated contexts do not change.
+  private ContextSnapshot lastContextSnapshot;
 
   public SyncDecisionContext(
       DecisionContext context,
@@ -497,10 +500,12 @@ final class SyncDecisionContext implements WorkflowInterceptor {
     if (contextPropagators == null) {
       return null;
     }
-    Map<String, byte[]> result = new HashMap<>();
-    for (ContextPropagator propagator : contextPropagators) {
-      result.putAll(propagator.serializeContext(propagator.getCurrentContext()));
+    lastContextSnapshot = ContextSnapshot.capture(contextPropagators, lastContextSnapshot);
+    Map<String, byte[]> serialized = lastContextSnapshot.getSerializedContexts();
+    if (!tracingPropagator.hasActiveSpan()) {
+      return serialized;
     }
+    Map<String, byte[]> result = new HashMap<>(serialized);
     // inject trace span context
     tracingPropagator.inject(result);
     return result;
@@ -130,6 +130,22 @@ class SyncWorkflow implements ReplayWorkflow {
     return runner.isDone() || workflowProc.isDone(); // Do not wait for all other threads.
   }
 
+  @Override
+  public long getThreadWakeUpCount() {
+    if (runner == null) {
+      return 0;
+    }
+    return runner.getThreadWakeUpCount();
+  }
+
+  @Override
+  public int getWorkflowThreadCount() {
+    if (runner == null) {
+      return 0;
+    }
+    return runner.getThreadCount();
+  }
+
   @Override
   public byte[] getOutput() {
     return workflowProc.getOutput();
@@ -117,7 +117,9 @@ import com.uber.cadence.worker.WorkerFactory;
 import com.uber.cadence.worker.WorkerOptions;
 import java.lang.reflect.Type;
 import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -127,26 +129,58 @@ import java.util.function.Function;
 public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnvironment {
 
   private final TestEnvironmentOptions testEnvironmentOptions;
+  private final WorkflowClientOptions workflowClientOptions;
+  // Domain of the environment on a shared service that all clients must use, null otherwise.
+  private final String isolatedDomain;
   private final WorkflowServiceWrapper service;
   private final WorkerFactory workerFactory;
 
   public TestWorkflowEnvironmentInternal(
       WorkflowServiceWrapper workflowServiceWrapper, TestEnvironmentOptions options) {
+    this(
+        workflowServiceWrapper,
+        options == null ? new TestEnvironmentOptions.Builder().build() : options,
+        null);
+  }
+
+  /**
+   * Creates an environment on a service that is shared with other environments. The environment
+   * uses its own domain, derived from the domain in the options, with an independent clock. The
+   * domain and all its workflows are dropped from the service on close.
+   */
+  public static TestWorkflowEnvironmentInternal newSharedServiceInstance(
+      TestWorkflowService sharedService, TestEnvironmentOptions options) {
     if (options == null) {
-      this.testEnvironmentOptions = new TestEnvironmentOptions.Builder().build();
+      options = new TestEnvironmentOptions.Builder().build();
+    }
+    String domain = options.getWorkflowClientOptions().getDomain() + "-" + UUID.randomUUID();
+    WorkflowServiceWrapper view = new WorkflowServiceWrapper(sharedService, domain);
+    return new TestWorkflowEnvironmentInternal(view, options, domain);
+  }
+
+  private TestWorkflowEnvironmentInternal(
+      WorkflowServiceWrapper workflowServiceWrapper,
+      TestEnvironmentOptions options,
+      String domainOverride) {
+    this.testEnvironmentOptions = options;
+    this.isolatedDomain = domainOverride;
+    if (domainOverride == null) {
+      this.workflowClientOptions = options.getWorkflowClientOptions();
     } else {
-      this.testEnvironmentOptions = options;
+      this.workflowClientOptions =
+          WorkflowClientOptions.newBuilder(options.getWorkflowClientOptions())
+              .setDomain(domainOverride)
+              .build();
     }
 
     if (workflowServiceWrapper == null) {
-      this.service = new WorkflowServiceWrapper();
+      this.service = new WorkflowServiceWrapper(testEnvironmentOptions);
     } else {
       this.service = workflowServiceWrapper;
     }
 
     this.service.lockTimeSkipping("TestWorkflowEnvironmentInternal constructor");
-    WorkflowClient client =
-        WorkflowClient.newInstance(this.service, testEnvironmentOptions.getWorkflowClientOptions());
+    WorkflowClient client = WorkflowClient.newInstance(this.service, workflowClientOptions);
     workerFactory =
         WorkerFactory.newInstance(client, testEnvironmentOptions.getWorkerFactoryOptions());
   }
@@ -172,8 +206,8 @@ public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnviro
         WorkflowClientOptions.newBuilder()
             .setDataConverter(testEnvironmentOptions.getDataConverter())
             .setInterceptors(new TimeLockingInterceptor(service))
-            .setMetricsScope(testEnvironmentOptions.getWorkflowClientOptions().getMetricsScope())
-            .setDomain(testEnvironmentOptions.getWorkflowClientOptions().getDomain())
+            .setMetricsScope(workflowClientOptions.getMetricsScope())
+            .setDomain(workflowClientOptions.getDomain())
             .build();
     return WorkflowClientInternal.newInstance(service, options);
   }
@@ -185,9 +219,13 @@ public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnviro
         new WorkflowClientInterceptor[existingInterceptors.length + 1];
     System.arraycopy(existingInterceptors, 0, interceptors, 0, existingInterceptors.length);
     interceptors[interceptors.length - 1] = new TimeLockingInterceptor(service);
-    WorkflowClientOptions newOptions =
-        WorkflowClientOptions.newBuilder(options).setInterceptors(interceptors).build();
-    return WorkflowClientInternal.newInstance(service, newOptions);
+    WorkflowClientOptions.Builder newOptions =
+        WorkflowClientOptions.newBuilder(options).setInterceptors(interceptors);
+    if (isolatedDomain != null) {
+      // Workflows of other domains are invisible to the workers of this environment.
+      newOptions.setDomain(isolatedDomain);
+    }
+    return WorkflowClientInternal.newInstance(service, newOptions.build());
   }
 
   @Override
@@ -212,7 +250,7 @@ public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnviro
 
   @Override
   public String getDomain() {
-    return testEnvironmentOptions.getWorkflowClientOptions().getDomain();
+    return workflowClientOptions.getDomain();
   }
 
   @Override
@@ -272,12 +310,33 @@ public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnviro
   public static class WorkflowServiceWrapper implements IWorkflowService {
 
     private final TestWorkflowService impl;
+    // Domain with its own clock on a shared service, null if the service isn't shared
+    private final String isolatedDomain;
 
     public WorkflowServiceWrapper() {
       impl = new TestWorkflowService();
+      isolatedDomain = null;
+    }
+
+    public WorkflowServiceWrapper(TestEnvironmentOptions options) {
+      impl = new TestWorkflowService(options);
+      isolatedDomain = null;
+    }
+
+    /**
+     * View of a shared service that uses the clock of the isolated domain. Closing the view
+     * releases the domain instead of closing the service.
+     */
+    public WorkflowServiceWrapper(TestWorkflowService sharedService, String isolatedDomain) {
+      impl = sharedService;
+      this.isolatedDomain = Objects.requireNonNull(isolatedDomain);
+      sharedService.isolateDomain(isolatedDomain);
     }
 
     public long currentTimeMillis() {
+      if (isolatedDomain != null) {
+        return impl.currentTimeMillis(isolatedDomain);
+      }
       return impl.currentTimeMillis();
     }
 
@@ -928,23 +987,43 @@ public final class TestWorkflowEnvironmentInternal implements TestWorkflowEnviro
 
     @Override
     public void close() {
-      impl.close();
+      if (isolatedDomain != null) {
+        impl.releaseDomain(isolatedDomain);
+      } else {
+        impl.close();
+      }
     }
 
     public void registerDelayedCallback(Duration delay, Runnable r) {
-      impl.registerDelayedCallback(delay, r);
+      if (isolatedDomain != null) {
+        impl.registerDelayedCallback(isolatedDomain, delay, r);
+      } else {
+        impl.registerDelayedCallback(delay, r);
+      }
     }
 
     public void lockTimeSkipping(String caller) {
-      impl.lockTimeSkipping(caller);
+      if (isolatedDomain != null) {
+        impl.lockTimeSkipping(isolatedDomain, caller);
+      } else {
+        impl.lockTimeSkipping(caller);
+      }
     }
 
     public void unlockTimeSkipping(String caller) {
-      impl.unlockTimeSkipping(caller);
+      if (isolatedDomain != null) {
+        impl.unlockTimeSkipping(isolatedDomain, caller);
+      } else {
+        impl.unlockTimeSkipping(caller);
+      }
     }
 
     public void sleep(Duration duration) {
-      impl.sleep(duration);
+      if (isolatedDomain != null) {
+        impl.sleep(isolatedDomain, duration);
+      } else {
+        impl.sleep(duration);
+      }
     }
   }
 
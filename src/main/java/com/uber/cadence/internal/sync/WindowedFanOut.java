@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import com.google.common.base.Preconditions;
+import com.uber.cadence.workflow.CompletablePromise;
+import com.uber.cadence.workflow.Functions;
+import com.uber.cadence.workflow.Promise;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Applies an asynchronous function to a sequence of items keeping at most a fixed number of the
+ * returned promises incomplete at a time. The next item is started from the completion callback of
+ * a previous one instead of from a dedicated workflow thread, so the number of items does not
+ * affect the number of workflow threads.
+ */
+final class WindowedFanOut<T, R> {
+
+  private final Iterator<? extends T> items;
+  private final int maxInFlight;
+  private final Functions.Func1<? super T, Promise<R>> function;
+  private final Functions.Proc3<Integer, ? super T, ? super R> resultHandler;
+  private final CompletablePromise<Void> result = new CompletablePromiseImpl<>();
+  private int nextIndex;
+  private int inFlight;
+  // Prevents unbounded recursion when the function returns already completed promises.
+  private boolean launching;
+
+  WindowedFanOut(
+      Iterable<? extends T> items,
+      int maxInFlight,
+      Functions.Func1<? super T, Promise<R>> function,
+      Functions.Proc3<Integer, ? super T, ? super R> resultHandler) {
+    Preconditions.checkArgument(maxInFlight > 0, "maxInFlight should be greater than 0");
+    this.items = Objects.requireNonNull(items).iterator();
+    this.maxInFlight = maxInFlight;
+    this.function = Objects.requireNonNull(function);
+    this.resultHandler = Objects.requireNonNull(resultHandler);
+  }
+
+  Promise<Void> start() {
+    launchMore();
+    return result;
+  }
+
+  private void launchMore() {
+    if (launching) {
+      return;
+    }
+    launching = true;
+    try {
+      while (!result.isCompleted() && inFlight < maxInFlight && items.hasNext()) {
+        T item = items.next();
+        int index = nextIndex++;
+        Promise<R> promise;
+        try {
+          promise = Objects.requireNonNull(function.apply(item), "function returned null promise");
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+          return;
+        }
+        inFlight++;
+        promise.handle(
+            (value, failure) -> {
+              onCompleted(index, item, value, failure);
+              return null;
+            });
+      }
+    } finally {
+      launching = false;
+    }
+    if (!result.isCompleted() && inFlight == 0 && !items.hasNext()) {
+      result.complete(null);
+    }
+  }
+
+  private void onCompleted(int index, T item, R value, RuntimeException failure) {
+    inFlight--;
+    if (result.isCompleted()) {
+      return;
+    }
+    if (failure != null) {
+      result.completeExceptionally(failure);
+      return;
+    }
+    try {
+      resultHandler.apply(index, item, value);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return;
+    }
+    launchMore();
+  }
+}
@@ -24,6 +24,10 @@ import com.uber.cadence.RefreshWorkflowTasksRequest;
 import com.uber.cadence.WorkflowExecution;
 import com.uber.cadence.client.ActivityCompletionClient;
 import com.uber.cadence.client.BatchRequest;
+import com.uber.cadence.client.BulkOptions;
+import com.uber.cadence.client.BulkResult;
+import com.uber.cadence.client.BulkSignalRequest;
+import com.uber.cadence.client.BulkStartRequest;
 import com.uber.cadence.client.WorkflowClient;
 import com.uber.cadence.client.WorkflowClientInterceptor;
 import com.uber.cadence.client.WorkflowClientOptions;
@@ -33,15 +37,18 @@ import com.uber.cadence.internal.external.GenericWorkflowClientExternalImpl;
 import com.uber.cadence.internal.external.ManualActivityCompletionClientFactory;
 import com.uber.cadence.internal.external.ManualActivityCompletionClientFactoryImpl;
 import com.uber.cadence.internal.metrics.ClientVersionEmitter;
+import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.sync.WorkflowInvocationHandler.InvocationType;
 import com.uber.cadence.serviceclient.IWorkflowService;
 import com.uber.cadence.workflow.Functions;
 import com.uber.cadence.workflow.QueryMethod;
 import com.uber.cadence.workflow.WorkflowMethod;
+import com.uber.m3.util.ImmutableMap;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -218,6 +225,71 @@ public final class WorkflowClientInternal implements WorkflowClient {
     return ((SignalWithStartBatchRequest) signalWithStartBatch).enqueue();
   }
 
+  @Override
+  public Iterator<BulkResult<WorkflowExecution>> startAll(
+      Iterable<BulkStartRequest> starts, BulkOptions options) {
+    long timeoutMillis = bulkRequestTimeoutMillis(options);
+    return new BulkRequestPipeline<>(
+        starts.iterator(),
+        (start) ->
+            start
+                .getStub()
+                .startAsyncWithTimeout(timeoutMillis, TimeUnit.MILLISECONDS, start.getArgs()),
+        (start, execution) -> {
+          if (execution != null) {
+            return execution.getWorkflowId();
+          }
+          Optional<WorkflowOptions> startOptions = start.getStub().getOptions();
+          return startOptions.isPresent() ? startOptions.get().getWorkflowId() : null;
+        },
+        options.getMaxInFlightRequests(),
+        clientOptions
+            .getMetricsScope()
+            .tagged(
+                ImmutableMap.of(
+                    MetricsTag.DOMAIN,
+                    clientOptions.getDomain(),
+                    MetricsTag.REQUEST_TYPE,
+                    "StartWorkflowExecution")));
+  }
+
+  @Override
+  public Iterator<BulkResult<Void>> signalAll(
+      Iterable<BulkSignalRequest> signals, BulkOptions options) {
+    long timeoutMillis = bulkRequestTimeoutMillis(options);
+    return new BulkRequestPipeline<>(
+        signals.iterator(),
+        (signal) ->
+            signal
+                .getStub()
+                .signalAsyncWithTimeout(
+                    timeoutMillis, TimeUnit.MILLISECONDS, signal.getSignalName(), signal.getArgs()),
+        (signal, result) -> {
+          // The execution is null when the stub was never started, which fails the signal.
+          WorkflowExecution execution = signal.getStub().getExecution();
+          if (execution != null) {
+            return execution.getWorkflowId();
+          }
+          Optional<WorkflowOptions> signalOptions = signal.getStub().getOptions();
+          return signalOptions.isPresent() ? signalOptions.get().getWorkflowId() : null;
+        },
+        options.getMaxInFlightRequests(),
+        clientOptions
+            .getMetricsScope()
+            .tagged(
+                ImmutableMap.of(
+                    MetricsTag.DOMAIN,
+                    clientOptions.getDomain(),
+                    MetricsTag.REQUEST_TYPE,
+                    "SignalWorkflowExecution")));
+  }
+
+  private static long bulkRequestTimeoutMillis(BulkOptions options) {
+    return options.getRequestTimeout() == null
+        ? Long.MAX_VALUE
+        : options.getRequestTimeout().toMillis();
+  }
+
   @Override
   public void refreshWorkflowTasks(RefreshWorkflowTasksRequest refreshWorkflowTasksRequest)
       throws CadenceError {
@@ -22,15 +22,18 @@ import com.uber.cadence.WorkflowExecution;
 import com.uber.cadence.WorkflowExecutionStartedEventAttributes;
 import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.internal.replay.DecisionContext;
+import com.uber.cadence.worker.WorkflowImplementationOptions;
 import com.uber.cadence.workflow.WorkflowInfo;
 import java.time.Duration;
 
 final class WorkflowInfoImpl implements WorkflowInfo {
 
   private final DecisionContext context;
+  private final WorkflowImplementationOptions options;
 
-  WorkflowInfoImpl(DecisionContext context) {
+  WorkflowInfoImpl(DecisionContext context, WorkflowImplementationOptions options) {
     this.context = context;
+    this.options = options;
   }
 
   @Override
@@ -89,4 +92,25 @@ final class WorkflowInfoImpl implements WorkflowInfo {
   public DataConverter getDataConverter() {
     return context.getDataConverter();
   }
+
+  @Override
+  public long getHistoryLength() {
+    return context.getHistoryLength();
+  }
+
+  @Override
+  public long getHistorySize() {
+    return context.getHistorySize();
+  }
+
+  @Override
+  public boolean isContinueAsNewSuggested() {
+    if (options == null) {
+      return false;
+    }
+    long maxLength = options.getContinueAsNewSuggestedHistoryLength();
+    long maxSize = options.getContinueAsNewSuggestedHistorySize();
+    return (maxLength > 0 && context.getHistoryLength() >= maxLength)
+        || (maxSize > 0 && context.getHistorySize() >= maxSize);
+  }
 }
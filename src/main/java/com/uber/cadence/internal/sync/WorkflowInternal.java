@@ -41,6 +41,7 @@ import com.uber.cadence.workflow.QueryMethod;
 import com.uber.cadence.workflow.Workflow;
 import com.uber.cadence.workflow.WorkflowInfo;
 import com.uber.cadence.workflow.WorkflowInterceptor;
+import com.uber.cadence.workflow.WorkflowLogger;
 import com.uber.cadence.workflow.WorkflowQueue;
 import com.uber.m3.tally.Scope;
 import java.lang.reflect.InvocationHandler;
@@ -48,9 +49,11 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
@@ -94,6 +97,36 @@ public final class WorkflowInternal {
     return result;
   }
 
+  public static <T, R> Promise<List<R>> fanOut(
+      Iterable<? extends T> items,
+      int maxInFlight,
+      Functions.Func1<? super T, Promise<R>> function) {
+    List<R> results = new ArrayList<>();
+    return new WindowedFanOut<T, R>(
+            items,
+            maxInFlight,
+            function,
+            (index, item, value) -> {
+              while (results.size() <= index) {
+                results.add(null);
+              }
+              results.set(index, value);
+            })
+        .start()
+        .thenApply((v) -> results);
+  }
+
+  public static <T, R> Promise<Void> fanOut(
+      Iterable<? extends T> items,
+      int maxInFlight,
+      Functions.Func1<? super T, Promise<R>> function,
+      Functions.Proc2<? super T, ? super R> resultHandler) {
+    Objects.requireNonNull(resultHandler);
+    return new WindowedFanOut<T, R>(
+            items, maxInFlight, function, (index, item, value) -> resultHandler.apply(item, value))
+        .start();
+  }
+
   /**
    * Register query or queries implementation object. There is no need to register top level
    * workflow implementation object as it is done implicitly. Only methods annotated with @{@link
@@ -299,7 +332,9 @@ public final class WorkflowInternal {
   }
 
   public static WorkflowInfo getWorkflowInfo() {
-    return new WorkflowInfoImpl(getRootDecisionContext().getContext());
+    SyncDecisionContext decisionContext = getRootDecisionContext();
+    return new WorkflowInfoImpl(
+        decisionContext.getContext(), decisionContext.getWorkflowImplementationOptions());
   }
 
   public static <R> R retry(RetryOptions options, Functions.Func<R> fn) {
@@ -339,13 +374,13 @@ public final class WorkflowInternal {
     return getRootDecisionContext().newRandom();
   }
 
-  public static Logger getLogger(Class<?> clazz) {
+  public static WorkflowLogger getLogger(Class<?> clazz) {
     Logger logger = LoggerFactory.getLogger(clazz);
     return new ReplayAwareLogger(
         logger, WorkflowInternal::isReplaying, WorkflowInternal::isLoggingEnabledInReplay);
   }
 
-  public static Logger getLogger(String name) {
+  public static WorkflowLogger getLogger(String name) {
     Logger logger = LoggerFactory.getLogger(name);
     return new ReplayAwareLogger(
         logger, WorkflowInternal::isReplaying, WorkflowInternal::isLoggingEnabledInReplay);
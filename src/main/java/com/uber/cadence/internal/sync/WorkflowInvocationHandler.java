@@ -34,6 +34,8 @@ import com.uber.cadence.workflow.WorkflowMethod;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 
 /**
@@ -66,6 +68,61 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
   private static final ThreadLocal<SpecificInvocationHandler> invocationContext =
       new ThreadLocal<>();
 
+  private static final Method TO_STRING_METHOD;
+
+  static {
+    try {
+      TO_STRING_METHOD = Object.class.getMethod("toString");
+    } catch (NoSuchMethodException e) {
+      throw new Error("unexpected", e);
+    }
+  }
+
+  private static final ClassValue<Method> workflowMethods =
+      new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> workflowInterface) {
+          return getWorkflowMethod(workflowInterface);
+        }
+      };
+
+  private static final ClassValue<ConcurrentMap<Method, MethodMetadata>> methodMetadata =
+      new ClassValue<ConcurrentMap<Method, MethodMetadata>>() {
+        @Override
+        protected ConcurrentMap<Method, MethodMetadata> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /** Annotations of a workflow interface method, read once instead of on every invocation. */
+  private static final class MethodMetadata {
+    final WorkflowMethod workflowMethod;
+    final QueryMethod queryMethod;
+    final SignalMethod signalMethod;
+    final String queryType;
+    final String signalName;
+
+    private MethodMetadata(Method method) {
+      workflowMethod = method.getAnnotation(WorkflowMethod.class);
+      queryMethod = method.getAnnotation(QueryMethod.class);
+      signalMethod = method.getAnnotation(SignalMethod.class);
+      queryType =
+          queryMethod == null ? null : nameFromMethodAndAnnotation(method, queryMethod.name());
+      signalName =
+          signalMethod == null ? null : nameFromMethodAndAnnotation(method, signalMethod.name());
+    }
+
+    static MethodMetadata of(Method method) {
+      ConcurrentMap<Method, MethodMetadata> byMethod =
+          methodMetadata.get(method.getDeclaringClass());
+      MethodMetadata result = byMethod.get(method);
+      if (result == null) {
+        result = byMethod.computeIfAbsent(method, MethodMetadata::new);
+      }
+      return result;
+    }
+  }
+
   /** Must call {@link #closeAsyncInvocation()} if this one was called. */
   static void initAsyncInvocation(InvocationType type) {
     initAsyncInvocation(type, null);
@@ -113,8 +170,8 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
       GenericWorkflowClientExternal genericClient,
       WorkflowExecution execution,
       WorkflowClientInterceptor[] interceptors) {
-    Method workflowMethod = getWorkflowMethod(workflowInterface);
-    WorkflowMethod annotation = workflowMethod.getAnnotation(WorkflowMethod.class);
+    Method workflowMethod = workflowMethods.get(workflowInterface);
+    WorkflowMethod annotation = MethodMetadata.of(workflowMethod).workflowMethod;
     String workflowType = getWorkflowType(workflowMethod, annotation);
 
     WorkflowStub stub =
@@ -131,10 +188,10 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
       GenericWorkflowClientExternal genericClient,
       WorkflowOptions options,
       WorkflowClientInterceptor[] interceptors) {
-    Method workflowMethod = getWorkflowMethod(workflowInterface);
+    Method workflowMethod = workflowMethods.get(workflowInterface);
     MethodRetry methodRetry = workflowMethod.getAnnotation(MethodRetry.class);
     CronSchedule cronSchedule = workflowMethod.getAnnotation(CronSchedule.class);
-    WorkflowMethod annotation = workflowMethod.getAnnotation(WorkflowMethod.class);
+    WorkflowMethod annotation = MethodMetadata.of(workflowMethod).workflowMethod;
     String workflowType = getWorkflowType(workflowMethod, annotation);
     WorkflowOptions mergedOptions =
         WorkflowOptions.merge(annotation, methodRetry, cronSchedule, options);
@@ -148,13 +205,9 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-    try {
-      if (method.equals(Object.class.getMethod("toString"))) {
-        // TODO: workflow info
-        return "WorkflowInvocationHandler";
-      }
-    } catch (NoSuchMethodException e) {
-      throw new Error("unexpected", e);
+    if (method.equals(TO_STRING_METHOD)) {
+      // TODO: workflow info
+      return "WorkflowInvocationHandler";
     }
     if (!method.getDeclaringClass().isInterface()) {
       throw new IllegalArgumentException(
@@ -217,7 +270,7 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
     @Override
     public void invoke(WorkflowStub untyped, Method method, Object[] args) {
-      WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
+      WorkflowMethod workflowMethod = MethodMetadata.of(method).workflowMethod;
       if (workflowMethod == null) {
         throw new IllegalArgumentException(
             "WorkflowClient.start can be called only on a method annotated with @WorkflowMethod");
@@ -243,7 +296,7 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
     @Override
     public void invoke(WorkflowStub untyped, Method method, Object[] args) throws Throwable {
-      WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
+      WorkflowMethod workflowMethod = MethodMetadata.of(method).workflowMethod;
       if (workflowMethod == null) {
         throw new IllegalArgumentException(
             "WorkflowClient.enqueueStart can be called only on a method annotated with @WorkflowMethod");
@@ -268,16 +321,15 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
     @Override
     public void invoke(WorkflowStub untyped, Method method, Object[] args) {
-      WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
-      QueryMethod queryMethod = method.getAnnotation(QueryMethod.class);
-      SignalMethod signalMethod = method.getAnnotation(SignalMethod.class);
-      checkAnnotations(method, workflowMethod, queryMethod, signalMethod);
-      if (workflowMethod != null) {
+      MethodMetadata metadata = MethodMetadata.of(method);
+      checkAnnotations(
+          method, metadata.workflowMethod, metadata.queryMethod, metadata.signalMethod);
+      if (metadata.workflowMethod != null) {
         result = startWorkflow(untyped, method, args);
-      } else if (queryMethod != null) {
-        result = queryWorkflow(untyped, method, queryMethod, args);
-      } else if (signalMethod != null) {
-        signalWorkflow(untyped, method, signalMethod, args);
+      } else if (metadata.queryMethod != null) {
+        result = queryWorkflow(untyped, method, metadata.queryType, args);
+      } else if (metadata.signalMethod != null) {
+        signalWorkflow(untyped, method, metadata.signalName, args);
         result = null;
       } else {
         throw new IllegalArgumentException(
@@ -292,21 +344,19 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
     }
 
     private void signalWorkflow(
-        WorkflowStub untyped, Method method, SignalMethod signalMethod, Object[] args) {
+        WorkflowStub untyped, Method method, String signalName, Object[] args) {
       if (method.getReturnType() != Void.TYPE) {
         throw new IllegalArgumentException("Signal method must have void return type: " + method);
       }
 
-      String signalName = nameFromMethodAndAnnotation(method, signalMethod.name());
       untyped.signal(signalName, args);
     }
 
     private Object queryWorkflow(
-        WorkflowStub untyped, Method method, QueryMethod queryMethod, Object[] args) {
+        WorkflowStub untyped, Method method, String queryType, Object[] args) {
       if (method.getReturnType() == Void.TYPE) {
         throw new IllegalArgumentException("Query method cannot have void return type: " + method);
       }
-      String queryType = nameFromMethodAndAnnotation(method, queryMethod.name());
 
       return untyped.query(queryType, method.getReturnType(), method.getGenericReturnType(), args);
     }
@@ -337,7 +387,7 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
     @Override
     public void invoke(WorkflowStub untyped, Method method, Object[] args) {
-      WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
+      WorkflowMethod workflowMethod = MethodMetadata.of(method).workflowMethod;
       if (workflowMethod == null) {
         throw new IllegalArgumentException(
             "WorkflowClient.execute can be called only on a method annotated with @WorkflowMethod");
@@ -369,19 +419,17 @@ class WorkflowInvocationHandler implements InvocationHandler, Supplier<WorkflowS
 
     @Override
     public void invoke(WorkflowStub untyped, Method method, Object[] args) throws Throwable {
-      QueryMethod queryMethod = method.getAnnotation(QueryMethod.class);
-      SignalMethod signalMethod = method.getAnnotation(SignalMethod.class);
-      WorkflowMethod workflowMethod = method.getAnnotation(WorkflowMethod.class);
-      checkAnnotations(method, workflowMethod, queryMethod, signalMethod);
-      if (queryMethod != null) {
+      MethodMetadata metadata = MethodMetadata.of(method);
+      checkAnnotations(
+          method, metadata.workflowMethod, metadata.queryMethod, metadata.signalMethod);
+      if (metadata.queryMethod != null) {
         throw new IllegalArgumentException(
             "SignalWithStart batch doesn't accept methods annotated with @QueryMethod");
       }
-      if (workflowMethod != null) {
+      if (metadata.workflowMethod != null) {
         batch.start(untyped, args);
-      } else if (signalMethod != null) {
-        String signalName = nameFromMethodAndAnnotation(method, signalMethod.name());
-        batch.signal(untyped, signalName, args);
+      } else if (metadata.signalMethod != null) {
+        batch.signal(untyped, metadata.signalName, args);
       } else {
         throw new IllegalArgumentException(
             method + " is not annotated with @WorkflowMethod or @SignalMethod");
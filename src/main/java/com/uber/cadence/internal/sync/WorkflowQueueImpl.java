@@ -28,6 +28,10 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   private final Deque<E> queue = new ArrayDeque<>();
   private final int capacity;
+  // Threads blocked in take waiting for an element.
+  private final WorkflowThreadWaiters notEmpty = new WorkflowThreadWaiters();
+  // Threads blocked in put waiting for free capacity.
+  private final WorkflowThreadWaiters notFull = new WorkflowThreadWaiters();
 
   public WorkflowQueueImpl(int capacity) {
     if (capacity < 1) {
@@ -38,8 +42,10 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public E take() throws InterruptedException {
-    WorkflowThread.await("WorkflowQueue.take", () -> !queue.isEmpty());
-    return queue.pollLast();
+    WorkflowThread.await("WorkflowQueue.take", () -> !queue.isEmpty(), notEmpty);
+    E result = queue.pollLast();
+    notFull.signalAll();
+    return result;
   }
 
   @Override
@@ -48,7 +54,9 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
     if (queue.isEmpty()) {
       return null;
     }
-    return queue.remove();
+    E result = queue.remove();
+    notFull.signalAll();
+    return result;
   }
 
   @Override
@@ -57,6 +65,7 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
       return false;
     }
     queue.addLast(e);
+    notEmpty.signalAll();
     return true;
   }
 
@@ -67,9 +76,10 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
     // This condition allows puts outside the sync thread which
     // is used by signal handling logic.
     if (queue.size() >= capacity) {
-      WorkflowThread.await("WorkflowQueue.put", () -> queue.size() < capacity);
+      WorkflowThread.await("WorkflowQueue.put", () -> queue.size() < capacity, notFull);
     }
     queue.addLast(e);
+    notEmpty.signalAll();
   }
 
   @Override
@@ -81,6 +91,7 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
       return false;
     }
     queue.addLast(e);
+    notEmpty.signalAll();
     return true;
   }
 
@@ -423,12 +423,7 @@ class WorkflowStubImpl implements WorkflowStub {
       long timeout, TimeUnit unit, Class<R> resultClass, Type resultType) {
     checkStarted();
     return WorkflowExecutionUtils.getWorkflowExecutionResultAsync(
-            genericClient.getService(),
-            genericClient.getDomain(),
-            execution.get(),
-            workflowType,
-            timeout,
-            unit)
+            genericClient.getCompletionWaiters(), execution.get(), workflowType, timeout, unit)
         .handle(
             (r, e) -> {
               if (e instanceof CompletionException) {
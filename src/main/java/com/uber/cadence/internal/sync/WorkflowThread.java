@@ -43,6 +43,23 @@ interface WorkflowThread extends CancellationScope {
     currentThreadInternal().yield(reason, unblockCondition);
   }
 
+  /**
+   * Block current thread until unblockCondition is evaluated to true. The thread is parked on the
+   * waiters and is not resumed to reevaluate the condition until they are signalled. Use it only
+   * for conditions that depend solely on the state guarded by the waiters.
+   *
+   * @param reason reason for blocking
+   * @param unblockCondition condition that should return true to indicate that thread should
+   *     unblock.
+   * @param waiters signalled whenever the unblockCondition result might have changed.
+   * @throws DestroyWorkflowThreadError if thread was asked to be destroyed.
+   */
+  static void await(
+      String reason, Supplier<Boolean> unblockCondition, WorkflowThreadWaiters waiters)
+      throws DestroyWorkflowThreadError {
+    currentThreadInternal().yield(reason, unblockCondition, waiters);
+  }
+
   /**
    * Block current thread until unblockCondition is evaluated to true or timeoutMillis passes.
    *
@@ -90,12 +107,18 @@ interface WorkflowThread extends CancellationScope {
 
   boolean isDone();
 
+  /** True if the thread waits on {@link WorkflowThreadWaiters} that haven't been signalled. */
+  boolean isParked();
+
   Future<?> stopNow();
 
   void addStackTrace(StringBuilder result);
 
   void yield(String reason, Supplier<Boolean> unblockCondition) throws DestroyWorkflowThreadError;
 
+  void yield(String reason, Supplier<Boolean> unblockCondition, WorkflowThreadWaiters waiters)
+      throws DestroyWorkflowThreadError;
+
   boolean yield(long timeoutMillis, String reason, Supplier<Boolean> unblockCondition)
       throws DestroyWorkflowThreadError;
 
@@ -40,6 +40,9 @@ class WorkflowThreadContext {
   private boolean remainedBlocked;
   private String yieldReason;
   private boolean destroyRequested;
+  // True while the thread waits on a WorkflowThreadWaiters that has not been signalled yet. Such a
+  // thread cannot make progress, so the runner doesn't hand control to it.
+  private boolean parked;
 
   WorkflowThreadContext(Lock lock) {
     this.lock = lock;
@@ -60,6 +63,17 @@ class WorkflowThreadContext {
   }
 
   public void yield(String reason, Supplier<Boolean> unblockFunction) {
+    yield(reason, unblockFunction, null);
+  }
+
+  /**
+   * Same as {@link #yield(String, Supplier)}, but when {@code waiters} is not null the thread is
+   * parked on it every time unblockFunction returns false. A parked thread is skipped by the runner
+   * until the waiters are signalled, so unblockFunction must only depend on the state whose changes
+   * signal them.
+   */
+  public void yield(
+      String reason, Supplier<Boolean> unblockFunction, WorkflowThreadWaiters waiters) {
     if (unblockFunction == null) {
       throw new IllegalArgumentException("null unblockFunction");
     }
@@ -71,6 +85,10 @@ class WorkflowThreadContext {
         if (destroyRequested) {
           throw new DestroyWorkflowThreadError();
         }
+        if (waiters != null && !parked) {
+          parked = true;
+          waiters.add(this);
+        }
         status = Status.YIELDED;
         runCondition.signal();
         yieldCondition.await();
@@ -82,6 +100,7 @@ class WorkflowThreadContext {
       throw new Error("Unexpected interrupt", e);
     } finally {
       setStatus(Status.RUNNING);
+      parked = false;
       remainedBlocked = false;
       yieldReason = null;
       lock.unlock();
@@ -164,6 +183,25 @@ class WorkflowThreadContext {
     }
   }
 
+  public boolean isParked() {
+    lock.lock();
+    try {
+      return parked;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Makes a parked thread eligible to run again. Called by {@link WorkflowThreadWaiters}. */
+  void unpark() {
+    lock.lock();
+    try {
+      parked = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public boolean isDone() {
     lock.lock();
     try {
@@ -20,10 +20,8 @@ package com.uber.cadence.internal.sync;
 import com.google.common.util.concurrent.RateLimiter;
 import com.uber.cadence.context.ContextPropagator;
 import com.uber.cadence.internal.context.ContextThreadLocal;
-import com.uber.cadence.internal.logging.LoggerTag;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.replay.DeciderCache;
-import com.uber.cadence.internal.replay.DecisionContext;
 import com.uber.cadence.workflow.Promise;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -48,7 +46,6 @@ class WorkflowThreadImpl implements WorkflowThread {
   class RunnableWrapper implements Runnable {
 
     private final WorkflowThreadContext threadContext;
-    private final DecisionContext decisionContext;
     private String originalName;
     private String name;
     private CancellationScopeImpl cancellationScope;
@@ -57,7 +54,6 @@ class WorkflowThreadImpl implements WorkflowThread {
 
     RunnableWrapper(
         WorkflowThreadContext threadContext,
-        DecisionContext decisionContext,
         String name,
         boolean detached,
         CancellationScopeImpl parent,
@@ -65,7 +61,6 @@ class WorkflowThreadImpl implements WorkflowThread {
         List<ContextPropagator> contextPropagators,
         Map<String, Object> propagatedContexts) {
       this.threadContext = threadContext;
-      this.decisionContext = decisionContext;
       this.name = name;
       cancellationScope = new CancellationScopeImpl(detached, runnable, parent);
       if (context.getStatus() != Status.CREATED) {
@@ -81,12 +76,7 @@ class WorkflowThreadImpl implements WorkflowThread {
       originalName = thread.getName();
       thread.setName(name);
       DeterministicRunnerImpl.setCurrentThreadInternal(WorkflowThreadImpl.this);
-      decisionContext.getWorkflowId();
-      MDC.put(LoggerTag.WORKFLOW_ID, decisionContext.getWorkflowId());
-      MDC.put(LoggerTag.WORKFLOW_TYPE, decisionContext.getWorkflowType().getName());
-      MDC.put(LoggerTag.RUN_ID, decisionContext.getRunId());
-      MDC.put(LoggerTag.TASK_LIST, decisionContext.getTaskList());
-      MDC.put(LoggerTag.DOMAIN, decisionContext.getDomain());
+      MDC.setContextMap(runner.getLoggingContext());
 
       // Repopulate the context(s)
       ContextThreadLocal.setContextPropagators(this.contextPropagators);
@@ -204,7 +194,6 @@ class WorkflowThreadImpl implements WorkflowThread {
     this.task =
         new RunnableWrapper(
             context,
-            runner.getDecisionContext().getContext(),
             name,
             detached,
             parentCancellationScope,
@@ -340,6 +329,11 @@ class WorkflowThreadImpl implements WorkflowThread {
     return context.isDone();
   }
 
+  @Override
+  public boolean isParked() {
+    return context.isParked();
+  }
+
   public Thread.State getState() {
     if (context.getStatus() == Status.YIELDED) {
       return Thread.State.BLOCKED;
@@ -420,6 +414,12 @@ class WorkflowThreadImpl implements WorkflowThread {
     context.yield(reason, unblockCondition);
   }
 
+  @Override
+  public void yield(
+      String reason, Supplier<Boolean> unblockCondition, WorkflowThreadWaiters waiters) {
+    context.yield(reason, unblockCondition, waiters);
+  }
+
   @Override
   public boolean yield(long timeoutMillis, String reason, Supplier<Boolean> unblockCondition)
       throws DestroyWorkflowThreadError {
@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Workflow threads blocked on a promise or a queue. Instead of resuming every blocked thread on
+ * each pass of {@link DeterministicRunnerImpl#runUntilAllBlocked()} to reevaluate its unblock
+ * condition, a thread parks here and is skipped by the runner until the owner calls {@link
+ * #signalAll()} after a state change that could unblock it.
+ */
+final class WorkflowThreadWaiters {
+
+  private List<WorkflowThreadContext> parked;
+
+  synchronized void add(WorkflowThreadContext context) {
+    if (parked == null) {
+      parked = new ArrayList<>(2);
+    }
+    parked.add(context);
+  }
+
+  /** Makes all parked threads eligible to run and reevaluate their unblock conditions. */
+  void signalAll() {
+    List<WorkflowThreadContext> toUnpark;
+    synchronized (this) {
+      if (parked == null) {
+        return;
+      }
+      toUnpark = parked;
+      parked = null;
+    }
+    for (WorkflowThreadContext context : toUnpark) {
+      context.unpark();
+    }
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.InternalServiceError;
+import com.uber.cadence.testing.FileHistoryStorageOptions;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps histories in append only segment files. Each event is a record of its payload length,
+ * payload CRC32 and the payload that consists of the serialized execution id followed by the JSON
+ * of the event. Segments are preallocated and memory mapped, so appends and reads go through the
+ * page cache. Appended data is forced to disk by a background flusher every flush interval or
+ * inline once the configured number of unflushed bytes accumulates.
+ *
+ * <p>The heap only holds a position (segment index and offset packed into a long) per event. Events
+ * are deserialized on every read.
+ */
+final class FileHistoryStorage implements HistoryStorage {
+
+  private static final Logger log = LoggerFactory.getLogger(FileHistoryStorage.class);
+
+  private static final String SEGMENT_PREFIX = "history-";
+  private static final String SEGMENT_SUFFIX = ".segment";
+  // payload length and CRC32
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  private static final class Segment {
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // Guarded by the FileHistoryStorage monitor
+    private int writePosition;
+
+    private Segment(Path path, MappedByteBuffer buffer, int writePosition) {
+      this.path = path;
+      this.buffer = buffer;
+      this.writePosition = writePosition;
+    }
+
+    private int remaining() {
+      return buffer.capacity() - writePosition;
+    }
+  }
+
+  private final class FileEventLog implements EventLog {
+
+    private final byte[] key;
+    private long[] positions = new long[16];
+    private int size;
+
+    private FileEventLog(byte[] key) {
+      this.key = key;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public HistoryEvent get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+      }
+      return read(positions[index]);
+    }
+
+    @Override
+    public void add(HistoryEvent event) {
+      addPosition(append(key, event));
+    }
+
+    @Override
+    public List<HistoryEvent> getEvents(int fromIndex) {
+      if (fromIndex < 0 || fromIndex > size) {
+        throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", size=" + size);
+      }
+      List<HistoryEvent> result = new ArrayList<>(size - fromIndex);
+      for (int i = fromIndex; i < size; i++) {
+        result.add(read(positions[i]));
+      }
+      return result;
+    }
+
+    private void addPosition(long position) {
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+      positions[size++] = position;
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSizeBytes;
+  private final int maxUnflushedBytes;
+  private final Gson gson =
+      new GsonBuilder().registerTypeAdapter(byte[].class, new Base64TypeAdapter()).create();
+  // Appended only under the monitor, read without locking
+  private final List<Segment> segments = new CopyOnWriteArrayList<>();
+  private final Map<ExecutionId, EventLog> recovered;
+  private final ScheduledExecutorService flusher;
+
+  // Guarded by this
+  private Segment active;
+  private int nextSegmentNumber;
+  private int unflushedBytes;
+  private boolean closed;
+
+  FileHistoryStorage(FileHistoryStorageOptions options) {
+    this.directory = options.getDirectory();
+    this.segmentSizeBytes = options.getSegmentSizeBytes();
+    this.maxUnflushedBytes = options.getMaxUnflushedBytes();
+    try {
+      Files.createDirectories(directory);
+      this.recovered = Collections.unmodifiableMap(load());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open history storage in " + directory, e);
+    }
+    this.flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread result = new Thread(r, "FileHistoryStorage flusher");
+              result.setDaemon(true);
+              return result;
+            });
+    long intervalMillis = Math.max(1, options.getFlushInterval().toMillis());
+    flusher.scheduleWithFixedDelay(
+        this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public EventLog newEventLog(ExecutionId executionId) {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try {
+      executionId.addBytes(new DataOutputStream(bout));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new FileEventLog(bout.toByteArray());
+  }
+
+  @Override
+  public Map<ExecutionId, EventLog> recover() {
+    return recovered;
+  }
+
+  /** Forces appended events to disk. */
+  synchronized void flush() {
+    if (active == null || unflushedBytes == 0) {
+      return;
+    }
+    active.buffer.force();
+    unflushedBytes = 0;
+  }
+
+  @Override
+  public void close() {
+    flusher.shutdown();
+    synchronized (this) {
+      flush();
+      closed = true;
+    }
+  }
+
+  private synchronized long append(byte[] key, HistoryEvent event) {
+    if (closed) {
+      throw new IllegalStateException("closed");
+    }
+    byte[] json = gson.toJson(event).getBytes(StandardCharsets.UTF_8);
+    int payloadLength = Integer.BYTES + key.length + json.length;
+    int recordLength = RECORD_HEADER_SIZE + payloadLength;
+    if (active == null || active.remaining() < recordLength) {
+      rollSegment(recordLength);
+    }
+    CRC32 crc = new CRC32();
+    ByteBuffer keyLength = ByteBuffer.allocate(Integer.BYTES).putInt(0, key.length);
+    crc.update(keyLength.array());
+    crc.update(key);
+    crc.update(json);
+
+    int offset = active.writePosition;
+    ByteBuffer out = active.buffer.duplicate();
+    out.position(offset);
+    out.putInt(payloadLength);
+    out.putInt((int) crc.getValue());
+    out.putInt(key.length);
+    out.put(key);
+    out.put(json);
+    active.writePosition += recordLength;
+    unflushedBytes += recordLength;
+    if (unflushedBytes >= maxUnflushedBytes) {
+      flush();
+    }
+    return toPosition(segments.size() - 1, offset);
+  }
+
+  private HistoryEvent read(long position) {
+    Segment segment = segments.get((int) (position >>> 32));
+    ByteBuffer in = segment.buffer.duplicate();
+    in.position((int) position);
+    int payloadLength = in.getInt();
+    in.getInt(); // CRC is verified on recovery only
+    int keyLength = in.getInt();
+    in.position(in.position() + keyLength);
+    byte[] json = new byte[payloadLength - Integer.BYTES - keyLength];
+    in.get(json);
+    return gson.fromJson(new String(json, StandardCharsets.UTF_8), HistoryEvent.class);
+  }
+
+  private void rollSegment(int minSize) {
+    if (active != null) {
+      active.buffer.force();
+      unflushedBytes = 0;
+    }
+    Path path = directory.resolve(segmentFileName(nextSegmentNumber++));
+    int size = Math.max(segmentSizeBytes, minSize);
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.setLength(size);
+      // The mapping stays valid after the file is closed
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      active = new Segment(path, buffer, 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create history segment " + path, e);
+    }
+    segments.add(active);
+  }
+
+  /**
+   * Maps the existing segments and rebuilds the event logs from their records. Scanning of a
+   * segment stops at its zero filled tail or at the first record that is truncated or fails the CRC
+   * check, which is what an interrupted append leaves behind.
+   */
+  private Map<ExecutionId, EventLog> load() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        paths.add(path);
+      }
+    }
+    Collections.sort(paths);
+    Map<ExecutionId, EventLog> result = new LinkedHashMap<>();
+    for (Path path : paths) {
+      String name = path.getFileName().toString();
+      nextSegmentNumber =
+          Math.max(
+              nextSegmentNumber,
+              Integer.parseInt(
+                      name.substring(
+                          SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                  + 1);
+      MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(path)) {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      Segment segment = new Segment(path, buffer, buffer.capacity());
+      segments.add(segment);
+      int count = scan(segments.size() - 1, segment, result);
+      if (log.isDebugEnabled()) {
+        log.debug("Recovered " + count + " events from " + path);
+      }
+    }
+    return result;
+  }
+
+  private int scan(int segmentIndex, Segment segment, Map<ExecutionId, EventLog> logs)
+      throws IOException {
+    ByteBuffer in = segment.buffer.duplicate();
+    int count = 0;
+    while (in.remaining() >= RECORD_HEADER_SIZE + Integer.BYTES) {
+      int offset = in.position();
+      int payloadLength = in.getInt();
+      int crcValue = in.getInt();
+      if (payloadLength <= Integer.BYTES || payloadLength > in.remaining()) {
+        if (payloadLength != 0) {
+          log.warn("Truncated history record at " + offset + " of " + segment.path);
+        }
+        break;
+      }
+      byte[] payload = new byte[payloadLength];
+      in.get(payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if ((int) crc.getValue() != crcValue) {
+        log.warn("Corrupted history record at " + offset + " of " + segment.path);
+        break;
+      }
+      int keyLength = ByteBuffer.wrap(payload).getInt();
+      byte[] key = Arrays.copyOfRange(payload, Integer.BYTES, Integer.BYTES + keyLength);
+      ExecutionId executionId;
+      try {
+        executionId = ExecutionId.fromBytes(key);
+      } catch (InternalServiceError e) {
+        throw new IOException("Corrupted execution id at " + offset + " of " + segment.path, e);
+      }
+      FileEventLog eventLog = (FileEventLog) logs.get(executionId);
+      if (eventLog == null) {
+        eventLog = new FileEventLog(key);
+        logs.put(executionId, eventLog);
+      }
+      eventLog.addPosition(toPosition(segmentIndex, offset));
+      count++;
+    }
+    return count;
+  }
+
+  private static long toPosition(int segmentIndex, int offset) {
+    return ((long) segmentIndex << 32) | offset;
+  }
+
+  private static String segmentFileName(int number) {
+    return String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+  }
+
+  private static final class Base64TypeAdapter extends TypeAdapter<byte[]> {
+
+    @Override
+    public void write(JsonWriter out, byte[] value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+      } else {
+        out.value(Base64.getEncoder().encodeToString(value));
+      }
+    }
+
+    @Override
+    public byte[] read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return Base64.getDecoder().decode(in.nextString());
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import com.uber.cadence.HistoryEvent;
+import java.util.List;
+import java.util.Map;
+
+/** Storage of the history events of the executions kept by {@link TestWorkflowStoreImpl}. */
+interface HistoryStorage {
+
+  /** Append only sequence of events of a single execution. Not thread safe. */
+  interface EventLog {
+
+    int size();
+
+    HistoryEvent get(int index);
+
+    void add(HistoryEvent event);
+
+    /** @return a new list containing events from {@code fromIndex} inclusive to the end. */
+    List<HistoryEvent> getEvents(int fromIndex);
+  }
+
+  EventLog newEventLog(ExecutionId executionId);
+
+  /** Event logs that were persisted by a previous instance of the storage, in insertion order. */
+  Map<ExecutionId, EventLog> recover();
+
+  void close();
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import com.uber.cadence.HistoryEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Keeps histories on the heap. Used by default. */
+final class InMemoryHistoryStorage implements HistoryStorage {
+
+  private static final class InMemoryEventLog implements EventLog {
+
+    private final List<HistoryEvent> events = new ArrayList<>();
+
+    @Override
+    public int size() {
+      return events.size();
+    }
+
+    @Override
+    public HistoryEvent get(int index) {
+      return events.get(index);
+    }
+
+    @Override
+    public void add(HistoryEvent event) {
+      events.add(event);
+    }
+
+    @Override
+    public List<HistoryEvent> getEvents(int fromIndex) {
+      return new ArrayList<>(events.subList(fromIndex, events.size()));
+    }
+  }
+
+  @Override
+  public EventLog newEventLog(ExecutionId executionId) {
+    return new InMemoryEventLog();
+  }
+
+  @Override
+  public Map<ExecutionId, EventLog> recover() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public void close() {}
+}
@@ -30,9 +30,9 @@ interface SelfAdvancingTimer {
    * Schedule a task with a specified delay. The actual wait time is defined by the internal clock
    * that might advance much faster than the wall clock.
    */
-  void schedule(Duration delay, Runnable task);
+  TimerHandle schedule(Duration delay, Runnable task);
 
-  void schedule(Duration delay, Runnable task, String taskInfo);
+  TimerHandle schedule(Duration delay, Runnable task, String taskInfo);
 
   /** Supplier that returns current time of the timer when called. */
   LongSupplier getClock();
@@ -61,3 +61,9 @@ interface SelfAdvancingTimer {
 interface LockHandle {
   void unlock();
 }
+
+interface TimerHandle {
+
+  /** @return false if the task has already been fired or canceled */
+  boolean cancel();
+}
@@ -18,11 +18,12 @@
 package com.uber.cadence.internal.testservice;
 
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.uber.cadence.testing.TestEnvironmentOptions;
 import java.sql.Timestamp;
 import java.time.Duration;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
@@ -81,33 +82,38 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
     }
 
     private void runLocked() {
+      List<TimerTask> dueTasks = new ArrayList<>();
       while (!Thread.currentThread().isInterrupted()) {
         updateTimeLocked();
-        if (!emptyQueue && tasks.isEmpty()) {
+        if (!emptyQueue && tasks.size() == 0) {
           lockTimeSkippingLocked("runLocked"); // Switching to wall time when no tasks scheduled
           emptyQueue = true;
         }
-        TimerTask peekedTask = tasks.peek();
-        if (peekedTask != null && peekedTask.getExecutionTime() <= currentTime) {
-          try {
-            LockHandle lockHandle = lockTimeSkippingLocked("runnable " + peekedTask.getTaskInfo());
-            TimerTask polledTask = tasks.poll();
-            Runnable runnable = polledTask.getRunnable();
-            executor.execute(
-                () -> {
-                  try {
-                    runnable.run();
-                  } finally {
-                    lockHandle.unlock();
-                  }
-                });
-          } catch (Throwable e) {
-            log.error("Timer task failure", e);
+        // All the tasks due by the current time are fired in one pass
+        tasks.advance(currentTime, dueTasks);
+        if (!dueTasks.isEmpty()) {
+          for (TimerTask task : dueTasks) {
+            try {
+              LockHandle lockHandle = lockTimeSkippingLocked("runnable " + task.getTaskInfo());
+              Runnable runnable = task.getRunnable();
+              executor.execute(
+                  () -> {
+                    try {
+                      runnable.run();
+                    } finally {
+                      lockHandle.unlock();
+                    }
+                  });
+            } catch (Throwable e) {
+              log.error("Timer task failure", e);
+            }
           }
+          dueTasks.clear();
           continue;
         }
-        long timeToAwait =
-            peekedTask == null ? Long.MAX_VALUE : peekedTask.getExecutionTime() - currentTime;
+        // Might be earlier than the next task time if it is in an upper level of the wheel
+        long nextTime = tasks.nextTime();
+        long timeToAwait = nextTime == Long.MAX_VALUE ? Long.MAX_VALUE : nextTime - currentTime;
         try {
           condition.await(timeToAwait, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
@@ -176,9 +182,7 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
   private final Lock lock = new ReentrantLock();
   private final Condition condition = lock.newCondition();
 
-  private final ThreadPoolExecutor executor =
-      new ThreadPoolExecutor(
-          5, 5, 1, TimeUnit.SECONDS, new LinkedBlockingDeque<>(), r -> new Thread(r, "Timer task"));
+  private final ThreadPoolExecutor executor;
 
   private long currentTime;
   private int lockCount;
@@ -189,12 +193,29 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
   @SuppressWarnings("JdkObsolete")
   private final LinkedList<LockEvent> lockEvents = new LinkedList<>();
 
-  private final PriorityQueue<TimerTask> tasks =
-      new PriorityQueue<>(Comparator.comparing(TimerTask::getExecutionTime));
+  private final TimerWheel<TimerTask> tasks;
   private final Thread timerPump = new Thread(new TimerPump(), "SelfAdvancingTimer Pump");
 
   public SelfAdvancingTimerImpl(long initialTime) {
+    this(initialTime, TestEnvironmentOptions.DEFAULT_TIMER_CALLBACK_THREAD_COUNT);
+  }
+
+  /** @param callbackThreadCount number of threads that execute the scheduled tasks */
+  public SelfAdvancingTimerImpl(long initialTime, int callbackThreadCount) {
+    if (callbackThreadCount <= 0) {
+      throw new IllegalArgumentException(
+          "non positive callbackThreadCount: " + callbackThreadCount);
+    }
     currentTime = initialTime == 0 ? System.currentTimeMillis() : initialTime;
+    tasks = new TimerWheel<>(currentTime);
+    executor =
+        new ThreadPoolExecutor(
+            callbackThreadCount,
+            callbackThreadCount,
+            1,
+            TimeUnit.SECONDS,
+            new LinkedBlockingDeque<>(),
+            r -> new Thread(r, "Timer task"));
     executor.setRejectedExecutionHandler(new CallerRunsPolicy());
     // Queue is initially empty. The code assumes that in this case skipping is already locked.
     lockTimeSkipping("SelfAdvancingTimerImpl constructor");
@@ -208,9 +229,9 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
       }
       currentTime = timeLastLocked + (System.currentTimeMillis() - systemTimeLastLocked);
     } else {
-      TimerTask task = tasks.peek();
-      if (task != null && task.getExecutionTime() > currentTime) {
-        currentTime = task.getExecutionTime();
+      long nextExecutionTime = tasks.nextExecutionTime();
+      if (nextExecutionTime != Long.MAX_VALUE && nextExecutionTime > currentTime) {
+        currentTime = nextExecutionTime;
         log.trace("Jumping to the time of the next timer task: " + currentTime);
       }
     }
@@ -229,24 +250,40 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
   }
 
   @Override
-  public void schedule(Duration delay, Runnable task) {
-    schedule(delay, task, "unknown");
+  public TimerHandle schedule(Duration delay, Runnable task) {
+    return schedule(delay, task, "unknown");
   }
 
   @Override
-  public void schedule(Duration delay, Runnable task, String taskInfo) {
+  public TimerHandle schedule(Duration delay, Runnable task, String taskInfo) {
     lock.lock();
     try {
       {
         long executionTime = delay.toMillis() + currentTime;
-        tasks.add(new TimerTask(executionTime, task, taskInfo));
+        TimerWheel.Timer<TimerTask> timer =
+            tasks.add(executionTime, new TimerTask(executionTime, task, taskInfo));
         // Locked when queue became empty
         if (tasks.size() == 1 && emptyQueue) {
           unlockTimeSkippingLocked("schedule task for " + taskInfo);
           emptyQueue = false;
         }
         condition.signal();
+        return () -> cancel(timer);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean cancel(TimerWheel.Timer<TimerTask> timer) {
+    lock.lock();
+    try {
+      boolean result = tasks.cancel(timer);
+      if (result) {
+        // Lets the pump lock time skipping if no tasks left
+        condition.signal();
       }
+      return result;
     } finally {
       lock.unlock();
     }
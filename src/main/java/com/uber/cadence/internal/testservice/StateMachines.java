@@ -694,7 +694,9 @@ class StateMachines {
     if (retryPolicy != null) {
       long expirationInterval =
           TimeUnit.SECONDS.toMillis(retryPolicy.getExpirationIntervalInSeconds());
-      long expirationTime = data.store.currentTimeMillis() + expirationInterval;
+      long expirationTime =
+          data.store.currentTimeMillis(data.startWorkflowExecutionRequest.getDomain())
+              + expirationInterval;
       retryState = new RetryState(retryPolicy, expirationTime);
       // Override activity timeouts to allow retry policy to run up to its expiration.
       int overriddenTimeout;
@@ -859,7 +861,9 @@ class StateMachines {
     }
     // Setting timestamp here as the default logic will set it to the time when it is added to the
     // history. But in the case of retry it happens only after an activity completion.
-    long timestamp = TimeUnit.MILLISECONDS.toNanos(data.store.currentTimeMillis());
+    long timestamp =
+        TimeUnit.MILLISECONDS.toNanos(
+            data.store.currentTimeMillis(data.startWorkflowExecutionRequest.getDomain()));
     HistoryEvent event =
         new HistoryEvent()
             .setEventType(EventType.ActivityTaskStarted)
@@ -1057,7 +1061,9 @@ class StateMachines {
     if (data.retryState != null) {
       RetryState nextAttempt = data.retryState.getNextAttempt();
       data.nextBackoffIntervalSeconds =
-          data.retryState.getBackoffIntervalInSeconds(errorReason, data.store.currentTimeMillis());
+          data.retryState.getBackoffIntervalInSeconds(
+              errorReason,
+              data.store.currentTimeMillis(data.startWorkflowExecutionRequest.getDomain()));
       if (data.nextBackoffIntervalSeconds > 0) {
         PollForActivityTaskResponse task = data.activityTask.getTask();
         task.setHeartbeatDetails(data.heartbeatDetails);
@@ -130,5 +130,8 @@ interface TestWorkflowMutableState {
 
   StickyExecutionAttributes getStickyExecutionAttributes();
 
+  /** Routes the following decision tasks to the workflow task list with full history. */
+  void resetStickyTaskList();
+
   Optional<TestWorkflowMutableState> getParent();
 }
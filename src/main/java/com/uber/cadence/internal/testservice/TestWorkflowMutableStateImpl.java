@@ -126,7 +126,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     this.executionId =
         new ExecutionId(startRequest.getDomain(), startRequest.getWorkflowId(), runId);
     this.store = store;
-    selfAdvancingTimer = store.getTimer();
+    selfAdvancingTimer = store.getTimer(startRequest.getDomain());
     this.clock = selfAdvancingTimer.getClock();
     WorkflowData data =
         new WorkflowData(
@@ -235,6 +235,16 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     return stickyExecutionAttributes;
   }
 
+  @Override
+  public void resetStickyTaskList() {
+    lock.lock();
+    try {
+      stickyExecutionAttributes = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public Optional<TestWorkflowMutableState> getParent() {
     return parent;
@@ -777,7 +787,8 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     if (data.retryState.isPresent()) {
       RetryState rs = data.retryState.get();
       int backoffIntervalSeconds =
-          rs.getBackoffIntervalInSeconds(d.getReason(), store.currentTimeMillis());
+          rs.getBackoffIntervalInSeconds(
+              d.getReason(), store.currentTimeMillis(executionId.getDomain()));
       if (backoffIntervalSeconds > 0) {
         ContinueAsNewWorkflowExecutionDecisionAttributes continueAsNewAttr =
             new ContinueAsNewWorkflowExecutionDecisionAttributes()
@@ -891,7 +902,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     CronParser parser = new CronParser(cronDefinition);
     Cron cron = parser.parse(data.cronSchedule);
 
-    Instant i = Instant.ofEpochMilli(store.currentTimeMillis());
+    Instant i = Instant.ofEpochMilli(store.currentTimeMillis(executionId.getDomain()));
     ZonedDateTime now = ZonedDateTime.ofInstant(i, ZoneOffset.UTC);
 
     ExecutionTime executionTime = ExecutionTime.forCron(cron);
@@ -17,6 +17,7 @@
 
 package com.uber.cadence.internal.testservice;
 
+import com.google.common.util.concurrent.Striped;
 import com.uber.cadence.BadRequestError;
 import com.uber.cadence.CadenceError;
 import com.uber.cadence.ClientVersionNotSupportedError;
@@ -111,18 +112,19 @@ import com.uber.cadence.internal.testservice.TestWorkflowStore.WorkflowState;
 import com.uber.cadence.serviceclient.AsyncMethodCallback;
 import com.uber.cadence.serviceclient.ClientOptions;
 import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.cadence.testing.FileHistoryStorageOptions;
+import com.uber.cadence.testing.TestEnvironmentOptions;
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -133,18 +135,52 @@ import org.slf4j.LoggerFactory;
 public final class TestWorkflowService implements IWorkflowService {
 
   private static final Logger log = LoggerFactory.getLogger(TestWorkflowService.class);
+  private static final int WORKFLOW_ID_LOCK_STRIPES = 256;
 
-  private final Lock lock = new ReentrantLock();
+  private final TestWorkflowStore store;
 
-  private final TestWorkflowStore store = new TestWorkflowStoreImpl();
-
-  private final Map<ExecutionId, TestWorkflowMutableState> executions = new HashMap<>();
+  private final Map<ExecutionId, TestWorkflowMutableState> executions = new ConcurrentHashMap<>();
 
   // key->WorkflowId
-  private final Map<WorkflowId, TestWorkflowMutableState> executionsByWorkflowId = new HashMap<>();
+  private final Map<WorkflowId, TestWorkflowMutableState> executionsByWorkflowId =
+      new ConcurrentHashMap<>();
+
+  // Serializes starts of runs with the same workflow id. Starts of different workflow ids contend
+  // only when they share a stripe. A fixed number of stripes keeps memory bounded no matter how
+  // many workflow ids a long running test service sees.
+  private final Striped<Lock> workflowIdLocks = Striped.lock(WORKFLOW_ID_LOCK_STRIPES);
 
   private final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
 
+  public TestWorkflowService() {
+    store = new TestWorkflowStoreImpl();
+  }
+
+  /**
+   * Creates a service that keeps workflow histories in segment files instead of the heap. Histories
+   * left in the directory by a previous instance are loaded on startup.
+   */
+  public TestWorkflowService(FileHistoryStorageOptions historyStorageOptions) {
+    store =
+        new TestWorkflowStoreImpl(
+            new FileHistoryStorage(historyStorageOptions),
+            TestEnvironmentOptions.DEFAULT_TIMER_CALLBACK_THREAD_COUNT);
+  }
+
+  /**
+   * Creates a service configured by the test service related options: history storage and timer
+   * callback thread count.
+   */
+  public TestWorkflowService(TestEnvironmentOptions options) {
+    FileHistoryStorageOptions historyStorageOptions = options.getFileHistoryStorageOptions();
+    store =
+        new TestWorkflowStoreImpl(
+            historyStorageOptions == null
+                ? new InMemoryHistoryStorage()
+                : new FileHistoryStorage(historyStorageOptions),
+            options.getTimerCallbackThreadCount());
+  }
+
   @Override
   public void close() {
     store.close();
@@ -162,19 +198,14 @@ public final class TestWorkflowService implements IWorkflowService {
 
   private TestWorkflowMutableState getMutableState(ExecutionId executionId, boolean failNotExists)
       throws InternalServiceError, EntityNotExistsError {
-    lock.lock();
-    try {
-      if (executionId.getExecution().getRunId() == null) {
-        return getMutableState(executionId.getWorkflowId(), failNotExists);
-      }
-      TestWorkflowMutableState mutableState = executions.get(executionId);
-      if (mutableState == null && failNotExists) {
-        throw new InternalServiceError("Execution not found in mutable state: " + executionId);
-      }
-      return mutableState;
-    } finally {
-      lock.unlock();
+    if (executionId.getExecution().getRunId() == null) {
+      return getMutableState(executionId.getWorkflowId(), failNotExists);
+    }
+    TestWorkflowMutableState mutableState = executions.get(executionId);
+    if (mutableState == null && failNotExists) {
+      throw new InternalServiceError("Execution not found in mutable state: " + executionId);
     }
+    return mutableState;
   }
 
   private TestWorkflowMutableState getMutableState(WorkflowId workflowId)
@@ -184,16 +215,15 @@ public final class TestWorkflowService implements IWorkflowService {
 
   private TestWorkflowMutableState getMutableState(WorkflowId workflowId, boolean failNotExists)
       throws EntityNotExistsError {
-    lock.lock();
-    try {
-      TestWorkflowMutableState mutableState = executionsByWorkflowId.get(workflowId);
-      if (mutableState == null && failNotExists) {
-        throw new EntityNotExistsError("Execution not found in mutable state: " + workflowId);
-      }
-      return mutableState;
-    } finally {
-      lock.unlock();
+    TestWorkflowMutableState mutableState = executionsByWorkflowId.get(workflowId);
+    if (mutableState == null && failNotExists) {
+      throw new EntityNotExistsError("Execution not found in mutable state: " + workflowId);
     }
+    return mutableState;
+  }
+
+  private Lock getWorkflowIdLock(WorkflowId workflowId) {
+    return workflowIdLocks.get(workflowId);
   }
 
   @Override
@@ -279,6 +309,7 @@ public final class TestWorkflowService implements IWorkflowService {
     String domain = requireNotNull("Domain", startRequest.getDomain());
     WorkflowId workflowId = new WorkflowId(domain, requestWorkflowId);
     TestWorkflowMutableState existing;
+    Lock lock = getWorkflowIdLock(workflowId);
     lock.lock();
     try {
       existing = executionsByWorkflowId.get(workflowId);
@@ -299,7 +330,7 @@ public final class TestWorkflowService implements IWorkflowService {
         }
       }
       RetryPolicy retryPolicy = startRequest.getRetryPolicy();
-      Optional<RetryState> retryState = newRetryStateLocked(retryPolicy);
+      Optional<RetryState> retryState = newRetryStateLocked(domain, retryPolicy);
       return startWorkflowExecutionNoRunningCheckLocked(
           startRequest,
           Optional.empty(),
@@ -315,13 +346,14 @@ public final class TestWorkflowService implements IWorkflowService {
     }
   }
 
-  private Optional<RetryState> newRetryStateLocked(RetryPolicy retryPolicy) throws BadRequestError {
+  private Optional<RetryState> newRetryStateLocked(String domain, RetryPolicy retryPolicy)
+      throws BadRequestError {
     if (retryPolicy == null) {
       return Optional.empty();
     }
     long expirationInterval =
         TimeUnit.SECONDS.toMillis(retryPolicy.getExpirationIntervalInSeconds());
-    long expirationTime = store.currentTimeMillis() + expirationInterval;
+    long expirationTime = store.currentTimeMillis(domain) + expirationInterval;
     return Optional.of(new RetryState(retryPolicy, expirationTime));
   }
 
@@ -375,6 +407,10 @@ public final class TestWorkflowService implements IWorkflowService {
       throws BadRequestError, InternalServiceError, EntityNotExistsError, ServiceBusyError,
           CadenceError {
     ExecutionId executionId = new ExecutionId(getRequest.getDomain(), getRequest.getExecution());
+    if (executionId.getExecution().getRunId() != null && !executions.containsKey(executionId)) {
+      // Runs recovered from a file backed store have a history but no mutable state.
+      return store.getWorkflowExecutionHistory(executionId, getRequest);
+    }
     TestWorkflowMutableState mutableState = getMutableState(executionId);
 
     return store.getWorkflowExecutionHistory(mutableState.getExecutionId(), getRequest);
@@ -680,6 +716,7 @@ public final class TestWorkflowService implements IWorkflowService {
     if (a.getInput() != null) {
       startRequest.setInput(a.getInput());
     }
+    Lock lock = getWorkflowIdLock(executionId.getWorkflowId());
     lock.lock();
     try {
       StartWorkflowExecutionResponse response =
@@ -713,7 +750,9 @@ public final class TestWorkflowService implements IWorkflowService {
     } else {
       workflowIdFilter = Optional.empty();
     }
-    List<WorkflowExecutionInfo> result = store.listWorkflows(WorkflowState.OPEN, workflowIdFilter);
+    List<WorkflowExecutionInfo> result =
+        store.listWorkflows(
+            WorkflowState.OPEN, Optional.ofNullable(listRequest.getDomain()), workflowIdFilter);
     return new ListOpenWorkflowExecutionsResponse().setExecutions(result);
   }
 
@@ -732,7 +771,8 @@ public final class TestWorkflowService implements IWorkflowService {
       workflowIdFilter = Optional.empty();
     }
     List<WorkflowExecutionInfo> result =
-        store.listWorkflows(WorkflowState.CLOSED, workflowIdFilter);
+        store.listWorkflows(
+            WorkflowState.CLOSED, Optional.ofNullable(listRequest.getDomain()), workflowIdFilter);
     return new ListClosedWorkflowExecutionsResponse().setExecutions(result);
   }
 
@@ -786,7 +826,11 @@ public final class TestWorkflowService implements IWorkflowService {
   public ResetStickyTaskListResponse ResetStickyTaskList(ResetStickyTaskListRequest resetRequest)
       throws BadRequestError, InternalServiceError, EntityNotExistsError, LimitExceededError,
           ServiceBusyError, DomainNotActiveError, CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    ExecutionId executionId =
+        new ExecutionId(resetRequest.getDomain(), resetRequest.getExecution());
+    TestWorkflowMutableState mutableState = getMutableState(executionId);
+    mutableState.resetStickyTaskList();
+    return new ResetStickyTaskListResponse();
   }
 
   @Override
@@ -980,18 +1024,37 @@ public final class TestWorkflowService implements IWorkflowService {
     throw new UnsupportedOperationException("not implemented");
   }
 
+  @SuppressWarnings("unchecked") // Generator ignores that AsyncMethodCallback is generic
   @Override
   public void RespondDecisionTaskCompleted(
       RespondDecisionTaskCompletedRequest completeRequest, AsyncMethodCallback resultHandler)
       throws CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    forkJoinPool.execute(
+        () -> {
+          try {
+            RespondDecisionTaskCompletedResponse result =
+                RespondDecisionTaskCompleted(completeRequest);
+            resultHandler.onComplete(result);
+          } catch (CadenceError e) {
+            resultHandler.onError(e);
+          }
+        });
   }
 
+  @SuppressWarnings("unchecked") // Generator ignores that AsyncMethodCallback is generic
   @Override
   public void RespondDecisionTaskFailed(
       RespondDecisionTaskFailedRequest failedRequest, AsyncMethodCallback resultHandler)
       throws CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    forkJoinPool.execute(
+        () -> {
+          try {
+            RespondDecisionTaskFailed(failedRequest);
+            resultHandler.onComplete(null);
+          } catch (CadenceError e) {
+            resultHandler.onError(e);
+          }
+        });
   }
 
   @Override
@@ -1015,11 +1078,20 @@ public final class TestWorkflowService implements IWorkflowService {
     throw new UnsupportedOperationException("not implemented");
   }
 
+  @SuppressWarnings("unchecked") // Generator ignores that AsyncMethodCallback is generic
   @Override
   public void RespondActivityTaskCompleted(
       RespondActivityTaskCompletedRequest completeRequest, AsyncMethodCallback resultHandler)
       throws CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    forkJoinPool.execute(
+        () -> {
+          try {
+            RespondActivityTaskCompleted(completeRequest);
+            resultHandler.onComplete(null);
+          } catch (CadenceError e) {
+            resultHandler.onError(e);
+          }
+        });
   }
 
   @Override
@@ -1029,11 +1101,20 @@ public final class TestWorkflowService implements IWorkflowService {
     throw new UnsupportedOperationException("not implemented");
   }
 
+  @SuppressWarnings("unchecked") // Generator ignores that AsyncMethodCallback is generic
   @Override
   public void RespondActivityTaskFailed(
       RespondActivityTaskFailedRequest failRequest, AsyncMethodCallback resultHandler)
       throws CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    forkJoinPool.execute(
+        () -> {
+          try {
+            RespondActivityTaskFailed(failRequest);
+            resultHandler.onComplete(null);
+          } catch (CadenceError e) {
+            resultHandler.onError(e);
+          }
+        });
   }
 
   @Override
@@ -1043,11 +1124,20 @@ public final class TestWorkflowService implements IWorkflowService {
     throw new UnsupportedOperationException("not implemented");
   }
 
+  @SuppressWarnings("unchecked") // Generator ignores that AsyncMethodCallback is generic
   @Override
   public void RespondActivityTaskCanceled(
       RespondActivityTaskCanceledRequest canceledRequest, AsyncMethodCallback resultHandler)
       throws CadenceError {
-    throw new UnsupportedOperationException("not implemented");
+    forkJoinPool.execute(
+        () -> {
+          try {
+            RespondActivityTaskCanceled(canceledRequest);
+            resultHandler.onComplete(null);
+          } catch (CadenceError e) {
+            resultHandler.onError(e);
+          }
+        });
   }
 
   @Override
@@ -1233,11 +1323,43 @@ public final class TestWorkflowService implements IWorkflowService {
     return store.getTimer().getClock().getAsLong();
   }
 
+  /** Current time of the clock that drives the domain. */
+  public long currentTimeMillis(String domain) {
+    return store.currentTimeMillis(domain);
+  }
+
   /** Invokes callback after the specified delay according to internal service clock. */
   public void registerDelayedCallback(Duration delay, Runnable r) {
     store.registerDelayedCallback(delay, r);
   }
 
+  /** Invokes callback after the specified delay according to the clock of the domain. */
+  public void registerDelayedCallback(String domain, Duration delay, Runnable r) {
+    store.getTimer(domain).schedule(delay, r, "registerDelayedCallback");
+  }
+
+  /**
+   * Gives the domain its own clock with independent time skipping. Allows a single service instance
+   * to host many concurrently running tests that use different domains without them locking time
+   * skipping for each other. Must be called before any workflow of the domain is started. Workflows
+   * of the domain that run child workflows in other domains don't share the clock with them.
+   *
+   * @throws IllegalStateException if the domain is already isolated.
+   */
+  public void isolateDomain(String domain) {
+    store.isolateDomain(domain);
+  }
+
+  /**
+   * Stops the clock of a domain isolated through {@link #isolateDomain(String)} and drops all its
+   * workflows, histories and task lists. Workers polling the domain must be stopped before.
+   */
+  public void releaseDomain(String domain) {
+    store.releaseDomain(domain);
+    executions.keySet().removeIf((id) -> id.getDomain().equals(domain));
+    executionsByWorkflowId.keySet().removeIf((id) -> id.getDomain().equals(domain));
+  }
+
   /**
    * Disables time skipping. To enable back call {@link #unlockTimeSkipping(String)}. These calls
    * are counted, so calling unlock does not guarantee that time is going to be skipped immediately
@@ -1251,22 +1373,38 @@ public final class TestWorkflowService implements IWorkflowService {
     store.getTimer().unlockTimeSkipping(caller);
   }
 
+  /** Disables time skipping of the domain. See {@link #lockTimeSkipping(String)}. */
+  public void lockTimeSkipping(String domain, String caller) {
+    store.getTimer(domain).lockTimeSkipping(caller);
+  }
+
+  public void unlockTimeSkipping(String domain, String caller) {
+    store.getTimer(domain).unlockTimeSkipping(caller);
+  }
+
   /**
    * Blocks calling thread until internal clock doesn't pass the current + duration time. Might not
    * block at all due to time skipping.
    */
   public void sleep(Duration duration) {
+    sleep(store.getTimer(), duration);
+  }
+
+  /** Blocks calling thread until the clock of the domain passes the current + duration time. */
+  public void sleep(String domain, Duration duration) {
+    sleep(store.getTimer(domain), duration);
+  }
+
+  private void sleep(SelfAdvancingTimer timer, Duration duration) {
     CompletableFuture<Void> result = new CompletableFuture<>();
-    store
-        .getTimer()
-        .schedule(
-            duration,
-            () -> {
-              store.getTimer().lockTimeSkipping("TestWorkflowService sleep");
-              result.complete(null);
-            },
-            "workflow sleep");
-    store.getTimer().unlockTimeSkipping("TestWorkflowService sleep");
+    timer.schedule(
+        duration,
+        () -> {
+          timer.lockTimeSkipping("TestWorkflowService sleep");
+          result.complete(null);
+        },
+        "workflow sleep");
+    timer.unlockTimeSkipping("TestWorkflowService sleep");
     try {
       result.get();
     } catch (InterruptedException e) {
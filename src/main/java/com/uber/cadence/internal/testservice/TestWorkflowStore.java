@@ -133,9 +133,22 @@ interface TestWorkflowStore {
     }
   }
 
+  /** Timer of the domains that are not isolated. */
   SelfAdvancingTimer getTimer();
 
-  long currentTimeMillis();
+  /** Timer that drives the executions of the domain. */
+  SelfAdvancingTimer getTimer(String domain);
+
+  long currentTimeMillis(String domain);
+
+  /**
+   * Gives the domain its own timer, so its time skipping doesn't depend on the executions of other
+   * domains.
+   */
+  void isolateDomain(String domain);
+
+  /** Stops the timer of an isolated domain and drops its histories and task lists. */
+  void releaseDomain(String domain);
 
   long save(RequestContext requestContext)
       throws InternalServiceError, EntityNotExistsError, BadRequestError;
@@ -160,7 +173,8 @@ interface TestWorkflowStore {
 
   void getDiagnostics(StringBuilder result);
 
-  List<WorkflowExecutionInfo> listWorkflows(WorkflowState state, Optional<String> workflowId);
+  List<WorkflowExecutionInfo> listWorkflows(
+      WorkflowState state, Optional<String> domain, Optional<String> workflowId);
 
   void close();
 }
@@ -35,43 +35,46 @@ import com.uber.cadence.WorkflowExecution;
 import com.uber.cadence.WorkflowExecutionInfo;
 import com.uber.cadence.internal.common.WorkflowExecutionUtils;
 import com.uber.cadence.internal.testservice.RequestContext.Timer;
+import com.uber.cadence.testing.TestEnvironmentOptions;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 class TestWorkflowStoreImpl implements TestWorkflowStore {
 
+  /** History of a single execution. All its methods that end with Locked require its lock. */
   private static class HistoryStore {
 
-    private final Lock lock;
-    private final Condition newEventsCondition;
+    private final Lock lock = new ReentrantLock();
+    private final Condition newEventsCondition = lock.newCondition();
     private final ExecutionId id;
-    private final List<HistoryEvent> history = new ArrayList<>();
+    private final HistoryStorage.EventLog history;
     private boolean completed;
 
-    private HistoryStore(ExecutionId id, Lock lock) {
+    private HistoryStore(ExecutionId id, HistoryStorage.EventLog history) {
       this.id = id;
-      this.lock = lock;
-      this.newEventsCondition = lock.newCondition();
+      this.history = history;
+      this.completed =
+          history.size() > 0
+              && WorkflowExecutionUtils.isWorkflowExecutionCompletedEvent(
+                  history.get(history.size() - 1));
     }
 
     public boolean isCompleted() {
       return completed;
     }
 
-    public List<HistoryEvent> getHistory() {
-      return history;
-    }
-
     private void checkNextEventId(long nextEventId) {
       if (nextEventId != history.size() + 1L && (nextEventId != 0 && history.size() != 0)) {
         throw new IllegalStateException(
@@ -102,7 +105,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     }
 
     List<HistoryEvent> getEventsLocked() {
-      return history;
+      return history.getEvents(0);
     }
 
     List<HistoryEvent> waitForNewEvents(
@@ -120,12 +123,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
               expectedNextEventId = getNextEventIdLocked();
               continue;
             }
-            List<HistoryEvent> result =
-                new ArrayList<>(((int) (getNextEventIdLocked() - expectedNextEventId)));
-            for (int i = (int) expectedNextEventId; i < getNextEventIdLocked(); i++) {
-              result.add(history.get(i));
-            }
-            return result;
+            return history.getEvents((int) Math.min(expectedNextEventId, history.size()));
           }
           try {
             newEventsCondition.await();
@@ -139,63 +137,134 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     }
   }
 
-  private final Lock lock = new ReentrantLock();
+  /** Timer shared by executions of one or more domains. */
+  private static final class DomainTimer {
+
+    private final SelfAdvancingTimer timer;
+    // Time skipping is locked until the first history is saved
+    private final AtomicBoolean firstHistorySaved = new AtomicBoolean();
+
+    private DomainTimer(int callbackThreadCount, String caller) {
+      timer = new SelfAdvancingTimerImpl(System.currentTimeMillis(), callbackThreadCount);
+      timer.lockTimeSkipping(caller);
+    }
+  }
 
-  private final Map<ExecutionId, HistoryStore> histories = new HashMap<>();
+  // Each history is guarded by its own lock, so requests for different executions don't contend.
+  private final Map<ExecutionId, HistoryStore> histories = new ConcurrentHashMap<>();
 
   private final Map<TaskListId, BlockingQueue<PollForActivityTaskResponse>> activityTaskLists =
-      new HashMap<>();
+      new ConcurrentHashMap<>();
 
   private final Map<TaskListId, BlockingQueue<PollForDecisionTaskResponse>> decisionTaskLists =
-      new HashMap<>();
+      new ConcurrentHashMap<>();
 
-  private final SelfAdvancingTimer timerService =
-      new SelfAdvancingTimerImpl(System.currentTimeMillis());
+  private final HistoryStorage historyStorage;
+
+  private final int timerCallbackThreadCount;
+
+  private final DomainTimer timerService;
+
+  // Domains with their own timer. Executions of all the other domains share the timerService.
+  private final Map<String, DomainTimer> isolatedTimers = new ConcurrentHashMap<>();
 
   public TestWorkflowStoreImpl() {
-    // locked until the first save
-    timerService.lockTimeSkipping("TestWorkflowStoreImpl constructor");
+    this(new InMemoryHistoryStorage(), TestEnvironmentOptions.DEFAULT_TIMER_CALLBACK_THREAD_COUNT);
+  }
+
+  TestWorkflowStoreImpl(HistoryStorage historyStorage, int timerCallbackThreadCount) {
+    this.historyStorage = historyStorage;
+    this.timerCallbackThreadCount = timerCallbackThreadCount;
+    this.timerService =
+        new DomainTimer(timerCallbackThreadCount, "TestWorkflowStoreImpl constructor");
+    for (Entry<ExecutionId, HistoryStorage.EventLog> entry : historyStorage.recover().entrySet()) {
+      histories.put(entry.getKey(), new HistoryStore(entry.getKey(), entry.getValue()));
+    }
   }
 
   @Override
   public SelfAdvancingTimer getTimer() {
-    return timerService;
+    return timerService.timer;
+  }
+
+  @Override
+  public SelfAdvancingTimer getTimer(String domain) {
+    return getDomainTimer(domain).timer;
+  }
+
+  @Override
+  public long currentTimeMillis(String domain) {
+    return getTimer(domain).getClock().getAsLong();
+  }
+
+  @Override
+  public void isolateDomain(String domain) {
+    Objects.requireNonNull(domain);
+    if (isolatedTimers.containsKey(domain)) {
+      throw new IllegalStateException("Domain is already isolated: " + domain);
+    }
+    DomainTimer timer =
+        new DomainTimer(timerCallbackThreadCount, "TestWorkflowStoreImpl isolateDomain");
+    if (isolatedTimers.putIfAbsent(domain, timer) != null) {
+      timer.timer.shutdown();
+      throw new IllegalStateException("Domain is already isolated: " + domain);
+    }
   }
 
   @Override
-  public long currentTimeMillis() {
-    return timerService.getClock().getAsLong();
+  public void releaseDomain(String domain) {
+    DomainTimer timer = isolatedTimers.remove(domain);
+    if (timer == null) {
+      throw new IllegalStateException("Domain is not isolated: " + domain);
+    }
+    timer.timer.shutdown();
+    histories.keySet().removeIf((id) -> id.getDomain().equals(domain));
+    activityTaskLists.keySet().removeIf((id) -> id.getDomain().equals(domain));
+    decisionTaskLists.keySet().removeIf((id) -> id.getDomain().equals(domain));
+  }
+
+  private DomainTimer getDomainTimer(String domain) {
+    if (domain == null || isolatedTimers.isEmpty()) {
+      return timerService;
+    }
+    DomainTimer result = isolatedTimers.get(domain);
+    return result == null ? timerService : result;
   }
 
   @Override
   public long save(RequestContext ctx)
       throws InternalServiceError, EntityNotExistsError, BadRequestError {
     long result;
-    lock.lock();
-    boolean historiesEmpty = histories.isEmpty();
-    try {
-      ExecutionId executionId = ctx.getExecutionId();
-      HistoryStore history = histories.get(executionId);
-      List<HistoryEvent> events = ctx.getEvents();
+    ExecutionId executionId = ctx.getExecutionId();
+    List<HistoryEvent> events = ctx.getEvents();
+    HistoryStore history = histories.get(executionId);
+    DomainTimer domainTimer = getDomainTimer(executionId.getDomain());
+    SelfAdvancingTimer timerService = domainTimer.timer;
+    boolean firstHistory = false;
+    if (history == null) {
+      if (events.isEmpty() || events.get(0).getEventType() != EventType.WorkflowExecutionStarted) {
+        throw new IllegalStateException("No history found for " + executionId);
+      }
+      HistoryStore created = new HistoryStore(executionId, historyStorage.newEventLog(executionId));
+      history = histories.putIfAbsent(executionId, created);
       if (history == null) {
-        if (events.isEmpty()
-            || events.get(0).getEventType() != EventType.WorkflowExecutionStarted) {
-          throw new IllegalStateException("No history found for " + executionId);
-        }
-        history = new HistoryStore(executionId, lock);
-        histories.put(executionId, history);
+        history = created;
+        firstHistory = domainTimer.firstHistorySaved.compareAndSet(false, true);
       }
+    }
+    history.lock.lock();
+    try {
       history.checkNextEventId(ctx.getInitialEventId());
       history.addAllLocked(events, ctx.currentTimeInNanoseconds());
       result = history.getNextEventIdLocked();
       timerService.updateLocks(ctx.getTimerLocks(), "TestWorkflowStoreImpl save");
-      ctx.fireCallbacks(history.getEventsLocked().size());
+      ctx.fireCallbacks((int) history.getNextEventIdLocked() - 1);
     } finally {
-      if (historiesEmpty && !histories.isEmpty()) {
+      if (firstHistory) {
         timerService.unlockTimeSkipping(
-            "TestWorkflowStoreImpl save"); // Initially locked in the constructor
+            "TestWorkflowStoreImpl save"); // Initially locked on the DomainTimer creation
       }
-      lock.unlock();
+      history.lock.unlock();
     }
     // Push tasks to the queues out of locks
     DecisionTask decisionTask = ctx.getDecisionTask();
@@ -235,12 +304,8 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   @Override
   public void applyTimersAndLocks(RequestContext ctx) {
-    lock.lock();
-    try {
-      timerService.updateLocks(ctx.getTimerLocks(), "TestWorkflowStoreImpl applyTimersAndLocks");
-    } finally {
-      lock.unlock();
-    }
+    SelfAdvancingTimer timerService = getTimer(ctx.getExecutionId().getDomain());
+    timerService.updateLocks(ctx.getTimerLocks(), "TestWorkflowStoreImpl applyTimersAndLocks");
 
     List<Timer> timers = ctx.getTimers();
     if (timers != null) {
@@ -255,40 +320,27 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   @Override
   public void registerDelayedCallback(Duration delay, Runnable r) {
-    timerService.schedule(delay, r, "registerDelayedCallback");
+    timerService.timer.schedule(delay, r, "registerDelayedCallback");
   }
 
   private BlockingQueue<PollForActivityTaskResponse> getActivityTaskListQueue(
       TaskListId taskListId) {
-    lock.lock();
-    try {
-      {
-        BlockingQueue<PollForActivityTaskResponse> activitiesQueue =
-            activityTaskLists.get(taskListId);
-        if (activitiesQueue == null) {
-          activitiesQueue = new LinkedBlockingQueue<>();
-          activityTaskLists.put(taskListId, activitiesQueue);
-        }
-        return activitiesQueue;
-      }
-    } finally {
-      lock.unlock();
+    BlockingQueue<PollForActivityTaskResponse> activitiesQueue = activityTaskLists.get(taskListId);
+    if (activitiesQueue == null) {
+      activitiesQueue =
+          activityTaskLists.computeIfAbsent(taskListId, (id) -> new LinkedBlockingQueue<>());
     }
+    return activitiesQueue;
   }
 
   private BlockingQueue<PollForDecisionTaskResponse> getDecisionTaskListQueue(
       TaskListId taskListId) {
-    lock.lock();
-    try {
-      BlockingQueue<PollForDecisionTaskResponse> decisionsQueue = decisionTaskLists.get(taskListId);
-      if (decisionsQueue == null) {
-        decisionsQueue = new LinkedBlockingQueue<>();
-        decisionTaskLists.put(taskListId, decisionsQueue);
-      }
-      return decisionsQueue;
-    } finally {
-      lock.unlock();
+    BlockingQueue<PollForDecisionTaskResponse> decisionsQueue = decisionTaskLists.get(taskListId);
+    if (decisionsQueue == null) {
+      decisionsQueue =
+          decisionTaskLists.computeIfAbsent(taskListId, (id) -> new LinkedBlockingQueue<>());
     }
+    return decisionsQueue;
   }
 
   @Override
@@ -315,10 +367,10 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   public void sendQueryTask(
       ExecutionId executionId, TaskListId taskList, PollForDecisionTaskResponse task)
       throws EntityNotExistsError {
-    lock.lock();
+    HistoryStore historyStore = getHistoryStore(executionId);
+    historyStore.lock.lock();
     try {
-      HistoryStore historyStore = getHistoryStore(executionId);
-      List<HistoryEvent> events = new ArrayList<>(historyStore.getEventsLocked());
+      List<HistoryEvent> events = historyStore.getEventsLocked();
       History history = new History();
       if (taskList.getTaskListName().equals(task.getWorkflowExecutionTaskList().getName())) {
         history.setEvents(events);
@@ -327,7 +379,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       }
       task.setHistory(history);
     } finally {
-      lock.unlock();
+      historyStore.lock.unlock();
     }
     BlockingQueue<PollForDecisionTaskResponse> decisionsQueue = getDecisionTaskListQueue(taskList);
     decisionsQueue.add(task);
@@ -337,23 +389,21 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   public GetWorkflowExecutionHistoryResponse getWorkflowExecutionHistory(
       ExecutionId executionId, GetWorkflowExecutionHistoryRequest getRequest)
       throws EntityNotExistsError {
-    HistoryStore history;
+    HistoryStore history = getHistoryStore(executionId);
     // Used to eliminate the race condition on waitForNewEvents
     long expectedNextEventId;
-    lock.lock();
+    history.lock.lock();
     try {
-      history = getHistoryStore(executionId);
       if (!getRequest.isWaitForNewEvent()
           && getRequest.getHistoryEventFilterType() != HistoryEventFilterType.CLOSE_EVENT) {
+        // A copy of the events as the history is mutable. Individual events assumed immutable.
         List<HistoryEvent> events = history.getEventsLocked();
-        // Copy the list as it is mutable. Individual events assumed immutable.
-        ArrayList<HistoryEvent> eventsCopy = new ArrayList<>(events);
         return new GetWorkflowExecutionHistoryResponse()
-            .setHistory(new History().setEvents(eventsCopy));
+            .setHistory(new History().setEvents(events));
       }
       expectedNextEventId = history.getNextEventIdLocked();
     } finally {
-      lock.unlock();
+      history.lock.unlock();
     }
     List<HistoryEvent> events =
         history.waitForNewEvents(expectedNextEventId, getRequest.getHistoryEventFilterType());
@@ -379,33 +429,38 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   @Override
   public void getDiagnostics(StringBuilder result) {
     result.append("Stored Workflows:\n");
-    lock.lock();
-    try {
-      {
-        for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
-          result.append(entry.getKey());
-          result.append("\n");
-          result.append(
-              WorkflowExecutionUtils.prettyPrintHistory(
-                  entry.getValue().getEventsLocked().iterator(), true));
-          result.append("\n");
-        }
+    for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
+      HistoryStore history = entry.getValue();
+      history.lock.lock();
+      try {
+        result.append(entry.getKey());
+        result.append("\n");
+        result.append(
+            WorkflowExecutionUtils.prettyPrintHistory(history.getEventsLocked().iterator(), true));
+        result.append("\n");
+      } finally {
+        history.lock.unlock();
       }
-    } finally {
-      lock.unlock();
     }
     // Uncomment to troubleshoot time skipping issues.
-    timerService.getDiagnostics(result);
+    timerService.timer.getDiagnostics(result);
+    for (Entry<String, DomainTimer> entry : isolatedTimers.entrySet()) {
+      result.append("Domain ").append(entry.getKey()).append(":\n");
+      entry.getValue().timer.getDiagnostics(result);
+    }
   }
 
   @Override
   public List<WorkflowExecutionInfo> listWorkflows(
-      WorkflowState state, Optional<String> filterWorkflowId) {
-    lock.lock();
-    List<WorkflowExecutionInfo> result;
-    try {
-      result = new ArrayList<>();
-      for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
+      WorkflowState state, Optional<String> filterDomain, Optional<String> filterWorkflowId) {
+    List<WorkflowExecutionInfo> result = new ArrayList<>();
+    for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
+      if (filterDomain.isPresent() && !entry.getKey().getDomain().equals(filterDomain.get())) {
+        continue;
+      }
+      HistoryStore historyStore = entry.getValue();
+      historyStore.lock.lock();
+      try {
         if (state == WorkflowState.OPEN) {
           if (entry.getValue().isCompleted()) {
             continue;
@@ -415,25 +470,22 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
           if (filterWorkflowId.isPresent() && !workflowId.equals(filterWorkflowId.get())) {
             continue;
           }
-          List<HistoryEvent> history = entry.getValue().getHistory();
+          HistoryStorage.EventLog history = entry.getValue().history;
+          HistoryEvent startedEvent = history.get(0);
           WorkflowExecutionInfo info =
               new WorkflowExecutionInfo()
                   .setExecution(executionId.getExecution())
                   .setHistoryLength(history.size())
-                  .setStartTime(history.get(0).getTimestamp())
+                  .setStartTime(startedEvent.getTimestamp())
                   .setCron(
-                      history.get(0).getWorkflowExecutionStartedEventAttributes().getCronSchedule()
+                      startedEvent.getWorkflowExecutionStartedEventAttributes().getCronSchedule()
                               != null
-                          && !history
-                              .get(0)
+                          && !startedEvent
                               .getWorkflowExecutionStartedEventAttributes()
                               .getCronSchedule()
                               .isEmpty())
                   .setType(
-                      history
-                          .get(0)
-                          .getWorkflowExecutionStartedEventAttributes()
-                          .getWorkflowType());
+                      startedEvent.getWorkflowExecutionStartedEventAttributes().getWorkflowType());
           result.add(info);
         } else {
           if (!entry.getValue().isCompleted()) {
@@ -444,35 +496,39 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
           if (filterWorkflowId.isPresent() && !workflowId.equals(filterWorkflowId.get())) {
             continue;
           }
-          List<HistoryEvent> history = entry.getValue().getHistory();
+          HistoryStorage.EventLog history = entry.getValue().history;
+          HistoryEvent startedEvent = history.get(0);
           WorkflowExecutionInfo info =
               new WorkflowExecutionInfo()
                   .setExecution(executionId.getExecution())
                   .setHistoryLength(history.size())
-                  .setStartTime(history.get(0).getTimestamp())
+                  .setStartTime(startedEvent.getTimestamp())
                   .setCron(
-                      history.get(0).getWorkflowExecutionStartedEventAttributes().getCronSchedule()
+                      startedEvent.getWorkflowExecutionStartedEventAttributes().getCronSchedule()
                               != null
-                          && !history
-                              .get(0)
+                          && !startedEvent
                               .getWorkflowExecutionStartedEventAttributes()
                               .getCronSchedule()
                               .isEmpty())
                   .setType(
-                      history.get(0).getWorkflowExecutionStartedEventAttributes().getWorkflowType())
+                      startedEvent.getWorkflowExecutionStartedEventAttributes().getWorkflowType())
                   .setCloseStatus(
                       WorkflowExecutionUtils.getCloseStatus(history.get(history.size() - 1)));
           result.add(info);
         }
+      } finally {
+        historyStore.lock.unlock();
       }
-    } finally {
-      lock.unlock();
     }
     return result;
   }
 
   @Override
   public void close() {
-    timerService.shutdown();
+    timerService.timer.shutdown();
+    for (DomainTimer timer : isolatedTimers.values()) {
+      timer.timer.shutdown();
+    }
+    historyStorage.close();
   }
 }
@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel with a millisecond tick. Level {@code n} has 64 slots of {@code 64^n}
+ * milliseconds each, so eleven levels cover the whole range of a long. A timer is placed into the
+ * level of the highest 6 bit digit in which its execution time differs from the current time of the
+ * wheel, which makes add and cancel O(1). When the wheel advances to a slot of an upper level its
+ * timers are cascaded into the lower levels. A level 0 slot contains only timers that are due at
+ * the same millisecond, so they are returned together.
+ *
+ * <p>Not thread safe.
+ */
+final class TimerWheel<T> {
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+  static final class Timer<T> {
+
+    private final long executionTime;
+    private final T value;
+    private Timer<T> previous;
+    private Timer<T> next;
+    // Index into the slot arrays, -1 when not in the wheel
+    private int slot = -1;
+
+    private Timer(long executionTime, T value) {
+      this.executionTime = executionTime;
+      this.value = value;
+    }
+
+    long getExecutionTime() {
+      return executionTime;
+    }
+
+    T getValue() {
+      return value;
+    }
+  }
+
+  private final Timer<T>[] heads;
+  private final Timer<T>[] tails;
+  // Bit per slot of each level that is set when the slot is not empty
+  private final long[] occupied = new long[LEVELS];
+  private long time;
+  private int size;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  TimerWheel(long time) {
+    if (time < 0) {
+      throw new IllegalArgumentException("negative time: " + time);
+    }
+    this.time = time;
+    this.heads = (Timer<T>[]) new Timer[LEVELS * SLOTS];
+    this.tails = (Timer<T>[]) new Timer[LEVELS * SLOTS];
+  }
+
+  /** Time up to which the wheel has been advanced. */
+  long getTime() {
+    return time;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds a timer. A timer with an execution time that has already passed is returned by the next
+   * call to {@link #advance(long, List)}.
+   */
+  Timer<T> add(long executionTime, T value) {
+    Timer<T> timer = new Timer<>(executionTime, value);
+    insert(timer);
+    size++;
+    return timer;
+  }
+
+  /** @return false if the timer was already returned by advance or canceled */
+  boolean cancel(Timer<T> timer) {
+    if (timer.slot < 0) {
+      return false;
+    }
+    unlink(timer);
+    size--;
+    return true;
+  }
+
+  /**
+   * Time of the earliest timer or the start of the upper level slot that contains it if its exact
+   * time is not known without cascading. Never greater than the earliest execution time.
+   *
+   * @return Long.MAX_VALUE if empty
+   */
+  long nextTime() {
+    int slot = nextSlot();
+    return slot < 0 ? Long.MAX_VALUE : slotTime(slot);
+  }
+
+  /**
+   * Execution time of the earliest timer. Cascades upper level slots that precede it, so the wheel
+   * time is moved up to at most that time.
+   *
+   * @return Long.MAX_VALUE if empty
+   */
+  long nextExecutionTime() {
+    while (true) {
+      int slot = nextSlot();
+      if (slot < 0) {
+        return Long.MAX_VALUE;
+      }
+      time = slotTime(slot);
+      if (slot < SLOTS) {
+        return time;
+      }
+      cascade(slot);
+    }
+  }
+
+  /**
+   * Moves the wheel time to {@code toTime} and adds the values of all the timers that are due up to
+   * it to the result in the order of their execution times.
+   */
+  void advance(long toTime, List<T> result) {
+    while (true) {
+      int slot = nextSlot();
+      if (slot < 0 || slotTime(slot) > toTime) {
+        // Moving within the range before the next occupied slot doesn't change the placement.
+        time = Math.max(time, toTime);
+        return;
+      }
+      time = slotTime(slot);
+      if (slot < SLOTS) {
+        Timer<T> timer = heads[slot];
+        clear(slot);
+        while (timer != null) {
+          Timer<T> next = timer.next;
+          timer.previous = null;
+          timer.next = null;
+          timer.slot = -1;
+          size--;
+          result.add(timer.value);
+          timer = next;
+        }
+      } else {
+        cascade(slot);
+      }
+    }
+  }
+
+  private void cascade(int slot) {
+    Timer<T> timer = heads[slot];
+    clear(slot);
+    while (timer != null) {
+      Timer<T> next = timer.next;
+      timer.previous = null;
+      timer.next = null;
+      insert(timer);
+      timer = next;
+    }
+  }
+
+  /** @return index of the earliest occupied slot or -1 if the wheel is empty */
+  private int nextSlot() {
+    for (int level = 0; level < LEVELS; level++) {
+      long bits = occupied[level];
+      if (bits == 0) {
+        continue;
+      }
+      int index = digit(time, level);
+      // The current slot of an upper level is never occupied as its timers belong to lower levels
+      long mask = level == 0 ? -1L << index : (index == SLOTS - 1 ? 0 : -1L << (index + 1));
+      bits &= mask;
+      if (bits != 0) {
+        return level * SLOTS + Long.numberOfTrailingZeros(bits);
+      }
+    }
+    return -1;
+  }
+
+  /** Start time of the slot relative to the current wheel time. */
+  private long slotTime(int slot) {
+    int level = slot / SLOTS;
+    int shift = level * SLOT_BITS;
+    int upperShift = shift + SLOT_BITS;
+    long upper = upperShift >= Long.SIZE ? 0 : (time >>> upperShift) << upperShift;
+    return upper | ((long) (slot % SLOTS) << shift);
+  }
+
+  private void insert(Timer<T> timer) {
+    long executionTime = Math.max(timer.executionTime, time);
+    int level =
+        executionTime == time
+            ? 0
+            : (Long.SIZE - 1 - Long.numberOfLeadingZeros(executionTime ^ time)) / SLOT_BITS;
+    int slot = level * SLOTS + digit(executionTime, level);
+    timer.slot = slot;
+    Timer<T> tail = tails[slot];
+    if (tail == null) {
+      heads[slot] = timer;
+      occupied[level] |= 1L << (slot % SLOTS);
+    } else {
+      tail.next = timer;
+      timer.previous = tail;
+    }
+    tails[slot] = timer;
+  }
+
+  private void unlink(Timer<T> timer) {
+    int slot = timer.slot;
+    if (timer.previous == null) {
+      heads[slot] = timer.next;
+    } else {
+      timer.previous.next = timer.next;
+    }
+    if (timer.next == null) {
+      tails[slot] = timer.previous;
+    } else {
+      timer.next.previous = timer.previous;
+    }
+    if (heads[slot] == null) {
+      occupied[slot / SLOTS] &= ~(1L << (slot % SLOTS));
+    }
+    timer.previous = null;
+    timer.next = null;
+    timer.slot = -1;
+  }
+
+  private void clear(int slot) {
+    heads[slot] = null;
+    tails[slot] = null;
+    occupied[slot / SLOTS] &= ~(1L << (slot % SLOTS));
+  }
+
+  private static int digit(long time, int level) {
+    return (int) ((time >>> (level * SLOT_BITS)) & (SLOTS - 1));
+  }
+}
@@ -114,6 +114,11 @@ public class TracingPropagator {
         .start();
   }
 
+  /** Returns true if there is a span context that {@link #inject(Map)} would add. */
+  public boolean hasActiveSpan() {
+    return tracer.activeSpan() != null;
+  }
+
   public void inject(Map<String, byte[]> headers) {
     Map<String, String> context = getCurrentContext();
     context.forEach(
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import com.uber.cadence.PollForActivityTaskResponse;
+import com.uber.cadence.RespondActivityTaskCanceledRequest;
+import com.uber.cadence.RespondActivityTaskCompletedRequest;
+import com.uber.cadence.RespondActivityTaskFailedRequest;
+import com.uber.cadence.internal.common.RpcRetryer;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.Stopwatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports activity task results to the service without holding the executor thread that ran the
+ * activity for the call. At most {@code maxPendingResponses} responses are in flight, {@link
+ * #respond(PollForActivityTaskResponse, ActivityTaskHandler.Result, Scope)} blocks while the limit
+ * is reached. Failed calls are retried with {@link RpcRetryer#DEFAULT_RPC_RETRY_OPTIONS} on the
+ * retryer scheduler.
+ *
+ * <p>Services that do not implement the asynchronous calls are called synchronously on threads
+ * owned by the responder, one per response that can be in flight.
+ */
+final class ActivityTaskResponder {
+
+  private final IWorkflowService service;
+  private final String identity;
+  private final Scope metricsScope;
+  private final int maxPendingResponses;
+  private final Semaphore permits;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AsyncServiceCall serviceCall;
+
+  ActivityTaskResponder(IWorkflowService service, SingleWorkerOptions options) {
+    this.service = service;
+    this.identity = options.getIdentity();
+    this.metricsScope = options.getMetricsScope();
+    this.maxPendingResponses = Math.max(1, options.getTaskExecutorThreadPoolSize());
+    this.permits = new Semaphore(maxPendingResponses);
+    this.serviceCall =
+        new AsyncServiceCall(
+            AsyncServiceCall.newSyncCallExecutor(
+                "Activity Responder identity=" + identity, maxPendingResponses));
+  }
+
+  /**
+   * Sends the result of an activity task. The returned future completes when the service
+   * acknowledged the response or the retries are exhausted.
+   */
+  CompletableFuture<Void> respond(
+      PollForActivityTaskResponse task, ActivityTaskHandler.Result result, Scope metricsScope) {
+    RespondActivityTaskCompletedRequest taskCompleted = result.getTaskCompleted();
+    if (taskCompleted != null) {
+      taskCompleted.setTaskToken(task.getTaskToken());
+      taskCompleted.setIdentity(identity);
+      return send(
+          metricsScope,
+          MetricsType.ACTIVITY_TASK_COMPLETED_COUNTER,
+          (callback) -> service.RespondActivityTaskCompleted(taskCompleted, callback),
+          () -> {
+            service.RespondActivityTaskCompleted(taskCompleted);
+            return null;
+          });
+    }
+    if (result.getTaskFailedResult() != null) {
+      RespondActivityTaskFailedRequest taskFailed =
+          result.getTaskFailedResult().getTaskFailedRequest();
+      taskFailed.setTaskToken(task.getTaskToken());
+      taskFailed.setIdentity(identity);
+      return send(
+          metricsScope,
+          MetricsType.ACTIVITY_TASK_FAILED_COUNTER,
+          (callback) -> service.RespondActivityTaskFailed(taskFailed, callback),
+          () -> {
+            service.RespondActivityTaskFailed(taskFailed);
+            return null;
+          });
+    }
+    RespondActivityTaskCanceledRequest taskCancelled = result.getTaskCancelled();
+    if (taskCancelled != null) {
+      taskCancelled.setTaskToken(task.getTaskToken());
+      taskCancelled.setIdentity(identity);
+      return send(
+          metricsScope,
+          MetricsType.ACTIVITY_TASK_CANCELED_COUNTER,
+          (callback) -> service.RespondActivityTaskCanceled(taskCancelled, callback),
+          () -> {
+            service.RespondActivityTaskCanceled(taskCancelled);
+            return null;
+          });
+    }
+    // Manual activity completion
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /** Waits until every pending response is acknowledged or failed. */
+  boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+    if (!permits.tryAcquire(maxPendingResponses, timeout, unit)) {
+      return false;
+    }
+    permits.release(maxPendingResponses);
+    return true;
+  }
+
+  boolean isIdle() {
+    return pending.get() == 0;
+  }
+
+  private CompletableFuture<Void> send(
+      Scope metricsScope,
+      String completionCounter,
+      AsyncServiceCall.Async<Void> asyncCall,
+      AsyncServiceCall.Sync<Void> syncCall) {
+    permits.acquireUninterruptibly();
+    reportPending(pending.incrementAndGet());
+    Stopwatch sw = metricsScope.timer(MetricsType.ACTIVITY_RESP_LATENCY).start();
+    return RpcRetryer.retryWithResultAsync(
+            RpcRetryer.DEFAULT_RPC_RETRY_OPTIONS, () -> serviceCall.call(asyncCall, syncCall))
+        .whenComplete(
+            (r, e) -> {
+              sw.stop();
+              reportPending(pending.decrementAndGet());
+              permits.release();
+              if (e == null) {
+                metricsScope.counter(completionCounter).inc(1);
+              }
+            });
+  }
+
+  private void reportPending(int count) {
+    metricsScope.gauge(MetricsType.ACTIVITY_RESPONSE_PENDING).update(count);
+  }
+}
@@ -19,7 +19,6 @@ package com.uber.cadence.internal.worker;
 
 import com.uber.cadence.*;
 import com.uber.cadence.context.ContextPropagator;
-import com.uber.cadence.internal.common.RpcRetryer;
 import com.uber.cadence.internal.logging.LoggerTag;
 import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
@@ -50,6 +49,7 @@ public class ActivityWorker extends SuspendableWorkerBase {
   private final String taskList;
   private final Tracer tracer;
   private final TracingPropagator spanFactory;
+  private final ActivityTaskResponder responder;
 
   public ActivityWorker(
       IWorkflowService service,
@@ -83,6 +83,7 @@ public class ActivityWorker extends SuspendableWorkerBase {
               .build();
     }
     this.options = SingleWorkerOptions.newBuilder(options).setPollerOptions(pollerOptions).build();
+    this.responder = new ActivityTaskResponder(service, this.options);
   }
 
   @Override
@@ -102,10 +103,55 @@ public class ActivityWorker extends SuspendableWorkerBase {
     }
   }
 
+  @Override
+  public boolean isTerminated() {
+    return super.isTerminated() && responder.isIdle();
+  }
+
+  /** Also waits for the responses of the completed activity tasks to be acknowledged. */
+  @Override
+  public void awaitTermination(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    super.awaitTermination(timeout, unit);
+    try {
+      responder.awaitIdle(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   protected PollTask<PollForActivityTaskResponse> getOrCreateActivityPollTask() {
     return new ActivityPollTask(service, domain, taskList, options);
   }
 
+  /**
+   * Time a prefetched task can wait for an executor thread. The server starts an activity task when
+   * it is polled, so the task runs against its start to close and heartbeat timeouts from then on,
+   * and against what is left of its schedule to close timeout. A task that has less than a tenth of
+   * that window left is not worth starting. The window is a duration, so it is compared with the
+   * time spent in the buffer on the local clock rather than with the server timestamps. Visible for
+   * testing.
+   */
+  static long getMaxBufferedNanos(PollForActivityTaskResponse task) {
+    if (task.getStartToCloseTimeoutSeconds() <= 0) {
+      return 0;
+    }
+    long window = TimeUnit.SECONDS.toNanos(task.getStartToCloseTimeoutSeconds());
+    if (task.getHeartbeatTimeoutSeconds() > 0) {
+      window = Math.min(window, TimeUnit.SECONDS.toNanos(task.getHeartbeatTimeoutSeconds()));
+    }
+    long scheduled = task.getScheduledTimestamp();
+    long started = task.getStartedTimestamp();
+    if (task.getScheduleToCloseTimeoutSeconds() > 0 && scheduled > 0 && started >= scheduled) {
+      window =
+          Math.min(
+              window,
+              TimeUnit.SECONDS.toNanos(task.getScheduleToCloseTimeoutSeconds())
+                  - (started - scheduled));
+    }
+    return Math.max(1, window - window / 10);
+  }
+
   private class TaskHandlerImpl
       implements PollTaskExecutor.TaskHandler<PollForActivityTaskResponse> {
 
@@ -147,23 +193,34 @@ public class ActivityWorker extends SuspendableWorkerBase {
         ActivityTaskHandler.Result response = handler.handle(task, metricsScope, false);
         sw.stop();
 
-        sw = metricsScope.timer(MetricsType.ACTIVITY_RESP_LATENCY).start();
-        sendReply(task, response, metricsScope);
-        sw.stop();
-
-        long nanoTime =
-            TimeUnit.NANOSECONDS.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-        Duration duration = Duration.ofNanos(nanoTime - task.getScheduledTimestampOfThisAttempt());
-        metricsScope.timer(MetricsType.ACTIVITY_E2E_LATENCY).record(duration);
-
+        responder
+            .respond(task, response, metricsScope)
+            .whenComplete(
+                (r, failure) -> {
+                  if (failure != null) {
+                    reportResponseFailure(task, failure);
+                    return;
+                  }
+                  long nanoTime =
+                      TimeUnit.NANOSECONDS.convert(
+                          System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                  Duration duration =
+                      Duration.ofNanos(nanoTime - task.getScheduledTimestampOfThisAttempt());
+                  metricsScope.timer(MetricsType.ACTIVITY_E2E_LATENCY).record(duration);
+                });
       } catch (CancellationException e) {
         RespondActivityTaskCanceledRequest cancelledRequest =
             new RespondActivityTaskCanceledRequest();
         cancelledRequest.setDetails(
             String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
-        Stopwatch sw = metricsScope.timer(MetricsType.ACTIVITY_RESP_LATENCY).start();
-        sendReply(task, new Result(null, null, cancelledRequest), metricsScope);
-        sw.stop();
+        responder
+            .respond(task, new Result(null, null, cancelledRequest), metricsScope)
+            .whenComplete(
+                (r, failure) -> {
+                  if (failure != null) {
+                    reportResponseFailure(task, failure);
+                  }
+                });
       } finally {
         span.finish();
         MDC.remove(LoggerTag.ACTIVITY_ID);
@@ -205,48 +262,33 @@ public class ActivityWorker extends SuspendableWorkerBase {
     }
 
     @Override
-    public Throwable wrapFailure(PollForActivityTaskResponse task, Throwable failure) {
+    public long getMaxBufferedNanos(PollForActivityTaskResponse task) {
+      return ActivityWorker.getMaxBufferedNanos(task);
+    }
+
+    @Override
+    public String describe(PollForActivityTaskResponse task) {
       WorkflowExecution execution = task.getWorkflowExecution();
-      return new RuntimeException(
-          "Failure processing activity task. WorkflowID="
-              + execution.getWorkflowId()
-              + ", RunID="
-              + execution.getRunId()
-              + ", ActivityType="
-              + task.getActivityType().getName()
-              + ", ActivityID="
-              + task.getActivityId(),
-          failure);
+      return "WorkflowID="
+          + execution.getWorkflowId()
+          + ", RunID="
+          + execution.getRunId()
+          + ", ActivityType="
+          + task.getActivityType().getName()
+          + ", ActivityID="
+          + task.getActivityId();
     }
 
-    private void sendReply(
-        PollForActivityTaskResponse task, ActivityTaskHandler.Result response, Scope metricsScope)
-        throws CadenceError {
-      RespondActivityTaskCompletedRequest taskCompleted = response.getTaskCompleted();
-      if (taskCompleted != null) {
-        taskCompleted.setTaskToken(task.getTaskToken());
-        taskCompleted.setIdentity(options.getIdentity());
-        RpcRetryer.retry(() -> service.RespondActivityTaskCompleted(taskCompleted));
-        metricsScope.counter(MetricsType.ACTIVITY_TASK_COMPLETED_COUNTER).inc(1);
-      } else {
-        if (response.getTaskFailedResult() != null) {
-          RespondActivityTaskFailedRequest taskFailed =
-              response.getTaskFailedResult().getTaskFailedRequest();
-          taskFailed.setTaskToken(task.getTaskToken());
-          taskFailed.setIdentity(options.getIdentity());
-          RpcRetryer.retry(() -> service.RespondActivityTaskFailed(taskFailed));
-          metricsScope.counter(MetricsType.ACTIVITY_TASK_FAILED_COUNTER).inc(1);
-        } else {
-          RespondActivityTaskCanceledRequest taskCancelled = response.getTaskCancelled();
-          if (taskCancelled != null) {
-            taskCancelled.setTaskToken(task.getTaskToken());
-            taskCancelled.setIdentity(options.getIdentity());
-            RpcRetryer.retry(() -> service.RespondActivityTaskCanceled(taskCancelled));
-            metricsScope.counter(MetricsType.ACTIVITY_TASK_CANCELED_COUNTER).inc(1);
-          }
-        }
-      }
-      // Manual activity completion
+    @Override
+    public Throwable wrapFailure(PollForActivityTaskResponse task, Throwable failure) {
+      return new RuntimeException("Failure processing activity task. " + describe(task), failure);
+    }
+
+    private void reportResponseFailure(PollForActivityTaskResponse task, Throwable failure) {
+      options
+          .getPollerOptions()
+          .getUncaughtExceptionHandler()
+          .uncaughtException(Thread.currentThread(), wrapFailure(task, failure));
     }
   }
 }
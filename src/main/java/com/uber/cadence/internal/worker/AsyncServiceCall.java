@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import com.uber.cadence.CadenceError;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls the asynchronous version of a service method and falls back to the synchronous one for
+ * services that do not implement it. The synchronous calls run on the executor given to the
+ * constructor, never on the thread that completed a previous attempt.
+ */
+final class AsyncServiceCall {
+
+  interface Async<R> {
+    void apply(AsyncMethodCallback<R> callback) throws CadenceError;
+  }
+
+  interface Sync<R> {
+    R apply() throws CadenceError;
+  }
+
+  private final Executor syncCallExecutor;
+  private volatile boolean asyncUnsupported;
+
+  AsyncServiceCall(Executor syncCallExecutor) {
+    this.syncCallExecutor = syncCallExecutor;
+  }
+
+  /**
+   * Creates an executor for the synchronous calls with one thread per call that can be in flight.
+   * The threads are started on the first synchronous call and exit after being idle for a second,
+   * so the executor does not need to be shut down.
+   */
+  static Executor newSyncCallExecutor(String threadPrefix, int maxPendingCalls) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            maxPendingCalls,
+            maxPendingCalls,
+            1,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ExecutorThreadFactory(threadPrefix, null));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  <R> CompletableFuture<R> call(Async<R> asyncCall, Sync<R> syncCall) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    if (!asyncUnsupported) {
+      try {
+        asyncCall.apply(
+            new AsyncMethodCallback<R>() {
+              @Override
+              public void onComplete(R response) {
+                result.complete(response);
+              }
+
+              @Override
+              public void onError(Exception exception) {
+                result.completeExceptionally(exception);
+              }
+            });
+        return result;
+      } catch (UnsupportedOperationException e) {
+        asyncUnsupported = true;
+      } catch (CadenceError e) {
+        result.completeExceptionally(e);
+        return result;
+      }
+    }
+    syncCallExecutor.execute(
+        () -> {
+          try {
+            result.complete(syncCall.apply());
+          } catch (Throwable e) {
+            result.completeExceptionally(e);
+          }
+        });
+    return result;
+  }
+}
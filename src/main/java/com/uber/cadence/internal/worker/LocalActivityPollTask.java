@@ -18,35 +18,203 @@
 package com.uber.cadence.internal.worker;
 
 import com.uber.cadence.CadenceError;
+import com.uber.cadence.internal.metrics.MetricsTag;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
 import java.time.Duration;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 
+/**
+ * Queue of local activity tasks waiting for an executor thread. Tasks are kept in a separate queue
+ * per activity type and handed to the poller round robin across types, skipping types that already
+ * run {@link SingleWorkerOptions#getTaskExecutorThreadPoolSizePerType()} tasks. So a slow local
+ * activity type delays only its own backlog instead of every local activity of the worker.
+ *
+ * <p>{@link #apply(LocalActivityWorker.Task, Duration)} refuses a task when the queue stays full
+ * until the given deadline. When a per type limit is configured it also refuses a task whose type
+ * backlog is not expected to drain before the deadline. This lets the decider fall back to a forced
+ * decision right away instead of discovering it close to the decision task timeout. Without a per
+ * type limit tasks are only bounded by the queue size, as they were before the limit existed.
+ */
 final class LocalActivityPollTask
     implements Poller.PollTask<LocalActivityWorker.Task>,
         BiFunction<LocalActivityWorker.Task, Duration, Boolean> {
   private static final int QUEUE_SIZE = 1000;
-  private BlockingQueue<LocalActivityWorker.Task> pendingTasks =
-      new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+  // Weight of the latest execution in the moving average of execution time per type.
+  private static final double EXECUTION_TIME_SMOOTHING = 0.2;
+
+  private final int maxConcurrentPerType;
+  // Backlog based rejection applies only to an explicitly configured per type limit.
+  private final boolean rejectSlowBacklog;
+  private final Scope metricsScope;
+  private final Lock lock = new ReentrantLock();
+  private final Condition taskDispatchable = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Map<String, TypeQueue> queues = new HashMap<>();
+  // Types that have queued tasks in the order they are served.
+  private final ArrayDeque<TypeQueue> rotation = new ArrayDeque<>();
+  private int size;
+
+  LocalActivityPollTask(SingleWorkerOptions options) {
+    int poolSize = options.getTaskExecutorThreadPoolSize();
+    int perType = options.getTaskExecutorThreadPoolSizePerType();
+    this.maxConcurrentPerType = perType > 0 ? Math.min(perType, poolSize) : poolSize;
+    this.rejectSlowBacklog = perType > 0;
+    this.metricsScope = options.getMetricsScope();
+  }
 
   @Override
   public LocalActivityWorker.Task poll() throws CadenceError {
+    lock.lock();
     try {
-      return pendingTasks.take();
+      while (true) {
+        LocalActivityWorker.Task task = nextDispatchable();
+        if (task != null) {
+          return task;
+        }
+        taskDispatchable.await();
+      }
     } catch (InterruptedException e) {
       throw new RuntimeException("local activity poll task interrupted", e);
+    } finally {
+      lock.unlock();
     }
   }
 
   @Override
   public Boolean apply(LocalActivityWorker.Task task, Duration maxWaitAllowed) {
+    String activityType = task.getExecuteLocalActivityParameters().getActivityType().getName();
+    lock.lock();
     try {
-      pendingTasks.offer(task, maxWaitAllowed.toMillis(), TimeUnit.MILLISECONDS);
+      TypeQueue queue = queues.computeIfAbsent(activityType, TypeQueue::new);
+      long remainingNanos = maxWaitAllowed.toNanos();
+      long estimatedWaitNanos = rejectSlowBacklog ? queue.estimateWaitNanos() : 0;
+      if (estimatedWaitNanos > 0 && estimatedWaitNanos > remainingNanos) {
+        queue.metricsScope.counter(MetricsType.LOCAL_ACTIVITY_REJECTED_COUNTER).inc(1);
+        return false;
+      }
+      while (size >= QUEUE_SIZE) {
+        if (remainingNanos <= 0) {
+          queue.metricsScope.counter(MetricsType.LOCAL_ACTIVITY_REJECTED_COUNTER).inc(1);
+          return false;
+        }
+        remainingNanos = notFull.awaitNanos(remainingNanos);
+      }
+      task.enqueueTimeNanos = System.nanoTime();
+      if (queue.tasks.isEmpty()) {
+        rotation.addLast(queue);
+      }
+      queue.tasks.addLast(task);
+      size++;
+      queue.reportBacklog();
+      taskDispatchable.signal();
       return true;
     } catch (InterruptedException e) {
       return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Must be called once for every task returned by {@link #poll()} after its execution completes to
+   * free the slot of its activity type.
+   */
+  void release(LocalActivityWorker.Task task, long executionNanos) {
+    String activityType = task.getExecuteLocalActivityParameters().getActivityType().getName();
+    lock.lock();
+    try {
+      TypeQueue queue = queues.get(activityType);
+      if (queue == null) {
+        return;
+      }
+      queue.inFlight--;
+      queue.averageExecutionNanos =
+          queue.averageExecutionNanos == 0
+              ? executionNanos
+              : (long)
+                  (EXECUTION_TIME_SMOOTHING * executionNanos
+                      + (1 - EXECUTION_TIME_SMOOTHING) * queue.averageExecutionNanos);
+      taskDispatchable.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Number of local activity tasks of the given type that wait for an executor thread. */
+  int getBacklog(String activityType) {
+    lock.lock();
+    try {
+      TypeQueue queue = queues.get(activityType);
+      return queue == null ? 0 : queue.tasks.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private LocalActivityWorker.Task nextDispatchable() {
+    Iterator<TypeQueue> iterator = rotation.iterator();
+    while (iterator.hasNext()) {
+      TypeQueue queue = iterator.next();
+      if (queue.inFlight >= maxConcurrentPerType) {
+        continue;
+      }
+      iterator.remove();
+      LocalActivityWorker.Task task = queue.tasks.removeFirst();
+      if (!queue.tasks.isEmpty()) {
+        rotation.addLast(queue);
+      }
+      queue.inFlight++;
+      size--;
+      queue.reportBacklog();
+      queue
+          .metricsScope
+          .timer(MetricsType.LOCAL_ACTIVITY_QUEUE_LATENCY)
+          .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - task.enqueueTimeNanos));
+      notFull.signal();
+      return task;
+    }
+    return null;
+  }
+
+  private final class TypeQueue {
+    final ArrayDeque<LocalActivityWorker.Task> tasks = new ArrayDeque<>();
+    final Scope metricsScope;
+    int inFlight;
+    long averageExecutionNanos;
+
+    TypeQueue(String activityType) {
+      this.metricsScope =
+          LocalActivityPollTask.this.metricsScope.tagged(
+              new ImmutableMap.Builder<String, String>(1)
+                  .put(MetricsTag.ACTIVITY_TYPE, activityType)
+                  .build());
+    }
+
+    /**
+     * Expected time until a newly added task of this type starts, based on the tasks ahead of it
+     * and the average execution time of the type. Zero until the first execution completes.
+     */
+    long estimateWaitNanos() {
+      long ahead = tasks.size() + inFlight + 1 - maxConcurrentPerType;
+      if (ahead <= 0) {
+        return 0;
+      }
+      long waves = (ahead + maxConcurrentPerType - 1) / maxConcurrentPerType;
+      return waves * averageExecutionNanos;
+    }
+
+    void reportBacklog() {
+      metricsScope.gauge(MetricsType.LOCAL_ACTIVITY_BACKLOG).update(tasks.size());
     }
   }
 }
@@ -59,7 +59,7 @@ public final class LocalActivityWorker extends SuspendableWorkerBase {
     this.domain = Objects.requireNonNull(domain);
     this.taskList = Objects.requireNonNull(taskList);
     this.handler = handler;
-    this.laPollTask = new LocalActivityPollTask();
+    this.laPollTask = new LocalActivityPollTask(options);
     this.spanFactory = new TracingPropagator(options.getTracer());
     this.tracer = options.getTracer();
 
@@ -97,6 +97,7 @@ public final class LocalActivityWorker extends SuspendableWorkerBase {
     private final LongSupplier currentTimeMillis;
     private final LongSupplier replayTimeUpdatedAtMillis;
     long taskStartTime;
+    long enqueueTimeNanos;
     private final int decisionTimeoutSeconds;
 
     public Task(
@@ -131,6 +132,15 @@ public final class LocalActivityWorker extends SuspendableWorkerBase {
 
     @Override
     public void handle(Task task) throws Exception {
+      long executionStartNanos = System.nanoTime();
+      try {
+        handleTask(task);
+      } finally {
+        laPollTask.release(task, System.nanoTime() - executionStartNanos);
+      }
+    }
+
+    private void handleTask(Task task) throws Exception {
       propagateContext(task.params);
 
       // start and activate span for local activities
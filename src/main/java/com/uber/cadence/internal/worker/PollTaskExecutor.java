@@ -20,9 +20,14 @@ package com.uber.cadence.internal.worker;
 import com.google.common.base.Preconditions;
 import com.uber.cadence.internal.common.InternalUtils;
 import com.uber.cadence.internal.logging.LoggerTag;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.m3.util.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
@@ -31,9 +36,27 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
     void handle(TT task) throws Exception;
 
     Throwable wrapFailure(TT task, Throwable failure);
+
+    /**
+     * Time in nanoseconds a prefetched task can wait for an executor thread before it is not worth
+     * starting anymore, for example because the server is going to time it out before it can
+     * complete. It is measured with the local clock from the moment the task was polled. Zero means
+     * that the task never expires.
+     */
+    default long getMaxBufferedNanos(TT task) {
+      return 0;
+    }
+
+    /** Identifies the task in log messages. */
+    default String describe(TT task) {
+      return String.valueOf(task);
+    }
   }
 
+  private static final Logger log = LoggerFactory.getLogger(PollTaskExecutor.class);
+
   private final ThreadPoolExecutor taskExecutor;
+  private final int prefetchBufferSize;
   private final SingleWorkerOptions options;
   private final String domain;
   private final String taskList;
@@ -47,16 +70,30 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
     Preconditions.checkNotNull(options, "options should not be null");
 
     this.options = options;
-    taskExecutor =
-        options
-            .getExecutorWrapper()
-            .wrap(
-                new ThreadPoolExecutor(
-                    0,
-                    options.getTaskExecutorThreadPoolSize(),
-                    1,
-                    TimeUnit.SECONDS,
-                    new SynchronousQueue<>()));
+    this.prefetchBufferSize = options.getTaskPrefetchBufferSize();
+    ThreadPoolExecutor executor;
+    if (prefetchBufferSize > 0) {
+      // Polled tasks wait in the bounded queue while all the threads are busy. The core size must
+      // be the maximum size as the executor adds threads above the core size only when the queue
+      // is full.
+      executor =
+          new ThreadPoolExecutor(
+              options.getTaskExecutorThreadPoolSize(),
+              options.getTaskExecutorThreadPoolSize(),
+              1,
+              TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(prefetchBufferSize));
+      executor.allowCoreThreadTimeOut(true);
+    } else {
+      executor =
+          new ThreadPoolExecutor(
+              0,
+              options.getTaskExecutorThreadPoolSize(),
+              1,
+              TimeUnit.SECONDS,
+              new SynchronousQueue<>());
+    }
+    taskExecutor = options.getExecutorWrapper().wrap(executor);
     taskExecutor.setThreadFactory(
         new ExecutorThreadFactory(
             options.getPollerOptions().getPollThreadNamePrefix().replaceFirst("Poller", "Executor"),
@@ -66,8 +103,12 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
 
   @Override
   public void process(T task) {
+    long enqueueTimeNanos = System.nanoTime();
     taskExecutor.execute(
         () -> {
+          if (prefetchBufferSize > 0 && isExpiredInBuffer(task, enqueueTimeNanos)) {
+            return;
+          }
           MDC.put(LoggerTag.DOMAIN, domain);
           MDC.put(LoggerTag.TASK_LIST, taskList);
           try {
@@ -82,10 +123,45 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
             MDC.remove(LoggerTag.TASK_LIST);
           }
         });
+    if (prefetchBufferSize > 0) {
+      reportBufferSize();
+    }
+  }
+
+  private boolean isExpiredInBuffer(T task, long enqueueTimeNanos) {
+    long bufferedNanos = System.nanoTime() - enqueueTimeNanos;
+    options
+        .getMetricsScope()
+        .timer(MetricsType.TASK_PREFETCH_WAIT_LATENCY)
+        .record(Duration.ofNanos(bufferedNanos));
+    reportBufferSize();
+    long maxBufferedNanos = handler.getMaxBufferedNanos(task);
+    if (maxBufferedNanos <= 0 || bufferedNanos < maxBufferedNanos) {
+      return false;
+    }
+    options.getMetricsScope().counter(MetricsType.TASK_PREFETCH_EXPIRED_COUNTER).inc(1);
+    if (log.isWarnEnabled()) {
+      log.warn(
+          "Dropped prefetched task that waited "
+              + TimeUnit.NANOSECONDS.toMillis(bufferedNanos)
+              + "ms for a thread and is too close to its timeout: "
+              + handler.describe(task));
+    }
+    return true;
+  }
+
+  private void reportBufferSize() {
+    options
+        .getMetricsScope()
+        .gauge(MetricsType.TASK_PREFETCH_BUFFER_SIZE)
+        .update(taskExecutor.getQueue().size());
   }
 
   @Override
   public boolean hasCapacity() {
+    if (prefetchBufferSize > 0 && taskExecutor.getQueue().remainingCapacity() > 0) {
+      return true;
+    }
     return taskExecutor.getActiveCount() < taskExecutor.getMaximumPoolSize();
   }
 
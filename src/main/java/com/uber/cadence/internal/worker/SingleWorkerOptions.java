@@ -41,6 +41,8 @@ public final class SingleWorkerOptions {
     private String identity;
     private DataConverter dataConverter;
     private int taskExecutorThreadPoolSize = 100;
+    private int taskExecutorThreadPoolSizePerType;
+    private int taskPrefetchBufferSize;
     private double taskListActivitiesPerSecond;
     private PollerOptions pollerOptions;
     private Scope metricsScope;
@@ -57,6 +59,8 @@ public final class SingleWorkerOptions {
       this.pollerOptions = options.getPollerOptions();
       this.taskListActivitiesPerSecond = options.getTaskListActivitiesPerSecond();
       this.taskExecutorThreadPoolSize = options.getTaskExecutorThreadPoolSize();
+      this.taskExecutorThreadPoolSizePerType = options.getTaskExecutorThreadPoolSizePerType();
+      this.taskPrefetchBufferSize = options.getTaskPrefetchBufferSize();
       this.metricsScope = options.getMetricsScope();
       this.enableLoggingInReplay = options.getEnableLoggingInReplay();
       this.contextPropagators = options.getContextPropagators();
@@ -79,6 +83,25 @@ public final class SingleWorkerOptions {
       return this;
     }
 
+    /**
+     * Maximum number of task executor threads a single task type can occupy. Zero means no limit
+     * besides the task executor thread pool size.
+     */
+    public Builder setTaskExecutorThreadPoolSizePerType(int taskExecutorThreadPoolSizePerType) {
+      this.taskExecutorThreadPoolSizePerType = taskExecutorThreadPoolSizePerType;
+      return this;
+    }
+
+    /**
+     * Number of polled tasks that can wait for a free task executor thread. Lets pollers keep
+     * polling while all executor threads are busy so that the next task is ready as soon as a
+     * thread frees up. Zero means that a poller hands a task directly to an executor thread.
+     */
+    public Builder setTaskPrefetchBufferSize(int taskPrefetchBufferSize) {
+      this.taskPrefetchBufferSize = taskPrefetchBufferSize;
+      return this;
+    }
+
     public Builder setPollerOptions(PollerOptions pollerOptions) {
       this.pollerOptions = pollerOptions;
       return this;
@@ -137,6 +160,8 @@ public final class SingleWorkerOptions {
           identity,
           dataConverter,
           taskExecutorThreadPoolSize,
+          taskExecutorThreadPoolSizePerType,
+          taskPrefetchBufferSize,
           taskListActivitiesPerSecond,
           pollerOptions,
           metricsScope,
@@ -150,6 +175,8 @@ public final class SingleWorkerOptions {
   private final String identity;
   private final DataConverter dataConverter;
   private final int taskExecutorThreadPoolSize;
+  private final int taskExecutorThreadPoolSizePerType;
+  private final int taskPrefetchBufferSize;
   private final double taskListActivitiesPerSecond;
   private final PollerOptions pollerOptions;
   private final Scope metricsScope;
@@ -162,6 +189,8 @@ public final class SingleWorkerOptions {
       String identity,
       DataConverter dataConverter,
       int taskExecutorThreadPoolSize,
+      int taskExecutorThreadPoolSizePerType,
+      int taskPrefetchBufferSize,
       double taskListActivitiesPerSecond,
       PollerOptions pollerOptions,
       Scope metricsScope,
@@ -172,6 +201,8 @@ public final class SingleWorkerOptions {
     this.identity = identity;
     this.dataConverter = dataConverter;
     this.taskExecutorThreadPoolSize = taskExecutorThreadPoolSize;
+    this.taskExecutorThreadPoolSizePerType = taskExecutorThreadPoolSizePerType;
+    this.taskPrefetchBufferSize = taskPrefetchBufferSize;
     this.taskListActivitiesPerSecond = taskListActivitiesPerSecond;
     this.pollerOptions = pollerOptions;
     this.metricsScope = metricsScope;
@@ -193,6 +224,14 @@ public final class SingleWorkerOptions {
     return taskExecutorThreadPoolSize;
   }
 
+  int getTaskExecutorThreadPoolSizePerType() {
+    return taskExecutorThreadPoolSizePerType;
+  }
+
+  int getTaskPrefetchBufferSize() {
+    return taskPrefetchBufferSize;
+  }
+
   PollerOptions getPollerOptions() {
     return pollerOptions;
   }
@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import com.uber.cadence.CadenceError;
+import com.uber.cadence.EntityNotExistsError;
+import com.uber.cadence.ResetStickyTaskListRequest;
+import com.uber.cadence.WorkflowExecutionAlreadyCompletedError;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.internal.replay.DeciderCache;
+import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.cadence.worker.StickyCacheInfo.EvictionReason;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.Stopwatch;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands off the workflows cached by a worker before it goes away. Without the handoff every cached
+ * workflow keeps being routed to the sticky task list of the stopped worker until the sticky
+ * schedule to start timeout expires, and then all of them replay their full history elsewhere at
+ * the same time. The drainer resets stickiness of idle cached workflows at a limited rate instead,
+ * while the workflows that are being processed are released by the decision task handler once their
+ * decision task completes without sticky attributes.
+ */
+public final class StickyCacheDrainer {
+
+  private static final Logger log = LoggerFactory.getLogger(StickyCacheDrainer.class);
+
+  private static final long RATE_INTERVAL_MILLISECONDS = 1000;
+
+  private final IWorkflowService service;
+  private final String domain;
+  private final DeciderCache cache;
+  private final double resetsPerSecond;
+  private final Scope metricsScope;
+
+  public StickyCacheDrainer(
+      IWorkflowService service,
+      String domain,
+      DeciderCache cache,
+      double resetsPerSecond,
+      Scope metricsScope) {
+    this.service = Objects.requireNonNull(service);
+    this.domain = Objects.requireNonNull(domain);
+    this.cache = Objects.requireNonNull(cache);
+    this.resetsPerSecond = resetsPerSecond;
+    this.metricsScope = Objects.requireNonNull(metricsScope);
+  }
+
+  /**
+   * Drains the cache. The caller is expected to stop polling the sticky task list first.
+   *
+   * @return true if all cached workflows were handed off before the timeout.
+   */
+  public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    Stopwatch sw = metricsScope.timer(MetricsType.STICKY_DRAIN_LATENCY).start();
+    cache.startDraining();
+    Throttler throttler =
+        new Throttler("sticky drain", resetsPerSecond, RATE_INTERVAL_MILLISECONDS);
+    for (DeciderCache.Entry entry : cache.getEntries()) {
+      if (System.nanoTime() >= deadline) {
+        break;
+      }
+      reportPending();
+      if (entry.isPinned()) {
+        // Evicted by the decision task handler when the task completes.
+        continue;
+      }
+      throttler.throttle();
+      resetStickiness(entry);
+      cache.evictIfNotInProcessing(entry.getExecution().getRunId(), EvictionReason.DRAIN);
+    }
+    boolean drained =
+        cache.awaitEmpty(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    reportPending();
+    sw.stop();
+    if (!drained) {
+      log.warn("Sticky cache drain timed out with " + cache.size() + " workflows still cached");
+    }
+    return drained;
+  }
+
+  private void resetStickiness(DeciderCache.Entry entry) {
+    ResetStickyTaskListRequest request =
+        new ResetStickyTaskListRequest().setDomain(domain).setExecution(entry.getExecution());
+    try {
+      service.ResetStickyTaskList(request);
+      metricsScope.counter(MetricsType.STICKY_DRAIN_RESET_COUNTER).inc(1);
+    } catch (EntityNotExistsError | WorkflowExecutionAlreadyCompletedError e) {
+      // Closed workflows are not routed anywhere.
+      metricsScope.counter(MetricsType.STICKY_DRAIN_SKIPPED_COUNTER).inc(1);
+    } catch (CadenceError e) {
+      // The workflow falls back to the workflow task list after the sticky schedule to start
+      // timeout.
+      log.warn("Failure resetting sticky task list of " + entry.getExecution(), e);
+      metricsScope.counter(MetricsType.STICKY_DRAIN_RESET_FAILED_COUNTER).inc(1);
+    }
+  }
+
+  private void reportPending() {
+    metricsScope.gauge(MetricsType.STICKY_DRAIN_PENDING).update(cache.size());
+  }
+}
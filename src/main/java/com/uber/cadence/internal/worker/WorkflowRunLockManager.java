@@ -17,89 +17,108 @@
 
 package com.uber.cadence.internal.worker;
 
-import java.util.HashMap;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Per run locks used to serialize decision task processing for a particular workflow run. Locks
+ * live in a {@link ConcurrentHashMap}. Looking up the lock of a run updates its reference count
+ * inside of a map compute call, which locks only the hash bin of the run, so tasks of different
+ * runs contend only when their runs hash to the same bin, and only for the duration of the update.
+ * A lock is removed once no task holds or waits for it.
+ */
 final class WorkflowRunLockManager {
 
   private static class CountableLock {
-    private final Lock lock = new ReentrantLock();
+    // Not owned by a thread as it is released when the decision task response is acknowledged,
+    // usually by a different thread than the one that acquired it.
+    private final Lock lock = new StampedLock().asWriteLock();
+    // Number of tasks that hold or wait for the lock. Only updated inside of map compute calls.
     private int count = 1;
 
-    void incrementCount() {
-      count++;
-    }
-
-    void decrementCount() {
-      count--;
-    }
-
-    int getCount() {
-      return count;
-    }
-
     Lock getLock() {
       return lock;
     }
   }
 
-  private final Lock mapLock = new ReentrantLock();
-  private final HashMap<String, CountableLock> perRunLock = new HashMap<>();
+  private final ConcurrentHashMap<String, CountableLock> perRunLock = new ConcurrentHashMap<>();
+  // Number of tasks waiting for a run lock by workflow type. A type is removed once none of its
+  // tasks waits.
+  private final ConcurrentHashMap<String, Integer> waitingPerType = new ConcurrentHashMap<>();
 
   /**
-   * This method returns a lock that can be used to serialize decision task processing for a
-   * particular workflow run. This is used to make sure that query tasks and real decision tasks are
-   * serialized when sticky is on.
+   * Acquires the lock of a workflow run waiting at most the given time. Reports the time spent
+   * waiting and the number of tasks of the same workflow type waiting for a run lock to the given
+   * scope.
    *
-   * @param runId
-   * @return a lock to be used during decision task processing
+   * @return true if the lock was acquired, in which case {@link #unlock(String)} must be called
+   *     once the task is processed
    */
-  Lock getLockForLocking(String runId) {
-    mapLock.lock();
-
+  boolean tryLock(
+      String runId, String workflowType, long timeout, TimeUnit unit, Scope metricsScope)
+      throws InterruptedException {
+    CountableLock cl = reference(runId);
+    boolean locked = false;
+    long start = System.nanoTime();
+    metricsScope
+        .gauge(MetricsType.DECISION_RUN_LOCK_QUEUE_DEPTH)
+        .update(waitingPerType.merge(workflowType, 1, Integer::sum));
     try {
-      CountableLock cl = perRunLock.get(runId);
-      if (cl == null) {
-        cl = new CountableLock();
-        perRunLock.put(runId, cl);
-      } else {
-        cl.incrementCount();
-      }
-
-      return cl.getLock();
+      locked = cl.getLock().tryLock(timeout, unit);
     } finally {
-      mapLock.unlock();
+      Integer waiting =
+          waitingPerType.computeIfPresent(
+              workflowType, (t, count) -> count == 1 ? null : count - 1);
+      metricsScope
+          .gauge(MetricsType.DECISION_RUN_LOCK_QUEUE_DEPTH)
+          .update(waiting == null ? 0 : waiting);
+      metricsScope
+          .timer(MetricsType.DECISION_RUN_LOCK_WAIT_LATENCY)
+          .record(Duration.ofNanos(System.nanoTime() - start));
+      if (!locked) {
+        dereference(runId);
+      }
     }
+    return locked;
   }
 
   void unlock(String runId) {
-    mapLock.lock();
-
-    try {
-      CountableLock cl = perRunLock.get(runId);
-      if (cl == null) {
-        throw new RuntimeException("lock for run " + runId + " does not exist.");
-      }
-
-      cl.decrementCount();
-      if (cl.getCount() == 0) {
-        perRunLock.remove(runId);
-      }
-
-      cl.getLock().unlock();
-    } finally {
-      mapLock.unlock();
-    }
+    dereference(runId).getLock().unlock();
   }
 
   int totalLocks() {
-    mapLock.lock();
+    return perRunLock.size();
+  }
 
-    try {
-      return perRunLock.size();
-    } finally {
-      mapLock.unlock();
+  private CountableLock reference(String runId) {
+    return perRunLock.compute(
+        runId,
+        (id, cl) -> {
+          if (cl == null) {
+            return new CountableLock();
+          }
+          cl.count++;
+          return cl;
+        });
+  }
+
+  private CountableLock dereference(String runId) {
+    CountableLock[] result = new CountableLock[1];
+    perRunLock.computeIfPresent(
+        runId,
+        (id, cl) -> {
+          result[0] = cl;
+          cl.count--;
+          return cl.count == 0 ? null : cl;
+        });
+    if (result[0] == null) {
+      throw new RuntimeException("lock for run " + runId + " does not exist.");
     }
+    return result[0];
   }
 }
@@ -32,19 +32,30 @@ import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
 import com.uber.m3.util.ImmutableMap;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import org.slf4j.MDC;
 
 public final class WorkflowWorker extends SuspendableWorkerBase
     implements Consumer<PollForDecisionTaskResponse> {
 
   private static final String POLL_THREAD_NAME_PREFIX = "Workflow Poller taskList=";
+  private static final String RESPONSE_THREAD_NAME_PREFIX = "Workflow Responder taskList=";
+  // Used when the history of a task does not tell its decision task timeout.
+  private static final int DEFAULT_DECISION_TASK_TIMEOUT_SECONDS = 10;
+  // Share of the decision task timeout left for processing a task once it holds its run lock.
+  private static final double RUN_LOCK_PROCESSING_HEADROOM = 0.5;
   private final DecisionTaskHandler handler;
   private final IWorkflowService service;
   private final String domain;
@@ -54,6 +65,10 @@ public final class WorkflowWorker extends SuspendableWorkerBase
   private final WorkflowRunLockManager runLocks = new WorkflowRunLockManager();
   private final Function<Task, Boolean> ldaTaskPoller;
   private PollTaskExecutor<PollForDecisionTaskResponse> pollTaskExecutor;
+  private final AsyncServiceCall serviceCall;
+  private final Semaphore pendingResponsePermits;
+  private final int maxPendingResponses;
+  private final AtomicInteger pendingResponses = new AtomicInteger();
 
   public WorkflowWorker(
       IWorkflowService service,
@@ -79,6 +94,13 @@ public final class WorkflowWorker extends SuspendableWorkerBase
               .build();
     }
     this.options = SingleWorkerOptions.newBuilder(options).setPollerOptions(pollerOptions).build();
+    this.maxPendingResponses = Math.max(1, this.options.getTaskExecutorThreadPoolSize());
+    this.pendingResponsePermits = new Semaphore(maxPendingResponses);
+    this.serviceCall =
+        new AsyncServiceCall(
+            AsyncServiceCall.newSyncCallExecutor(
+                RESPONSE_THREAD_NAME_PREFIX + "\"" + taskList + "\", domain=\"" + domain + "\"",
+                maxPendingResponses));
   }
 
   @Override
@@ -106,6 +128,26 @@ public final class WorkflowWorker extends SuspendableWorkerBase
     }
   }
 
+  @Override
+  public boolean isTerminated() {
+    return super.isTerminated() && pendingResponses.get() == 0;
+  }
+
+  /** Also waits for the responses of the processed decision tasks to be acknowledged. */
+  @Override
+  public void awaitTermination(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    super.awaitTermination(timeout, unit);
+    try {
+      if (pendingResponsePermits.tryAcquire(
+          maxPendingResponses, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+        pendingResponsePermits.release(maxPendingResponses);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   public byte[] queryWorkflowExecution(WorkflowExecution exec, String queryType, byte[] args)
       throws Exception {
     GetWorkflowExecutionHistoryResponse historyResponse =
@@ -174,6 +216,12 @@ public final class WorkflowWorker extends SuspendableWorkerBase
     pollTaskExecutor.process(pollForDecisionTaskResponse);
   }
 
+  /** Run lock wait budget of a task polled {@code sincePollMillis} ago. Visible for testing. */
+  static long getRunLockTimeoutMillis(long decisionTaskTimeoutMillis, long sincePollMillis) {
+    long budget = (long) (decisionTaskTimeoutMillis * (1 - RUN_LOCK_PROCESSING_HEADROOM));
+    return Math.max(0, budget - sincePollMillis);
+  }
+
   private class TaskHandlerImpl
       implements PollTaskExecutor.TaskHandler<PollForDecisionTaskResponse> {
 
@@ -194,33 +242,129 @@ public final class WorkflowWorker extends SuspendableWorkerBase
       MDC.put(LoggerTag.WORKFLOW_TYPE, task.getWorkflowType().getName());
       MDC.put(LoggerTag.RUN_ID, task.getWorkflowExecution().getRunId());
 
-      Lock runLock = null;
-      if (!Strings.isNullOrEmpty(stickyTaskListName)) {
-        runLock = runLocks.getLockForLocking(task.getWorkflowExecution().getRunId());
-        runLock.lock();
-      }
-
+      // Decision tasks are handed to an executor thread as soon as they are polled.
+      long pollTimeNanos = System.nanoTime();
+      String runId = task.getWorkflowExecution().getRunId();
+      // The run lock is held until the response is acknowledged, so the next task of the run
+      // that uses the cached decider sees the state the service has accepted.
+      boolean runLocked = false;
+      boolean runLockHandedOff = false;
       try {
+        if (!Strings.isNullOrEmpty(stickyTaskListName)) {
+          long timeoutMillis = getRunLockTimeoutMillis(task, pollTimeNanos);
+          runLocked =
+              runLocks.tryLock(
+                  runId,
+                  task.getWorkflowType().getName(),
+                  timeoutMillis,
+                  TimeUnit.MILLISECONDS,
+                  metricsScope);
+          if (!runLocked) {
+            metricsScope.counter(MetricsType.DECISION_RUN_LOCK_TIMEOUT_COUNTER).inc(1);
+            failRunLockTimeout(task, timeoutMillis);
+            return;
+          }
+        }
+
         Stopwatch sw = metricsScope.timer(MetricsType.DECISION_EXECUTION_LATENCY).start();
         DecisionTaskHandler.Result response = handler.handleDecisionTask(task);
         sw.stop();
 
-        sw = metricsScope.timer(MetricsType.DECISION_RESPONSE_LATENCY).start();
-        sendReply(service, task, response);
-        sw.stop();
-
-        metricsScope.counter(MetricsType.DECISION_TASK_COMPLETED_COUNTER).inc(1);
+        Stopwatch responseSw = metricsScope.timer(MetricsType.DECISION_RESPONSE_LATENCY).start();
+        boolean releaseRunLock = runLocked;
+        sendReply(service, task, response)
+            .whenComplete(
+                (r, failure) -> {
+                  responseSw.stop();
+                  if (releaseRunLock) {
+                    runLocks.unlock(runId);
+                  }
+                  if (failure == null) {
+                    metricsScope.counter(MetricsType.DECISION_TASK_COMPLETED_COUNTER).inc(1);
+                  } else {
+                    reportResponseFailure(task, failure);
+                  }
+                });
+        runLockHandedOff = true;
       } finally {
         MDC.remove(LoggerTag.WORKFLOW_ID);
         MDC.remove(LoggerTag.WORKFLOW_TYPE);
         MDC.remove(LoggerTag.RUN_ID);
 
-        if (runLock != null) {
-          runLocks.unlock(task.getWorkflowExecution().getRunId());
+        if (runLocked && !runLockHandedOff) {
+          runLocks.unlock(runId);
         }
       }
     }
 
+    /**
+     * Time a task waits for the lock of its run. It is what is left of the decision task timeout
+     * from the history since the task was polled, less {@link #RUN_LOCK_PROCESSING_HEADROOM} of the
+     * timeout reserved for processing the task and responding once the lock is acquired. A task
+     * that waits longer is going to be timed out by the service anyway, so it is failed early
+     * instead.
+     */
+    private long getRunLockTimeoutMillis(PollForDecisionTaskResponse task, long pollTimeNanos) {
+      int timeoutSeconds = DEFAULT_DECISION_TASK_TIMEOUT_SECONDS;
+      if (task.getHistory() != null && task.getHistory().getEvents() != null) {
+        List<HistoryEvent> events = task.getHistory().getEvents();
+        for (int i = events.size() - 1; i >= 0; i--) {
+          DecisionTaskScheduledEventAttributes scheduled =
+              events.get(i).getDecisionTaskScheduledEventAttributes();
+          if (scheduled != null && scheduled.getStartToCloseTimeoutSeconds() > 0) {
+            timeoutSeconds = scheduled.getStartToCloseTimeoutSeconds();
+            break;
+          }
+        }
+      }
+      return WorkflowWorker.getRunLockTimeoutMillis(
+          TimeUnit.SECONDS.toMillis(timeoutSeconds),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pollTimeNanos));
+    }
+
+    /**
+     * Fails a task that could not get the lock of its run in time instead of letting it time out. A
+     * decision task is failed with {@link DecisionTaskFailedCause#RESET_STICKY_TASKLIST} so that
+     * the service retries it with the full history.
+     */
+    private void failRunLockTimeout(PollForDecisionTaskResponse task, long timeoutMillis)
+        throws CadenceError {
+      String message =
+          "Timed out after "
+              + timeoutMillis
+              + "ms waiting for the lock of run "
+              + task.getWorkflowExecution().getRunId();
+      DecisionTaskHandler.Result result;
+      if (task.getQuery() != null) {
+        RespondQueryTaskCompletedRequest queryFailed = new RespondQueryTaskCompletedRequest();
+        queryFailed.setCompletedType(QueryTaskCompletedType.FAILED);
+        queryFailed.setErrorMessage(message);
+        result = new DecisionTaskHandler.Result(null, null, queryFailed);
+      } else {
+        RespondDecisionTaskFailedRequest taskFailed = new RespondDecisionTaskFailedRequest();
+        taskFailed.setCause(DecisionTaskFailedCause.RESET_STICKY_TASKLIST);
+        taskFailed.setDetails(message.getBytes(StandardCharsets.UTF_8));
+        result = new DecisionTaskHandler.Result(null, taskFailed, null);
+      }
+      sendReply(service, task, result)
+          .whenComplete(
+              (r, failure) -> {
+                if (failure != null) {
+                  reportResponseFailure(task, failure);
+                }
+              });
+    }
+
+    private void reportResponseFailure(PollForDecisionTaskResponse task, Throwable failure) {
+      if (failure instanceof CompletionException && failure.getCause() != null) {
+        failure = failure.getCause();
+      }
+      options
+          .getPollerOptions()
+          .getUncaughtExceptionHandler()
+          .uncaughtException(Thread.currentThread(), wrapFailure(task, failure));
+    }
+
     @Override
     public Throwable wrapFailure(PollForDecisionTaskResponse task, Throwable failure) {
       WorkflowExecution execution = task.getWorkflowExecution();
@@ -232,7 +376,12 @@ public final class WorkflowWorker extends SuspendableWorkerBase
           failure);
     }
 
-    private void sendReply(
+    /**
+     * Sends the decision task response. Decision task completions and failures are sent
+     * asynchronously with at most as many responses in flight as there are executor threads. Query
+     * responses are sent synchronously as they are not retried.
+     */
+    private CompletableFuture<Void> sendReply(
         IWorkflowService service,
         PollForDecisionTaskResponse task,
         DecisionTaskHandler.Result response)
@@ -242,53 +391,95 @@ public final class WorkflowWorker extends SuspendableWorkerBase
         taskCompleted.setIdentity(options.getIdentity());
         taskCompleted.setTaskToken(task.getTaskToken());
         taskCompleted.setBinaryChecksum(BinaryChecksum.getBinaryChecksum());
-        RpcRetryer.retry(
-            () -> {
-              RespondDecisionTaskCompletedResponse taskCompletedResponse = null;
-              List<Task> activityTasks = new ArrayList<>();
-              try {
-                if (ldaTaskPoller != null) {
-                  for (Decision decision : taskCompleted.getDecisions()) {
-                    ScheduleActivityTaskDecisionAttributes attr =
-                        decision.getScheduleActivityTaskDecisionAttributes();
-                    if (attr != null && taskList.equals(attr.getTaskList().getName())) {
-                      // assume the activity type is in registry otherwise the activity would be
-                      // failed and retried from server
-                      Task activityTask =
-                          new Task(
-                              attr.getActivityId(),
-                              attr.getActivityType(),
-                              attr.getInput() != null
-                                  ? ByteBuffer.wrap(attr.getInput())
-                                  : ByteBuffer.allocate(0),
-                              attr.getScheduleToCloseTimeoutSeconds(),
-                              attr.getStartToCloseTimeoutSeconds(),
-                              attr.getHeartbeatTimeoutSeconds(),
-                              task.getWorkflowType(),
-                              domain,
-                              attr.getHeader(),
-                              task.getWorkflowExecution());
-                      if (ldaTaskPoller.apply(activityTask)) {
-                        options
-                            .getMetricsScope()
-                            .counter(MetricsType.ACTIVITY_LOCAL_DISPATCH_SUCCEED_COUNTER)
-                            .inc(1);
-                        decision
-                            .getScheduleActivityTaskDecisionAttributes()
-                            .setRequestLocalDispatch(true);
-                        activityTasks.add(activityTask);
-                      } else {
-                        // all pollers are busy - no room to optimize
-                        options
-                            .getMetricsScope()
-                            .counter(MetricsType.ACTIVITY_LOCAL_DISPATCH_FAILED_COUNTER)
-                            .inc(1);
-                      }
-                    }
-                  }
-                }
-                taskCompletedResponse = service.RespondDecisionTaskCompleted(taskCompleted);
-              } finally {
+        return sendAsync(() -> respondDecisionTaskCompleted(task, taskCompleted));
+      }
+      RespondDecisionTaskFailedRequest taskFailed = response.getTaskFailed();
+      if (taskFailed != null) {
+        taskFailed.setIdentity(options.getIdentity());
+        taskFailed.setTaskToken(task.getTaskToken());
+        taskFailed.setBinaryChecksum(BinaryChecksum.getBinaryChecksum());
+        return sendAsync(
+            () ->
+                serviceCall.<Void>call(
+                    (callback) -> service.RespondDecisionTaskFailed(taskFailed, callback),
+                    () -> {
+                      service.RespondDecisionTaskFailed(taskFailed);
+                      return null;
+                    }));
+      }
+      RespondQueryTaskCompletedRequest queryCompleted = response.getQueryCompleted();
+      if (queryCompleted != null) {
+        queryCompleted.setTaskToken(task.getTaskToken());
+        // Do not retry query response.
+        service.RespondQueryTaskCompleted(queryCompleted);
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+
+    private <R> CompletableFuture<Void> sendAsync(Supplier<CompletableFuture<R>> call) {
+      pendingResponsePermits.acquireUninterruptibly();
+      reportPendingResponses(pendingResponses.incrementAndGet());
+      return RpcRetryer.retryWithResultAsync(RpcRetryer.DEFAULT_RPC_RETRY_OPTIONS, call)
+          .whenComplete(
+              (r, failure) -> {
+                reportPendingResponses(pendingResponses.decrementAndGet());
+                pendingResponsePermits.release();
+              })
+          .thenApply((r) -> null);
+    }
+
+    /**
+     * A single attempt to complete the decision task. Activities scheduled on the task list of this
+     * worker are offered to the locally dispatched activity poller and started once the service
+     * confirms that it dispatched them locally.
+     */
+    private CompletableFuture<RespondDecisionTaskCompletedResponse> respondDecisionTaskCompleted(
+        PollForDecisionTaskResponse task, RespondDecisionTaskCompletedRequest taskCompleted) {
+      List<Task> activityTasks = new ArrayList<>();
+      if (ldaTaskPoller != null) {
+        for (Decision decision : taskCompleted.getDecisions()) {
+          ScheduleActivityTaskDecisionAttributes attr =
+              decision.getScheduleActivityTaskDecisionAttributes();
+          if (attr != null && taskList.equals(attr.getTaskList().getName())) {
+            // assume the activity type is in registry otherwise the activity would be
+            // failed and retried from server
+            Task activityTask =
+                new Task(
+                    attr.getActivityId(),
+                    attr.getActivityType(),
+                    attr.getInput() != null
+                        ? ByteBuffer.wrap(attr.getInput())
+                        : ByteBuffer.allocate(0),
+                    attr.getScheduleToCloseTimeoutSeconds(),
+                    attr.getStartToCloseTimeoutSeconds(),
+                    attr.getHeartbeatTimeoutSeconds(),
+                    task.getWorkflowType(),
+                    domain,
+                    attr.getHeader(),
+                    task.getWorkflowExecution());
+            if (ldaTaskPoller.apply(activityTask)) {
+              options
+                  .getMetricsScope()
+                  .counter(MetricsType.ACTIVITY_LOCAL_DISPATCH_SUCCEED_COUNTER)
+                  .inc(1);
+              decision.getScheduleActivityTaskDecisionAttributes().setRequestLocalDispatch(true);
+              activityTasks.add(activityTask);
+            } else {
+              // all pollers are busy - no room to optimize
+              options
+                  .getMetricsScope()
+                  .counter(MetricsType.ACTIVITY_LOCAL_DISPATCH_FAILED_COUNTER)
+                  .inc(1);
+            }
+          }
+        }
+      }
+      return serviceCall
+          .call(
+              (callback) -> service.RespondDecisionTaskCompleted(taskCompleted, callback),
+              () -> service.RespondDecisionTaskCompleted(taskCompleted))
+          .whenComplete(
+              (taskCompletedResponse, failure) -> {
                 for (Task activityTask : activityTasks) {
                   boolean started = false;
                   if (taskCompletedResponse != null
@@ -311,24 +502,11 @@ public final class WorkflowWorker extends SuspendableWorkerBase
                   }
                   activityTask.notify(started);
                 }
-              }
-            });
-      } else {
-        RespondDecisionTaskFailedRequest taskFailed = response.getTaskFailed();
-        if (taskFailed != null) {
-          taskFailed.setIdentity(options.getIdentity());
-          taskFailed.setTaskToken(task.getTaskToken());
-          taskFailed.setBinaryChecksum(BinaryChecksum.getBinaryChecksum());
-          RpcRetryer.retry(() -> service.RespondDecisionTaskFailed(taskFailed));
-        } else {
-          RespondQueryTaskCompletedRequest queryCompleted = response.getQueryCompleted();
-          if (queryCompleted != null) {
-            queryCompleted.setTaskToken(task.getTaskToken());
-            // Do not retry query response.
-            service.RespondQueryTaskCompleted(queryCompleted);
-          }
-        }
-      }
+              });
+    }
+
+    private void reportPendingResponses(int count) {
+      options.getMetricsScope().gauge(MetricsType.DECISION_RESPONSE_PENDING).update(count);
     }
   }
 }
@@ -18,32 +18,125 @@
 package com.uber.cadence.migration;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.uber.cadence.*;
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
 import com.uber.cadence.serviceclient.ClientOptions;
 import com.uber.cadence.serviceclient.IWorkflowService;
 import com.uber.cadence.serviceclient.IWorkflowServiceBase;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.Stopwatch;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MigrationIWorkflowService extends IWorkflowServiceBase {
 
   private IWorkflowService serviceOld, serviceNew;
   private String domainOld, domainNew;
-  private static final int _defaultPageSize = 10;
+  private static final int _prefetchedPagesMaximumSize = 100;
+  private static final long _prefetchedPagesTtlSeconds = 60;
   private static final String _listWorkflow = "_listWorkflow";
   private static final String _scanWorkflow = "_scanWorkflow";
   byte[] _marker = "to".getBytes();
+  // Prefix of the combined continuation token of parallel listing.
+  private static final byte[] _parallelMarker = "_pl1".getBytes(StandardCharsets.UTF_8);
+
+  // Workflow ids routed to the new cluster. A workflow never moves back to the old cluster, while
+  // a workflow that runs in the old cluster moves once it closes, so only the new cluster
+  // decisions are remembered. Null when disabled.
+  private final Cache<String, Boolean> routingCache;
+  // Runs blocking describe calls and parallel list calls.
+  private final Executor clusterExecutor;
+  // Executor created by this service, shut down on close. Null if supplied through options.
+  private final ExecutorService ownedClusterExecutor;
+  private final boolean asyncDescribeEnabled;
+  private final int defaultPageSize;
+  private final boolean parallelListingEnabled;
+  // Next pages requested ahead of time by parallel listing. Null when prefetch is disabled.
+  private final Cache<String, CompletableFuture<ListWorkflowExecutionsResponse>> prefetchedPages;
+  private final Scope metricsScope;
 
   public MigrationIWorkflowService(
       IWorkflowService serviceOld,
       String domainOld,
       IWorkflowService serviceNew,
       String domainNew) {
+    this(
+        serviceOld,
+        domainOld,
+        serviceNew,
+        domainNew,
+        MigrationIWorkflowServiceOptions.defaultInstance());
+  }
+
+  public MigrationIWorkflowService(
+      IWorkflowService serviceOld,
+      String domainOld,
+      IWorkflowService serviceNew,
+      String domainNew,
+      MigrationIWorkflowServiceOptions options) {
     this.serviceOld = serviceOld;
     this.domainOld = domainOld;
     this.serviceNew = serviceNew;
     this.domainNew = domainNew;
+    this.routingCache =
+        options.getRoutingCacheMaximumSize() == 0
+            ? null
+            : CacheBuilder.newBuilder()
+                .maximumSize(options.getRoutingCacheMaximumSize())
+                .expireAfterWrite(options.getRoutingCacheTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    if (options.getDescribeExecutor() != null) {
+      this.ownedClusterExecutor = null;
+      this.clusterExecutor = options.getDescribeExecutor();
+    } else {
+      this.ownedClusterExecutor = newClusterExecutor(options.getDescribeThreadCount());
+      this.clusterExecutor = ownedClusterExecutor;
+    }
+    this.asyncDescribeEnabled = options.isAsyncDescribeEnabled();
+    this.defaultPageSize = options.getListPageSize();
+    this.parallelListingEnabled = options.isParallelListingEnabled();
+    this.prefetchedPages =
+        options.isListPrefetchEnabled()
+            ? CacheBuilder.newBuilder()
+                .maximumSize(_prefetchedPagesMaximumSize)
+                .expireAfterWrite(_prefetchedPagesTtlSeconds, TimeUnit.SECONDS)
+                .build()
+            : null;
+    this.metricsScope = options.getMetricsScope();
+  }
+
+  private static ExecutorService newClusterExecutor(int threadCount) {
+    AtomicInteger threadIndex = new AtomicInteger();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread thread =
+                  new Thread(r, "Migration cluster request " + threadIndex.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   @Override
@@ -51,6 +144,14 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
     return serviceOld.getOptions();
   }
 
+  /** Shuts down the executor created by this service. The wrapped services stay open. */
+  @Override
+  public void close() {
+    if (ownedClusterExecutor != null) {
+      ownedClusterExecutor.shutdown();
+    }
+  }
+
   @Override
   public StartWorkflowExecutionResponse StartWorkflowExecution(
       StartWorkflowExecutionRequest startRequest) throws CadenceError {
@@ -209,7 +310,10 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
       throw new BadRequestError("Domain is null or empty");
     }
     if (listRequest.getPageSize() == 0) {
-      listRequest.setPageSize(_defaultPageSize);
+      listRequest.setPageSize(defaultPageSize);
+    }
+    if (shouldListInParallel(listRequest)) {
+      return listInParallel(listRequest, _listWorkflow);
     }
 
     if (listRequest.getNextPageToken() == null
@@ -265,7 +369,10 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
       throw new BadRequestError("Domain is null or empty");
     }
     if (listRequest.getPageSize() == 0) {
-      listRequest.setPageSize(_defaultPageSize);
+      listRequest.setPageSize(defaultPageSize);
+    }
+    if (shouldListInParallel(listRequest)) {
+      return listInParallel(listRequest, _scanWorkflow);
     }
 
     if (listRequest.getNextPageToken() == null
@@ -299,6 +406,190 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
     return callOldCluster(listRequest, 0, _scanWorkflow);
   }
 
+  // Tokens of parallel listing are honored even if it was disabled since the first page.
+  private boolean shouldListInParallel(ListWorkflowExecutionsRequest listRequest) {
+    byte[] token = listRequest.getNextPageToken();
+    return hasPrefix(token, _parallelMarker)
+        || (parallelListingEnabled && (token == null || token.length == 0));
+  }
+
+  /**
+   * Lists both clusters in parallel. Every page holds the next executions of each cluster that is
+   * not exhausted yet, and the continuation token combines the tokens of both clusters. With
+   * prefetch enabled the following page is requested from both clusters before returning. A token
+   * that cannot be decoded is rejected with {@link BadRequestError}.
+   */
+  private ListWorkflowExecutionsResponse listInParallel(
+      ListWorkflowExecutionsRequest listRequest, String searchType) throws CadenceError {
+    ParallelListCursor cursor = ParallelListCursor.decode(listRequest.getNextPageToken());
+    ListWorkflowExecutionsResponse response = null;
+    if (prefetchedPages != null) {
+      CompletableFuture<ListWorkflowExecutionsResponse> prefetched =
+          prefetchedPages.asMap().remove(prefetchKey(listRequest, searchType));
+      if (prefetched != null) {
+        try {
+          response = prefetched.get();
+        } catch (ExecutionException e) {
+          // Failed prefetch, request the page again.
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CadenceError("Interrupted while listing workflows");
+        }
+      }
+    }
+    if (response == null) {
+      try {
+        response = fetchParallelPage(listRequest, cursor, searchType).get();
+      } catch (ExecutionException e) {
+        throw toCadenceError(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CadenceError("Interrupted while listing workflows");
+      }
+    }
+
+    if (prefetchedPages != null && response.getNextPageToken() != null) {
+      ListWorkflowExecutionsRequest nextRequest =
+          copyListRequest(listRequest, listRequest.getPageSize(), response.getNextPageToken());
+      prefetchedPages.put(
+          prefetchKey(nextRequest, searchType),
+          fetchParallelPage(
+              nextRequest, ParallelListCursor.decode(response.getNextPageToken()), searchType));
+    }
+    return response;
+  }
+
+  private CompletableFuture<ListWorkflowExecutionsResponse> fetchParallelPage(
+      ListWorkflowExecutionsRequest listRequest, ParallelListCursor cursor, String searchType) {
+    int pageSize = listRequest.getPageSize();
+    boolean listBoth = !cursor.newDone && !cursor.oldDone;
+    int newPageSize = listBoth ? (pageSize + 1) / 2 : pageSize;
+    int oldPageSize = listBoth ? Math.max(1, pageSize - newPageSize) : pageSize;
+
+    CompletableFuture<ListWorkflowExecutionsResponse> fromNew =
+        cursor.newDone
+            ? CompletableFuture.completedFuture(null)
+            : listAsync(
+                serviceNew, copyListRequest(listRequest, newPageSize, cursor.newToken), searchType);
+    CompletableFuture<ListWorkflowExecutionsResponse> fromOld =
+        cursor.oldDone
+            ? CompletableFuture.completedFuture(null)
+            : listAsync(
+                serviceOld, copyListRequest(listRequest, oldPageSize, cursor.oldToken), searchType);
+    return fromNew.thenCombine(
+        fromOld,
+        (responseNew, responseOld) -> {
+          ListWorkflowExecutionsResponse merged = new ListWorkflowExecutionsResponse();
+          ParallelListCursor next = new ParallelListCursor();
+          next.newDone = cursor.newDone || isLastPage(responseNew);
+          next.oldDone = cursor.oldDone || isLastPage(responseOld);
+          if (responseNew != null) {
+            merged.getExecutions().addAll(responseNew.getExecutions());
+            next.newToken = responseNew.getNextPageToken();
+          }
+          if (responseOld != null) {
+            merged.getExecutions().addAll(responseOld.getExecutions());
+            next.oldToken = responseOld.getNextPageToken();
+          }
+          merged.setNextPageToken(next.newDone && next.oldDone ? null : next.encode());
+          return merged;
+        });
+  }
+
+  private CompletableFuture<ListWorkflowExecutionsResponse> listAsync(
+      IWorkflowService service, ListWorkflowExecutionsRequest request, String searchType) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return searchType.equals(_scanWorkflow)
+                ? service.ScanWorkflowExecutions(request)
+                : service.ListWorkflowExecutions(request);
+          } catch (Exception e) {
+            throw new CompletionException(e);
+          }
+        },
+        clusterExecutor);
+  }
+
+  private static boolean isLastPage(ListWorkflowExecutionsResponse response) {
+    return response == null
+        || response.getNextPageToken() == null
+        || response.getNextPageToken().length == 0;
+  }
+
+  private static ListWorkflowExecutionsRequest copyListRequest(
+      ListWorkflowExecutionsRequest listRequest, int pageSize, byte[] nextPageToken) {
+    return new ListWorkflowExecutionsRequest()
+        .setDomain(listRequest.getDomain())
+        .setQuery(listRequest.getQuery())
+        .setPageSize(pageSize)
+        .setNextPageToken(nextPageToken);
+  }
+
+  private static String prefetchKey(ListWorkflowExecutionsRequest listRequest, String searchType) {
+    return searchType
+        + "/"
+        + listRequest.getDomain()
+        + "/"
+        + listRequest.getPageSize()
+        + "/"
+        + listRequest.getQuery()
+        + "/"
+        + (listRequest.getNextPageToken() == null
+            ? ""
+            : Base64.getEncoder().encodeToString(listRequest.getNextPageToken()));
+  }
+
+  /** Position of parallel listing in both clusters, encoded into the continuation token. */
+  private static final class ParallelListCursor {
+    private static final int NEW_DONE = 1;
+    private static final int OLD_DONE = 2;
+
+    byte[] newToken;
+    byte[] oldToken;
+    boolean newDone;
+    boolean oldDone;
+
+    static ParallelListCursor decode(byte[] token) throws BadRequestError {
+      ParallelListCursor cursor = new ParallelListCursor();
+      if (token == null || token.length == 0) {
+        return cursor;
+      }
+      if (token.length < _parallelMarker.length + 1 + 4) {
+        throw new BadRequestError("Invalid next page token");
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(token);
+      buffer.position(_parallelMarker.length);
+      byte flags = buffer.get();
+      int newTokenLength = buffer.getInt();
+      if ((flags & ~(NEW_DONE | OLD_DONE)) != 0
+          || newTokenLength < 0
+          || newTokenLength > buffer.remaining()) {
+        throw new BadRequestError("Invalid next page token");
+      }
+      cursor.newDone = (flags & NEW_DONE) != 0;
+      cursor.oldDone = (flags & OLD_DONE) != 0;
+      cursor.newToken = new byte[newTokenLength];
+      buffer.get(cursor.newToken);
+      cursor.oldToken = new byte[buffer.remaining()];
+      buffer.get(cursor.oldToken);
+      return cursor;
+    }
+
+    byte[] encode() {
+      byte[] newBytes = newToken == null ? new byte[0] : newToken;
+      byte[] oldBytes = oldToken == null ? new byte[0] : oldToken;
+      ByteBuffer buffer =
+          ByteBuffer.allocate(_parallelMarker.length + 1 + 4 + newBytes.length + oldBytes.length);
+      buffer.put(_parallelMarker);
+      buffer.put((byte) ((newDone ? NEW_DONE : 0) | (oldDone ? OLD_DONE : 0)));
+      buffer.putInt(newBytes.length);
+      buffer.put(newBytes);
+      buffer.put(oldBytes);
+      return buffer.array();
+    }
+  }
+
   @Override
   public ListOpenWorkflowExecutionsResponse ListOpenWorkflowExecutions(
       ListOpenWorkflowExecutionsRequest listRequest) throws CadenceError {
@@ -309,7 +600,7 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
       throw new BadRequestError("Domain is null or empty");
     }
     if (listRequest.getMaximumPageSize() == 0) {
-      listRequest.setMaximumPageSize(_defaultPageSize);
+      listRequest.setMaximumPageSize(defaultPageSize);
     }
 
     if (listRequest.getNextPageToken() == null
@@ -368,7 +659,7 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
       throw new BadRequestError("Domain is null or empty");
     }
     if (listRequest.getMaximumPageSize() == 0) {
-      listRequest.setMaximumPageSize(_defaultPageSize);
+      listRequest.setMaximumPageSize(defaultPageSize);
     }
 
     if (listRequest.getNextPageToken() == null
@@ -458,6 +749,30 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
   }
 
   private Boolean shouldStartInNew(String workflowID) throws CadenceError {
+    if (routingCache == null || workflowID == null) {
+      return describeShouldStartInNew(workflowID);
+    }
+    Boolean cached = routingCache.getIfPresent(workflowID);
+    if (cached != null) {
+      metricsScope.counter(MetricsType.MIGRATION_ROUTING_CACHE_HIT_COUNTER).inc(1);
+      return cached;
+    }
+    metricsScope.counter(MetricsType.MIGRATION_ROUTING_CACHE_MISS_COUNTER).inc(1);
+    try {
+      // Concurrent misses for the same workflow id share a single pair of describe calls.
+      Boolean result = routingCache.get(workflowID, () -> describeShouldStartInNew(workflowID));
+      if (!result) {
+        routingCache.invalidate(workflowID);
+      }
+      metricsScope.gauge(MetricsType.MIGRATION_ROUTING_CACHE_SIZE).update(routingCache.size());
+      return result;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw toCadenceError(e.getCause());
+    }
+  }
+
+  private Boolean describeShouldStartInNew(String workflowID) throws CadenceError {
+    Stopwatch sw = metricsScope.timer(MetricsType.MIGRATION_DESCRIBE_LATENCY).start();
     try {
       return describeWorkflowExecution(serviceNew, domainNew, workflowID)
           .thenCombine(
@@ -471,29 +786,69 @@ public class MigrationIWorkflowService extends IWorkflowServiceBase {
               // closed in old
               )
           .get();
-    } catch (CompletionException e) {
-      throw e.getCause() instanceof CadenceError
-          ? (CadenceError) e.getCause()
-          : new CadenceError("unknown error: " + e.getMessage());
-    } catch (Exception e) {
-      throw new CadenceError("Unknown error: " + e.getMessage());
+    } catch (ExecutionException e) {
+      throw toCadenceError(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CadenceError("Interrupted while describing workflow: " + workflowID);
+    } finally {
+      sw.stop();
+    }
+  }
+
+  private static CadenceError toCadenceError(Throwable failure) {
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      failure = failure.getCause();
     }
+    return failure instanceof CadenceError
+        ? (CadenceError) failure
+        : new CadenceError("Unknown error: " + failure.getMessage());
   }
 
   private CompletableFuture<DescribeWorkflowExecutionResponse> describeWorkflowExecution(
       IWorkflowService service, String domain, String workflowID) {
+    DescribeWorkflowExecutionRequest request =
+        new DescribeWorkflowExecutionRequest()
+            .setDomain(domain)
+            .setExecution(new WorkflowExecution().setWorkflowId(workflowID));
+    if (asyncDescribeEnabled) {
+      CompletableFuture<DescribeWorkflowExecutionResponse> result = new CompletableFuture<>();
+      try {
+        service.DescribeWorkflowExecution(
+            request,
+            new AsyncMethodCallback<DescribeWorkflowExecutionResponse>() {
+              @Override
+              public void onComplete(DescribeWorkflowExecutionResponse response) {
+                result.complete(response);
+              }
+
+              @Override
+              public void onError(Exception exception) {
+                if (exception instanceof EntityNotExistsError) {
+                  result.complete(null);
+                } else {
+                  result.completeExceptionally(exception);
+                }
+              }
+            });
+        return result;
+      } catch (UnsupportedOperationException e) {
+        // The service has no asynchronous describe, use the blocking one below.
+      } catch (CadenceError e) {
+        result.completeExceptionally(e);
+        return result;
+      }
+    }
     return CompletableFuture.supplyAsync(
         () -> {
           try {
-            return service.DescribeWorkflowExecution(
-                new DescribeWorkflowExecutionRequest()
-                    .setDomain(domain)
-                    .setExecution(new WorkflowExecution().setWorkflowId(workflowID)));
+            return service.DescribeWorkflowExecution(request);
           } catch (EntityNotExistsError e) {
             return null;
           } catch (Exception e) {
             throw new CompletionException(e);
           }
-        });
+        },
+        clusterExecutor);
   }
 }
@@ -0,0 +1,240 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.migration;
+
+import com.google.common.base.Preconditions;
+import com.uber.cadence.internal.metrics.NoopScope;
+import com.uber.m3.tally.Scope;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/** Options for {@link MigrationIWorkflowService}. */
+public final class MigrationIWorkflowServiceOptions {
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static MigrationIWorkflowServiceOptions defaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  private static final MigrationIWorkflowServiceOptions DEFAULT_INSTANCE;
+  private static final int DEFAULT_ROUTING_CACHE_MAXIMUM_SIZE = 10_000;
+  private static final Duration DEFAULT_ROUTING_CACHE_TTL = Duration.ofSeconds(30);
+  private static final int DEFAULT_DESCRIBE_THREAD_COUNT = 8;
+  private static final int DEFAULT_LIST_PAGE_SIZE = 10;
+
+  static {
+    DEFAULT_INSTANCE = new Builder().build();
+  }
+
+  public static final class Builder {
+    private int routingCacheMaximumSize = DEFAULT_ROUTING_CACHE_MAXIMUM_SIZE;
+    private Duration routingCacheTtl = DEFAULT_ROUTING_CACHE_TTL;
+    private int describeThreadCount = DEFAULT_DESCRIBE_THREAD_COUNT;
+    private Executor describeExecutor;
+    private boolean asyncDescribeEnabled;
+    private int listPageSize = DEFAULT_LIST_PAGE_SIZE;
+    private boolean parallelListingEnabled;
+    private boolean listPrefetchEnabled;
+    private Scope metricsScope = NoopScope.getInstance();
+
+    private Builder() {}
+
+    /**
+     * Maximum number of workflow ids remembered as routed to the new cluster. Starts, signals and
+     * queries of a remembered workflow id skip the describe calls to both clusters. Workflows
+     * routed to the old cluster are never remembered, as they move to the new cluster once they
+     * close. Zero disables the cache.
+     *
+     * <p>Default value is 10000.
+     */
+    public Builder setRoutingCacheMaximumSize(int routingCacheMaximumSize) {
+      this.routingCacheMaximumSize = routingCacheMaximumSize;
+      return this;
+    }
+
+    /**
+     * How long a workflow id is remembered as routed to the new cluster.
+     *
+     * <p>Default value is 30 seconds.
+     */
+    public Builder setRoutingCacheTtl(Duration routingCacheTtl) {
+      this.routingCacheTtl = Objects.requireNonNull(routingCacheTtl);
+      return this;
+    }
+
+    /**
+     * Number of threads of the executor that runs blocking describe calls and parallel list calls.
+     * Ignored when {@link #setDescribeExecutor(Executor)} is set.
+     *
+     * <p>Default value is 8.
+     */
+    public Builder setDescribeThreadCount(int describeThreadCount) {
+      this.describeThreadCount = describeThreadCount;
+      return this;
+    }
+
+    /**
+     * Executor that runs blocking describe calls and parallel list calls. By default the service
+     * creates its own executor of {@link #setDescribeThreadCount(int)} daemon threads.
+     */
+    public Builder setDescribeExecutor(Executor describeExecutor) {
+      this.describeExecutor = Objects.requireNonNull(describeExecutor);
+      return this;
+    }
+
+    /**
+     * When true describe calls use the asynchronous {@code DescribeWorkflowExecution} of the
+     * underlying services, so no thread is blocked while waiting for either cluster. Services that
+     * do not support the asynchronous call fall back to the blocking one. Default is false.
+     */
+    public Builder setAsyncDescribeEnabled(boolean asyncDescribeEnabled) {
+      this.asyncDescribeEnabled = asyncDescribeEnabled;
+      return this;
+    }
+
+    /**
+     * Page size of list and scan requests that do not specify one.
+     *
+     * <p>Default value is 10.
+     */
+    public Builder setListPageSize(int listPageSize) {
+      this.listPageSize = listPageSize;
+      return this;
+    }
+
+    /**
+     * When true {@code ListWorkflowExecutions} and {@code ScanWorkflowExecutions} query both
+     * clusters in parallel and return the results of both in every page, instead of listing the new
+     * cluster first and the old cluster only after the new one is exhausted. A page then holds up
+     * to one more execution than the requested page size. Default is false.
+     */
+    public Builder setParallelListingEnabled(boolean parallelListingEnabled) {
+      this.parallelListingEnabled = parallelListingEnabled;
+      return this;
+    }
+
+    /**
+     * When parallel listing is enabled, start fetching the next page from both clusters as soon as
+     * a page is returned, so that sequential pagination does not wait for two round trips per page.
+     * Callers that read only the first page pay for a page they never use, so it is off by default.
+     */
+    public Builder setListPrefetchEnabled(boolean listPrefetchEnabled) {
+      this.listPrefetchEnabled = listPrefetchEnabled;
+      return this;
+    }
+
+    /** Scope to report routing cache and describe metrics to. Default is no metrics. */
+    public Builder setMetricsScope(Scope metricsScope) {
+      this.metricsScope = Objects.requireNonNull(metricsScope);
+      return this;
+    }
+
+    public MigrationIWorkflowServiceOptions build() {
+      return new MigrationIWorkflowServiceOptions(
+          routingCacheMaximumSize,
+          routingCacheTtl,
+          describeThreadCount,
+          describeExecutor,
+          asyncDescribeEnabled,
+          listPageSize,
+          parallelListingEnabled,
+          listPrefetchEnabled,
+          metricsScope);
+    }
+  }
+
+  private final int routingCacheMaximumSize;
+  private final Duration routingCacheTtl;
+  private final int describeThreadCount;
+  private final Executor describeExecutor;
+  private final boolean asyncDescribeEnabled;
+  private final int listPageSize;
+  private final boolean parallelListingEnabled;
+  private final boolean listPrefetchEnabled;
+  private final Scope metricsScope;
+
+  private MigrationIWorkflowServiceOptions(
+      int routingCacheMaximumSize,
+      Duration routingCacheTtl,
+      int describeThreadCount,
+      Executor describeExecutor,
+      boolean asyncDescribeEnabled,
+      int listPageSize,
+      boolean parallelListingEnabled,
+      boolean listPrefetchEnabled,
+      Scope metricsScope) {
+    Preconditions.checkArgument(
+        routingCacheMaximumSize >= 0, "routingCacheMaximumSize should not be negative");
+    Preconditions.checkArgument(
+        !routingCacheTtl.isNegative() && !routingCacheTtl.isZero(),
+        "routingCacheTtl should be positive");
+    Preconditions.checkArgument(
+        describeThreadCount > 0, "describeThreadCount should be greater than 0");
+    Preconditions.checkArgument(listPageSize > 0, "listPageSize should be greater than 0");
+
+    this.routingCacheMaximumSize = routingCacheMaximumSize;
+    this.routingCacheTtl = routingCacheTtl;
+    this.describeThreadCount = describeThreadCount;
+    this.describeExecutor = describeExecutor;
+    this.asyncDescribeEnabled = asyncDescribeEnabled;
+    this.listPageSize = listPageSize;
+    this.parallelListingEnabled = parallelListingEnabled;
+    this.listPrefetchEnabled = listPrefetchEnabled;
+    this.metricsScope = metricsScope;
+  }
+
+  public int getRoutingCacheMaximumSize() {
+    return routingCacheMaximumSize;
+  }
+
+  public Duration getRoutingCacheTtl() {
+    return routingCacheTtl;
+  }
+
+  public int getDescribeThreadCount() {
+    return describeThreadCount;
+  }
+
+  /** Returns the executor for describe calls or null if the service should create its own. */
+  public Executor getDescribeExecutor() {
+    return describeExecutor;
+  }
+
+  public boolean isAsyncDescribeEnabled() {
+    return asyncDescribeEnabled;
+  }
+
+  public int getListPageSize() {
+    return listPageSize;
+  }
+
+  public boolean isParallelListingEnabled() {
+    return parallelListingEnabled;
+  }
+
+  public boolean isListPrefetchEnabled() {
+    return listPrefetchEnabled;
+  }
+
+  public Scope getMetricsScope() {
+    return metricsScope;
+  }
+}
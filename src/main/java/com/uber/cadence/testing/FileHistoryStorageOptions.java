@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import com.google.common.base.Preconditions;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Options of the durable mode of the in-memory test service. When configured the service appends
+ * workflow histories to segment files in {@link #getDirectory()} instead of keeping them on the
+ * heap. Histories found in the directory on startup are loaded back, so closed runs of a previous
+ * service instance remain listable and readable.
+ *
+ * <p>Only histories are durable. Mutable state of open workflows (timers, pending activities and
+ * decisions) lives in memory, so recovered open runs can be inspected but don't make progress.
+ */
+public final class FileHistoryStorageOptions {
+
+  private static final int DEFAULT_SEGMENT_SIZE_BYTES = 64 * 1024 * 1024;
+  private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+  private static final int DEFAULT_MAX_UNFLUSHED_BYTES = 4 * 1024 * 1024;
+
+  public static Builder newBuilder(Path directory) {
+    return new Builder(directory);
+  }
+
+  public static final class Builder {
+
+    private final Path directory;
+    private int segmentSizeBytes = DEFAULT_SEGMENT_SIZE_BYTES;
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int maxUnflushedBytes = DEFAULT_MAX_UNFLUSHED_BYTES;
+
+    private Builder(Path directory) {
+      this.directory = Objects.requireNonNull(directory);
+    }
+
+    /**
+     * Size of a single memory mapped segment file. A new segment is started when the current one is
+     * full. An event larger than the segment size gets a segment of its own. Default is 64MB.
+     */
+    public Builder setSegmentSizeBytes(int segmentSizeBytes) {
+      this.segmentSizeBytes = segmentSizeBytes;
+      return this;
+    }
+
+    /**
+     * Maximum time appended events can stay in the page cache before the segment is forced to disk.
+     * Default is 100 milliseconds.
+     */
+    public Builder setFlushInterval(Duration flushInterval) {
+      this.flushInterval = Objects.requireNonNull(flushInterval);
+      return this;
+    }
+
+    /**
+     * Number of appended bytes that forces the segment to disk without waiting for the flush
+     * interval. Default is 4MB.
+     */
+    public Builder setMaxUnflushedBytes(int maxUnflushedBytes) {
+      this.maxUnflushedBytes = maxUnflushedBytes;
+      return this;
+    }
+
+    public FileHistoryStorageOptions build() {
+      Preconditions.checkArgument(segmentSizeBytes > 0, "non positive segmentSizeBytes");
+      Preconditions.checkArgument(
+          !flushInterval.isNegative() && !flushInterval.isZero(), "non positive flushInterval");
+      Preconditions.checkArgument(maxUnflushedBytes > 0, "non positive maxUnflushedBytes");
+      return new FileHistoryStorageOptions(
+          directory, segmentSizeBytes, flushInterval, maxUnflushedBytes);
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSizeBytes;
+  private final Duration flushInterval;
+  private final int maxUnflushedBytes;
+
+  private FileHistoryStorageOptions(
+      Path directory, int segmentSizeBytes, Duration flushInterval, int maxUnflushedBytes) {
+    this.directory = directory;
+    this.segmentSizeBytes = segmentSizeBytes;
+    this.flushInterval = flushInterval;
+    this.maxUnflushedBytes = maxUnflushedBytes;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public int getSegmentSizeBytes() {
+    return segmentSizeBytes;
+  }
+
+  public Duration getFlushInterval() {
+    return flushInterval;
+  }
+
+  public int getMaxUnflushedBytes() {
+    return maxUnflushedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "FileHistoryStorageOptions{"
+        + "directory="
+        + directory
+        + ", segmentSizeBytes="
+        + segmentSizeBytes
+        + ", flushInterval="
+        + flushInterval
+        + ", maxUnflushedBytes="
+        + maxUnflushedBytes
+        + '}';
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import com.uber.cadence.common.WorkflowExecutionHistory;
+import com.uber.cadence.worker.Worker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of isolated replay workers, each one in its own test environment, and of the threads that
+ * drive them. Used by {@link WorkflowReplayer} and {@link WorkflowReplayRunner} to replay many
+ * histories in parallel.
+ */
+final class ReplayWorkerPool implements AutoCloseable {
+
+  private final List<TestWorkflowEnvironment> environments;
+  private final BlockingQueue<Worker> idleWorkers;
+  private final ExecutorService executor;
+
+  /**
+   * @param name prefix of the task lists of the workers.
+   * @param parallelism number of workers and of threads.
+   * @param workflowClasses workflow implementation classes to replay.
+   */
+  ReplayWorkerPool(String name, int parallelism, Class<?>[] workflowClasses) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Negative or zero: " + parallelism);
+    }
+    environments = new ArrayList<>(parallelism);
+    idleWorkers = new ArrayBlockingQueue<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance();
+      environments.add(testEnv);
+      Worker worker = testEnv.newWorker(name + "-" + i);
+      worker.registerWorkflowImplementationTypes(workflowClasses);
+      idleWorkers.add(worker);
+    }
+    executor = Executors.newFixedThreadPool(parallelism);
+  }
+
+  /** Runs a task on one of the pool threads. */
+  <R> Future<R> submit(Callable<R> task) {
+    return executor.submit(task);
+  }
+
+  /**
+   * Replays a history on an idle worker. There are as many workers as threads, so a task running on
+   * a pool thread never waits for a worker.
+   */
+  void replay(WorkflowExecutionHistory history) throws Exception {
+    Worker worker = idleWorkers.take();
+    try {
+      worker.replayWorkflowExecution(history);
+    } finally {
+      idleWorkers.put(worker);
+    }
+  }
+
+  /** Waits for all the submitted tasks to complete. No tasks can be submitted afterwards. */
+  void awaitCompletion() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    for (TestWorkflowEnvironment testEnv : environments) {
+      testEnv.close();
+    }
+  }
+}
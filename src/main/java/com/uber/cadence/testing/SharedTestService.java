@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import com.uber.cadence.internal.testservice.TestWorkflowService;
+
+/**
+ * In-memory Cadence service shared by lightweight test environments created through {@link
+ * TestWorkflowEnvironment#newSharedServiceInstance(SharedTestService, TestEnvironmentOptions)}.
+ * Usually created once per test class and closed after all of its tests.
+ */
+public final class SharedTestService implements AutoCloseable {
+
+  private final TestWorkflowService service;
+
+  public static SharedTestService newInstance() {
+    return new SharedTestService(new TestWorkflowService());
+  }
+
+  private SharedTestService(TestWorkflowService service) {
+    this.service = service;
+  }
+
+  TestWorkflowService getService() {
+    return service;
+  }
+
+  /** Stops the service. Environments that use it must be closed first. */
+  @Override
+  public void close() {
+    service.close();
+  }
+}
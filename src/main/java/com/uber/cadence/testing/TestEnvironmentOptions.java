@@ -18,6 +18,7 @@
 package com.uber.cadence.testing;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.uber.cadence.client.WorkflowClientOptions;
 import com.uber.cadence.converter.DataConverter;
 import com.uber.cadence.converter.JsonDataConverter;
@@ -29,6 +30,9 @@ import java.util.function.Function;
 @VisibleForTesting
 public final class TestEnvironmentOptions {
 
+  /** Default of {@link Builder#setTimerCallbackThreadCount(int)}. */
+  public static final int DEFAULT_TIMER_CALLBACK_THREAD_COUNT = 5;
+
   public static final class Builder {
 
     private DataConverter dataConverter = JsonDataConverter.getInstance();
@@ -41,6 +45,10 @@ public final class TestEnvironmentOptions {
 
     private WorkflowClientOptions workflowClientOptions = WorkflowClientOptions.defaultInstance();
 
+    private FileHistoryStorageOptions fileHistoryStorageOptions;
+
+    private int timerCallbackThreadCount = DEFAULT_TIMER_CALLBACK_THREAD_COUNT;
+
     public Builder setWorkflowClientOptions(WorkflowClientOptions workflowClientOptions) {
       this.workflowClientOptions = workflowClientOptions;
       return this;
@@ -75,6 +83,27 @@ public final class TestEnvironmentOptions {
       return this;
     }
 
+    /**
+     * Keeps workflow histories of the test service in segment files instead of the heap. Useful for
+     * long running soak tests. Default is null which keeps histories in memory.
+     */
+    public Builder setFileHistoryStorageOptions(
+        FileHistoryStorageOptions fileHistoryStorageOptions) {
+      this.fileHistoryStorageOptions = fileHistoryStorageOptions;
+      return this;
+    }
+
+    /**
+     * Number of threads of the test service that execute timer callbacks like activity and decision
+     * timeouts. Increase it for tests that run many workflows concurrently. Default is 5.
+     */
+    public Builder setTimerCallbackThreadCount(int timerCallbackThreadCount) {
+      Preconditions.checkArgument(
+          timerCallbackThreadCount > 0, "non positive timerCallbackThreadCount");
+      this.timerCallbackThreadCount = timerCallbackThreadCount;
+      return this;
+    }
+
     public TestEnvironmentOptions build() {
       if (factoryOptions == null) {
         factoryOptions = WorkerFactoryOptions.newBuilder().setDisableStickyExecution(false).build();
@@ -85,7 +114,9 @@ public final class TestEnvironmentOptions {
           interceptorFactory,
           factoryOptions,
           workflowClientOptions,
-          enableLoggingInReplay);
+          enableLoggingInReplay,
+          fileHistoryStorageOptions,
+          timerCallbackThreadCount);
     }
   }
 
@@ -94,18 +125,24 @@ public final class TestEnvironmentOptions {
   private final boolean enableLoggingInReplay;
   private final WorkerFactoryOptions workerFactoryOptions;
   private final WorkflowClientOptions workflowClientOptions;
+  private final FileHistoryStorageOptions fileHistoryStorageOptions;
+  private final int timerCallbackThreadCount;
 
   private TestEnvironmentOptions(
       DataConverter dataConverter,
       Function<WorkflowInterceptor, WorkflowInterceptor> interceptorFactory,
       WorkerFactoryOptions options,
       WorkflowClientOptions workflowClientOptions,
-      boolean enableLoggingInReplay) {
+      boolean enableLoggingInReplay,
+      FileHistoryStorageOptions fileHistoryStorageOptions,
+      int timerCallbackThreadCount) {
     this.dataConverter = dataConverter;
     this.interceptorFactory = interceptorFactory;
     this.workerFactoryOptions = options;
     this.workflowClientOptions = workflowClientOptions;
     this.enableLoggingInReplay = enableLoggingInReplay;
+    this.fileHistoryStorageOptions = fileHistoryStorageOptions;
+    this.timerCallbackThreadCount = timerCallbackThreadCount;
   }
 
   public DataConverter getDataConverter() {
@@ -128,6 +165,15 @@ public final class TestEnvironmentOptions {
     return workflowClientOptions;
   }
 
+  /** @return null if histories are kept in memory. */
+  public FileHistoryStorageOptions getFileHistoryStorageOptions() {
+    return fileHistoryStorageOptions;
+  }
+
+  public int getTimerCallbackThreadCount() {
+    return timerCallbackThreadCount;
+  }
+
   @Override
   public String toString() {
     return "TestEnvironmentOptions{"
@@ -137,6 +183,10 @@ public final class TestEnvironmentOptions {
         + workerFactoryOptions
         + ", workflowClientOptions="
         + workflowClientOptions
+        + ", fileHistoryStorageOptions="
+        + fileHistoryStorageOptions
+        + ", timerCallbackThreadCount="
+        + timerCallbackThreadCount
         + '}';
   }
 }
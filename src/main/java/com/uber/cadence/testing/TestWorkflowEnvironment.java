@@ -106,6 +106,29 @@ public interface TestWorkflowEnvironment {
     return new TestWorkflowEnvironmentInternal(workflowService, options);
   }
 
+  /**
+   * Creates a lightweight environment on an in-memory service shared with other environments.
+   * Allows running tests in parallel without paying for a service per test. Each environment gets
+   * its own domain, returned by {@link #getDomain()}, with an independent clock, so time skipping
+   * in one test doesn't wait for the others. Clients created by the environment always use its
+   * domain. Closing the environment drops the domain and its workflows from the shared service but
+   * keeps the service running.
+   *
+   * <pre><code>
+   *   private static final SharedTestService sharedService = SharedTestService.newInstance();
+   *
+   *   &#64;Before
+   *   public void setUp() {
+   *     testEnv = TestWorkflowEnvironment.newSharedServiceInstance(sharedService, options);
+   *   }
+   * </code></pre>
+   */
+  static TestWorkflowEnvironment newSharedServiceInstance(
+      SharedTestService sharedService, TestEnvironmentOptions options) {
+    return TestWorkflowEnvironmentInternal.newSharedServiceInstance(
+        sharedService.getService(), options);
+  }
+
   /**
    * Creates a new Worker instance that is connected to the in-memory test Cadence service.
    *
@@ -128,7 +151,8 @@ public interface TestWorkflowEnvironment {
   /**
    * Creates a WorkflowClient that is connected to the in-memory test Cadence service.
    *
-   * @param clientOptions options used to configure the client.
+   * @param clientOptions options used to configure the client. The domain is replaced with the
+   *     domain of the environment if it runs on a {@link SharedTestService}.
    */
   WorkflowClient newWorkflowClient(WorkflowClientOptions clientOptions);
 
@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Outcome of a bulk replay performed by {@link WorkflowReplayRunner}. */
+public final class WorkflowReplayReport {
+
+  /** Replay statistics of a single workflow type. */
+  public static final class WorkflowTypeStats {
+    private final String workflowType;
+    private final int failed;
+    private final long[] sortedLatenciesNanos;
+    private final Duration runDuration;
+
+    private WorkflowTypeStats(
+        String workflowType, int failed, long[] latenciesNanos, Duration runDuration) {
+      this.workflowType = workflowType;
+      this.failed = failed;
+      this.sortedLatenciesNanos = latenciesNanos.clone();
+      Arrays.sort(this.sortedLatenciesNanos);
+      this.runDuration = runDuration;
+    }
+
+    public String getWorkflowType() {
+      return workflowType;
+    }
+
+    /** Number of replayed histories including the failed ones. */
+    public int getReplayed() {
+      return sortedLatenciesNanos.length;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    /** Replayed histories per second over the duration of the whole run. */
+    public double getThroughput() {
+      long millis = Math.max(1, runDuration.toMillis());
+      return sortedLatenciesNanos.length * 1000.0 / millis;
+    }
+
+    /**
+     * @param percentile value in the (0, 100] range, for example 99 for p99.
+     * @return latency of a single history replay at the given percentile.
+     */
+    public Duration getLatencyPercentile(double percentile) {
+      if (percentile <= 0 || percentile > 100) {
+        throw new IllegalArgumentException("Percentile out of (0, 100] range: " + percentile);
+      }
+      if (sortedLatenciesNanos.length == 0) {
+        return Duration.ZERO;
+      }
+      int index = (int) Math.ceil(percentile / 100 * sortedLatenciesNanos.length) - 1;
+      return Duration.ofNanos(sortedLatenciesNanos[Math.max(0, index)]);
+    }
+
+    public Duration getMaxLatency() {
+      return getLatencyPercentile(100);
+    }
+
+    @Override
+    public String toString() {
+      return "WorkflowTypeStats{"
+          + "workflowType='"
+          + workflowType
+          + '\''
+          + ", replayed="
+          + getReplayed()
+          + ", failed="
+          + failed
+          + ", throughput="
+          + String.format("%.1f/s", getThroughput())
+          + ", p50="
+          + getLatencyPercentile(50).toMillis()
+          + "ms, p90="
+          + getLatencyPercentile(90).toMillis()
+          + "ms, p99="
+          + getLatencyPercentile(99).toMillis()
+          + "ms, max="
+          + getMaxLatency().toMillis()
+          + "ms}";
+    }
+  }
+
+  /** Replay failure of a single history. */
+  public static final class Failure {
+    private final String workflowType;
+    private final String source;
+    private final Throwable error;
+
+    Failure(String workflowType, String source, Throwable error) {
+      this.workflowType = workflowType;
+      this.source = source;
+      this.error = error;
+    }
+
+    public String getWorkflowType() {
+      return workflowType;
+    }
+
+    /** Location of the failed history, for example {@code histories.ndjson.gz#42}. */
+    public String getSource() {
+      return source;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return "Failure{"
+          + "workflowType='"
+          + workflowType
+          + '\''
+          + ", source='"
+          + source
+          + '\''
+          + ", error="
+          + error
+          + '}';
+    }
+  }
+
+  /** Collects replay results while the run is in progress. */
+  static final class Builder {
+    private final Map<String, long[]> latencies = new TreeMap<>();
+    private final Map<String, Integer> sizes = new TreeMap<>();
+    private final Map<String, Integer> failedCounts = new TreeMap<>();
+    private final List<Failure> failures = new ArrayList<>();
+
+    synchronized void recordSuccess(String workflowType, long latencyNanos) {
+      recordLatency(workflowType, latencyNanos);
+    }
+
+    synchronized void recordFailure(
+        String workflowType, long latencyNanos, String source, Throwable error) {
+      recordLatency(workflowType, latencyNanos);
+      failedCounts.merge(workflowType, 1, Integer::sum);
+      failures.add(new Failure(workflowType, source, error));
+    }
+
+    private void recordLatency(String workflowType, long latencyNanos) {
+      int size = sizes.getOrDefault(workflowType, 0);
+      long[] values = latencies.get(workflowType);
+      if (values == null) {
+        values = new long[16];
+      } else if (values.length == size) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size] = latencyNanos;
+      latencies.put(workflowType, values);
+      sizes.put(workflowType, size + 1);
+    }
+
+    synchronized WorkflowReplayReport build(Duration runDuration) {
+      Map<String, WorkflowTypeStats> stats = new TreeMap<>();
+      for (Map.Entry<String, long[]> entry : latencies.entrySet()) {
+        String workflowType = entry.getKey();
+        stats.put(
+            workflowType,
+            new WorkflowTypeStats(
+                workflowType,
+                failedCounts.getOrDefault(workflowType, 0),
+                Arrays.copyOf(entry.getValue(), sizes.get(workflowType)),
+                runDuration));
+      }
+      return new WorkflowReplayReport(stats, failures, runDuration);
+    }
+  }
+
+  private final Map<String, WorkflowTypeStats> statsByWorkflowType;
+  private final List<Failure> failures;
+  private final Duration duration;
+
+  private WorkflowReplayReport(
+      Map<String, WorkflowTypeStats> statsByWorkflowType,
+      List<Failure> failures,
+      Duration duration) {
+    this.statsByWorkflowType = Collections.unmodifiableMap(statsByWorkflowType);
+    this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+    this.duration = duration;
+  }
+
+  /** Statistics keyed by workflow type name. */
+  public Map<String, WorkflowTypeStats> getStatsByWorkflowType() {
+    return statsByWorkflowType;
+  }
+
+  public List<Failure> getFailures() {
+    return failures;
+  }
+
+  /** Wall clock duration of the whole run. */
+  public Duration getDuration() {
+    return duration;
+  }
+
+  public int getReplayed() {
+    int result = 0;
+    for (WorkflowTypeStats stats : statsByWorkflowType.values()) {
+      result += stats.getReplayed();
+    }
+    return result;
+  }
+
+  public int getFailed() {
+    return failures.size();
+  }
+
+  public boolean hasFailures() {
+    return !failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result
+        .append("WorkflowReplayReport{replayed=")
+        .append(getReplayed())
+        .append(", failed=")
+        .append(getFailed())
+        .append(", duration=")
+        .append(duration)
+        .append('}');
+    for (WorkflowTypeStats stats : statsByWorkflowType.values()) {
+      result.append("\n  ").append(stats);
+    }
+    for (Failure failure : failures) {
+      result.append("\n  ").append(failure);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import com.google.common.collect.ObjectArrays;
+import com.uber.cadence.WorkflowType;
+import com.uber.cadence.common.WorkflowExecutionHistory;
+import com.uber.cadence.common.WorkflowExecutionHistoryReader;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Replays large numbers of recorded histories offline, for example as a non-determinism regression
+ * gate in CI. Histories are streamed from archives (see {@link WorkflowExecutionHistoryReader}) and
+ * replayed in parallel on isolated workers. Only a bounded number of histories is held in memory at
+ * any time. Individual replay failures do not stop the run, they are collected into the returned
+ * {@link WorkflowReplayReport}.
+ *
+ * <pre>
+ * WorkflowReplayReport report =
+ *     WorkflowReplayRunner.newInstance(MyWorkflowImpl.class).replayArchives(archive);
+ * assertFalse(report.toString(), report.hasFailures());
+ * </pre>
+ */
+public final class WorkflowReplayRunner {
+
+  // Workflow type reported for entries that could not be read as a history.
+  private static final String UNKNOWN_WORKFLOW_TYPE = "unknown";
+
+  private final int parallelism;
+  private final Class<?>[] workflowClasses;
+
+  /** Creates a runner that uses all available cores. */
+  public static WorkflowReplayRunner newInstance(
+      Class<?> workflowClass, Class<?>... moreWorkflowClasses) {
+    return newInstance(
+        Runtime.getRuntime().availableProcessors(), workflowClass, moreWorkflowClasses);
+  }
+
+  /**
+   * @param parallelism maximum number of histories replayed at the same time.
+   * @param workflowClass s workflow implementation class to replay
+   * @param moreWorkflowClasses optional additional workflow implementation classes
+   */
+  public static WorkflowReplayRunner newInstance(
+      int parallelism, Class<?> workflowClass, Class<?>... moreWorkflowClasses) {
+    return new WorkflowReplayRunner(
+        parallelism, ObjectArrays.concat(moreWorkflowClasses, workflowClass));
+  }
+
+  private WorkflowReplayRunner(int parallelism, Class<?>[] workflowClasses) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Negative or zero: " + parallelism);
+    }
+    this.parallelism = parallelism;
+    this.workflowClasses = workflowClasses;
+  }
+
+  /** Replays all histories from the given archives. */
+  public WorkflowReplayReport replayArchives(File... archives) throws IOException {
+    try (Session session = new Session()) {
+      for (File archive : archives) {
+        try (WorkflowExecutionHistoryReader reader = WorkflowExecutionHistoryReader.open(archive)) {
+          session.replayAll(reader, archive.getName());
+        }
+      }
+      return session.finish();
+    }
+  }
+
+  /**
+   * Replays all histories returned by the iterator.
+   *
+   * @param histories the histories to replay. It is consumed lazily.
+   * @param sourceName used to identify failed histories in the report.
+   */
+  public WorkflowReplayReport replay(
+      Iterator<WorkflowExecutionHistory> histories, String sourceName) {
+    try (Session session = new Session()) {
+      session.replayAll(histories, sourceName);
+      return session.finish();
+    }
+  }
+
+  /** State of a single run: the workers and the collected results. */
+  private final class Session implements AutoCloseable {
+    private final long startNanos = System.nanoTime();
+    private final ReplayWorkerPool pool =
+        new ReplayWorkerPool("WorkflowReplayRunner", parallelism, workflowClasses);
+    // Limits the number of parsed histories waiting for a worker.
+    private final Semaphore inFlight = new Semaphore(parallelism * 2);
+    private final WorkflowReplayReport.Builder report = new WorkflowReplayReport.Builder();
+
+    void replayAll(Iterator<WorkflowExecutionHistory> histories, String sourceName) {
+      for (int index = 0; histories.hasNext(); index++) {
+        String source = sourceName + "#" + index;
+        WorkflowExecutionHistory history;
+        try {
+          history = histories.next();
+        } catch (IllegalArgumentException e) {
+          // A well formed entry that is not a valid history. The next entry can still be read.
+          report.recordFailure(UNKNOWN_WORKFLOW_TYPE, 0, source, e);
+          continue;
+        } catch (RuntimeException e) {
+          // A corrupted entry leaves the stream in an unknown state, so the rest of the source is
+          // not read.
+          report.recordFailure(UNKNOWN_WORKFLOW_TYPE, 0, source, e);
+          return;
+        }
+        inFlight.acquireUninterruptibly();
+        try {
+          @SuppressWarnings({"FutureReturnValueIgnored", "unused"})
+          Future<?> ignored = pool.submit(() -> replayOne(history, source));
+        } catch (RuntimeException e) {
+          inFlight.release();
+          throw e;
+        }
+      }
+    }
+
+    private Void replayOne(WorkflowExecutionHistory history, String source) {
+      String workflowType = UNKNOWN_WORKFLOW_TYPE;
+      long start = System.nanoTime();
+      try {
+        workflowType = getWorkflowType(history);
+        pool.replay(history);
+        report.recordSuccess(workflowType, System.nanoTime() - start);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        report.recordFailure(workflowType, System.nanoTime() - start, source, e);
+      } finally {
+        inFlight.release();
+      }
+      return null;
+    }
+
+    private String getWorkflowType(WorkflowExecutionHistory history) {
+      WorkflowType type =
+          history.getEvents().get(0).getWorkflowExecutionStartedEventAttributes().getWorkflowType();
+      if (type == null || type.getName() == null) {
+        return UNKNOWN_WORKFLOW_TYPE;
+      }
+      return type.getName();
+    }
+
+    WorkflowReplayReport finish() {
+      try {
+        pool.awaitCompletion();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for replays to complete", e);
+      }
+      return report.build(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public void close() {
+      pool.close();
+    }
+  }
+}
@@ -24,6 +24,11 @@ import com.uber.cadence.common.WorkflowExecutionHistory;
 import com.uber.cadence.internal.common.WorkflowExecutionUtils;
 import com.uber.cadence.worker.Worker;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /** Replays a workflow given its history. Useful for backwards compatibility testing. */
 public final class WorkflowReplayer {
@@ -105,4 +110,83 @@ public final class WorkflowReplayer {
         ObjectArrays.concat(moreWorkflowClasses, workflowClass));
     worker.replayWorkflowExecution(history);
   }
+
+  /**
+   * Replays every json serialized history ({@code *.json}) found in a directory, using all
+   * available cores. See {@link #replayWorkflowExecutions(File, int, Class, Class[])}.
+   *
+   * @param historyDirectory directory that contains json serialized histories.
+   * @param workflowClass s workflow implementation class to replay
+   * @param moreWorkflowClasses optional additional workflow implementation classes
+   * @throws Exception if replay of any of the histories failed.
+   */
+  public static void replayWorkflowExecutions(
+      File historyDirectory, Class<?> workflowClass, Class<?>... moreWorkflowClasses)
+      throws Exception {
+    replayWorkflowExecutions(
+        historyDirectory,
+        Runtime.getRuntime().availableProcessors(),
+        workflowClass,
+        moreWorkflowClasses);
+  }
+
+  /**
+   * Replays every json serialized history ({@code *.json}) found in a directory. Histories are
+   * replayed in parallel, each on one of {@code parallelism} isolated workers. All histories are
+   * replayed even if some of them fail.
+   *
+   * @param historyDirectory directory that contains json serialized histories.
+   * @param parallelism maximum number of histories replayed at the same time.
+   * @param workflowClass s workflow implementation class to replay
+   * @param moreWorkflowClasses optional additional workflow implementation classes
+   * @throws Exception if replay of any of the histories failed. Failures of individual histories
+   *     are attached as suppressed exceptions.
+   */
+  public static void replayWorkflowExecutions(
+      File historyDirectory,
+      int parallelism,
+      Class<?> workflowClass,
+      Class<?>... moreWorkflowClasses)
+      throws Exception {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Negative or zero: " + parallelism);
+    }
+    File[] historyFiles = historyDirectory.listFiles((dir, name) -> name.endsWith(".json"));
+    if (historyFiles == null) {
+      throw new IllegalArgumentException("Not a directory: " + historyDirectory);
+    }
+    Arrays.sort(historyFiles);
+    try (ReplayWorkerPool pool =
+        new ReplayWorkerPool(
+            "WorkflowReplayer",
+            parallelism,
+            ObjectArrays.concat(moreWorkflowClasses, workflowClass))) {
+      List<Future<?>> futures = new ArrayList<>(historyFiles.length);
+      for (File historyFile : historyFiles) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  pool.replay(WorkflowExecutionUtils.readHistory(historyFile));
+                  return null;
+                }));
+      }
+      Exception failure = null;
+      for (int i = 0; i < historyFiles.length; i++) {
+        try {
+          futures.get(i).get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure =
+                new Exception("Failed to replay some of the histories in " + historyDirectory);
+          }
+          Exception fileFailure =
+              new Exception("Failed to replay " + historyFiles[i].getName(), e.getCause());
+          failure.addSuppressed(fileFailure);
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
 }
@@ -52,6 +52,7 @@ public final class ShadowingOptions {
     private double samplingRate = 1.0;
     private ExitCondition exitCondition = new ExitCondition();
     private int concurrency = 1;
+    private int replayConcurrency = 1;
 
     private Builder() {}
 
@@ -65,6 +66,7 @@ public final class ShadowingOptions {
       this.samplingRate = options.samplingRate;
       this.exitCondition = options.exitCondition;
       this.concurrency = options.concurrency;
+      this.replayConcurrency = options.replayConcurrency;
     }
 
     /** The domain to start workflow shadowing. */
@@ -148,6 +150,19 @@ public final class ShadowingOptions {
       return this;
     }
 
+    /**
+     * Optional: the number of workflow executions replayed in parallel inside a single replay
+     * activity. Histories are prefetched and each parallel replay runs on its own isolated worker.
+     * Default: 1
+     */
+    public Builder setReplayConcurrency(int replayConcurrency) {
+      if (replayConcurrency <= 0) {
+        throw new IllegalArgumentException("Negative or zero: " + replayConcurrency);
+      }
+      this.replayConcurrency = replayConcurrency;
+      return this;
+    }
+
     public ShadowingOptions build() {
       if (shadowMode == Mode.Continuous
           && exitCondition.getShadowCount() == 0
@@ -180,7 +195,8 @@ public final class ShadowingOptions {
           workflowStatuses,
           samplingRate,
           exitCondition,
-          concurrency);
+          concurrency,
+          replayConcurrency);
     }
   }
 
@@ -193,6 +209,7 @@ public final class ShadowingOptions {
   private final double samplingRate;
   private final ExitCondition exitCondition;
   private int concurrency;
+  private final int replayConcurrency;
 
   private ShadowingOptions(
       String domain,
@@ -203,7 +220,8 @@ public final class ShadowingOptions {
       Set<WorkflowStatus> workflowStatuses,
       double samplingRate,
       ExitCondition exitCondition,
-      int concurrency) {
+      int concurrency,
+      int replayConcurrency) {
     this.domain = domain;
     this.shadowMode = shadowMode;
     this.workflowQuery = workflowQuery;
@@ -213,6 +231,7 @@ public final class ShadowingOptions {
     this.samplingRate = samplingRate;
     this.exitCondition = exitCondition;
     this.concurrency = concurrency;
+    this.replayConcurrency = replayConcurrency;
   }
 
   public String getDomain() {
@@ -251,6 +270,10 @@ public final class ShadowingOptions {
     return concurrency;
   }
 
+  public int getReplayConcurrency() {
+    return replayConcurrency;
+  }
+
   @Override
   public String toString() {
     return "ShadowOptions{"
@@ -270,6 +293,8 @@ public final class ShadowingOptions {
         + exitCondition.toString()
         + ", concurrency="
         + concurrency
+        + ", replayConcurrency="
+        + replayConcurrency
         + '}';
   }
 }
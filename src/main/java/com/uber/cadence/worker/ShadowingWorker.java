@@ -103,7 +103,12 @@ public final class ShadowingWorker implements Suspendable {
                     this.taskList));
     ScanWorkflowActivity scanActivity = new ScanWorkflowActivityImpl(client.getService());
     replayActivity =
-        new ReplayWorkflowActivityImpl(client.getService(), metricsScope, taskList, testOptions);
+        new ReplayWorkflowActivityImpl(
+            client.getService(),
+            metricsScope,
+            taskList,
+            testOptions,
+            shadowingOptions.getReplayConcurrency());
 
     SingleWorkerOptions activityOptions =
         SingleWorkerOptions.newBuilder()
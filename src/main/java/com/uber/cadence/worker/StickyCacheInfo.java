@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.worker;
+
+import com.uber.cadence.WorkflowExecution;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Point in time snapshot of the sticky workflow cache shared by the workers of a {@link
+ * WorkerFactory}. Use it together with the sticky cache metrics to tune {@link
+ * WorkerFactoryOptions.Builder#setStickyCacheSize(int)} and {@link
+ * WorkerFactoryOptions.Builder#setMaxWorkflowThreadCount(int)}.
+ *
+ * @see WorkerFactory#getStickyCacheInfo()
+ */
+public final class StickyCacheInfo {
+
+  /** Why a workflow was removed from the sticky cache. */
+  public enum EvictionReason {
+    /** The cache reached its maximum size. */
+    CAPACITY,
+    /** The workflow thread pool was exhausted and threads of an idle workflow were reclaimed. */
+    THREAD_PRESSURE,
+    /** A decision task with full history arrived, so the cached state was discarded. */
+    FULL_HISTORY,
+    /** Processing a decision task for the cached workflow failed. */
+    ERROR,
+    /** The workflow was handed off by {@link WorkerFactory#drainStickyCache}. */
+    DRAIN
+  }
+
+  /** Cached state of a single workflow run. */
+  public static final class Entry {
+    private final WorkflowExecution execution;
+    private final String workflowType;
+    private final Duration age;
+    private final Duration idleTime;
+    private final boolean pinned;
+    private final int workflowThreadCount;
+    private final long lastEventId;
+
+    Entry(
+        WorkflowExecution execution,
+        String workflowType,
+        Duration age,
+        Duration idleTime,
+        boolean pinned,
+        int workflowThreadCount,
+        long lastEventId) {
+      this.execution = execution;
+      this.workflowType = workflowType;
+      this.age = age;
+      this.idleTime = idleTime;
+      this.pinned = pinned;
+      this.workflowThreadCount = workflowThreadCount;
+      this.lastEventId = lastEventId;
+    }
+
+    public WorkflowExecution getExecution() {
+      return execution;
+    }
+
+    public String getWorkflowType() {
+      return workflowType;
+    }
+
+    /** @return time since the workflow was put into the cache. */
+    public Duration getAge() {
+      return age;
+    }
+
+    /** @return time since a decision task for the workflow was last processed. */
+    public Duration getIdleTime() {
+      return idleTime;
+    }
+
+    /**
+     * @return true if a decision task for the workflow is being processed. Pinned workflows are
+     *     never evicted to reclaim threads.
+     */
+    public boolean isPinned() {
+      return pinned;
+    }
+
+    /** @return number of workflow threads the cached workflow holds. */
+    public int getWorkflowThreadCount() {
+      return workflowThreadCount;
+    }
+
+    /**
+     * @return id of the last history event replayed into the cached state. A rough measure of the
+     *     memory the entry retains.
+     */
+    public long getLastEventId() {
+      return lastEventId;
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{"
+          + "execution="
+          + execution
+          + ", workflowType='"
+          + workflowType
+          + '\''
+          + ", age="
+          + age
+          + ", idleTime="
+          + idleTime
+          + ", pinned="
+          + pinned
+          + ", workflowThreadCount="
+          + workflowThreadCount
+          + ", lastEventId="
+          + lastEventId
+          + '}';
+    }
+  }
+
+  private final int maximumSize;
+  private final int maxWorkflowThreadCount;
+  private final int activeWorkflowThreadCount;
+  private final List<Entry> entries;
+  private final Map<EvictionReason, Long> evictionCounts;
+
+  StickyCacheInfo(
+      int maximumSize,
+      int maxWorkflowThreadCount,
+      int activeWorkflowThreadCount,
+      List<Entry> entries,
+      Map<EvictionReason, Long> evictionCounts) {
+    this.maximumSize = maximumSize;
+    this.maxWorkflowThreadCount = maxWorkflowThreadCount;
+    this.activeWorkflowThreadCount = activeWorkflowThreadCount;
+    this.entries = Collections.unmodifiableList(entries);
+    EnumMap<EvictionReason, Long> counts = new EnumMap<>(EvictionReason.class);
+    for (EvictionReason reason : EvictionReason.values()) {
+      counts.put(reason, evictionCounts.getOrDefault(reason, 0L));
+    }
+    this.evictionCounts = Collections.unmodifiableMap(counts);
+  }
+
+  /** @return configured maximum number of cached workflows. 0 if sticky execution is disabled. */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public int getSize() {
+    return entries.size();
+  }
+
+  /** @return number of cached workflows with a decision task in progress. */
+  public int getPinnedCount() {
+    int result = 0;
+    for (Entry entry : entries) {
+      if (entry.isPinned()) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  public int getMaxWorkflowThreadCount() {
+    return maxWorkflowThreadCount;
+  }
+
+  /** @return number of workflow threads currently taken from the workflow thread pool. */
+  public int getActiveWorkflowThreadCount() {
+    return activeWorkflowThreadCount;
+  }
+
+  /** @return cached workflows, oldest first. */
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /** @return number of cached workflows per workflow type. */
+  public Map<String, Integer> getOccupancyByWorkflowType() {
+    Map<String, Integer> result = new TreeMap<>();
+    for (Entry entry : entries) {
+      result.merge(entry.getWorkflowType(), 1, Integer::sum);
+    }
+    return result;
+  }
+
+  /** @return number of evictions per reason since the factory was created. */
+  public Map<EvictionReason, Long> getEvictionCounts() {
+    return evictionCounts;
+  }
+
+  @Override
+  public String toString() {
+    return "StickyCacheInfo{"
+        + "maximumSize="
+        + maximumSize
+        + ", size="
+        + getSize()
+        + ", pinnedCount="
+        + getPinnedCount()
+        + ", maxWorkflowThreadCount="
+        + maxWorkflowThreadCount
+        + ", activeWorkflowThreadCount="
+        + activeWorkflowThreadCount
+        + ", occupancyByWorkflowType="
+        + getOccupancyByWorkflowType()
+        + ", evictionCounts="
+        + evictionCounts
+        + '}';
+  }
+}
@@ -96,6 +96,11 @@ public final class Worker implements Suspendable {
             .setIdentity(client.getOptions().getIdentity())
             .setDataConverter(client.getOptions().getDataConverter())
             .setTaskExecutorThreadPoolSize(options.getMaxConcurrentActivityExecutionSize())
+            .setTaskPrefetchBufferSize(
+                (int)
+                    Math.ceil(
+                        options.getActivityTaskPrefetchRatio()
+                            * options.getMaxConcurrentActivityExecutionSize()))
             .setTaskListActivitiesPerSecond(options.getTaskListActivitiesPerSecond())
             .setPollerOptions(options.getActivityPollerOptions())
             .setMetricsScope(metricsScope)
@@ -126,6 +131,8 @@ public final class Worker implements Suspendable {
             .setIdentity(client.getOptions().getIdentity())
             .setPollerOptions(options.getWorkflowPollerOptions())
             .setTaskExecutorThreadPoolSize(options.getMaxConcurrentLocalActivityExecutionSize())
+            .setTaskExecutorThreadPoolSizePerType(
+                options.getMaxConcurrentLocalActivityExecutionSizePerType())
             .setMetricsScope(metricsScope)
             .setEnableLoggingInReplay(factoryOptions.isEnableLoggingInReplay())
             .setContextPropagators(contextPropagators)
@@ -35,6 +35,7 @@ import com.uber.m3.util.ImmutableMap;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -73,6 +74,7 @@ public final class WorkerFactory {
   private Poller<PollForDecisionTaskResponse> stickyPoller;
   private PollDecisionTaskDispatcher dispatcher;
   private DeciderCache cache;
+  private Scope stickyScope;
 
   private State state = State.Initial;
 
@@ -115,7 +117,7 @@ public final class WorkerFactory {
     // initialize the JsonDataConverter with the metrics scope
     JsonDataConverter.setMetricsScope(workflowClient.getOptions().getMetricsScope());
 
-    Scope stickyScope =
+    stickyScope =
         workflowClient
             .getOptions()
             .getMetricsScope()
@@ -299,6 +301,50 @@ public final class WorkerFactory {
     }
   }
 
+  /**
+   * Hands off the workflows cached by this factory to other workers, typically right before {@link
+   * #shutdown()} during a rolling deployment. Polling of the sticky task list is stopped and the
+   * stickiness of idle cached workflows is reset at {@link
+   * WorkerFactoryOptions#getStickyDrainRatePerSecond()}, so their next decisions are dispatched
+   * through the regular task lists and the full history replays are spread over time. Workflows
+   * with a decision task in progress are released as soon as the task completes. The workers keep
+   * polling the regular task lists, but decisions completed after the drain started are not cached.
+   *
+   * @return true if all cached workflows were handed off before the timeout. Always true if sticky
+   *     execution is disabled.
+   */
+  public boolean drainStickyCache(long timeout, TimeUnit unit) {
+    synchronized (this) {
+      Preconditions.checkState(
+          state == State.Started || state == State.Suspended,
+          String.format(
+              statusErrorMessage,
+              "drain sticky cache",
+              state.name(),
+              String.format("%s, %s", State.Started.name(), State.Suspended.name())));
+      if (stickyPoller == null) {
+        return true;
+      }
+      log.info("drainStickyCache");
+      stickyPoller.shutdown();
+    }
+    long timeoutMillis = unit.toMillis(timeout);
+    timeoutMillis = InternalUtils.awaitTermination(stickyPoller, timeoutMillis);
+    StickyCacheDrainer drainer =
+        new StickyCacheDrainer(
+            workflowClient.getService(),
+            workflowClient.getOptions().getDomain(),
+            cache,
+            factoryOptions.getStickyDrainRatePerSecond(),
+            stickyScope);
+    try {
+      return drainer.drain(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
   /**
    * Checks if we have a valid connection to the Cadence cluster, and potentially resets the peer
    * list
@@ -330,6 +376,47 @@ public final class WorkerFactory {
     log.debug("awaitTermination done");
   }
 
+  /**
+   * Returns a snapshot of the sticky workflow cache: which workflows occupy it, how long they have
+   * been cached, how many workflow threads they hold and why workflows were evicted. Together with
+   * the sticky cache metrics it helps to size {@link
+   * WorkerFactoryOptions.Builder#setStickyCacheSize(int)} and {@link
+   * WorkerFactoryOptions.Builder#setMaxWorkflowThreadCount(int)}.
+   *
+   * @return snapshot of the cache. Has no entries and maximum size 0 if sticky execution is
+   *     disabled.
+   */
+  public StickyCacheInfo getStickyCacheInfo() {
+    int maxWorkflowThreadCount = factoryOptions.getMaxWorkflowThreadCount();
+    int activeWorkflowThreadCount = workflowThreadPool.getActiveCount();
+    if (cache == null) {
+      return new StickyCacheInfo(
+          0,
+          maxWorkflowThreadCount,
+          activeWorkflowThreadCount,
+          new ArrayList<>(),
+          Collections.emptyMap());
+    }
+    List<StickyCacheInfo.Entry> entries = new ArrayList<>();
+    for (DeciderCache.Entry entry : cache.getEntries()) {
+      entries.add(
+          new StickyCacheInfo.Entry(
+              entry.getExecution(),
+              entry.getWorkflowType(),
+              entry.getAge(),
+              entry.getIdleTime(),
+              entry.isPinned(),
+              entry.getWorkflowThreadCount(),
+              entry.getLastEventId()));
+    }
+    return new StickyCacheInfo(
+        cache.getMaximumSize(),
+        maxWorkflowThreadCount,
+        activeWorkflowThreadCount,
+        entries,
+        cache.getEvictionCounts());
+  }
+
   @VisibleForTesting
   DeciderCache getCache() {
     return this.cache;
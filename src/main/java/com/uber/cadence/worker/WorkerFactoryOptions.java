@@ -31,6 +31,7 @@ public class WorkerFactoryOptions {
   private static final Duration DEFAULT_STICKY_TASK_SCHEDULE_TO_START_TIMEOUT =
       Duration.ofSeconds(5);
   private static final int DEFAULT_MAX_WORKFLOW_THREAD_COUNT = 600;
+  private static final double DEFAULT_STICKY_DRAIN_RATE_PER_SECOND = 50;
 
   static {
     DEFAULT_INSTANCE = new Builder().build();
@@ -49,6 +50,7 @@ public class WorkerFactoryOptions {
     private boolean enableLoggingInReplay;
     private int stickyPollerCount = DEFAULT_STICKY_POLLER_COUNT;
     private ExecutorWrapper executorWrapper = ExecutorWrapper.newDefaultInstance();
+    private double stickyDrainRatePerSecond = DEFAULT_STICKY_DRAIN_RATE_PER_SECOND;
 
     private Builder() {}
 
@@ -102,6 +104,19 @@ public class WorkerFactoryOptions {
       return this;
     }
 
+    /**
+     * Maximum number of cached workflows per second whose stickiness is reset by {@link
+     * WorkerFactory#drainStickyCache(long, java.util.concurrent.TimeUnit)}. Each reset makes the
+     * next decision of the workflow replay its full history on some other worker, so a lower rate
+     * spreads that cost over a longer time.
+     *
+     * <p>Default value is 50.
+     */
+    public Builder setStickyDrainRatePerSecond(double stickyDrainRatePerSecond) {
+      this.stickyDrainRatePerSecond = stickyDrainRatePerSecond;
+      return this;
+    }
+
     public Builder setEnableLoggingInReplay(boolean enableLoggingInReplay) {
       this.enableLoggingInReplay = enableLoggingInReplay;
       return this;
@@ -120,7 +135,8 @@ public class WorkerFactoryOptions {
           stickyTaskScheduleToStartTimeout,
           stickyPollerCount,
           enableLoggingInReplay,
-          executorWrapper);
+          executorWrapper,
+          stickyDrainRatePerSecond);
     }
   }
 
@@ -131,6 +147,7 @@ public class WorkerFactoryOptions {
   private boolean enableLoggingInReplay;
   private int stickyPollerCount;
   private ExecutorWrapper executorWrapper;
+  private final double stickyDrainRatePerSecond;
 
   private WorkerFactoryOptions(
       boolean disableStickyExecution,
@@ -139,10 +156,13 @@ public class WorkerFactoryOptions {
       Duration stickyTaskScheduleToStartTimeout,
       int stickyPollerCount,
       boolean enableLoggingInReplay,
-      ExecutorWrapper executorWrapper) {
+      ExecutorWrapper executorWrapper,
+      double stickyDrainRatePerSecond) {
     Preconditions.checkArgument(cacheMaximumSize > 0, "cacheMaximumSize should be greater than 0");
     Preconditions.checkArgument(
         maxWorkflowThreadCount > 0, "maxWorkflowThreadCount should be greater than 0");
+    Preconditions.checkArgument(
+        stickyDrainRatePerSecond > 0, "stickyDrainRatePerSecond should be greater than 0");
 
     this.disableStickyExecution = disableStickyExecution;
     this.cacheMaximumSize = cacheMaximumSize;
@@ -151,6 +171,7 @@ public class WorkerFactoryOptions {
     this.enableLoggingInReplay = enableLoggingInReplay;
     this.stickyTaskScheduleToStartTimeout = stickyTaskScheduleToStartTimeout;
     this.executorWrapper = executorWrapper;
+    this.stickyDrainRatePerSecond = stickyDrainRatePerSecond;
   }
 
   public int getMaxWorkflowThreadCount() {
@@ -180,4 +201,8 @@ public class WorkerFactoryOptions {
   public ExecutorWrapper getExecutorWrapper() {
     return executorWrapper;
   }
+
+  public double getStickyDrainRatePerSecond() {
+    return stickyDrainRatePerSecond;
+  }
 }
@@ -49,6 +49,8 @@ public final class WorkerOptions {
     private int maxConcurrentActivityExecutionSize = 100;
     private int maxConcurrentWorkflowExecutionSize = 50;
     private int maxConcurrentLocalActivityExecutionSize = 100;
+    private int maxConcurrentLocalActivityExecutionSizePerType;
+    private double activityTaskPrefetchRatio;
     private double taskListActivitiesPerSecond;
     private PollerOptions activityPollerOptions;
     private PollerOptions workflowPollerOptions;
@@ -64,6 +66,9 @@ public final class WorkerOptions {
       this.maxConcurrentWorkflowExecutionSize = options.maxConcurrentWorkflowExecutionSize;
       this.maxConcurrentLocalActivityExecutionSize =
           options.maxConcurrentLocalActivityExecutionSize;
+      this.maxConcurrentLocalActivityExecutionSizePerType =
+          options.maxConcurrentLocalActivityExecutionSizePerType;
+      this.activityTaskPrefetchRatio = options.activityTaskPrefetchRatio;
       this.taskListActivitiesPerSecond = options.taskListActivitiesPerSecond;
       this.activityPollerOptions = options.activityPollerOptions;
       this.workflowPollerOptions = options.workflowPollerOptions;
@@ -111,6 +116,38 @@ public final class WorkerOptions {
       return this;
     }
 
+    /**
+     * Maximum number of parallely executed local activities of a single activity type. Local
+     * activities of a type that reached this limit stay queued while other types keep running, so
+     * one slow local activity cannot occupy every local activity thread. Default is 0 which means
+     * that only {@link #setMaxConcurrentLocalActivityExecutionSize(int)} applies.
+     */
+    public Builder setMaxConcurrentLocalActivityExecutionSizePerType(
+        int maxConcurrentLocalActivityExecutionSizePerType) {
+      if (maxConcurrentLocalActivityExecutionSizePerType <= 0) {
+        throw new IllegalArgumentException(
+            "Negative or zero: " + maxConcurrentLocalActivityExecutionSizePerType);
+      }
+      this.maxConcurrentLocalActivityExecutionSizePerType =
+          maxConcurrentLocalActivityExecutionSizePerType;
+      return this;
+    }
+
+    /**
+     * Size of the buffer of polled activity tasks that wait for an executor thread relative to
+     * {@link #setMaxConcurrentActivityExecutionSize(int)}. With a buffer the pollers keep fetching
+     * while every thread is busy, so a thread that frees up starts the next task without a poll
+     * round trip. Buffered tasks that get too close to their timeouts are dropped instead of
+     * started. Default is 0 which means that tasks are polled only when a thread is free.
+     */
+    public Builder setActivityTaskPrefetchRatio(double activityTaskPrefetchRatio) {
+      if (activityTaskPrefetchRatio < 0) {
+        throw new IllegalArgumentException("Negative: " + activityTaskPrefetchRatio);
+      }
+      this.activityTaskPrefetchRatio = activityTaskPrefetchRatio;
+      return this;
+    }
+
     public Builder setActivityPollerOptions(PollerOptions activityPollerOptions) {
       this.activityPollerOptions = Objects.requireNonNull(activityPollerOptions);
       return this;
@@ -157,6 +194,8 @@ public final class WorkerOptions {
           maxConcurrentActivityExecutionSize,
           maxConcurrentWorkflowExecutionSize,
           maxConcurrentLocalActivityExecutionSize,
+          maxConcurrentLocalActivityExecutionSizePerType,
+          activityTaskPrefetchRatio,
           taskListActivitiesPerSecond,
           activityPollerOptions,
           workflowPollerOptions,
@@ -169,6 +208,8 @@ public final class WorkerOptions {
   private final int maxConcurrentActivityExecutionSize;
   private final int maxConcurrentWorkflowExecutionSize;
   private final int maxConcurrentLocalActivityExecutionSize;
+  private final int maxConcurrentLocalActivityExecutionSizePerType;
+  private final double activityTaskPrefetchRatio;
   private final double taskListActivitiesPerSecond;
   private final PollerOptions activityPollerOptions;
   private final PollerOptions workflowPollerOptions;
@@ -180,6 +221,8 @@ public final class WorkerOptions {
       int maxConcurrentActivityExecutionSize,
       int maxConcurrentWorkflowExecutionSize,
       int maxConcurrentLocalActivityExecutionSize,
+      int maxConcurrentLocalActivityExecutionSizePerType,
+      double activityTaskPrefetchRatio,
       double taskListActivitiesPerSecond,
       PollerOptions activityPollerOptions,
       PollerOptions workflowPollerOptions,
@@ -189,6 +232,9 @@ public final class WorkerOptions {
     this.maxConcurrentActivityExecutionSize = maxConcurrentActivityExecutionSize;
     this.maxConcurrentWorkflowExecutionSize = maxConcurrentWorkflowExecutionSize;
     this.maxConcurrentLocalActivityExecutionSize = maxConcurrentLocalActivityExecutionSize;
+    this.maxConcurrentLocalActivityExecutionSizePerType =
+        maxConcurrentLocalActivityExecutionSizePerType;
+    this.activityTaskPrefetchRatio = activityTaskPrefetchRatio;
     this.taskListActivitiesPerSecond = taskListActivitiesPerSecond;
     this.activityPollerOptions = activityPollerOptions;
     this.workflowPollerOptions = workflowPollerOptions;
@@ -212,6 +258,14 @@ public final class WorkerOptions {
     return maxConcurrentLocalActivityExecutionSize;
   }
 
+  public int getMaxConcurrentLocalActivityExecutionSizePerType() {
+    return maxConcurrentLocalActivityExecutionSizePerType;
+  }
+
+  public double getActivityTaskPrefetchRatio() {
+    return activityTaskPrefetchRatio;
+  }
+
   public double getTaskListActivitiesPerSecond() {
     return taskListActivitiesPerSecond;
   }
@@ -243,6 +297,10 @@ public final class WorkerOptions {
         + maxConcurrentWorkflowExecutionSize
         + ", maxConcurrentLocalActivityExecutionSize="
         + maxConcurrentLocalActivityExecutionSize
+        + ", maxConcurrentLocalActivityExecutionSizePerType="
+        + maxConcurrentLocalActivityExecutionSizePerType
+        + ", activityTaskPrefetchRatio="
+        + activityTaskPrefetchRatio
         + ", taskListActivitiesPerSecond="
         + taskListActivitiesPerSecond
         + ", activityPollerOptions="
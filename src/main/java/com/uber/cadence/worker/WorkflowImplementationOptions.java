@@ -30,6 +30,8 @@ public final class WorkflowImplementationOptions {
 
     private NonDeterministicWorkflowPolicy nonDeterministicWorkflowPolicy = BlockWorkflow;
     private Map<String, ActivityOptions> activityOptionOverrides = new HashMap<>();
+    private long continueAsNewSuggestedHistoryLength;
+    private long continueAsNewSuggestedHistorySize;
 
     /**
      * Optional: Sets how decision worker deals with non-deterministic history events (presumably
@@ -56,14 +58,50 @@ public final class WorkflowImplementationOptions {
       return this;
     }
 
+    /**
+     * Optional: Number of history events after which {@link
+     * com.uber.cadence.workflow.WorkflowInfo#isContinueAsNewSuggested()} returns true. Long lived
+     * workflows can check it to call {@link com.uber.cadence.workflow.Workflow#continueAsNew}
+     * before replaying their history after a cache miss becomes expensive. Default is 0 which means
+     * no limit.
+     */
+    public Builder setContinueAsNewSuggestedHistoryLength(
+        long continueAsNewSuggestedHistoryLength) {
+      if (continueAsNewSuggestedHistoryLength < 0) {
+        throw new IllegalArgumentException("Negative: " + continueAsNewSuggestedHistoryLength);
+      }
+      this.continueAsNewSuggestedHistoryLength = continueAsNewSuggestedHistoryLength;
+      return this;
+    }
+
+    /**
+     * Optional: Estimated history size in bytes after which {@link
+     * com.uber.cadence.workflow.WorkflowInfo#isContinueAsNewSuggested()} returns true. Default is 0
+     * which means no limit.
+     *
+     * @see #setContinueAsNewSuggestedHistoryLength(long)
+     */
+    public Builder setContinueAsNewSuggestedHistorySize(long continueAsNewSuggestedHistorySize) {
+      if (continueAsNewSuggestedHistorySize < 0) {
+        throw new IllegalArgumentException("Negative: " + continueAsNewSuggestedHistorySize);
+      }
+      this.continueAsNewSuggestedHistorySize = continueAsNewSuggestedHistorySize;
+      return this;
+    }
+
     public WorkflowImplementationOptions build() {
       return new WorkflowImplementationOptions(
-          nonDeterministicWorkflowPolicy, activityOptionOverrides);
+          nonDeterministicWorkflowPolicy,
+          activityOptionOverrides,
+          continueAsNewSuggestedHistoryLength,
+          continueAsNewSuggestedHistorySize);
     }
   }
 
   private final NonDeterministicWorkflowPolicy nonDeterministicWorkflowPolicy;
   private Map<String, ActivityOptions> activityOptions;
+  private long continueAsNewSuggestedHistoryLength;
+  private long continueAsNewSuggestedHistorySize;
 
   public WorkflowImplementationOptions(
       NonDeterministicWorkflowPolicy nonDeterministicWorkflowPolicy) {
@@ -77,6 +115,16 @@ public final class WorkflowImplementationOptions {
     this.activityOptions = activityOptions;
   }
 
+  private WorkflowImplementationOptions(
+      NonDeterministicWorkflowPolicy nonDeterministicWorkflowPolicy,
+      Map<String, ActivityOptions> activityOptions,
+      long continueAsNewSuggestedHistoryLength,
+      long continueAsNewSuggestedHistorySize) {
+    this(nonDeterministicWorkflowPolicy, activityOptions);
+    this.continueAsNewSuggestedHistoryLength = continueAsNewSuggestedHistoryLength;
+    this.continueAsNewSuggestedHistorySize = continueAsNewSuggestedHistorySize;
+  }
+
   public NonDeterministicWorkflowPolicy getNonDeterministicWorkflowPolicy() {
     return nonDeterministicWorkflowPolicy;
   }
@@ -85,12 +133,24 @@ public final class WorkflowImplementationOptions {
     return activityOptions;
   }
 
+  public long getContinueAsNewSuggestedHistoryLength() {
+    return continueAsNewSuggestedHistoryLength;
+  }
+
+  public long getContinueAsNewSuggestedHistorySize() {
+    return continueAsNewSuggestedHistorySize;
+  }
+
   @Override
   public String toString() {
     return "WorkflowImplementationOptions{"
         + "nonDeterministicWorkflowPolicy="
         + nonDeterministicWorkflowPolicy
         + activityOptions
+        + ", continueAsNewSuggestedHistoryLength="
+        + continueAsNewSuggestedHistoryLength
+        + ", continueAsNewSuggestedHistorySize="
+        + continueAsNewSuggestedHistorySize
         + '}';
   }
 
@@ -100,11 +160,17 @@ public final class WorkflowImplementationOptions {
     if (o == null || getClass() != o.getClass()) return false;
     WorkflowImplementationOptions that = (WorkflowImplementationOptions) o;
     return nonDeterministicWorkflowPolicy == that.nonDeterministicWorkflowPolicy
-        && Objects.equals(activityOptions, that.activityOptions);
+        && Objects.equals(activityOptions, that.activityOptions)
+        && continueAsNewSuggestedHistoryLength == that.continueAsNewSuggestedHistoryLength
+        && continueAsNewSuggestedHistorySize == that.continueAsNewSuggestedHistorySize;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(nonDeterministicWorkflowPolicy, activityOptions);
+    return Objects.hash(
+        nonDeterministicWorkflowPolicy,
+        activityOptions,
+        continueAsNewSuggestedHistoryLength,
+        continueAsNewSuggestedHistorySize);
   }
 }
@@ -27,6 +27,7 @@ import com.uber.cadence.workflow.Functions.Func;
 import com.uber.m3.tally.Scope;
 import java.lang.reflect.Type;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
@@ -718,6 +719,50 @@ public final class Workflow {
     return WorkflowInternal.newFailedPromise(failure);
   }
 
+  /**
+   * Invokes function for every item keeping at most maxInFlight of the returned promises incomplete
+   * at a time. The next item is started as soon as one of the in-flight promises completes. Unlike
+   * calling {@link Async#function(Functions.Func)} with an arbitrary lambda per item no workflow
+   * thread is created per item, so it is safe to fan out over a large number of items.
+   *
+   * <p>The function is called from the workflow thread that called fanOut and then from completion
+   * callbacks. It must not block. Typically it starts an activity or a child workflow through
+   * {@link Async}:
+   *
+   * <pre><code>
+   * Promise&lt;List&lt;String&gt;&gt; results =
+   *     Workflow.fanOut(files, 20, (file) -&gt; Async.function(activities::process, file));
+   * </code></pre>
+   *
+   * @param items items to invoke the function for, iterated once in order
+   * @param maxInFlight maximum number of incomplete promises returned by function
+   * @param function non blocking function that starts the work for an item
+   * @return promise that contains results in the order of items. It fails with the first failure of
+   *     the function or of a returned promise, after which no more items are started.
+   */
+  public static <T, R> Promise<List<R>> fanOut(
+      Iterable<? extends T> items,
+      int maxInFlight,
+      Functions.Func1<? super T, Promise<R>> function) {
+    return WorkflowInternal.fanOut(items, maxInFlight, function);
+  }
+
+  /**
+   * Same as {@link #fanOut(Iterable, int, Functions.Func1)} but streams each result to
+   * resultHandler as soon as it is available instead of collecting all the results. resultHandler
+   * is called in completion order and must not block.
+   *
+   * @return promise that becomes ready after resultHandler was called for every item. It fails with
+   *     the first failure of function, a returned promise or resultHandler.
+   */
+  public static <T, R> Promise<Void> fanOut(
+      Iterable<? extends T> items,
+      int maxInFlight,
+      Functions.Func1<? super T, Promise<R>> function,
+      Functions.Proc2<? super T, ? super R> resultHandler) {
+    return WorkflowInternal.fanOut(items, maxInFlight, function, resultHandler);
+  }
+
   /**
    * Register query or queries implementation object. There is no need to register top level
    * workflow implementation object as it is done implicitly. Only methods annotated with @{@link
@@ -1176,6 +1221,29 @@ public final class Workflow {
     return WorkflowInternal.getLogger(name);
   }
 
+  /**
+   * Get logger to use inside workflow that also accepts lazily evaluated messages and arguments.
+   * Logs in replay mode are omitted unless enableLoggingInReplay is set to true in {@link
+   * WorkerOptions} when a worker starts up. Suppliers are never invoked for omitted messages.
+   *
+   * @param clazz class name to appear in logging.
+   * @return logger to use in workflow logic.
+   */
+  public static WorkflowLogger getWorkflowLogger(Class<?> clazz) {
+    return WorkflowInternal.getLogger(clazz);
+  }
+
+  /**
+   * Get logger to use inside workflow that also accepts lazily evaluated messages and arguments.
+   *
+   * @param name name to appear in logging.
+   * @return logger to use in workflow logic.
+   * @see #getWorkflowLogger(Class)
+   */
+  public static WorkflowLogger getWorkflowLogger(String name) {
+    return WorkflowInternal.getLogger(name);
+  }
+
   /**
    * GetLastCompletionResult extract last completion result from previous run for this cron
    * workflow. This is used in combination with cron schedule. A workflow can be started with an
@@ -20,6 +20,7 @@ package com.uber.cadence.workflow;
 import com.uber.cadence.SearchAttributes;
 import com.uber.cadence.WorkflowExecutionStartedEventAttributes;
 import com.uber.cadence.converter.DataConverter;
+import com.uber.cadence.worker.WorkflowImplementationOptions;
 import java.time.Duration;
 
 public interface WorkflowInfo {
@@ -45,4 +46,33 @@ public interface WorkflowInfo {
   WorkflowExecutionStartedEventAttributes getWorkflowExecutionStartedEventAttributes();
 
   DataConverter getDataConverter();
+
+  /**
+   * Number of events in the workflow history up to the current decision. Replaying a workflow after
+   * it is evicted from the worker cache takes time proportional to its history. Zero when the
+   * implementation does not track the history.
+   */
+  default long getHistoryLength() {
+    return 0;
+  }
+
+  /**
+   * Estimated size in bytes of the workflow history up to the current decision. Zero when the
+   * implementation does not track the history.
+   */
+  default long getHistorySize() {
+    return 0;
+  }
+
+  /**
+   * Returns true when the history reached one of the thresholds configured through {@link
+   * WorkflowImplementationOptions.Builder#setContinueAsNewSuggestedHistoryLength(long)} or {@link
+   * WorkflowImplementationOptions.Builder#setContinueAsNewSuggestedHistorySize(long)}. Long lived
+   * workflows are expected to call {@link Workflow#continueAsNew(Object...)} at the next convenient
+   * point to keep the replay cost bounded. Always false when no threshold is configured or the
+   * implementation does not track the history.
+   */
+  default boolean isContinueAsNewSuggested() {
+    return false;
+  }
 }
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.workflow;
+
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+
+/**
+ * Logger returned by {@link Workflow#getWorkflowLogger(Class)}. In addition to the standard SLF4J
+ * methods it accepts message and argument suppliers that are evaluated only after both the replay
+ * check and the level check pass. During replay, when logging in replay is disabled, a call costs a
+ * single flag check and no message or argument is ever built.
+ *
+ * <pre><code>
+ * private static final WorkflowLogger log = Workflow.getWorkflowLogger(MyWorkflowImpl.class);
+ *
+ * log.debug(() -&gt; "Processed " + describe(state));
+ * log.info("Order {} state {}", orderId, WorkflowLogger.lazy(() -&gt; state.toJson()));
+ * </code></pre>
+ */
+public interface WorkflowLogger extends Logger {
+
+  /**
+   * Wraps a value so that it is computed only when the log message that references it is actually
+   * formatted. The supplier is invoked at most once.
+   */
+  static Object lazy(Supplier<?> value) {
+    return new LazyArgument(value);
+  }
+
+  /** Logs the supplied message at the TRACE level. */
+  void trace(Supplier<String> message);
+
+  /** Logs the supplied message and exception at the TRACE level. */
+  void trace(Supplier<String> message, Throwable t);
+
+  /** Logs the supplied message at the DEBUG level. */
+  void debug(Supplier<String> message);
+
+  /** Logs the supplied message and exception at the DEBUG level. */
+  void debug(Supplier<String> message, Throwable t);
+
+  /** Logs the supplied message at the INFO level. */
+  void info(Supplier<String> message);
+
+  /** Logs the supplied message and exception at the INFO level. */
+  void info(Supplier<String> message, Throwable t);
+
+  /** Logs the supplied message at the WARN level. */
+  void warn(Supplier<String> message);
+
+  /** Logs the supplied message and exception at the WARN level. */
+  void warn(Supplier<String> message, Throwable t);
+
+  /** Logs the supplied message at the ERROR level. */
+  void error(Supplier<String> message);
+
+  /** Logs the supplied message and exception at the ERROR level. */
+  void error(Supplier<String> message, Throwable t);
+
+  final class LazyArgument {
+    private Supplier<?> supplier;
+    private String value;
+
+    private LazyArgument(Supplier<?> supplier) {
+      this.supplier = supplier;
+    }
+
+    @Override
+    public String toString() {
+      if (supplier != null) {
+        value = String.valueOf(supplier.get());
+        supplier = null;
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class MethodInvokerTest {
+
+  public interface TestInterface {
+    String concat(String prefix, int count);
+
+    void fail(List<String> reason);
+  }
+
+  private static class TestImpl implements TestInterface {
+    @Override
+    public String concat(String prefix, int count) {
+      return prefix + count;
+    }
+
+    @Override
+    public void fail(List<String> reason) {
+      throw new IllegalStateException(reason.get(0));
+    }
+  }
+
+  @Test
+  public void testInvoke() throws Exception {
+    MethodInvoker invoker =
+        new MethodInvoker(TestInterface.class.getMethod("concat", String.class, int.class));
+    assertEquals("a1", invoker.invoke(new TestImpl(), new Object[] {"a", 1}));
+    assertEquals(String.class, invoker.getParameterTypes()[0]);
+    assertFalse(invoker.returnsVoid());
+  }
+
+  @Test
+  public void testExceptionIsWrapped() throws Exception {
+    MethodInvoker invoker = new MethodInvoker(TestInterface.class.getMethod("fail", List.class));
+    assertTrue(invoker.returnsVoid());
+    assertEquals("java.util.List<java.lang.String>", invoker.getParameterTypes()[0].getTypeName());
+    try {
+      invoker.invoke(new TestImpl(), new Object[] {Collections.singletonList("boom")});
+      fail("unreachable");
+    } catch (InvocationTargetException e) {
+      assertSame(IllegalStateException.class, e.getTargetException().getClass());
+      assertEquals("boom", e.getTargetException().getMessage());
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() throws Exception {
+    MethodInvoker invoker =
+        new MethodInvoker(TestInterface.class.getMethod("concat", String.class, int.class));
+    try {
+      invoker.invoke(new TestImpl(), new Object[] {"a"});
+      fail("unreachable");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("wrong number of arguments"));
+    }
+    try {
+      invoker.invoke(new TestImpl(), new Object[] {"a", null});
+      fail("unreachable");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("null value for primitive parameter"));
+    }
+    try {
+      invoker.invoke(new TestImpl(), new Object[] {1, 1});
+      fail("unreachable");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("argument type mismatch"));
+    }
+    try {
+      invoker.invoke(new TestImpl(), new Object[] {"a", 1L});
+      fail("unreachable");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("argument type mismatch"));
+    }
+    try {
+      invoker.invoke(new Object(), new Object[] {"a", 1});
+      fail("unreachable");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("not an instance of declaring class"));
+    }
+  }
+
+  @Test
+  public void testPrimitiveWidening() throws Exception {
+    MethodInvoker invoker =
+        new MethodInvoker(TestInterface.class.getMethod("concat", String.class, int.class));
+    assertEquals("a2", invoker.invoke(new TestImpl(), new Object[] {"a", (short) 2}));
+    assertEquals("a97", invoker.invoke(new TestImpl(), new Object[] {"a", 'a'}));
+  }
+}
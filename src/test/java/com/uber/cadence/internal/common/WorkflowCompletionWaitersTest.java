@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.uber.cadence.EventType;
+import com.uber.cadence.GetWorkflowExecutionHistoryResponse;
+import com.uber.cadence.History;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.WorkflowExecution;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
+import com.uber.cadence.serviceclient.IWorkflowService;
+import com.uber.m3.tally.NoopScope;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkflowCompletionWaitersTest {
+
+  private final List<AsyncMethodCallback<GetWorkflowExecutionHistoryResponse>> polls =
+      Collections.synchronizedList(new ArrayList<>());
+  private final List<Long> pollTimeouts = Collections.synchronizedList(new ArrayList<>());
+  private WorkflowCompletionWaiters waiters;
+  private final WorkflowExecution execution =
+      new WorkflowExecution().setWorkflowId("wid").setRunId("rid");
+
+  @Before
+  public void setUp() throws Exception {
+    IWorkflowService service = mock(IWorkflowService.class);
+    doAnswer(
+            invocation -> {
+              pollTimeouts.add(invocation.getArgument(2));
+              polls.add(invocation.getArgument(1));
+              return null;
+            })
+        .when(service)
+        .GetWorkflowExecutionHistoryWithTimeout(any(), any(), anyLong());
+    waiters = new WorkflowCompletionWaiters(service, "domain", new NoopScope());
+  }
+
+  @Test
+  public void testWaitersOfTheSameRunShareThePoll() throws Exception {
+    CompletableFuture<HistoryEvent> first =
+        waiters.waitForCloseEvent(execution, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    CompletableFuture<HistoryEvent> second =
+        waiters.waitForCloseEvent(execution, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    assertEquals(1, polls.size());
+    assertEquals(2, waiters.getOutstandingWaiterCount());
+
+    HistoryEvent closeEvent = new HistoryEvent().setEventType(EventType.WorkflowExecutionCompleted);
+    polls
+        .get(0)
+        .onComplete(
+            new GetWorkflowExecutionHistoryResponse()
+                .setHistory(new History().setEvents(Collections.singletonList(closeEvent))));
+
+    assertSame(closeEvent, first.get());
+    assertSame(closeEvent, second.get());
+    assertEquals(0, waiters.getOutstandingWaiterCount());
+    assertEquals(0, waiters.getPolledRunCount());
+  }
+
+  @Test
+  public void testWaiterTimeoutDoesNotAffectOtherWaiters() throws Exception {
+    CompletableFuture<HistoryEvent> shortWaiter =
+        waiters.waitForCloseEvent(execution, 10, TimeUnit.MILLISECONDS);
+    CompletableFuture<HistoryEvent> longWaiter =
+        waiters.waitForCloseEvent(execution, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    try {
+      shortWaiter.get();
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(CheckedExceptionWrapper.unwrap(e.getCause()) instanceof TimeoutException);
+    }
+    assertFalse(longWaiter.isDone());
+    assertEquals(1, polls.size());
+
+    // Empty poll response, the poll continues for the remaining waiter.
+    polls.get(0).onComplete(new GetWorkflowExecutionHistoryResponse().setHistory(new History()));
+    assertEquals(2, polls.size());
+    assertFalse(longWaiter.isDone());
+  }
+
+  @Test
+  public void testPollIsBoundedByTheLongestWaiterTimeout() {
+    waiters.waitForCloseEvent(execution, 1, TimeUnit.SECONDS);
+    waiters.waitForCloseEvent(execution, 5, TimeUnit.SECONDS);
+    assertEquals(1, polls.size());
+    assertTrue(pollTimeouts.get(0) <= 1000);
+
+    // The next attempt waits for the longest of the remaining waiters.
+    polls.get(0).onComplete(new GetWorkflowExecutionHistoryResponse().setHistory(new History()));
+    assertEquals(2, polls.size());
+    long timeout = pollTimeouts.get(1);
+    assertTrue(String.valueOf(timeout), timeout > 1000 && timeout <= 5000);
+
+    // Once an unbounded waiter joins, the next attempt waits without a timeout.
+    waiters.waitForCloseEvent(execution, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    polls.get(1).onComplete(new GetWorkflowExecutionHistoryResponse().setHistory(new History()));
+    assertEquals(3, polls.size());
+    assertEquals(Long.MAX_VALUE, (long) pollTimeouts.get(2));
+  }
+
+  @Test
+  public void testPollIsAbandonedWhenTheLastWaiterLeaves() throws Exception {
+    CompletableFuture<HistoryEvent> waiter =
+        waiters.waitForCloseEvent(execution, 10, TimeUnit.MILLISECONDS);
+    try {
+      waiter.get();
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(CheckedExceptionWrapper.unwrap(e.getCause()) instanceof TimeoutException);
+    }
+    assertEquals(0, waiters.getPolledRunCount());
+
+    // The late response of the abandoned poll doesn't start another one.
+    polls.get(0).onComplete(new GetWorkflowExecutionHistoryResponse().setHistory(new History()));
+    assertEquals(1, polls.size());
+
+    // A new waiter starts a new poll.
+    waiters.waitForCloseEvent(execution, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    assertEquals(2, polls.size());
+    assertEquals(1, waiters.getPolledRunCount());
+  }
+}
@@ -467,4 +467,62 @@ public class WorkflowExecutionUtilsTest {
     String result = WorkflowExecutionUtils.prettyPrintDecisions(decisions);
     assertEquals(DECISIONS_PRETTY_PRINT, result);
   }
+
+  @Test
+  public void testPrettyPrintHistory_RendersAtMostMaxEvents() {
+    List<HistoryEvent> events = timerStartedEvents(5, 3);
+
+    String result = WorkflowExecutionUtils.prettyPrintHistory(events.iterator(), true, 1);
+
+    assertTrue(result, result.contains("5: TimerStarted"));
+    assertFalse(result, result.contains("6: TimerStarted"));
+    assertTrue(result, result.endsWith("... 2 more events\n}"));
+    assertEquals(
+        WorkflowExecutionUtils.prettyPrintHistory(events.iterator(), true),
+        WorkflowExecutionUtils.prettyPrintHistory(events.iterator(), true, 3));
+  }
+
+  @Test
+  public void testPrettyPrintDecisions_RendersAtMostMaxDecisions() {
+    List<Decision> decisions = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      decisions.add(
+          new Decision()
+              .setDecisionType(DecisionType.StartTimer)
+              .setStartTimerDecisionAttributes(
+                  new StartTimerDecisionAttributes().setTimerId("timer" + i)));
+    }
+
+    String result = WorkflowExecutionUtils.prettyPrintDecisions(decisions, 2);
+
+    assertTrue(result, result.contains("timer1"));
+    assertFalse(result, result.contains("timer2"));
+    assertTrue(result, result.endsWith("... 1 more decisions\n}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrettyPrintHistory_NegativeMaxEvents() {
+    WorkflowExecutionUtils.prettyPrintHistory(timerStartedEvents(1, 1).iterator(), true, -1);
+  }
+
+  @Test
+  public void testSummarizeHistory() {
+    assertEquals("[0 events]", WorkflowExecutionUtils.summarizeHistory(Collections.emptyList()));
+    assertEquals(
+        "[3 events, ids 5..7]", WorkflowExecutionUtils.summarizeHistory(timerStartedEvents(5, 3)));
+  }
+
+  private static List<HistoryEvent> timerStartedEvents(long firstEventId, int count) {
+    List<HistoryEvent> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      events.add(
+          new HistoryEvent()
+              .setEventId(firstEventId + i)
+              .setEventType(EventType.TimerStarted)
+              .setTimestamp(TimeUnit.SECONDS.toNanos(1 + i))
+              .setTimerStartedEventAttributes(
+                  new TimerStartedEventAttributes().setTimerId("timer" + i)));
+    }
+    return events;
+  }
 }
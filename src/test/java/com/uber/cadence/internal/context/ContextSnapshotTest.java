@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.context;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.cadence.context.ContextPropagator;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ContextSnapshotTest {
+
+  private static class StringPropagator implements ContextPropagator {
+    String current;
+    int serializeCount;
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public Map<String, byte[]> serializeContext(Object context) {
+      serializeCount++;
+      return Collections.singletonMap("test", ((String) context).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Object deserializeContext(Map<String, byte[]> context) {
+      return new String(context.get("test"), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object getCurrentContext() {
+      // A new but equal instance on every call.
+      return current == null ? null : new String(current);
+    }
+
+    @Override
+    public void setCurrentContext(Object context) {
+      current = (String) context;
+    }
+
+    @Override
+    public void unsetCurrentContext() {
+      current = null;
+    }
+  }
+
+  @Test
+  public void testReusedUntilContextChanges() {
+    StringPropagator propagator = new StringPropagator();
+    List<ContextPropagator> propagators = Collections.singletonList(propagator);
+    propagator.setCurrentContext("first");
+
+    ContextSnapshot snapshot = ContextSnapshot.capture(propagators, null);
+    assertEquals("first", snapshot.getContexts().get("test"));
+    Map<String, byte[]> serialized = snapshot.getSerializedContexts();
+    assertArrayEquals("first".getBytes(StandardCharsets.UTF_8), serialized.get("test"));
+
+    ContextSnapshot same = ContextSnapshot.capture(propagators, snapshot);
+    assertSame(snapshot, same);
+    assertSame(serialized, same.getSerializedContexts());
+    assertEquals(1, propagator.serializeCount);
+
+    propagator.setCurrentContext("second");
+    ContextSnapshot changed = ContextSnapshot.capture(propagators, same);
+    assertNotSame(snapshot, changed);
+    assertArrayEquals(
+        "second".getBytes(StandardCharsets.UTF_8), changed.getSerializedContexts().get("test"));
+    assertEquals(2, propagator.serializeCount);
+  }
+
+  @Test
+  public void testNoPropagators() {
+    ContextSnapshot snapshot = ContextSnapshot.capture(Collections.emptyList(), null);
+    assertTrue(snapshot.getContexts().isEmpty());
+    assertTrue(snapshot.getSerializedContexts().isEmpty());
+    assertSame(snapshot, ContextSnapshot.capture(null, null));
+  }
+}
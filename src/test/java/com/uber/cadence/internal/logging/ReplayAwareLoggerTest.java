@@ -17,12 +17,15 @@ package com.uber.cadence.internal.logging;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.uber.cadence.internal.replay.ReplayAware;
+import com.uber.cadence.workflow.WorkflowLogger;
 import java.util.function.Supplier;
 import org.junit.Before;
 import org.junit.Test;
@@ -1770,4 +1773,83 @@ public class ReplayAwareLoggerTest {
     assertEquals("TestLogger", replayAwareLogger.getName());
     verify(mockLogger).getName();
   }
+
+  // ===========================
+  // Tests for lazy messages and arguments
+  // ===========================
+  @Test
+  public void testSupplierMessage_ReplayModeDisabled_NotEvaluated() {
+    setReplayMode(true, false);
+    replayAwareLogger.debug(
+        () -> {
+          throw new AssertionError("supplier must not be evaluated during replay");
+        });
+    verify(mockLogger, never()).debug(anyString());
+  }
+
+  @Test
+  public void testSupplierMessage_LevelDisabled_NotEvaluated() {
+    setReplayMode(false, false);
+    when(mockLogger.isInfoEnabled()).thenReturn(false);
+    replayAwareLogger.info(
+        () -> {
+          throw new AssertionError("supplier must not be evaluated when level is disabled");
+        });
+    verify(mockLogger, never()).info(anyString());
+  }
+
+  @Test
+  public void testSupplierMessage_Normal() {
+    setReplayMode(false, false);
+    when(mockLogger.isWarnEnabled()).thenReturn(true);
+    Throwable exception = new RuntimeException("Test exception");
+    replayAwareLogger.warn(() -> "Warn " + 1, exception);
+    verify(mockLogger).warn("Warn 1", exception);
+  }
+
+  @Test
+  public void testSupplierMessageWithThrowable_AllLevels() {
+    setReplayMode(false, false);
+    when(mockLogger.isTraceEnabled()).thenReturn(true);
+    when(mockLogger.isDebugEnabled()).thenReturn(true);
+    when(mockLogger.isInfoEnabled()).thenReturn(true);
+    Throwable exception = new RuntimeException("Test exception");
+    replayAwareLogger.trace(() -> "Trace", exception);
+    replayAwareLogger.debug(() -> "Debug", exception);
+    replayAwareLogger.info(() -> "Info", exception);
+    verify(mockLogger).trace("Trace", exception);
+    verify(mockLogger).debug("Debug", exception);
+    verify(mockLogger).info("Info", exception);
+  }
+
+  @Test
+  public void testSupplierMessageWithThrowable_ReplayModeDisabled_NotEvaluated() {
+    setReplayMode(true, false);
+    Supplier<String> message =
+        () -> {
+          throw new AssertionError("supplier must not be evaluated during replay");
+        };
+    Throwable exception = new RuntimeException("Test exception");
+    replayAwareLogger.trace(message, exception);
+    replayAwareLogger.debug(message, exception);
+    replayAwareLogger.info(message, exception);
+    verify(mockLogger, never()).trace(anyString(), any(Throwable.class));
+    verify(mockLogger, never()).debug(anyString(), any(Throwable.class));
+    verify(mockLogger, never()).info(anyString(), any(Throwable.class));
+  }
+
+  @Test
+  public void testLazyArgument_EvaluatedOnce() {
+    int[] calls = new int[1];
+    Object argument =
+        WorkflowLogger.lazy(
+            () -> {
+              calls[0]++;
+              return "value";
+            });
+    assertEquals(0, calls[0]);
+    assertEquals("value", argument.toString());
+    assertEquals("value", argument.toString());
+    assertEquals(1, calls[0]);
+  }
 }
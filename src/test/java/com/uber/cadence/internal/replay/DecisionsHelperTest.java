@@ -18,10 +18,13 @@
 package com.uber.cadence.internal.replay;
 
 import com.google.common.collect.ImmutableList;
+import com.uber.cadence.ActivityTaskCancelRequestedEventAttributes;
 import com.uber.cadence.Decision;
 import com.uber.cadence.DecisionType;
 import com.uber.cadence.HistoryEvent;
 import com.uber.cadence.ScheduleActivityTaskDecisionAttributes;
+import com.uber.cadence.StartTimerDecisionAttributes;
+import com.uber.cadence.TimerFiredEventAttributes;
 import java.util.Collections;
 import java.util.List;
 import junit.framework.TestCase;
@@ -113,4 +116,69 @@ public class DecisionsHelperTest extends TestCase {
     // The decision is sent so it's not returned anymore
     assertEquals(0, decisionsHelper.getDecisions().size());
   }
+
+  @Test
+  public void testCompletedDecisionsArePruned() {
+    DecisionsHelper decisionsHelper = new DecisionsHelper(null, null);
+    HistoryHelper.DecisionEvents decisionEvents =
+        new HistoryHelper.DecisionEvents(
+            Collections.emptyList(), ImmutableList.of(new HistoryEvent()), false, 123, 456);
+    decisionsHelper.handleDecisionTaskStartedEvent(decisionEvents);
+
+    ScheduleActivityTaskDecisionAttributes completed =
+        new ScheduleActivityTaskDecisionAttributes().setActivityId("completed");
+    ScheduleActivityTaskDecisionAttributes pending =
+        new ScheduleActivityTaskDecisionAttributes().setActivityId("pending");
+    long completedId = decisionsHelper.scheduleActivityTask(completed);
+    long pendingId = decisionsHelper.scheduleActivityTask(pending);
+    decisionsHelper.notifyDecisionSent();
+
+    decisionsHelper.handleActivityTaskScheduled(new HistoryEvent().setEventId(completedId));
+    decisionsHelper.handleActivityTaskScheduled(new HistoryEvent().setEventId(pendingId));
+    assertTrue(decisionsHelper.handleActivityTaskClosed(completedId));
+    decisionsHelper.notifyDecisionSent();
+
+    assertEquals(
+        "DecisionsHelper{stateMachines=1, nextDecisionEventId=458}", decisionsHelper.toString());
+    assertTrue(decisionsHelper.getDecisions().isEmpty());
+    try {
+      decisionsHelper.handleActivityTaskCancelRequested(
+          new HistoryEvent()
+              .setActivityTaskCancelRequestedEventAttributes(
+                  new ActivityTaskCancelRequestedEventAttributes().setActivityId("completed")));
+      fail("unreachable");
+    } catch (Error e) {
+      assertEquals("Unknown activityID: completed", e.getMessage());
+    }
+    assertTrue(decisionsHelper.handleActivityTaskClosed(pendingId));
+  }
+
+  @Test
+  public void testCancelOfPrunedTimerIsIgnored() {
+    DecisionsHelper decisionsHelper = new DecisionsHelper(null, null);
+    HistoryHelper.DecisionEvents decisionEvents =
+        new HistoryHelper.DecisionEvents(
+            Collections.emptyList(), ImmutableList.of(new HistoryEvent()), false, 123, 456);
+    decisionsHelper.handleDecisionTaskStartedEvent(decisionEvents);
+
+    long timerId =
+        decisionsHelper.startTimer(new StartTimerDecisionAttributes().setTimerId("timer"));
+    decisionsHelper.notifyDecisionSent();
+    decisionsHelper.handleTimerStarted(new HistoryEvent().setEventId(timerId));
+    assertTrue(
+        decisionsHelper.handleTimerClosed(
+            new TimerFiredEventAttributes().setStartedEventId(timerId)));
+    decisionsHelper.notifyDecisionSent();
+    assertEquals(
+        "DecisionsHelper{stateMachines=0, nextDecisionEventId=457}", decisionsHelper.toString());
+
+    // Cancellation callbacks of a fired timer can still run after its state machine is gone.
+    assertTrue(
+        decisionsHelper.cancelTimer(
+            timerId,
+            () -> {
+              throw new AssertionError("the timer is already fired");
+            }));
+    assertTrue(decisionsHelper.getDecisions().isEmpty());
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.replay;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import com.uber.cadence.ActivityTaskCompletedEventAttributes;
+import com.uber.cadence.ActivityTaskScheduledEventAttributes;
+import com.uber.cadence.EventType;
+import com.uber.cadence.Header;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.TimerStartedEventAttributes;
+import org.junit.Test;
+
+public class HistoryEventSizeEstimatorTest {
+
+  @Test
+  public void testPayloadSize() {
+    HistoryEvent scheduled =
+        new HistoryEvent()
+            .setEventType(EventType.ActivityTaskScheduled)
+            .setActivityTaskScheduledEventAttributes(
+                new ActivityTaskScheduledEventAttributes()
+                    .setInput(new byte[10])
+                    .setHeader(new Header().setFields(ImmutableMap.of("key", new byte[5]))));
+    assertEquals(18, HistoryEventSizeEstimator.estimatePayloadSize(scheduled));
+
+    HistoryEvent completed =
+        new HistoryEvent()
+            .setEventType(EventType.ActivityTaskCompleted)
+            .setActivityTaskCompletedEventAttributes(
+                new ActivityTaskCompletedEventAttributes().setResult(new byte[7]));
+    assertEquals(7, HistoryEventSizeEstimator.estimatePayloadSize(completed));
+  }
+
+  @Test
+  public void testEventsWithoutPayload() {
+    HistoryEvent timer =
+        new HistoryEvent()
+            .setEventType(EventType.TimerStarted)
+            .setTimerStartedEventAttributes(new TimerStartedEventAttributes().setTimerId("1"));
+    assertEquals(0, HistoryEventSizeEstimator.estimatePayloadSize(timer));
+
+    HistoryEvent missingAttributes =
+        new HistoryEvent().setEventType(EventType.ActivityTaskCompleted);
+    assertEquals(0, HistoryEventSizeEstimator.estimatePayloadSize(missingAttributes));
+  }
+}
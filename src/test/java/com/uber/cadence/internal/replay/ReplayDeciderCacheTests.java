@@ -33,12 +33,14 @@ import com.uber.cadence.internal.testservice.TestWorkflowService;
 import com.uber.cadence.internal.worker.SingleWorkerOptions;
 import com.uber.cadence.internal.worker.WorkflowExecutionException;
 import com.uber.cadence.testUtils.HistoryUtils;
+import com.uber.cadence.worker.StickyCacheInfo.EvictionReason;
 import com.uber.cadence.worker.WorkflowImplementationOptions;
 import com.uber.m3.tally.RootScopeBuilder;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.StatsReporter;
 import com.uber.m3.util.Duration;
 import com.uber.m3.util.ImmutableMap;
+import java.util.List;
 import java.util.Map;
 import junit.framework.TestCase;
 import org.junit.Test;
@@ -232,6 +234,54 @@ public class ReplayDeciderCacheTests {
     assertEquals(1, replayDeciderCache.size());
   }
 
+  @Test
+  public void entriesAndEvictionReasonsAreTracked() throws Exception {
+    // Arrange
+    DeciderCache replayDeciderCache = new DeciderCache(2, NoopScope.getInstance());
+    PollForDecisionTaskResponse decisionTask1 =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    PollForDecisionTaskResponse decisionTask2 =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    PollForDecisionTaskResponse decisionTask3 =
+        HistoryUtils.generateDecisionTaskWithInitialHistory();
+    String workflowType = decisionTask1.getWorkflowType().getName();
+
+    // Act
+    replayDeciderCache.addToCache(decisionTask1, createFakeDecider(decisionTask1));
+    replayDeciderCache.addToCache(decisionTask2, createFakeDecider(decisionTask2));
+    replayDeciderCache.addToCache(decisionTask3, createFakeDecider(decisionTask3));
+
+    // Assert
+    List<DeciderCache.Entry> entries = replayDeciderCache.getEntries();
+    assertEquals(2, entries.size());
+    assertEquals(decisionTask2.getWorkflowExecution(), entries.get(0).getExecution());
+    assertEquals(decisionTask3.getWorkflowExecution(), entries.get(1).getExecution());
+    assertEquals(workflowType, entries.get(0).getWorkflowType());
+    assertFalse(entries.get(0).isPinned());
+    assertEquals(1, getEvictionCount(replayDeciderCache, EvictionReason.CAPACITY));
+
+    // A full history task replaces the cached state.
+    replayDeciderCache.getOrCreate(decisionTask2, () -> createFakeDecider(decisionTask2));
+    assertEquals(1, getEvictionCount(replayDeciderCache, EvictionReason.FULL_HISTORY));
+
+    replayDeciderCache.invalidate(
+        decisionTask3.getWorkflowExecution().getRunId(), EvictionReason.ERROR);
+    assertEquals(1, getEvictionCount(replayDeciderCache, EvictionReason.ERROR));
+    assertTrue(replayDeciderCache.getEntries().isEmpty());
+
+    replayDeciderCache.addToCache(decisionTask1, createFakeDecider(decisionTask1));
+    assertTrue(
+        replayDeciderCache.evictAnyNotInProcessing(
+            decisionTask2.getWorkflowExecution().getRunId()));
+    assertEquals(1, getEvictionCount(replayDeciderCache, EvictionReason.THREAD_PRESSURE));
+    assertEquals(0, replayDeciderCache.size());
+    assertTrue(replayDeciderCache.getEntries().isEmpty());
+  }
+
+  private long getEvictionCount(DeciderCache cache, EvictionReason reason) {
+    return cache.getEvictionCounts().get(reason);
+  }
+
   private void assertCacheIsEmpty(DeciderCache cache, String runId) throws Exception {
     Throwable ex = null;
     try {
@@ -284,6 +334,16 @@ public class ReplayDeciderCacheTests {
             return 0;
           }
 
+          @Override
+          public long getThreadWakeUpCount() {
+            return 0;
+          }
+
+          @Override
+          public int getWorkflowThreadCount() {
+            return 0;
+          }
+
           @Override
           public byte[] query(WorkflowQuery query) {
             return new byte[0];
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.uber.cadence.internal.metrics.MetricsType;
+import com.uber.cadence.internal.replay.ReplayPhaseTimer.Phase;
+import com.uber.m3.tally.Counter;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.Timer;
+import com.uber.m3.util.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ReplayPhaseTimerTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final ReplayPhaseTimer phaseTimer = new ReplayPhaseTimer(nanoTime::get);
+
+  @Test
+  public void testNestedPhasePausesEnclosingPhase() {
+    phaseTimer.enter(Phase.EVENT_REPLAY);
+    nanoTime.addAndGet(10);
+    phaseTimer.enter(Phase.LOCAL_ACTIVITY);
+    nanoTime.addAndGet(20);
+    phaseTimer.enter(Phase.WORKFLOW_CODE);
+    nanoTime.addAndGet(40);
+    phaseTimer.exit();
+    nanoTime.addAndGet(5);
+    phaseTimer.exit();
+    nanoTime.addAndGet(3);
+    phaseTimer.exit();
+    nanoTime.addAndGet(100);
+
+    assertEquals(13, phaseTimer.getElapsedNanos(Phase.EVENT_REPLAY));
+    assertEquals(25, phaseTimer.getElapsedNanos(Phase.LOCAL_ACTIVITY));
+    assertEquals(40, phaseTimer.getElapsedNanos(Phase.WORKFLOW_CODE));
+    assertEquals(0, phaseTimer.getElapsedNanos(Phase.HISTORY_FETCH));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testExitWithoutEnter() {
+    phaseTimer.exit();
+  }
+
+  @Test
+  public void testReportOnlyEnteredPhasesAndNonZeroCounters() {
+    Scope scope = mock(Scope.class);
+    Timer timer = mock(Timer.class);
+    Counter counter = mock(Counter.class);
+    when(scope.timer(anyString())).thenReturn(timer);
+    when(scope.counter(anyString())).thenReturn(counter);
+
+    phaseTimer.enter(Phase.EVENT_REPLAY);
+    phaseTimer.enter(Phase.HISTORY_FETCH);
+    nanoTime.addAndGet(7);
+    phaseTimer.exit();
+    phaseTimer.addHistoryPageFetched();
+    phaseTimer.addEventsReplayed(12);
+    nanoTime.addAndGet(2);
+    phaseTimer.exit();
+    phaseTimer.report(scope);
+
+    verify(scope).timer(MetricsType.DECISION_EVENT_REPLAY_LATENCY);
+    verify(scope).timer(MetricsType.DECISION_HISTORY_FETCH_LATENCY);
+    verify(scope, never()).timer(MetricsType.DECISION_WORKFLOW_CODE_LATENCY);
+    verify(scope, never()).timer(MetricsType.DECISION_LOCAL_ACTIVITY_LATENCY);
+    verify(timer).record(Duration.ofNanos(7));
+    verify(timer).record(Duration.ofNanos(2));
+    verify(scope).counter(MetricsType.DECISION_EVENTS_REPLAYED_COUNTER);
+    verify(scope).counter(MetricsType.DECISION_HISTORY_PAGES_COUNTER);
+    verify(scope, never()).counter(MetricsType.DECISION_THREADS_WOKEN_COUNTER);
+    verify(counter).inc(12);
+    verify(counter).inc(1);
+  }
+}
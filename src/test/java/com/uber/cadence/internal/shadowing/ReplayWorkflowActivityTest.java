@@ -30,6 +30,7 @@ import com.uber.cadence.DataBlob;
 import com.uber.cadence.DecisionTaskCompletedEventAttributes;
 import com.uber.cadence.DecisionTaskScheduledEventAttributes;
 import com.uber.cadence.DecisionTaskStartedEventAttributes;
+import com.uber.cadence.GetWorkflowExecutionHistoryRequest;
 import com.uber.cadence.GetWorkflowExecutionHistoryResponse;
 import com.uber.cadence.History;
 import com.uber.cadence.HistoryEvent;
@@ -48,8 +49,12 @@ import com.uber.m3.tally.RootScopeBuilder;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.util.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -236,4 +241,80 @@ public class ReplayWorkflowActivityTest {
     ReplayWorkflowActivityResult result = activityStub.replay(params);
     assertEquals(1, result.getFailed());
   }
+
+  @Test
+  public void testReplay_ParallelAggregatesResultsInOrder() throws Exception {
+    ReplayWorkflowActivityImpl parallelActivity =
+        new ReplayWorkflowActivityImpl(
+            mockServiceClient,
+            metricsScope,
+            "test",
+            new TestEnvironmentOptions.Builder()
+                .setDataConverter(JsonDataConverter.getInstance())
+                .build(),
+            3);
+    parallelActivity.registerWorkflowImplementationTypes(
+        WorkflowTestingTest.EmptyWorkflowImpl.class);
+    TestActivityEnvironment parallelEnv = TestActivityEnvironment.newInstance();
+    parallelEnv.registerActivitiesImplementations(parallelActivity);
+    List<Integer> heartbeatIndexes = Collections.synchronizedList(new ArrayList<>());
+    parallelEnv.setActivityHeartbeatListener(
+        HeartbeatIndex.class, (detail) -> heartbeatIndexes.add(detail.replayExecutionIndex));
+
+    // Executions 0, 3, 6 succeed, 1, 4 fail and 2, 5 are skipped.
+    HistoryEvent skippedStartedEvent =
+        new HistoryEvent()
+            .setEventId(1)
+            .setVersion(1)
+            .setEventType(WorkflowExecutionStarted)
+            .setWorkflowExecutionStartedEventAttributes(
+                new WorkflowExecutionStartedEventAttributes()
+                    .setAttempt(1)
+                    .setWorkflowType(new WorkflowType().setName("TestWorkflow::workflow1")));
+    List<List<HistoryEvent>> histories =
+        Lists.newArrayList(
+            Lists.newArrayList(historyEvents.get(0), historyEvents.get(1)),
+            historyEvents,
+            Lists.newArrayList(skippedStartedEvent));
+    List<WorkflowExecution> executions = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      executions.add(new WorkflowExecution("wid", String.valueOf(i)));
+    }
+    // The first history is returned only after the fourth one is requested, so the executions are
+    // fetched and replayed concurrently and complete out of order.
+    CountDownLatch laterRequested = new CountDownLatch(1);
+    when(mockServiceClient.GetWorkflowExecutionHistory(any()))
+        .thenAnswer(
+            invocation -> {
+              GetWorkflowExecutionHistoryRequest request = invocation.getArgument(0);
+              int index = Integer.parseInt(request.getExecution().getRunId());
+              if (index == 3) {
+                laterRequested.countDown();
+              } else if (index == 0) {
+                assertTrue(laterRequested.await(10, TimeUnit.SECONDS));
+              }
+              return new GetWorkflowExecutionHistoryResponse()
+                  .setHistory(new History().setEvents(histories.get(index % 3)));
+            });
+
+    ReplayWorkflowActivityParams params = new ReplayWorkflowActivityParams();
+    params.setDomain(domain);
+    params.setExecutions(executions);
+    ReplayWorkflowActivityResult result =
+        parallelEnv.newActivityStub(ReplayWorkflowActivity.class).replay(params);
+
+    assertEquals(3, result.getSucceeded());
+    assertEquals(2, result.getFailed());
+    assertEquals(2, result.getSkipped());
+    // A heartbeat at an index means that all the executions up to it are done.
+    assertFalse(heartbeatIndexes.isEmpty());
+    for (int i = 1; i < heartbeatIndexes.size(); i++) {
+      assertTrue(
+          heartbeatIndexes.toString(), heartbeatIndexes.get(i - 1) < heartbeatIndexes.get(i));
+    }
+  }
+
+  public static class HeartbeatIndex {
+    int replayExecutionIndex;
+  }
 }
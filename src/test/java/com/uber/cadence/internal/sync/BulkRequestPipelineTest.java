@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.cadence.client.BulkOptions;
+import com.uber.cadence.client.BulkResult;
+import com.uber.cadence.client.BulkSignalRequest;
+import com.uber.cadence.client.WorkflowOptions;
+import com.uber.cadence.client.WorkflowStub;
+import com.uber.cadence.testing.TestWorkflowEnvironment;
+import com.uber.m3.tally.NoopScope;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+public class BulkRequestPipelineTest {
+
+  @Test
+  public void testInFlightRequestsAreBounded() {
+    List<CompletableFuture<String>> requests = new ArrayList<>();
+    BulkRequestPipeline<Integer, String> pipeline =
+        new BulkRequestPipeline<>(
+            Arrays.asList(0, 1, 2, 3, 4).iterator(),
+            (item) -> {
+              CompletableFuture<String> request = new CompletableFuture<>();
+              requests.add(request);
+              return request;
+            },
+            (item, result) -> "workflow-" + item,
+            2,
+            new NoopScope());
+
+    assertTrue(pipeline.hasNext());
+    assertEquals(2, requests.size());
+    requests.get(1).complete("second");
+    BulkResult<String> result = pipeline.next();
+    assertEquals(1, result.getIndex());
+    assertEquals("workflow-1", result.getWorkflowId());
+    assertEquals("second", result.getResult());
+
+    // Consuming a result frees a slot for the next item.
+    assertTrue(pipeline.hasNext());
+    assertEquals(3, requests.size());
+    for (CompletableFuture<String> request : requests) {
+      request.complete("done");
+    }
+    int remaining = 0;
+    while (pipeline.hasNext()) {
+      pipeline.next();
+      for (int i = 0; i < requests.size(); i++) {
+        requests.get(i).complete("done");
+      }
+      remaining++;
+    }
+    assertEquals(4, remaining);
+    assertEquals(5, requests.size());
+  }
+
+  @Test
+  public void testFailuresArePerItem() {
+    IllegalStateException error = new IllegalStateException("simulated");
+    BulkRequestPipeline<Integer, String> pipeline =
+        new BulkRequestPipeline<>(
+            Arrays.asList(0, 1, 2).iterator(),
+            (item) -> {
+              if (item == 1) {
+                throw error;
+              }
+              CompletableFuture<String> request = new CompletableFuture<>();
+              if (item == 2) {
+                request.completeExceptionally(error);
+              } else {
+                request.complete("ok");
+              }
+              return request;
+            },
+            (item, result) -> "workflow-" + item,
+            10,
+            new NoopScope());
+
+    Map<Integer, BulkResult<String>> results = new HashMap<>();
+    while (pipeline.hasNext()) {
+      BulkResult<String> result = pipeline.next();
+      results.put(result.getIndex(), result);
+    }
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccess());
+    assertFalse(results.get(1).isSuccess());
+    assertEquals(error, results.get(1).getFailure());
+    assertNull(results.get(2).getResult());
+    assertEquals(error, results.get(2).getFailure());
+  }
+
+  @Test
+  public void testWorkflowIdFailureStillDeliversResult() {
+    IllegalStateException error = new IllegalStateException("simulated");
+    BulkRequestPipeline<Integer, String> pipeline =
+        new BulkRequestPipeline<>(
+            Arrays.asList(0).iterator(),
+            (item) -> CompletableFuture.completedFuture("ok"),
+            (item, result) -> {
+              throw error;
+            },
+            10,
+            new NoopScope());
+
+    assertTrue(pipeline.hasNext());
+    BulkResult<String> result = pipeline.next();
+    assertNull(result.getWorkflowId());
+    assertEquals(error, result.getFailure());
+    assertFalse(pipeline.hasNext());
+  }
+
+  @Test
+  public void testSignalAllWithUnstartedStub() {
+    TestWorkflowEnvironment env = TestWorkflowEnvironment.newInstance();
+    try {
+      WorkflowStub stub =
+          env.newWorkflowClient()
+              .newUntypedWorkflowStub(
+                  "workflowType",
+                  new WorkflowOptions.Builder()
+                      .setWorkflowId("workflowId")
+                      .setTaskList("taskList")
+                      .setExecutionStartToCloseTimeout(Duration.ofSeconds(10))
+                      .build());
+      Iterator<BulkResult<Void>> results =
+          env.newWorkflowClient()
+              .signalAll(
+                  Collections.singletonList(BulkSignalRequest.of(stub, "signal")),
+                  BulkOptions.defaultInstance());
+
+      assertTrue(results.hasNext());
+      BulkResult<Void> result = results.next();
+      assertEquals("workflowId", result.getWorkflowId());
+      assertTrue(result.getFailure() instanceof IllegalStateException);
+      assertFalse(results.hasNext());
+    } finally {
+      env.close();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import com.uber.cadence.workflow.Async;
+import com.uber.cadence.workflow.CompletablePromise;
+import com.uber.cadence.workflow.Promise;
+import com.uber.cadence.workflow.Workflow;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single {@link DeterministicRunner#runUntilAllBlocked()} call for a
+ * workflow that fans out into many branches parked on promises while only one of them is unblocked
+ * per decision. Not run as part of the test suite. Usage:
+ *
+ * <pre>
+ * java com.uber.cadence.internal.sync.DeterministicRunnerFanOutBenchmark [width...]
+ * </pre>
+ */
+public class DeterministicRunnerFanOutBenchmark {
+
+  private static final int DECISIONS = 200;
+
+  public static void main(String[] args) throws Throwable {
+    int[] widths = {10, 100, 500, 1000, 2000};
+    if (args.length > 0) {
+      widths = new int[args.length];
+      for (int i = 0; i < args.length; i++) {
+        widths[i] = Integer.parseInt(args[i]);
+      }
+    }
+    // Warm up
+    run(100);
+    for (int width : widths) {
+      long nanos = run(width);
+      System.out.printf(
+          "width=%d decisions=%d avg per decision=%.1f us%n",
+          width, DECISIONS, nanos / 1000.0 / DECISIONS);
+    }
+  }
+
+  private static long run(int width) throws Throwable {
+    ThreadPoolExecutor threadPool =
+        new ThreadPoolExecutor(0, width + 10, 1, TimeUnit.SECONDS, new SynchronousQueue<>());
+    List<CompletablePromise<Void>> promises = new ArrayList<>(width);
+    DeterministicRunnerImpl runner =
+        new DeterministicRunnerImpl(
+            threadPool,
+            null,
+            System::currentTimeMillis,
+            () -> {
+              List<Promise<Void>> branches = new ArrayList<>(width);
+              for (int i = 0; i < width; i++) {
+                CompletablePromise<Void> promise = Workflow.newPromise();
+                promises.add(promise);
+                branches.add(Async.procedure(promise::get));
+              }
+              Promise.allOf(branches).get();
+            });
+    try {
+      runner.runUntilAllBlocked();
+      int decisions = Math.min(DECISIONS, width);
+      long start = System.nanoTime();
+      for (int i = 0; i < decisions; i++) {
+        CompletablePromise<Void> promise = promises.get(i);
+        runner.executeInWorkflowThread("complete", () -> promise.complete(null));
+        runner.runUntilAllBlocked();
+      }
+      return (System.nanoTime() - start) * DECISIONS / decisions;
+    } finally {
+      runner.close();
+      threadPool.shutdown();
+    }
+  }
+}
@@ -42,6 +42,7 @@ import com.uber.cadence.workflow.CompletablePromise;
 import com.uber.cadence.workflow.Functions;
 import com.uber.cadence.workflow.Promise;
 import com.uber.cadence.workflow.Workflow;
+import com.uber.cadence.workflow.WorkflowQueue;
 import com.uber.cadence.workflow.WorkflowTest;
 import com.uber.m3.tally.RootScopeBuilder;
 import com.uber.m3.tally.Scope;
@@ -866,6 +867,11 @@ public class DeterministicRunnerTest {
     public void close() {
       runner.close();
     }
+
+    @Override
+    public int getWorkflowThreadCount() {
+      return runner.getThreadCount();
+    }
   }
 
   @Test
@@ -891,4 +897,80 @@ public class DeterministicRunnerTest {
       assertTrue(t instanceof WorkflowRejectedExecutionError);
     }
   }
+
+  @Test
+  public void testThreadsParkedOnPromisesResumeInOrder() throws Throwable {
+    List<CompletablePromise<String>> promises = new ArrayList<>();
+    List<String> completed = new ArrayList<>();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            () -> {
+              List<Promise<Void>> branches = new ArrayList<>();
+              for (int i = 0; i < 5; i++) {
+                CompletablePromise<String> promise = Workflow.newPromise();
+                promises.add(promise);
+                branches.add(Async.procedure(() -> completed.add(promise.get())));
+              }
+              Promise.allOf(branches).get();
+              status = "done";
+            });
+    d.runUntilAllBlocked();
+    assertTrue(completed.isEmpty());
+    d.executeInWorkflowThread("complete 3", () -> promises.get(3).complete("3"));
+    d.runUntilAllBlocked();
+    assertEquals(1, completed.size());
+    assertEquals("3", completed.get(0));
+    d.executeInWorkflowThread(
+        "complete rest",
+        () -> {
+          promises.get(4).complete("4");
+          promises.get(0).complete("0");
+          promises.get(2).complete("2");
+          promises.get(1).complete("1");
+        });
+    d.runUntilAllBlocked();
+    // Unparked threads keep their creation order regardless of the completion order.
+    assertEquals("[3, 0, 1, 2, 4]", completed.toString());
+    assertEquals("done", status);
+    assertTrue(d.isDone());
+  }
+
+  @Test
+  public void testThreadsParkedOnQueue() throws Throwable {
+    List<String> taken = new ArrayList<>();
+    AtomicReference<WorkflowQueue<String>> queue = new AtomicReference<>();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            () -> {
+              queue.set(Workflow.newQueue(1));
+              for (int i = 0; i < 2; i++) {
+                String name = "taker" + i;
+                Async.procedure(
+                    () -> {
+                      try {
+                        while (true) {
+                          taken.add(name + ":" + queue.get().take());
+                        }
+                      } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                      }
+                    });
+              }
+              try {
+                queue.get().put("a");
+                queue.get().put("b");
+                queue.get().put("c");
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+              status = "put all";
+            });
+    d.runUntilAllBlocked();
+    assertEquals("put all", status);
+    assertEquals("[taker0:a, taker0:b, taker0:c]", taken.toString());
+    d.executeInWorkflowThread("signal", () -> queue.get().offer("d"));
+    d.runUntilAllBlocked();
+    assertEquals("[taker0:a, taker0:b, taker0:c, taker0:d]", taken.toString());
+    d.close();
+  }
 }
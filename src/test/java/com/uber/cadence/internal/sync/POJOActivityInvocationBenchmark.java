@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import com.uber.cadence.converter.DataConverter;
+import com.uber.cadence.converter.JsonDataConverter;
+import com.uber.cadence.internal.common.MethodInvoker;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the per-invocation overhead of calling a small activity method the way {@link
+ * POJOActivityTaskHandler} does: deserializing the arguments, invoking the method and serializing
+ * the result. Compares {@link Method#invoke(Object, Object...)} with {@link MethodInvoker}. Not run
+ * as part of the test suite. Usage:
+ *
+ * <pre>
+ * java com.uber.cadence.internal.sync.POJOActivityInvocationBenchmark [iterations]
+ * </pre>
+ */
+public class POJOActivityInvocationBenchmark {
+
+  public interface SmallActivity {
+    int add(int a, int b);
+  }
+
+  public static class SmallActivityImpl implements SmallActivity {
+    @Override
+    public int add(int a, int b) {
+      return a + b;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    Method method = SmallActivity.class.getMethod("add", int.class, int.class);
+    MethodInvoker invoker = new MethodInvoker(method);
+    SmallActivity activity = new SmallActivityImpl();
+    Object[] directArgs = {1, 2};
+    DataConverter converter = JsonDataConverter.getInstance();
+    byte[] input = converter.toData(1, 2);
+
+    for (int round = 0; round < 3; round++) {
+      long reflection = 0;
+      long handle = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        reflection += (Integer) method.invoke(activity, directArgs);
+      }
+      long reflectionNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        handle += (Integer) invoker.invoke(activity, directArgs);
+      }
+      long handleNanos = System.nanoTime() - start;
+      if (reflection != handle) {
+        throw new AssertionError();
+      }
+      System.out.printf(
+          "invoke only:   reflection=%.1f ns invoker=%.1f ns%n",
+          (double) reflectionNanos / iterations, (double) handleNanos / iterations);
+
+      int converted = iterations / 10;
+      start = System.nanoTime();
+      for (int i = 0; i < converted; i++) {
+        Object[] a = converter.fromDataArray(input, method.getGenericParameterTypes());
+        converter.toData(method.invoke(activity, a));
+      }
+      reflectionNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < converted; i++) {
+        Object[] a = converter.fromDataArray(input, invoker.getParameterTypes());
+        converter.toData(invoker.invoke(activity, a));
+      }
+      handleNanos = System.nanoTime() - start;
+      System.out.printf(
+          "with converter: reflection=%.1f ns invoker=%.1f ns%n",
+          (double) reflectionNanos / converted, (double) handleNanos / converted);
+    }
+  }
+}
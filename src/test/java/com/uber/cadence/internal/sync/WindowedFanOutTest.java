@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.cadence.workflow.CompletablePromise;
+import com.uber.cadence.workflow.Promise;
+import com.uber.cadence.workflow.Workflow;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class WindowedFanOutTest {
+
+  @Test
+  public void testWindowBoundsInFlightPromises() throws Throwable {
+    List<CompletablePromise<String>> started = new ArrayList<>();
+    List<List<String>> results = new ArrayList<>();
+    DeterministicRunner r =
+        DeterministicRunner.newRunner(
+            () -> {
+              Promise<List<String>> result =
+                  Workflow.fanOut(
+                      Arrays.asList(0, 1, 2, 3, 4),
+                      2,
+                      (item) -> {
+                        CompletablePromise<String> promise = Workflow.newPromise();
+                        started.add(promise);
+                        return promise;
+                      });
+              assertEquals(2, started.size());
+              started.get(1).complete("b");
+              assertEquals(3, started.size());
+              started.get(0).complete("a");
+              started.get(2).complete("c");
+              assertEquals(5, started.size());
+              started.get(4).complete("e");
+              assertFalse(result.isCompleted());
+              started.get(3).complete("d");
+              results.add(result.get());
+            });
+    r.runUntilAllBlocked();
+    assertTrue(r.isDone());
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e"), results.get(0));
+  }
+
+  @Test
+  public void testCompletedPromisesDoNotRecurse() throws Throwable {
+    List<Integer> streamed = new ArrayList<>();
+    DeterministicRunner r =
+        DeterministicRunner.newRunner(
+            () ->
+                Workflow.fanOut(
+                        IntStream.range(0, 100_000).boxed().collect(Collectors.toList()),
+                        10,
+                        Workflow::newPromise,
+                        (item, value) -> streamed.add(value))
+                    .get());
+    r.runUntilAllBlocked();
+    assertTrue(r.isDone());
+    assertEquals(100_000, streamed.size());
+    assertEquals(99_999, (int) streamed.get(99_999));
+  }
+
+  @Test
+  public void testFailureStopsStartingItems() throws Throwable {
+    List<Integer> started = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    DeterministicRunner r =
+        DeterministicRunner.newRunner(
+            () -> {
+              Promise<List<Integer>> result =
+                  Workflow.fanOut(
+                      Arrays.asList(0, 1, 2, 3, 4),
+                      1,
+                      (item) -> {
+                        started.add(item);
+                        return item == 1
+                            ? Workflow.newFailedPromise(new IllegalStateException("item 1"))
+                            : Workflow.newPromise(item);
+                      });
+              failures.add(result.getFailure());
+            });
+    r.runUntilAllBlocked();
+    assertTrue(r.isDone());
+    assertEquals(Arrays.asList(0, 1), started);
+    assertEquals("item 1", failures.get(0).getMessage());
+  }
+}
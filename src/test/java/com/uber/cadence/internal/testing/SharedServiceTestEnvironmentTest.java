@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.cadence.ListClosedWorkflowExecutionsRequest;
+import com.uber.cadence.client.WorkflowClient;
+import com.uber.cadence.client.WorkflowClientOptions;
+import com.uber.cadence.internal.sync.TestWorkflowEnvironmentInternal.WorkflowServiceWrapper;
+import com.uber.cadence.testing.SharedTestService;
+import com.uber.cadence.testing.TestEnvironmentOptions;
+import com.uber.cadence.testing.TestWorkflowEnvironment;
+import com.uber.cadence.worker.Worker;
+import com.uber.cadence.workflow.Workflow;
+import com.uber.cadence.workflow.WorkflowMethod;
+import java.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+public class SharedServiceTestEnvironmentTest {
+
+  @Rule public Timeout globalTimeout = Timeout.seconds(60);
+
+  private static final String TASK_LIST = "test-shared-service";
+
+  private SharedTestService sharedService;
+  private TestWorkflowEnvironment env1;
+  private TestWorkflowEnvironment env2;
+
+  @Before
+  public void setUp() {
+    sharedService = SharedTestService.newInstance();
+    TestEnvironmentOptions options = new TestEnvironmentOptions.Builder().build();
+    env1 = TestWorkflowEnvironment.newSharedServiceInstance(sharedService, options);
+    env2 = TestWorkflowEnvironment.newSharedServiceInstance(sharedService, options);
+  }
+
+  @After
+  public void tearDown() {
+    env1.close();
+    env2.close();
+    sharedService.close();
+  }
+
+  public interface SleepingWorkflow {
+
+    @WorkflowMethod(executionStartToCloseTimeoutSeconds = 3600 * 24, taskList = TASK_LIST)
+    String sleep(String input);
+  }
+
+  public static class SleepingWorkflowImpl implements SleepingWorkflow {
+
+    @Override
+    public String sleep(String input) {
+      Workflow.sleep(Duration.ofHours(1));
+      return Workflow.getWorkflowInfo().getDomain() + "-" + input;
+    }
+  }
+
+  private static String run(TestWorkflowEnvironment env, String input) {
+    WorkflowClient client = env.newWorkflowClient();
+    return client.newWorkflowStub(SleepingWorkflow.class).sleep(input);
+  }
+
+  @Test
+  public void testEnvironmentsHaveIndependentTimeSkipping() throws Exception {
+    assertNotEquals(env1.getDomain(), env2.getDomain());
+    for (TestWorkflowEnvironment env : new TestWorkflowEnvironment[] {env1, env2}) {
+      Worker worker = env.newWorker(TASK_LIST);
+      worker.registerWorkflowImplementationTypes(SleepingWorkflowImpl.class);
+      env.start();
+    }
+    // Prevents any time skipping in the second environment
+    ((WorkflowServiceWrapper) env2.getWorkflowService()).lockTimeSkipping("unit test");
+    long env2Start = env2.currentTimeMillis();
+
+    long env1Start = env1.currentTimeMillis();
+    assertEquals(env1.getDomain() + "-input1", run(env1, "input1"));
+    assertTrue(env1.currentTimeMillis() - env1Start >= Duration.ofHours(1).toMillis());
+    assertTrue(env2.currentTimeMillis() - env2Start < Duration.ofMinutes(1).toMillis());
+
+    ((WorkflowServiceWrapper) env2.getWorkflowService()).unlockTimeSkipping("unit test");
+    assertEquals(env2.getDomain() + "-input2", run(env2, "input2"));
+
+    assertEquals(
+        1,
+        env2.getWorkflowService()
+            .ListClosedWorkflowExecutions(
+                new ListClosedWorkflowExecutionsRequest().setDomain(env1.getDomain()))
+            .getExecutions()
+            .size());
+  }
+
+  @Test
+  public void testClosedEnvironmentIsReleased() throws Exception {
+    Worker worker = env1.newWorker(TASK_LIST);
+    worker.registerWorkflowImplementationTypes(SleepingWorkflowImpl.class);
+    env1.start();
+    run(env1, "input1");
+    String domain = env1.getDomain();
+    env1.close();
+    assertEquals(
+        0,
+        env2.getWorkflowService()
+            .ListClosedWorkflowExecutions(
+                new ListClosedWorkflowExecutionsRequest().setDomain(domain))
+            .getExecutions()
+            .size());
+
+    // The shared service is still usable by other environments
+    env1 = TestWorkflowEnvironment.newSharedServiceInstance(sharedService, null);
+    Worker newWorker = env1.newWorker(TASK_LIST);
+    newWorker.registerWorkflowImplementationTypes(SleepingWorkflowImpl.class);
+    env1.start();
+    assertEquals(env1.getDomain() + "-input2", run(env1, "input2"));
+  }
+
+  @Test
+  public void testClientsUseTheEnvironmentDomain() {
+    Worker worker = env1.newWorker(TASK_LIST);
+    worker.registerWorkflowImplementationTypes(SleepingWorkflowImpl.class);
+    env1.start();
+    WorkflowClient client =
+        env1.newWorkflowClient(WorkflowClientOptions.newBuilder().setDomain("other").build());
+    assertEquals(env1.getDomain(), client.getOptions().getDomain());
+    assertEquals(
+        env1.getDomain() + "-input", client.newWorkflowStub(SleepingWorkflow.class).sleep("input"));
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.uber.cadence.CompleteWorkflowExecutionDecisionAttributes;
+import com.uber.cadence.Decision;
+import com.uber.cadence.DecisionType;
+import com.uber.cadence.EventType;
+import com.uber.cadence.GetWorkflowExecutionHistoryRequest;
+import com.uber.cadence.HistoryEvent;
+import com.uber.cadence.ListClosedWorkflowExecutionsRequest;
+import com.uber.cadence.ListClosedWorkflowExecutionsResponse;
+import com.uber.cadence.MarkerRecordedEventAttributes;
+import com.uber.cadence.PollForDecisionTaskRequest;
+import com.uber.cadence.PollForDecisionTaskResponse;
+import com.uber.cadence.RespondDecisionTaskCompletedRequest;
+import com.uber.cadence.StartWorkflowExecutionRequest;
+import com.uber.cadence.StartWorkflowExecutionResponse;
+import com.uber.cadence.TaskList;
+import com.uber.cadence.WorkflowExecution;
+import com.uber.cadence.WorkflowType;
+import com.uber.cadence.internal.testservice.HistoryStorage.EventLog;
+import com.uber.cadence.testing.FileHistoryStorageOptions;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileHistoryStorageTest {
+
+  private static final String DOMAIN = "domain1";
+  private static final String TASK_LIST = "task-list1";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private FileHistoryStorageOptions options(int segmentSizeBytes) {
+    return FileHistoryStorageOptions.newBuilder(folder.getRoot().toPath())
+        .setSegmentSizeBytes(segmentSizeBytes)
+        .setFlushInterval(Duration.ofMillis(10))
+        .build();
+  }
+
+  private static HistoryEvent marker(int index) {
+    return new HistoryEvent()
+        .setEventId(index + 1)
+        .setEventType(EventType.MarkerRecorded)
+        .setMarkerRecordedEventAttributes(
+            new MarkerRecordedEventAttributes()
+                .setMarkerName("marker" + index)
+                .setDetails(("details" + index).getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testEventsSpanSegmentsAndAreRecovered() {
+    ExecutionId id1 = new ExecutionId(DOMAIN, "workflow1", "run1");
+    ExecutionId id2 = new ExecutionId(DOMAIN, "workflow2", "run1");
+    FileHistoryStorage storage = new FileHistoryStorage(options(1024));
+    EventLog log1 = storage.newEventLog(id1);
+    EventLog log2 = storage.newEventLog(id2);
+    for (int i = 0; i < 100; i++) {
+      log1.add(marker(i));
+      log2.add(marker(i * 2));
+    }
+    assertEquals(100, log1.size());
+    assertEquals(marker(7), log1.get(7));
+    assertEquals(marker(14), log2.get(7));
+    assertEquals(Arrays.asList(marker(98), marker(99)), log1.getEvents(98));
+    storage.close();
+    assertTrue(folder.getRoot().list().length > 1);
+
+    FileHistoryStorage reopened = new FileHistoryStorage(options(1024));
+    Map<ExecutionId, EventLog> recovered = reopened.recover();
+    assertEquals(Arrays.asList(id1, id2), Arrays.asList(recovered.keySet().toArray()));
+    assertEquals(log1.getEvents(0), recovered.get(id1).getEvents(0));
+    assertEquals(log2.getEvents(0), recovered.get(id2).getEvents(0));
+
+    // New events go to a new segment after the recovered ones
+    EventLog recoveredLog = recovered.get(id1);
+    recoveredLog.add(marker(100));
+    assertEquals(101, recoveredLog.size());
+    assertEquals(marker(100), recoveredLog.get(100));
+    reopened.close();
+  }
+
+  @Test
+  public void testCorruptedTailIsIgnored() throws Exception {
+    ExecutionId id = new ExecutionId(DOMAIN, "workflow1", "run1");
+    FileHistoryStorage storage = new FileHistoryStorage(options(64 * 1024));
+    EventLog log = storage.newEventLog(id);
+    for (int i = 0; i < 3; i++) {
+      log.add(marker(i));
+    }
+    storage.close();
+
+    File[] segments = folder.getRoot().listFiles();
+    assertEquals(1, segments.length);
+    byte[] json = new Gson().toJson("marker2").getBytes(StandardCharsets.UTF_8);
+    try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+      byte[] content = new byte[(int) file.length()];
+      file.readFully(content);
+      int offset = indexOf(content, json);
+      assertTrue(offset > 0);
+      file.seek(offset);
+      file.write('X');
+    }
+
+    FileHistoryStorage reopened = new FileHistoryStorage(options(64 * 1024));
+    EventLog recovered = reopened.recover().get(id);
+    assertEquals(Arrays.asList(marker(0), marker(1)), recovered.getEvents(0));
+    reopened.close();
+  }
+
+  @Test
+  public void testClosedWorkflowHistoryIsReadableAfterRestart() throws Exception {
+    TestWorkflowService service = new TestWorkflowService(options(64 * 1024));
+    StartWorkflowExecutionResponse started =
+        service.StartWorkflowExecution(
+            new StartWorkflowExecutionRequest()
+                .setDomain(DOMAIN)
+                .setWorkflowId("workflow1")
+                .setWorkflowType(new WorkflowType().setName("type1"))
+                .setTaskList(new TaskList().setName(TASK_LIST))
+                .setExecutionStartToCloseTimeoutSeconds(60)
+                .setTaskStartToCloseTimeoutSeconds(10)
+                .setRequestId("request1"));
+    PollForDecisionTaskResponse task =
+        service.PollForDecisionTask(
+            new PollForDecisionTaskRequest()
+                .setDomain(DOMAIN)
+                .setTaskList(new TaskList().setName(TASK_LIST)));
+    service.RespondDecisionTaskCompleted(
+        new RespondDecisionTaskCompletedRequest()
+            .setTaskToken(task.getTaskToken())
+            .setDecisions(
+                Collections.singletonList(
+                    new Decision()
+                        .setDecisionType(DecisionType.CompleteWorkflowExecution)
+                        .setCompleteWorkflowExecutionDecisionAttributes(
+                            new CompleteWorkflowExecutionDecisionAttributes()
+                                .setResult("done".getBytes(StandardCharsets.UTF_8))))));
+    GetWorkflowExecutionHistoryRequest historyRequest =
+        new GetWorkflowExecutionHistoryRequest()
+            .setDomain(DOMAIN)
+            .setExecution(
+                new WorkflowExecution().setWorkflowId("workflow1").setRunId(started.getRunId()));
+    List<HistoryEvent> history =
+        service.GetWorkflowExecutionHistory(historyRequest).getHistory().getEvents();
+    assertEquals(
+        EventType.WorkflowExecutionCompleted, history.get(history.size() - 1).getEventType());
+    service.close();
+
+    TestWorkflowService restarted = new TestWorkflowService(options(64 * 1024));
+    assertEquals(
+        history, restarted.GetWorkflowExecutionHistory(historyRequest).getHistory().getEvents());
+    ListClosedWorkflowExecutionsResponse closed =
+        restarted.ListClosedWorkflowExecutions(
+            new ListClosedWorkflowExecutionsRequest().setDomain(DOMAIN));
+    assertEquals(1, closed.getExecutions().size());
+    assertEquals(history.size(), closed.getExecutions().get(0).getHistoryLength());
+    restarted.close();
+  }
+
+  private static int indexOf(byte[] content, byte[] pattern) {
+    outer:
+    for (int i = 0; i <= content.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (content[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+}
@@ -18,6 +18,7 @@
 package com.uber.cadence.internal.testservice;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.time.Duration;
@@ -80,4 +81,18 @@ public class SelfAdvancingTimerImplTest {
       assertEquals(expected.get(i), captured.get(i), 50.0);
     }
   }
+
+  @Test
+  public void testCancel() throws InterruptedException {
+    List<String> captured = Collections.synchronizedList(new ArrayList<>());
+    timer.lockTimeSkipping("unit test");
+    TimerHandle canceled = timer.schedule(Duration.ofSeconds(10), () -> captured.add("canceled"));
+    timer.schedule(Duration.ofSeconds(20), () -> captured.add("fired"));
+    assertTrue(canceled.cancel());
+    assertFalse(canceled.cancel());
+    timer.unlockTimeSkipping("unit test");
+    Thread.sleep(100);
+    assertEquals(Collections.singletonList("fired"), captured);
+    assertTrue(Duration.ofSeconds(20).toMillis() + INITIAL_TIME <= clock.getAsLong());
+  }
 }
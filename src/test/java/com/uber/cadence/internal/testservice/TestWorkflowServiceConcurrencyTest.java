@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.cadence.ListOpenWorkflowExecutionsRequest;
+import com.uber.cadence.StartWorkflowExecutionRequest;
+import com.uber.cadence.TaskList;
+import com.uber.cadence.WorkflowExecutionAlreadyStartedError;
+import com.uber.cadence.WorkflowExecutionInfo;
+import com.uber.cadence.WorkflowType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWorkflowServiceConcurrencyTest {
+
+  private static final String DOMAIN = "domain";
+  private static final int THREADS = 8;
+
+  private TestWorkflowService service;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    service = new TestWorkflowService();
+    service.lockTimeSkipping("TestWorkflowServiceConcurrencyTest");
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    service.close();
+  }
+
+  @Test
+  public void testStartsOfDifferentWorkflowIdsInParallel() throws Exception {
+    int workflowsPerThread = 50;
+    List<Callable<Set<String>>> starters = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      String prefix = "workflow-" + t + "-";
+      starters.add(
+          () -> {
+            Set<String> runIds = new HashSet<>();
+            for (int i = 0; i < workflowsPerThread; i++) {
+              runIds.add(service.StartWorkflowExecution(newStartRequest(prefix + i)).getRunId());
+            }
+            return runIds;
+          });
+    }
+    Set<String> runIds = new HashSet<>();
+    for (Future<Set<String>> future : runConcurrently(starters)) {
+      runIds.addAll(future.get());
+    }
+    assertEquals(THREADS * workflowsPerThread, runIds.size());
+
+    Set<String> openRunIds = new HashSet<>();
+    Set<String> openWorkflowIds = new HashSet<>();
+    for (WorkflowExecutionInfo info :
+        service.ListOpenWorkflowExecutions(
+                new ListOpenWorkflowExecutionsRequest().setDomain(DOMAIN))
+            .getExecutions()) {
+      openRunIds.add(info.getExecution().getRunId());
+      openWorkflowIds.add(info.getExecution().getWorkflowId());
+    }
+    assertEquals(runIds, openRunIds);
+    assertEquals(THREADS * workflowsPerThread, openWorkflowIds.size());
+  }
+
+  @Test
+  public void testStartsOfTheSameWorkflowIdInParallel() throws Exception {
+    List<Callable<String>> starters = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      starters.add(() -> service.StartWorkflowExecution(newStartRequest("workflow")).getRunId());
+    }
+    int started = 0;
+    int rejected = 0;
+    for (Future<String> future : runConcurrently(starters)) {
+      try {
+        future.get();
+        started++;
+      } catch (ExecutionException e) {
+        assertTrue(
+            String.valueOf(e.getCause()),
+            e.getCause() instanceof WorkflowExecutionAlreadyStartedError);
+        rejected++;
+      }
+    }
+    assertEquals(1, started);
+    assertEquals(THREADS - 1, rejected);
+  }
+
+  /** Releases all the tasks at the same time to maximize contention. */
+  private <T> List<Future<T>> runConcurrently(List<Callable<T>> tasks) {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<T>> result = new ArrayList<>();
+    for (Callable<T> task : tasks) {
+      result.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return task.call();
+              }));
+    }
+    start.countDown();
+    return result;
+  }
+
+  private static StartWorkflowExecutionRequest newStartRequest(String workflowId) {
+    return new StartWorkflowExecutionRequest()
+        .setDomain(DOMAIN)
+        .setWorkflowId(workflowId)
+        .setWorkflowType(new WorkflowType().setName("ConcurrencyTestWorkflow"))
+        .setTaskList(new TaskList().setName("concurrency-test"))
+        .setExecutionStartToCloseTimeoutSeconds(60)
+        .setTaskStartToCloseTimeoutSeconds(10)
+        .setRequestId(UUID.randomUUID().toString());
+  }
+}
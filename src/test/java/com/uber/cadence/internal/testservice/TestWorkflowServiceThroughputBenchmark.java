@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import com.uber.cadence.CompleteWorkflowExecutionDecisionAttributes;
+import com.uber.cadence.Decision;
+import com.uber.cadence.DecisionType;
+import com.uber.cadence.PollForDecisionTaskRequest;
+import com.uber.cadence.PollForDecisionTaskResponse;
+import com.uber.cadence.RespondDecisionTaskCompletedRequest;
+import com.uber.cadence.StartWorkflowExecutionRequest;
+import com.uber.cadence.TaskList;
+import com.uber.cadence.WorkflowType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many workflows per second the in-memory {@link TestWorkflowService} can start and
+ * complete when driven concurrently. Every client thread starts a workflow on its own task list,
+ * polls the decision task and completes the workflow. Not run as part of the test suite. Usage:
+ *
+ * <pre>
+ * java com.uber.cadence.internal.testservice.TestWorkflowServiceThroughputBenchmark \
+ *     [threads] [workflowsPerThread]
+ * </pre>
+ */
+public class TestWorkflowServiceThroughputBenchmark {
+
+  private static final String DOMAIN = "benchmark";
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    int workflowsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+    // Warm up
+    run(threads, workflowsPerThread / 10);
+    for (int i = 1; i <= threads; i *= 2) {
+      long start = System.nanoTime();
+      run(i, workflowsPerThread);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf(
+          "threads=%d workflows=%d throughput=%.0f workflows/s%n",
+          i, i * workflowsPerThread, i * workflowsPerThread / seconds);
+    }
+  }
+
+  private static void run(int threads, int workflowsPerThread) throws Exception {
+    TestWorkflowService service = new TestWorkflowService();
+    // Keep the clock real so that decision task timeouts don't fire while measuring.
+    service.lockTimeSkipping("TestWorkflowServiceThroughputBenchmark");
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>(threads);
+      for (int t = 0; t < threads; t++) {
+        String taskList = "benchmark-" + t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < workflowsPerThread; i++) {
+                    startAndComplete(service, taskList);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      service.close();
+    }
+  }
+
+  private static void startAndComplete(TestWorkflowService service, String taskList)
+      throws Exception {
+    service.StartWorkflowExecution(
+        new StartWorkflowExecutionRequest()
+            .setDomain(DOMAIN)
+            .setWorkflowId(UUID.randomUUID().toString())
+            .setWorkflowType(new WorkflowType().setName("BenchmarkWorkflow"))
+            .setTaskList(new TaskList().setName(taskList))
+            .setExecutionStartToCloseTimeoutSeconds(60)
+            .setTaskStartToCloseTimeoutSeconds(10)
+            .setRequestId(UUID.randomUUID().toString()));
+    PollForDecisionTaskResponse task =
+        service.PollForDecisionTask(
+            new PollForDecisionTaskRequest()
+                .setDomain(DOMAIN)
+                .setTaskList(new TaskList().setName(taskList)));
+    Decision complete =
+        new Decision()
+            .setDecisionType(DecisionType.CompleteWorkflowExecution)
+            .setCompleteWorkflowExecutionDecisionAttributes(
+                new CompleteWorkflowExecutionDecisionAttributes());
+    service.RespondDecisionTaskCompleted(
+        new RespondDecisionTaskCompletedRequest()
+            .setTaskToken(task.getTaskToken())
+            .setDecisions(Collections.singletonList(complete)));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+  @Test
+  public void testTimersAreReturnedInExecutionTimeOrder() {
+    long start = 1_600_000_000_000L;
+    TimerWheel<Long> wheel = new TimerWheel<>(start);
+    Random random = new Random(1234);
+    List<Long> expected = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      // Spread across several levels of the wheel
+      long executionTime = start + (long) Math.pow(10, random.nextInt(10)) * random.nextInt(100);
+      wheel.add(executionTime, executionTime);
+      expected.add(executionTime);
+    }
+    Collections.sort(expected);
+    List<Long> fired = new ArrayList<>();
+    while (wheel.size() > 0) {
+      long next = wheel.nextExecutionTime();
+      int firedBefore = fired.size();
+      wheel.advance(next, fired);
+      assertTrue(fired.size() > firedBefore);
+      for (int i = firedBefore; i < fired.size(); i++) {
+        assertEquals(next, (long) fired.get(i));
+      }
+    }
+    assertEquals(expected, fired);
+    assertEquals(Long.MAX_VALUE, wheel.nextExecutionTime());
+  }
+
+  @Test
+  public void testAdvanceInSteps() {
+    TimerWheel<String> wheel = new TimerWheel<>(0);
+    wheel.add(5_000_000, "c");
+    wheel.add(70, "b");
+    wheel.add(3, "a");
+    assertEquals(3, wheel.nextTime());
+    List<String> fired = new ArrayList<>();
+    wheel.advance(69, fired);
+    assertEquals(Collections.singletonList("a"), fired);
+    // 5_000_000 sits in an upper level, so only the start of its slot is known without cascading
+    wheel.advance(100, fired);
+    assertEquals(Arrays.asList("a", "b"), fired);
+    assertTrue(wheel.nextTime() <= 5_000_000);
+    wheel.advance(4_999_999, fired);
+    assertEquals(2, fired.size());
+    assertEquals(5_000_000, wheel.nextExecutionTime());
+    wheel.advance(5_000_000, fired);
+    assertEquals(Arrays.asList("a", "b", "c"), fired);
+    assertEquals(5_000_000, wheel.getTime());
+  }
+
+  @Test
+  public void testCancel() {
+    TimerWheel<String> wheel = new TimerWheel<>(1000);
+    TimerWheel.Timer<String> first = wheel.add(2000, "first");
+    TimerWheel.Timer<String> second = wheel.add(2000, "second");
+    TimerWheel.Timer<String> far = wheel.add(1_000_000, "far");
+    assertTrue(wheel.cancel(first));
+    assertFalse(wheel.cancel(first));
+    assertTrue(wheel.cancel(far));
+    assertEquals(1, wheel.size());
+    List<String> fired = new ArrayList<>();
+    wheel.advance(Long.MAX_VALUE - 1, fired);
+    assertEquals(Collections.singletonList("second"), fired);
+    assertFalse(wheel.cancel(second));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testPastTimerIsDueImmediately() {
+    TimerWheel<String> wheel = new TimerWheel<>(1000);
+    wheel.add(10, "past");
+    assertEquals(1000, wheel.nextExecutionTime());
+    List<String> fired = new ArrayList<>();
+    wheel.advance(1000, fired);
+    assertEquals(Collections.singletonList("past"), fired);
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import static org.junit.Assert.*;
+
+import com.uber.cadence.InternalServiceError;
+import com.uber.cadence.PollForActivityTaskResponse;
+import com.uber.cadence.RespondActivityTaskCompletedRequest;
+import com.uber.cadence.internal.metrics.NoopScope;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
+import com.uber.cadence.serviceclient.IWorkflowServiceBase;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ActivityTaskResponderTest {
+
+  private static PollForActivityTaskResponse newTask() {
+    return new PollForActivityTaskResponse().setTaskToken(new byte[] {1});
+  }
+
+  private static ActivityTaskHandler.Result completed() {
+    return new ActivityTaskHandler.Result(new RespondActivityTaskCompletedRequest(), null, null);
+  }
+
+  private static SingleWorkerOptions options() {
+    return SingleWorkerOptions.newBuilder()
+        .setIdentity("worker")
+        .setTaskExecutorThreadPoolSize(1)
+        .build();
+  }
+
+  @Test
+  public void respondDoesNotWaitForAcknowledgement() throws Exception {
+    List<AsyncMethodCallback<Void>> calls = new CopyOnWriteArrayList<>();
+    ActivityTaskResponder responder =
+        new ActivityTaskResponder(
+            new IWorkflowServiceBase() {
+              @SuppressWarnings({"rawtypes", "unchecked"}) // Generator ignores that it is generic
+              @Override
+              public void RespondActivityTaskCompleted(
+                  RespondActivityTaskCompletedRequest request, AsyncMethodCallback resultHandler) {
+                assertEquals("worker", request.getIdentity());
+                calls.add(resultHandler);
+              }
+            },
+            options());
+
+    CompletableFuture<Void> response =
+        responder.respond(newTask(), completed(), NoopScope.getInstance());
+    assertEquals(1, calls.size());
+    assertFalse(response.isDone());
+    assertFalse(responder.isIdle());
+    assertFalse(responder.awaitIdle(10, TimeUnit.MILLISECONDS));
+
+    calls.get(0).onComplete(null);
+    response.get(10, TimeUnit.SECONDS);
+    assertTrue(responder.isIdle());
+    assertTrue(responder.awaitIdle(0, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void fallsBackToSynchronousCall() throws Exception {
+    List<String> callThreads = new CopyOnWriteArrayList<>();
+    ActivityTaskResponder responder =
+        new ActivityTaskResponder(
+            new IWorkflowServiceBase() {
+              @Override
+              public void RespondActivityTaskCompleted(
+                  RespondActivityTaskCompletedRequest request) {
+                callThreads.add(Thread.currentThread().getName());
+              }
+            },
+            options());
+
+    for (int i = 0; i < 2; i++) {
+      responder.respond(newTask(), completed(), NoopScope.getInstance()).get(10, TimeUnit.SECONDS);
+    }
+    assertEquals(2, callThreads.size());
+    for (String thread : callThreads) {
+      assertTrue(thread, thread.startsWith("Activity Responder identity=worker"));
+    }
+    assertTrue(responder.isIdle());
+  }
+
+  @Test
+  public void releasesPermitWhenSynchronousCallThrowsError() throws Exception {
+    ActivityTaskResponder responder =
+        new ActivityTaskResponder(
+            new IWorkflowServiceBase() {
+              @Override
+              public void RespondActivityTaskCompleted(
+                  RespondActivityTaskCompletedRequest request) {
+                throw new AssertionError("simulated");
+              }
+            },
+            options());
+
+    try {
+      responder.respond(newTask(), completed(), NoopScope.getInstance()).get(10, TimeUnit.SECONDS);
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof AssertionError);
+    }
+    assertTrue(responder.isIdle());
+  }
+
+  @Test
+  public void retriesAfterTransientError() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    ActivityTaskResponder responder =
+        new ActivityTaskResponder(
+            new IWorkflowServiceBase() {
+              @SuppressWarnings({"rawtypes", "unchecked"}) // Generator ignores that it is generic
+              @Override
+              public void RespondActivityTaskCompleted(
+                  RespondActivityTaskCompletedRequest request, AsyncMethodCallback resultHandler) {
+                if (attempts.incrementAndGet() == 1) {
+                  resultHandler.onError(new InternalServiceError("transient"));
+                } else {
+                  resultHandler.onComplete(null);
+                }
+              }
+            },
+            options());
+
+    responder.respond(newTask(), completed(), NoopScope.getInstance()).get(10, TimeUnit.SECONDS);
+    assertEquals(2, attempts.get());
+    assertTrue(responder.isIdle());
+  }
+
+  @Test
+  public void respondBlocksWhileInFlightLimitIsReached() throws Exception {
+    List<AsyncMethodCallback<Void>> calls = new CopyOnWriteArrayList<>();
+    ActivityTaskResponder responder =
+        new ActivityTaskResponder(
+            new IWorkflowServiceBase() {
+              @SuppressWarnings({"rawtypes", "unchecked"}) // Generator ignores that it is generic
+              @Override
+              public void RespondActivityTaskCompleted(
+                  RespondActivityTaskCompletedRequest request, AsyncMethodCallback resultHandler) {
+                calls.add(resultHandler);
+              }
+            },
+            options());
+
+    responder.respond(newTask(), completed(), NoopScope.getInstance());
+    CompletableFuture<CompletableFuture<Void>> second =
+        CompletableFuture.supplyAsync(
+            () -> responder.respond(newTask(), completed(), NoopScope.getInstance()));
+    Thread.sleep(200);
+    assertFalse(second.isDone());
+    assertEquals(1, calls.size());
+
+    calls.get(0).onComplete(null);
+    CompletableFuture<Void> secondResponse = second.get(10, TimeUnit.SECONDS);
+    assertEquals(2, calls.size());
+    calls.get(1).onComplete(null);
+    secondResponse.get(10, TimeUnit.SECONDS);
+    assertTrue(responder.isIdle());
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import static org.junit.Assert.assertEquals;
+
+import com.uber.cadence.PollForActivityTaskResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ActivityWorkerTest {
+
+  private static final long SCHEDULED = TimeUnit.SECONDS.toNanos(1_600_000_000L);
+
+  @Test
+  public void maxBufferedTimeLeavesATenthOfTheStartToCloseTimeout() {
+    assertEquals(0, ActivityWorker.getMaxBufferedNanos(new PollForActivityTaskResponse()));
+    assertEquals(
+        TimeUnit.SECONDS.toNanos(9),
+        ActivityWorker.getMaxBufferedNanos(
+            new PollForActivityTaskResponse().setStartToCloseTimeoutSeconds(10)));
+  }
+
+  @Test
+  public void maxBufferedTimeIsBoundedByTheHeartbeatTimeout() {
+    assertEquals(
+        TimeUnit.MILLISECONDS.toNanos(4500),
+        ActivityWorker.getMaxBufferedNanos(
+            new PollForActivityTaskResponse()
+                .setStartToCloseTimeoutSeconds(10)
+                .setHeartbeatTimeoutSeconds(5)));
+  }
+
+  @Test
+  public void maxBufferedTimeIsBoundedByWhatIsLeftOfTheScheduleToCloseTimeout() {
+    PollForActivityTaskResponse task =
+        new PollForActivityTaskResponse()
+            .setStartToCloseTimeoutSeconds(10)
+            .setScheduleToCloseTimeoutSeconds(20)
+            .setScheduledTimestamp(SCHEDULED)
+            .setStartedTimestamp(SCHEDULED + TimeUnit.SECONDS.toNanos(15));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(4500), ActivityWorker.getMaxBufferedNanos(task));
+
+    // Started after the schedule to close timeout, so the task expires as soon as it is buffered.
+    task.setStartedTimestamp(SCHEDULED + TimeUnit.SECONDS.toNanos(25));
+    assertEquals(1, ActivityWorker.getMaxBufferedNanos(task));
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * <p>Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+ * except in compliance with the License. A copy of the License is located at
+ *
+ * <p>http://aws.amazon.com/apache2.0
+ *
+ * <p>or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import static org.junit.Assert.*;
+
+import com.uber.cadence.ActivityType;
+import com.uber.cadence.internal.replay.ExecuteLocalActivityParameters;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LocalActivityPollTaskTest {
+
+  private static LocalActivityWorker.Task newTask(String activityType) {
+    ExecuteLocalActivityParameters params =
+        new ExecuteLocalActivityParameters()
+            .withActivityType(new ActivityType().setName(activityType));
+    return new LocalActivityWorker.Task(params, (e) -> {}, 10, () -> 0, () -> 0);
+  }
+
+  private static LocalActivityPollTask newPollTask(int poolSize, int poolSizePerType) {
+    return new LocalActivityPollTask(
+        SingleWorkerOptions.newBuilder()
+            .setTaskExecutorThreadPoolSize(poolSize)
+            .setTaskExecutorThreadPoolSizePerType(poolSizePerType)
+            .build());
+  }
+
+  @Test
+  public void slowTypeDoesNotBlockOtherTypes() {
+    LocalActivityPollTask pollTask = newPollTask(10, 2);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    }
+    assertTrue(pollTask.apply(newTask("fast"), Duration.ofSeconds(1)));
+
+    assertEquals("slow", activityType(pollTask.poll()));
+    assertEquals("fast", activityType(pollTask.poll()));
+    assertEquals("slow", activityType(pollTask.poll()));
+    assertEquals(3, pollTask.getBacklog("slow"));
+
+    // Both slots of the slow type are taken, so the next fast task is dispatched first.
+    assertTrue(pollTask.apply(newTask("fast"), Duration.ofSeconds(1)));
+    assertEquals("fast", activityType(pollTask.poll()));
+    assertEquals(0, pollTask.getBacklog("fast"));
+
+    LocalActivityWorker.Task slow = newTask("slow");
+    pollTask.release(slow, TimeUnit.MILLISECONDS.toNanos(10));
+    assertEquals("slow", activityType(pollTask.poll()));
+    assertEquals(2, pollTask.getBacklog("slow"));
+  }
+
+  @Test
+  public void backlogThatCannotDrainBeforeDeadlineIsRejected() {
+    LocalActivityPollTask pollTask = newPollTask(10, 1);
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    LocalActivityWorker.Task running = pollTask.poll();
+    pollTask.release(running, TimeUnit.SECONDS.toNanos(2));
+
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    pollTask.poll();
+    // One task runs and the type is limited to a single slot, so a new one waits about 2 seconds.
+    assertFalse(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(3)));
+    assertTrue(pollTask.apply(newTask("other"), Duration.ofSeconds(1)));
+  }
+
+  @Test
+  public void slowBacklogIsNotRejectedWithoutPerTypeLimit() {
+    LocalActivityPollTask pollTask = newPollTask(1, 0);
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    LocalActivityWorker.Task running = pollTask.poll();
+    pollTask.release(running, TimeUnit.SECONDS.toNanos(2));
+
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    pollTask.poll();
+    // The backlog is expected to take longer than the deadline, but only the queue size applies.
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    assertTrue(pollTask.apply(newTask("slow"), Duration.ofSeconds(1)));
+    assertEquals(2, pollTask.getBacklog("slow"));
+  }
+
+  private static String activityType(LocalActivityWorker.Task task) {
+    return task.getExecuteLocalActivityParameters().getActivityType().getName();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import static org.junit.Assert.*;
+
+import com.uber.cadence.worker.ExecutorWrapper;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PollTaskExecutorTest {
+
+  private static final long EXPIRED = 1;
+
+  @Test
+  public void prefetchedTasksWaitForThreadAndExpiredOnesAreDropped() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(2);
+    List<Long> handled = new CopyOnWriteArrayList<>();
+    PollTaskExecutor<Long> executor =
+        new PollTaskExecutor<>(
+            "domain",
+            "taskList",
+            SingleWorkerOptions.newBuilder()
+                .setTaskExecutorThreadPoolSize(1)
+                .setTaskPrefetchBufferSize(2)
+                .setExecutorWrapper(ExecutorWrapper.newDefaultInstance())
+                .setPollerOptions(
+                    PollerOptions.newBuilder().setPollThreadNamePrefix("Poller test").build())
+                .build(),
+            new PollTaskExecutor.TaskHandler<Long>() {
+              @Override
+              public void handle(Long task) throws Exception {
+                if (task == 0) {
+                  started.countDown();
+                  blocked.await();
+                }
+                handled.add(task);
+                done.countDown();
+              }
+
+              @Override
+              public Throwable wrapFailure(Long task, Throwable failure) {
+                return new RuntimeException("task " + task, failure);
+              }
+
+              @Override
+              public long getMaxBufferedNanos(Long task) {
+                return task;
+              }
+            });
+    try {
+      executor.process(0L);
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      assertTrue(executor.hasCapacity());
+      executor.process(EXPIRED);
+      assertTrue(executor.hasCapacity());
+      executor.process(Long.MAX_VALUE);
+      // The only thread is busy and the buffer is full.
+      assertFalse(executor.hasCapacity());
+
+      blocked.countDown();
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      assertEquals(2, handled.size());
+      assertFalse(handled.contains(EXPIRED));
+      assertTrue(handled.contains(Long.MAX_VALUE));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -19,13 +19,16 @@ package com.uber.cadence.internal.worker;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import com.uber.cadence.internal.metrics.NoopScope;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,9 +60,38 @@ public class WorkflowRunLockManagerTest {
     assertArrayEquals(expectedTasks, finishedTasks.toArray(processedTasks));
   }
 
-  private String processTask(String runId, int taskId) {
-    Lock runLock = runLockManager.getLockForLocking(runId);
-    runLock.lock();
+  @Test
+  public void unlockFromAnotherThread() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    assertTrue(
+        runLockManager.tryLock("run1", "type", 0, TimeUnit.MILLISECONDS, NoopScope.getInstance()));
+    executor.submit(() -> runLockManager.unlock("run1")).get();
+    executor.shutdown();
+    assertEquals(0, runLockManager.totalLocks());
+
+    assertTrue(
+        runLockManager.tryLock("run1", "type", 0, TimeUnit.MILLISECONDS, NoopScope.getInstance()));
+    runLockManager.unlock("run1");
+  }
+
+  @Test
+  public void tryLockTimesOut() throws Exception {
+    assertTrue(
+        runLockManager.tryLock("run1", "type", 0, TimeUnit.MILLISECONDS, NoopScope.getInstance()));
+    assertFalse(
+        runLockManager.tryLock("run1", "type", 10, TimeUnit.MILLISECONDS, NoopScope.getInstance()));
+    assertTrue(
+        runLockManager.tryLock("run2", "type", 0, TimeUnit.MILLISECONDS, NoopScope.getInstance()));
+    assertEquals(2, runLockManager.totalLocks());
+
+    runLockManager.unlock("run1");
+    runLockManager.unlock("run2");
+    assertEquals(0, runLockManager.totalLocks());
+  }
+
+  private String processTask(String runId, int taskId) throws InterruptedException {
+    assertTrue(
+        runLockManager.tryLock(runId, "type", 10, TimeUnit.SECONDS, NoopScope.getInstance()));
 
     log.info("Got lock runId " + runId + " taskId " + taskId);
     try {
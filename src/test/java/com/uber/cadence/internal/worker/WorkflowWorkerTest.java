@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.internal.worker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.uber.cadence.PollForDecisionTaskRequest;
+import com.uber.cadence.PollForDecisionTaskResponse;
+import com.uber.cadence.RespondDecisionTaskCompletedRequest;
+import com.uber.cadence.WorkflowExecution;
+import com.uber.cadence.WorkflowType;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
+import com.uber.cadence.serviceclient.IWorkflowServiceBase;
+import com.uber.cadence.worker.ExecutorWrapper;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class WorkflowWorkerTest {
+
+  @Test
+  public void runLockTimeoutLeavesHeadroomForProcessing() {
+    assertEquals(5000, WorkflowWorker.getRunLockTimeoutMillis(10000, 0));
+    assertEquals(3000, WorkflowWorker.getRunLockTimeoutMillis(10000, 2000));
+    assertEquals(0, WorkflowWorker.getRunLockTimeoutMillis(10000, 6000));
+  }
+
+  @Test(timeout = 30000)
+  public void stickyTaskWaitsForTheResponseOfThePreviousTaskOfItsRun() throws Exception {
+    BlockingQueue<AsyncMethodCallback<Void>> responses = new LinkedBlockingQueue<>();
+    BlockingQueue<String> handled = new LinkedBlockingQueue<>();
+    IWorkflowServiceBase service =
+        new IWorkflowServiceBase() {
+          @Override
+          public PollForDecisionTaskResponse PollForDecisionTask(
+              PollForDecisionTaskRequest request) {
+            try {
+              Thread.sleep(100);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return new PollForDecisionTaskResponse();
+          }
+
+          @SuppressWarnings({"rawtypes", "unchecked"}) // Generator ignores that it is generic
+          @Override
+          public void RespondDecisionTaskCompleted(
+              RespondDecisionTaskCompletedRequest request, AsyncMethodCallback resultHandler) {
+            responses.add(resultHandler);
+          }
+        };
+    DecisionTaskHandler handler =
+        new DecisionTaskHandler() {
+          @Override
+          public Result handleDecisionTask(PollForDecisionTaskResponse decisionTask) {
+            handled.add(new String(decisionTask.getTaskToken()));
+            return new Result(new RespondDecisionTaskCompletedRequest(), null, null);
+          }
+
+          @Override
+          public boolean isAnyTypeSupported() {
+            return true;
+          }
+        };
+    WorkflowWorker worker =
+        new WorkflowWorker(
+            service,
+            "domain",
+            "taskList",
+            SingleWorkerOptions.newBuilder()
+                .setIdentity("worker")
+                .setTaskExecutorThreadPoolSize(2)
+                .setExecutorWrapper(ExecutorWrapper.newDefaultInstance())
+                .setPollerOptions(PollerOptions.newBuilder().setPollThreadCount(1).build())
+                .build(),
+            handler,
+            null,
+            "stickyTaskList");
+    worker.start();
+    try {
+      worker.accept(newTask("run1", "first"));
+      assertEquals("first", handled.poll(10, TimeUnit.SECONDS));
+      AsyncMethodCallback<Void> firstResponse = responses.poll(10, TimeUnit.SECONDS);
+
+      // The next task of the run waits for the response while the thread that processed the
+      // first task takes a task of another run.
+      worker.accept(newTask("run1", "second"));
+      worker.accept(newTask("run2", "other"));
+      assertEquals("other", handled.poll(10, TimeUnit.SECONDS));
+      assertNull(handled.poll(200, TimeUnit.MILLISECONDS));
+
+      firstResponse.onComplete(null);
+      assertEquals("second", handled.poll(10, TimeUnit.SECONDS));
+      for (int i = 0; i < 2; i++) {
+        responses.poll(10, TimeUnit.SECONDS).onComplete(null);
+      }
+    } finally {
+      worker.shutdownNow();
+      worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static PollForDecisionTaskResponse newTask(String runId, String taskToken) {
+    return new PollForDecisionTaskResponse()
+        .setTaskToken(taskToken.getBytes())
+        .setWorkflowExecution(new WorkflowExecution().setWorkflowId("workflow").setRunId(runId))
+        .setWorkflowType(new WorkflowType().setName("type"));
+  }
+}
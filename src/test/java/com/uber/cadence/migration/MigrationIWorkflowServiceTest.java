@@ -21,9 +21,13 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import com.uber.cadence.*;
+import com.uber.cadence.serviceclient.AsyncMethodCallback;
 import com.uber.cadence.serviceclient.ClientOptions;
 import com.uber.cadence.serviceclient.IWorkflowService;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -1224,4 +1228,282 @@ public class MigrationIWorkflowServiceTest {
     ClientOptions options = migrationService.getOptions();
     assertEquals("serviceName", options.getServiceName());
   }
+
+  @Test
+  public void testStartWorkflowExecution_routingCacheSkipsDescribe() throws CadenceError {
+    StartWorkflowExecutionRequest startRequest =
+        new StartWorkflowExecutionRequest()
+            .setWorkflowId("123")
+            .setWorkflowType(new WorkflowType().setName("sampleWorkflow"))
+            .setRequestId("123");
+
+    when(serviceNew.DescribeWorkflowExecution(any()))
+        .thenReturn(
+            new DescribeWorkflowExecutionResponse()
+                .setWorkflowExecutionInfo(new WorkflowExecutionInfo()));
+    when(serviceOld.DescribeWorkflowExecution(any())).thenReturn(null);
+    StartWorkflowExecutionResponse responseNew = new StartWorkflowExecutionResponse();
+    when(serviceNew.StartWorkflowExecution(startRequest)).thenReturn(responseNew);
+
+    assertEquals(responseNew, migrationService.StartWorkflowExecution(startRequest));
+    assertEquals(responseNew, migrationService.StartWorkflowExecution(startRequest));
+
+    verify(serviceNew, times(1)).DescribeWorkflowExecution(any());
+    verify(serviceOld, times(1)).DescribeWorkflowExecution(any());
+    verify(serviceNew, times(2)).StartWorkflowExecution(startRequest);
+  }
+
+  @Test
+  public void testStartWorkflowExecution_routingCacheForgetsOldCluster() throws CadenceError {
+    StartWorkflowExecutionRequest startRequest =
+        new StartWorkflowExecutionRequest()
+            .setWorkflowId("123")
+            .setWorkflowType(new WorkflowType().setName("sampleWorkflow"))
+            .setRequestId("123");
+
+    // Open in the old cluster, so the start is routed there until the workflow closes.
+    when(serviceNew.DescribeWorkflowExecution(any())).thenReturn(null);
+    when(serviceOld.DescribeWorkflowExecution(any()))
+        .thenReturn(
+            new DescribeWorkflowExecutionResponse()
+                .setWorkflowExecutionInfo(new WorkflowExecutionInfo()));
+    StartWorkflowExecutionResponse responseOld = new StartWorkflowExecutionResponse();
+    when(serviceOld.StartWorkflowExecution(startRequest)).thenReturn(responseOld);
+
+    assertEquals(responseOld, migrationService.StartWorkflowExecution(startRequest));
+    assertEquals(responseOld, migrationService.StartWorkflowExecution(startRequest));
+
+    verify(serviceNew, times(2)).DescribeWorkflowExecution(any());
+    verify(serviceOld, times(2)).DescribeWorkflowExecution(any());
+    verify(serviceOld, times(2)).StartWorkflowExecution(startRequest);
+  }
+
+  @Test
+  public void testStartWorkflowExecution_routingCacheDisabled() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder().setRoutingCacheMaximumSize(0).build());
+    StartWorkflowExecutionRequest startRequest =
+        new StartWorkflowExecutionRequest()
+            .setWorkflowId("123")
+            .setWorkflowType(new WorkflowType().setName("sampleWorkflow"))
+            .setRequestId("123");
+
+    when(serviceNew.DescribeWorkflowExecution(any())).thenReturn(null);
+    when(serviceOld.DescribeWorkflowExecution(any())).thenReturn(null);
+
+    migrationService.StartWorkflowExecution(startRequest);
+    migrationService.StartWorkflowExecution(startRequest);
+
+    verify(serviceNew, times(2)).DescribeWorkflowExecution(any());
+    verify(serviceOld, times(2)).DescribeWorkflowExecution(any());
+    verify(serviceNew, times(2)).StartWorkflowExecution(startRequest);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testStartWorkflowExecution_asyncDescribe() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder().setAsyncDescribeEnabled(true).build());
+    StartWorkflowExecutionRequest startRequest =
+        new StartWorkflowExecutionRequest()
+            .setWorkflowId("123")
+            .setWorkflowType(new WorkflowType().setName("sampleWorkflow"))
+            .setRequestId("123");
+
+    doAnswer(
+            invocation -> {
+              ((AsyncMethodCallback<DescribeWorkflowExecutionResponse>)
+                      invocation.getArguments()[1])
+                  .onError(new EntityNotExistsError("not found"));
+              return null;
+            })
+        .when(serviceNew)
+        .DescribeWorkflowExecution(any(), any());
+    doAnswer(
+            invocation -> {
+              ((AsyncMethodCallback<DescribeWorkflowExecutionResponse>)
+                      invocation.getArguments()[1])
+                  .onComplete(
+                      new DescribeWorkflowExecutionResponse()
+                          .setWorkflowExecutionInfo(new WorkflowExecutionInfo()));
+              return null;
+            })
+        .when(serviceOld)
+        .DescribeWorkflowExecution(any(), any());
+    StartWorkflowExecutionResponse responseOld = new StartWorkflowExecutionResponse();
+    when(serviceOld.StartWorkflowExecution(startRequest)).thenReturn(responseOld);
+
+    assertEquals(responseOld, migrationService.StartWorkflowExecution(startRequest));
+
+    verify(serviceNew, never()).DescribeWorkflowExecution(any());
+    verify(serviceOld, never()).DescribeWorkflowExecution(any());
+  }
+
+  private static ListWorkflowExecutionsResponse listPage(String token, String... workflowIds) {
+    ListWorkflowExecutionsResponse response = new ListWorkflowExecutionsResponse();
+    for (String workflowId : workflowIds) {
+      response
+          .getExecutions()
+          .add(
+              new WorkflowExecutionInfo()
+                  .setExecution(new WorkflowExecution().setWorkflowId(workflowId)));
+    }
+    return response.setNextPageToken(token == null ? null : token.getBytes());
+  }
+
+  private static List<String> workflowIds(ListWorkflowExecutionsResponse response) {
+    List<String> result = new ArrayList<>();
+    for (WorkflowExecutionInfo info : response.getExecutions()) {
+      result.add(info.getExecution().getWorkflowId());
+    }
+    return result;
+  }
+
+  private void mockParallelListing() throws CadenceError {
+    when(serviceNew.ListWorkflowExecutions(
+            argThat(
+                r ->
+                    r != null
+                        && (r.getNextPageToken() == null || r.getNextPageToken().length == 0))))
+        .thenReturn(listPage("newToken", "new1", "new2"));
+    when(serviceNew.ListWorkflowExecutions(
+            argThat(r -> r != null && Arrays.equals("newToken".getBytes(), r.getNextPageToken()))))
+        .thenReturn(listPage(null, "new3"));
+    when(serviceOld.ListWorkflowExecutions(
+            argThat(
+                r ->
+                    r != null
+                        && (r.getNextPageToken() == null || r.getNextPageToken().length == 0))))
+        .thenReturn(listPage("oldToken", "old1", "old2"));
+    when(serviceOld.ListWorkflowExecutions(
+            argThat(r -> r != null && Arrays.equals("oldToken".getBytes(), r.getNextPageToken()))))
+        .thenReturn(listPage(null));
+  }
+
+  @Test
+  public void testListWorkflows_parallel() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder()
+                .setParallelListingEnabled(true)
+                .setListPrefetchEnabled(false)
+                .build());
+    mockParallelListing();
+
+    ListWorkflowExecutionsResponse page1 =
+        migrationService.ListWorkflowExecutions(
+            new ListWorkflowExecutionsRequest().setDomain("domainNew").setPageSize(4));
+    assertEquals(Arrays.asList("new1", "new2", "old1", "old2"), workflowIds(page1));
+    assertNotNull(page1.getNextPageToken());
+
+    ListWorkflowExecutionsResponse page2 =
+        migrationService.ListWorkflowExecutions(
+            new ListWorkflowExecutionsRequest()
+                .setDomain("domainNew")
+                .setPageSize(4)
+                .setNextPageToken(page1.getNextPageToken()));
+    assertEquals(Arrays.asList("new3"), workflowIds(page2));
+    assertNull(page2.getNextPageToken());
+
+    verify(serviceNew, times(2)).ListWorkflowExecutions(any());
+    verify(serviceOld, times(2)).ListWorkflowExecutions(any());
+  }
+
+  @Test
+  public void testListWorkflows_parallelWithPrefetch() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder()
+                .setParallelListingEnabled(true)
+                .setListPrefetchEnabled(true)
+                .build());
+    mockParallelListing();
+
+    ListWorkflowExecutionsResponse page1 =
+        migrationService.ListWorkflowExecutions(
+            new ListWorkflowExecutionsRequest().setDomain("domainNew").setPageSize(4));
+    ListWorkflowExecutionsResponse page2 =
+        migrationService.ListWorkflowExecutions(
+            new ListWorkflowExecutionsRequest()
+                .setDomain("domainNew")
+                .setPageSize(4)
+                .setNextPageToken(page1.getNextPageToken()));
+    assertEquals(Arrays.asList("new3"), workflowIds(page2));
+    assertNull(page2.getNextPageToken());
+
+    // The second page was served from the prefetched requests.
+    verify(serviceNew, times(2)).ListWorkflowExecutions(any());
+    verify(serviceOld, times(2)).ListWorkflowExecutions(any());
+  }
+
+  @Test
+  public void testListWorkflows_parallelWithoutPrefetchByDefault() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder().setParallelListingEnabled(true).build());
+    mockParallelListing();
+
+    migrationService.ListWorkflowExecutions(
+        new ListWorkflowExecutionsRequest().setDomain("domainNew").setPageSize(4));
+
+    verify(serviceNew, times(1)).ListWorkflowExecutions(any());
+    verify(serviceOld, times(1)).ListWorkflowExecutions(any());
+  }
+
+  @Test
+  public void testListWorkflows_parallelRejectsInvalidToken() throws CadenceError {
+    migrationService =
+        new MigrationIWorkflowService(
+            serviceOld,
+            "domainOld",
+            serviceNew,
+            "domainNew",
+            MigrationIWorkflowServiceOptions.newBuilder().setParallelListingEnabled(true).build());
+    mockParallelListing();
+    byte[] token =
+        migrationService
+            .ListWorkflowExecutions(
+                new ListWorkflowExecutionsRequest().setDomain("domainNew").setPageSize(4))
+            .getNextPageToken();
+    // The token is the marker, a flags byte, the length of the new cluster token and both tokens.
+    int flagsOffset = token.length - 4 - "newToken".length() - "oldToken".length() - 1;
+
+    byte[] truncated = Arrays.copyOf(token, flagsOffset + 1);
+    byte[] badLength = token.clone();
+    ByteBuffer.wrap(badLength).putInt(flagsOffset + 1, token.length);
+    for (byte[] invalid : Arrays.asList(truncated, badLength)) {
+      try {
+        migrationService.ListWorkflowExecutions(
+            new ListWorkflowExecutionsRequest()
+                .setDomain("domainNew")
+                .setPageSize(4)
+                .setNextPageToken(invalid));
+        fail("invalid token accepted");
+      } catch (BadRequestError e) {
+        assertEquals("Invalid next page token", e.getMessage());
+      }
+    }
+  }
 }
@@ -65,9 +65,14 @@ public class TestWorkflowEnvironmentTest extends TestCase {
         UnsupportedOperationException.class,
         () -> service.CountWorkflowExecutions(new CountWorkflowExecutionsRequest()));
     assertThrows(UnsupportedOperationException.class, () -> service.GetSearchAttributes());
+    // implemented for the sticky cache drain
     assertThrows(
-        UnsupportedOperationException.class,
-        () -> service.ResetStickyTaskList(new ResetStickyTaskListRequest()));
+        EntityNotExistsError.class,
+        () ->
+            service.ResetStickyTaskList(
+                new ResetStickyTaskListRequest()
+                    .setDomain("domain")
+                    .setExecution(new WorkflowExecution().setWorkflowId("unknown"))));
     assertThrows(
         UnsupportedOperationException.class,
         () -> service.DescribeWorkflowExecution(new DescribeWorkflowExecutionRequest()));
@@ -75,9 +80,14 @@ public class TestWorkflowEnvironmentTest extends TestCase {
         UnsupportedOperationException.class,
         () -> service.DescribeTaskList(new DescribeTaskListRequest()));
     assertThrows(UnsupportedOperationException.class, () -> service.GetClusterInfo());
+    // implemented for the sticky cache drain
     assertThrows(
-        UnsupportedOperationException.class,
-        () -> service.ResetStickyTaskList(new ResetStickyTaskListRequest()));
+        EntityNotExistsError.class,
+        () ->
+            service.ResetStickyTaskList(
+                new ResetStickyTaskListRequest()
+                    .setDomain("domain")
+                    .setExecution(new WorkflowExecution().setWorkflowId("unknown"))));
     assertThrows(
         UnsupportedOperationException.class,
         () -> service.ListTaskListPartitions(new ListTaskListPartitionsRequest()));
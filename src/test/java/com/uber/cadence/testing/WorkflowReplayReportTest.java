@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Modifications copyright (C) 2017 Uber Technologies, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package com.uber.cadence.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import org.junit.Test;
+
+public class WorkflowReplayReportTest {
+
+  @Test
+  public void testLatencyPercentiles() {
+    WorkflowReplayReport.Builder builder = new WorkflowReplayReport.Builder();
+    // Recorded out of order and across the growth of the latency buffer.
+    for (int i = 100; i >= 1; i--) {
+      builder.recordSuccess("type", Duration.ofMillis(i).toNanos());
+    }
+    builder.recordFailure("type", Duration.ofMillis(1000).toNanos(), "source#0", new Error());
+    WorkflowReplayReport report = builder.build(Duration.ofSeconds(1));
+
+    WorkflowReplayReport.WorkflowTypeStats stats = report.getStatsByWorkflowType().get("type");
+    assertEquals(101, stats.getReplayed());
+    assertEquals(1, stats.getFailed());
+    assertEquals(Duration.ofMillis(1), stats.getLatencyPercentile(0.5));
+    assertEquals(Duration.ofMillis(51), stats.getLatencyPercentile(50));
+    assertEquals(Duration.ofMillis(91), stats.getLatencyPercentile(90));
+    assertEquals(Duration.ofMillis(100), stats.getLatencyPercentile(99));
+    assertEquals(Duration.ofMillis(1000), stats.getMaxLatency());
+    assertEquals(101.0, stats.getThroughput(), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPercentileOutOfRange() {
+    WorkflowReplayReport.Builder builder = new WorkflowReplayReport.Builder();
+    builder.recordSuccess("type", 1);
+    builder
+        .build(Duration.ofSeconds(1))
+        .getStatsByWorkflowType()
+        .get("type")
+        .getLatencyPercentile(0);
+  }
+}
@@ -169,4 +169,16 @@ public class ShadowingOptionsTest {
       assertEquals(IllegalArgumentException.class, e.getClass());
     }
   }
+
+  @Test
+  public void testShadowingOptions_setReplayConcurrency() {
+    assertEquals(1, ShadowingOptions.newBuilder().build().getReplayConcurrency());
+    assertEquals(
+        4, ShadowingOptions.newBuilder().setReplayConcurrency(4).build().getReplayConcurrency());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testShadowingOptions_setReplayConcurrency_ExpectedIllegalArgumentException() {
+    ShadowingOptions.newBuilder().setReplayConcurrency(0);
+  }
 }
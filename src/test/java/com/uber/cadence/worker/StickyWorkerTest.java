@@ -21,10 +21,12 @@ import static com.uber.cadence.testUtils.TestEnvironment.DOMAIN;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.uber.cadence.activity.ActivityMethod;
@@ -32,6 +34,7 @@ import com.uber.cadence.activity.ActivityOptions;
 import com.uber.cadence.client.WorkflowClient;
 import com.uber.cadence.client.WorkflowClientOptions;
 import com.uber.cadence.client.WorkflowOptions;
+import com.uber.cadence.client.WorkflowStub;
 import com.uber.cadence.internal.metrics.MetricsTag;
 import com.uber.cadence.internal.metrics.MetricsType;
 import com.uber.cadence.internal.metrics.NoopScope;
@@ -146,6 +149,17 @@ public class StickyWorkerTest {
     assertNotNull(cache);
     assertEquals(1, cache.size());
 
+    StickyCacheInfo cacheInfo = factory.getStickyCacheInfo();
+    assertEquals(1, cacheInfo.getSize());
+    assertEquals(0, cacheInfo.getPinnedCount());
+    assertEquals(factoryOptions.getCacheMaximumSize(), cacheInfo.getMaximumSize());
+    assertEquals(
+        Collections.singletonMap("GreetingSignalWorkflow::getGreeting", 1),
+        cacheInfo.getOccupancyByWorkflowType());
+    assertEquals(
+        WorkflowStub.fromTyped(workflow).getExecution(),
+        cacheInfo.getEntries().get(0).getExecution());
+
     // Verify the workflow succeeded without having to recover from a failure
     Map<String, String> tags =
         new ImmutableMap.Builder<String, String>(2)
@@ -161,6 +175,61 @@ public class StickyWorkerTest {
     wrapper.close();
   }
 
+  @Test
+  public void drainStickyCacheHandsOffCachedWorkflows() throws Exception {
+    // Arrange
+    String taskListName = "drainStickyCacheTest";
+
+    StatsReporter reporter = mock(StatsReporter.class);
+    Scope scope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofMillis(300));
+
+    WorkerFactoryOptions factoryOptions =
+        WorkerFactoryOptions.newBuilder().setDisableStickyExecution(false).build();
+    TestEnvironmentWrapper wrapper = new TestEnvironmentWrapper(factoryOptions, scope);
+    WorkerFactory factory = wrapper.getWorkerFactory();
+    Worker worker = factory.newWorker(taskListName);
+    worker.registerWorkflowImplementationTypes(GreetingSignalWorkflowImpl.class);
+    factory.start();
+
+    WorkflowOptions workflowOptions =
+        new WorkflowOptions.Builder()
+            .setTaskList(taskListName)
+            .setExecutionStartToCloseTimeout(Duration.ofDays(30))
+            .setTaskStartToCloseTimeout(Duration.ofSeconds(30))
+            .build();
+    GreetingSignalWorkflow workflow =
+        wrapper.getWorkflowClient().newWorkflowStub(GreetingSignalWorkflow.class, workflowOptions);
+    WorkflowClient.start(workflow::getGreeting);
+    Thread.sleep(300);
+    assertEquals(1, factory.getCache().size());
+
+    // Act
+    assertTrue(factory.drainStickyCache(10, TimeUnit.SECONDS));
+
+    // Assert
+    StickyCacheInfo cacheInfo = factory.getStickyCacheInfo();
+    assertEquals(0, cacheInfo.getSize());
+    assertEquals(
+        1L, (long) cacheInfo.getEvictionCounts().get(StickyCacheInfo.EvictionReason.DRAIN));
+
+    // The workflow continues on the regular task list and is not cached anymore.
+    workflow.waitForName("World");
+    assertEquals("Hello World!", workflow.getGreeting());
+    assertEquals(0, factory.getCache().size());
+
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(2)
+            .put(MetricsTag.DOMAIN, DOMAIN)
+            .put(MetricsTag.TASK_LIST, STICKY_TASK_LIST_METRIC_TAG)
+            .build();
+    Thread.sleep(600);
+    verify(reporter, times(1)).reportCounter(MetricsType.STICKY_DRAIN_RESET_COUNTER, tags, 1);
+    wrapper.close();
+  }
+
   @Test
   public void workflowCacheEvictionDueToThreads() {
     // Arrange
@@ -18,6 +18,7 @@
 package com.uber.cadence.workflow;
 
 import static com.uber.cadence.testUtils.TestEnvironment.DOMAIN;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -100,6 +101,21 @@ public class MetricsTest {
     }
   }
 
+  public interface TestMarkerWorkflow {
+
+    @WorkflowMethod
+    void execute();
+  }
+
+  public static class TestMarkerWorkflowImpl implements TestMarkerWorkflow {
+
+    @Override
+    public void execute() {
+      Workflow.sideEffect(Integer.class, () -> 1);
+      Workflow.sleep(Duration.ofSeconds(1));
+    }
+  }
+
   public interface TestActivity {
     int runActivity(int input);
   }
@@ -256,6 +272,65 @@ public class MetricsTest {
     verify(reporter, times(1))
         .reportCounter("cadence-activity-task-completed", activityCompletionTags, 1);
 
+    Map<String, String> decisionTags =
+        new ImmutableMap.Builder<String, String>(3)
+            .put(MetricsTag.DOMAIN, DOMAIN)
+            .put(MetricsTag.TASK_LIST, taskList)
+            .put(MetricsTag.WORKFLOW_TYPE, "TestWorkflow::execute")
+            .build();
+    verify(reporter, atLeastOnce())
+        .reportTimer(eq(MetricsType.DECISION_EVENT_REPLAY_LATENCY), eq(decisionTags), any());
+    verify(reporter, atLeastOnce())
+        .reportTimer(eq(MetricsType.DECISION_WORKFLOW_CODE_LATENCY), eq(decisionTags), any());
+    verify(reporter, atLeastOnce())
+        .reportCounter(
+            eq(MetricsType.DECISION_EVENTS_REPLAYED_COUNTER), eq(decisionTags), anyLong());
+    verify(reporter, atLeastOnce())
+        .reportCounter(eq(MetricsType.DECISION_THREADS_WOKEN_COUNTER), eq(decisionTags), anyLong());
+
+    testEnvironment.close();
+  }
+
+  @Test
+  public void testEventsReplayedCountsMarkersOnce() throws InterruptedException {
+    setUp(com.uber.m3.util.Duration.ofMillis(10));
+
+    Worker worker = testEnvironment.newWorker(taskList);
+    worker.registerWorkflowImplementationTypes(TestMarkerWorkflowImpl.class);
+    testEnvironment.start();
+
+    WorkflowClient workflowClient = testEnvironment.newWorkflowClient();
+    WorkflowOptions options =
+        new WorkflowOptions.Builder()
+            .setExecutionStartToCloseTimeout(Duration.ofSeconds(1000))
+            .setTaskList(taskList)
+            .build();
+    TestMarkerWorkflow workflow = workflowClient.newWorkflowStub(TestMarkerWorkflow.class, options);
+    workflow.execute();
+
+    Thread.sleep(200);
+
+    Map<String, String> decisionTags =
+        new ImmutableMap.Builder<String, String>(3)
+            .put(MetricsTag.DOMAIN, DOMAIN)
+            .put(MetricsTag.TASK_LIST, taskList)
+            .put(MetricsTag.WORKFLOW_TYPE, "TestMarkerWorkflow::execute")
+            .build();
+    ArgumentCaptor<Long> replayedCaptor = ArgumentCaptor.forClass(Long.class);
+    verify(reporter, atLeastOnce())
+        .reportCounter(
+            eq(MetricsType.DECISION_EVENTS_REPLAYED_COUNTER),
+            eq(decisionTags),
+            replayedCaptor.capture());
+    long replayed = 0;
+    for (long value : replayedCaptor.getAllValues()) {
+      replayed += value;
+    }
+    // First task: WorkflowExecutionStarted and DecisionTaskScheduled. Second (sticky) task:
+    // MarkerRecorded and TimerStarted of the first decision, then TimerFired and
+    // DecisionTaskScheduled.
+    assertEquals(6, replayed);
+
     testEnvironment.close();
   }
 
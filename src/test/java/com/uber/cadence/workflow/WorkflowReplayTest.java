@@ -14,7 +14,26 @@
  */
 package com.uber.cadence.workflow;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.Resources;
+import com.uber.cadence.common.WorkflowExecutionHistory;
+import com.uber.cadence.testing.WorkflowReplayReport;
+import com.uber.cadence.testing.WorkflowReplayRunner;
 import com.uber.cadence.testing.WorkflowReplayer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -113,4 +132,121 @@ public class WorkflowReplayTest {
     WorkflowReplayer.replayWorkflowExecutionFromResource(
         "testChildWorkflowRetryHistory.json", WorkflowTest.TestChildWorkflowRetryWorkflow.class);
   }
+
+  @Test
+  public void testReplayRunnerOverCompressedArchive() throws Exception {
+    String history =
+        Resources.toString(Resources.getResource("timerfiring.json"), UTF_8).replace("\n", "");
+    File archive = File.createTempFile("histories", ".ndjson.gz");
+    archive.deleteOnExit();
+    try (Writer writer =
+        new OutputStreamWriter(
+            new GZIPOutputStream(Files.newOutputStream(archive.toPath())), UTF_8)) {
+      for (int i = 0; i < 10; i++) {
+        writer.write(history);
+        writer.write('\n');
+      }
+    }
+
+    WorkflowReplayReport report =
+        WorkflowReplayRunner.newInstance(2, WorkflowTest.TimerFiringWorkflowImpl.class)
+            .replayArchives(archive);
+    assertFalse(report.toString(), report.hasFailures());
+    assertEquals(10, report.getReplayed());
+    assertEquals(
+        10, report.getStatsByWorkflowType().get("GreetingWorkflow::createGreeting").getReplayed());
+  }
+
+  @Test
+  public void testReplayRunnerReportsFailuresAndStopsAtCorruptedEntry() throws Exception {
+    String history =
+        Resources.toString(Resources.getResource("timerfiring.json"), UTF_8).replace("\n", "");
+    String unknownWorkflowHistory =
+        Resources.toString(Resources.getResource("testChildWorkflowRetryHistory.json"), UTF_8)
+            .replace("\n", "");
+    File archive = File.createTempFile("histories", ".ndjson");
+    archive.deleteOnExit();
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(archive.toPath()), UTF_8)) {
+      writer.write(history + "\n");
+      // Replay fails as the workflow type is not registered.
+      writer.write(unknownWorkflowHistory + "\n");
+      // Well formed, but doesn't start with WorkflowExecutionStarted.
+      writer.write("[{\"eventId\":1,\"eventType\":\"DecisionTaskScheduled\"}]\n");
+      writer.write(history + "\n");
+      // Corrupted, nothing after it is read.
+      writer.write("[{\"eventId\":1,\"eventType\":}]\n");
+      writer.write(history + "\n");
+    }
+
+    WorkflowReplayReport report =
+        WorkflowReplayRunner.newInstance(2, WorkflowTest.TimerFiringWorkflowImpl.class)
+            .replayArchives(archive);
+    assertEquals(report.toString(), 5, report.getReplayed());
+    assertEquals(report.toString(), 3, report.getFailed());
+    assertEquals(
+        2, report.getStatsByWorkflowType().get("GreetingWorkflow::createGreeting").getReplayed());
+    List<String> failedSources = new ArrayList<>();
+    for (WorkflowReplayReport.Failure failure : report.getFailures()) {
+      failedSources.add(failure.getSource());
+    }
+    Collections.sort(failedSources);
+    String name = archive.getName();
+    assertEquals(Arrays.asList(name + "#1", name + "#2", name + "#4"), failedSources);
+  }
+
+  @Test
+  public void testReplayRunnerReportsHistoryWithoutWorkflowType() throws Exception {
+    WorkflowExecutionHistory history =
+        WorkflowExecutionHistory.fromJson(
+            Resources.toString(Resources.getResource("timerfiring.json"), UTF_8));
+    history.getEvents().get(0).getWorkflowExecutionStartedEventAttributes().setWorkflowType(null);
+
+    WorkflowReplayReport report =
+        WorkflowReplayRunner.newInstance(1, WorkflowTest.TimerFiringWorkflowImpl.class)
+            .replay(Collections.singletonList(history).iterator(), "history");
+    assertEquals(report.toString(), 1, report.getReplayed());
+    assertEquals(report.toString(), 1, report.getFailed());
+    assertEquals(1, report.getStatsByWorkflowType().get("unknown").getReplayed());
+  }
+
+  @Test
+  public void testReplayWorkflowExecutionsFromDirectory() throws Exception {
+    File directory = Files.createTempDirectory("histories").toFile();
+    directory.deleteOnExit();
+    String history = Resources.toString(Resources.getResource("timerfiring.json"), UTF_8);
+    for (int i = 0; i < 4; i++) {
+      writeFile(new File(directory, "history" + i + ".json"), history);
+    }
+    // Not a history file, ignored.
+    writeFile(new File(directory, "notes.txt"), "not a history");
+
+    WorkflowReplayer.replayWorkflowExecutions(
+        directory, 2, WorkflowTest.TimerFiringWorkflowImpl.class);
+
+    // Replay fails as the workflow type is not registered.
+    writeFile(
+        new File(directory, "history2.json"),
+        Resources.toString(Resources.getResource("testChildWorkflowRetryHistory.json"), UTF_8));
+    try {
+      WorkflowReplayer.replayWorkflowExecutions(
+          directory, 2, WorkflowTest.TimerFiringWorkflowImpl.class);
+      fail("unreachable");
+    } catch (Exception e) {
+      assertEquals(1, e.getSuppressed().length);
+      assertEquals("Failed to replay history2.json", e.getSuppressed()[0].getMessage());
+    }
+  }
+
+  @Test
+  public void testReplayWorkflowExecutionsFromEmptyDirectory() throws Exception {
+    File directory = Files.createTempDirectory("histories").toFile();
+    directory.deleteOnExit();
+    WorkflowReplayer.replayWorkflowExecutions(
+        directory, 2, WorkflowTest.TimerFiringWorkflowImpl.class);
+  }
+
+  private static void writeFile(File file, String content) throws IOException {
+    file.deleteOnExit();
+    Files.write(file.toPath(), content.getBytes(UTF_8));
+  }
 }
@@ -1168,6 +1168,71 @@ public class WorkflowTest {
     assertEquals("123456", activitiesImpl.procResult.get(6));
   }
 
+  public static class TestFanOutActivityWorkflowImpl implements TestWorkflow1 {
+
+    @Override
+    public String execute(String taskList) {
+      TestActivities testActivities =
+          Workflow.newActivityStub(TestActivities.class, newActivityOptions2());
+      List<Integer> items = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        items.add(i);
+      }
+      List<String> results =
+          Workflow.fanOut(
+                  items, 3, (item) -> Async.function(testActivities::activity2, "item", item))
+              .get();
+      return String.join(",", results);
+    }
+  }
+
+  @Test
+  public void testFanOutActivities() {
+    startWorkerFor(TestFanOutActivityWorkflowImpl.class);
+    TestWorkflow1 client =
+        workflowClient.newWorkflowStub(
+            TestWorkflow1.class, newWorkflowOptionsBuilder(taskList).build());
+    String result = client.execute(taskList);
+    assertEquals("item0,item1,item2,item3,item4,item5,item6,item7,item8,item9", result);
+    assertEquals(10, activitiesImpl.invocations.size());
+  }
+
+  public static class TestContinueAsNewSuggestedWorkflowImpl implements TestWorkflow1 {
+
+    @Override
+    public String execute(String taskList) {
+      TestActivities activities =
+          Workflow.newActivityStub(TestActivities.class, newActivityOptions1(taskList));
+      WorkflowInfo info = Workflow.getWorkflowInfo();
+      long lastLength = info.getHistoryLength();
+      long lastSize = info.getHistorySize();
+      int count = 0;
+      while (!info.isContinueAsNewSuggested() && count < 10) {
+        activities.activity2("item" + count, count);
+        assertTrue(info.getHistoryLength() > lastLength);
+        assertTrue(info.getHistorySize() > lastSize);
+        lastLength = info.getHistoryLength();
+        lastSize = info.getHistorySize();
+        count++;
+      }
+      return count + ":" + (lastLength >= 20);
+    }
+  }
+
+  @Test
+  public void testContinueAsNewSuggested() {
+    WorkflowImplementationOptions implementationOptions =
+        new WorkflowImplementationOptions.Builder()
+            .setContinueAsNewSuggestedHistoryLength(20)
+            .build();
+    startWorkerFor(implementationOptions, TestContinueAsNewSuggestedWorkflowImpl.class);
+    TestWorkflow1 client =
+        workflowClient.newWorkflowStub(
+            TestWorkflow1.class, newWorkflowOptionsBuilder(taskList).build());
+    String result = client.execute(taskList);
+    assertEquals("3:true", result);
+  }
+
   public static class TestAsyncUtypedActivityWorkflowImpl implements TestWorkflow1 {
 
     @Override